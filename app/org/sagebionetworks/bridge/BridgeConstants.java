@@ -59,8 +59,26 @@ public class BridgeConstants {
     // 5 hrs
     public static final int BRIDGE_VIEW_EXPIRE_IN_SECONDS = 5 * 60 * 60;
     
+    // 4 hrs 45 minutes (after which a cached view is refreshed by one caller while others use the stale view)
+    public static final int BRIDGE_VIEW_SOFT_EXPIRE_IN_SECONDS = BRIDGE_VIEW_EXPIRE_IN_SECONDS - (15 * 60);
+    
+    // 1 minute (views held in-process, in front of Redis)
+    public static final int BRIDGE_VIEW_LOCAL_EXPIRE_IN_SECONDS = 60;
+    
     // 1 minute
     public static final int BRIDGE_STUDY_EMAIL_STATUS_IN_SECONDS = 60;
+    
+    // 1 hr (activity event maps are updated as events are published, this only bounds staleness)
+    public static final int BRIDGE_ACTIVITY_EVENTS_EXPIRE_IN_SECONDS = 60 * 60;
+
+    // 5 minutes (counts are removed when activities are added or deleted, this only bounds staleness)
+    public static final int BRIDGE_ACTIVITY_HISTORY_COUNT_EXPIRE_IN_SECONDS = 5 * 60;
+
+    // 7 days (how long the outcomes of a bulk notification job can be retrieved)
+    public static final int BRIDGE_BULK_NOTIFICATION_JOB_EXPIRE_IN_SECONDS = 7 * 24 * 60 * 60;
+
+    // 1 hr (options are written through to the cache as they are changed, this only bounds staleness)
+    public static final int BRIDGE_PARTICIPANT_OPTIONS_EXPIRE_IN_SECONDS = 60 * 60;
 
     public static final String SCHEDULE_STRATEGY_PACKAGE = "org.sagebionetworks.bridge.models.schedules.";
 
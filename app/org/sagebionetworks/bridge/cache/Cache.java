@@ -2,9 +2,17 @@ package org.sagebionetworks.bridge.cache;
 
 import java.util.List;
 
+import com.google.common.base.Supplier;
+
 public interface Cache {
     <T> T get(Class<? extends T> clazz, String key);
 
+    /**
+     * Get the value for the key, or on a miss, load it with the loader and cache it. Concurrent misses on the
+     * same key share a single call to the loader.
+     */
+    <T> T get(Class<? extends T> clazz, String key, Supplier<T> loader, int ttlSeconds);
+
     <T> List<T> getList(Class<? extends T> clazz, String key);
 
     <T> void put(Class<? extends T> clazz, String key, T value, int ttlSeconds);
@@ -3,9 +3,12 @@ package org.sagebionetworks.bridge.cache;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -13,6 +16,7 @@ import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationJob;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
@@ -21,7 +25,14 @@ import org.sagebionetworks.bridge.redis.RedisKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
 
 /**
  * A wrapper around whatever cache provider we ultimately decide to go with (probably Redis). 
@@ -30,8 +41,33 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Component
 public class CacheProvider {
     
+    private static final TypeReference<Map<String,Long>> EVENT_MAP_TYPE = new TypeReference<Map<String,Long>>() {};
+    
+    private static final TypeReference<Map<String,String>> OPTIONS_MAP_TYPE = new TypeReference<Map<String,String>>() {};
+    
+    // KEYS: value, version. ARGV: version read before the value was loaded ("" if none), value, TTL.
+    // A value is only cached if it hasn't been replaced or removed since it was loaded.
+    private static final String ADD_VERSIONED_SCRIPT =
+            "if (redis.call('GET', KEYS[2]) or '') == ARGV[1] then\n" +
+            "  return redis.call('SET', KEYS[1], ARGV[2], 'NX', 'EX', ARGV[3])\n" +
+            "end\n" +
+            "return false";
+    
+    // KEYS: value, version. ARGV: TTL.
+    private static final String REMOVE_VERSIONED_SCRIPT =
+            "redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[1])\n" +
+            "return redis.call('DEL', KEYS[1])";
+    
+    private static final String OPTIONS_EXPIRE_IN_SECONDS = 
+            Integer.toString(BridgeConstants.BRIDGE_PARTICIPANT_OPTIONS_EXPIRE_IN_SECONDS);
+    
+    private static final String ACTIVITY_EVENTS_EXPIRE_IN_SECONDS = 
+            Integer.toString(BridgeConstants.BRIDGE_ACTIVITY_EVENTS_EXPIRE_IN_SECONDS);
+    
     private ObjectMapper bridgeObjectMapper;
     private JedisOps jedisOps;
+    private JedisPool jedisPool;
     private int sessionExpireInSeconds;
 
     @Autowired
@@ -44,6 +80,11 @@ public class CacheProvider {
         this.jedisOps = jedisOps;
     }
     
+    @Autowired
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+    
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
@@ -118,6 +159,7 @@ public class CacheProvider {
         final String userKey = RedisKey.USER_SESSION.getRedisKey(userId);
         
         final String sessionKey = RedisKey.SESSION.getRedisKey(sessionToken);
+        final String staleKey = RedisKey.STALE_SESSION.getRedisKey(userId);
         try (JedisTransaction transaction = jedisOps.getTransaction()) {
             
             // If the key exists, get the remaining time to expiration. If it doesn't exist
@@ -131,11 +173,12 @@ public class CacheProvider {
             List<Object> results = transaction
                 .setex(userKey, expiration, sessionToken)
                 .setex(sessionKey, expiration, ser)
+                .del(staleKey)
                 .exec();
             if (results == null) {
                 throw new BridgeServiceException("Session storage error.");
             }
-            for (Object result : results) {
+            for (Object result : results.subList(0, 2)) {
                 if (!"OK".equals(result)) {
                     throw new BridgeServiceException("Session storage error.");
                 }
@@ -146,6 +189,35 @@ public class CacheProvider {
         }
     }
 
+    /**
+     * Mark a user's cached session as stale, before their account or consents are changed. The session (and its 
+     * token) can still be used, but it shouldn't be used in place of the account (see 
+     * AuthenticationService.getSession()), until an updated session is cached with setUserSession().
+     */
+    public void setUserSessionStale(final String userId) {
+        checkNotNull(userId);
+        try {
+            String result = jedisOps.setex(RedisKey.STALE_SESSION.getRedisKey(userId), sessionExpireInSeconds,
+                    "true");
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("Session storage error.");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    public boolean isUserSessionStale(final String userId) {
+        checkNotNull(userId);
+        try {
+            return jedisOps.get(RedisKey.STALE_SESSION.getRedisKey(userId)) != null;
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
     public UserSession getUserSession(final String sessionToken) {
         checkNotNull(sessionToken);
         try {
@@ -247,6 +319,206 @@ public class CacheProvider {
         }
     }
 
+    /**
+     * Get a user's activity event map, or null if it is not cached. Timestamps are held as epoch 
+     * milliseconds and returned in UTC.
+     */
+    public Map<String,DateTime> getActivityEventMap(String healthCode) {
+        try {
+            String redisKey = RedisKey.ACTIVITY_EVENTS.getRedisKey(healthCode);
+            String ser = jedisOps.get(redisKey);
+            if (ser != null) {
+                Map<String,Long> millisMap = bridgeObjectMapper.readValue(ser, EVENT_MAP_TYPE);
+                ImmutableMap.Builder<String,DateTime> builder = new ImmutableMap.Builder<>();
+                for (Map.Entry<String,Long> entry : millisMap.entrySet()) {
+                    builder.put(entry.getKey(), new DateTime(entry.getValue(), DateTimeZone.UTC));
+                }
+                return builder.build();
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return null;
+    }
+    
+    /**
+     * Get the version of a user's cached activity event map. Read this before loading the events from DynamoDB, and 
+     * pass it to addActivityEventMap(), so that a map removed in the meantime (because an event was published) is 
+     * not replaced in the cache with the older events.
+     */
+    public String getActivityEventMapVersion(String healthCode) {
+        try {
+            return jedisOps.get(RedisKey.ACTIVITY_EVENTS_VERSION.getRedisKey(healthCode));
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Cache a user's activity event map loaded from DynamoDB, only if no map is cached and the map has not been 
+     * removed since the given version was read (see getActivityEventMapVersion()).
+     */
+    public void addActivityEventMap(String healthCode, String version, Map<String,DateTime> eventMap) {
+        try {
+            Map<String,Long> millisMap = Maps.newHashMap();
+            for (Map.Entry<String,DateTime> entry : eventMap.entrySet()) {
+                millisMap.put(entry.getKey(), entry.getValue().getMillis());
+            }
+            String ser = bridgeObjectMapper.writeValueAsString(millisMap);
+            evalVersionedScript(RedisKey.ACTIVITY_EVENTS, RedisKey.ACTIVITY_EVENTS_VERSION, healthCode,
+                    ADD_VERSIONED_SCRIPT, (version == null) ? "" : version, ser, ACTIVITY_EVENTS_EXPIRE_IN_SECONDS);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    public void removeActivityEventMap(String healthCode) {
+        try {
+            evalVersionedScript(RedisKey.ACTIVITY_EVENTS, RedisKey.ACTIVITY_EVENTS_VERSION, healthCode,
+                    REMOVE_VERSIONED_SCRIPT, ACTIVITY_EVENTS_EXPIRE_IN_SECONDS);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    /**
+     * Get the number of scheduled activities in a user's activity history, or null if it is not cached.
+     */
+    public Integer getActivityHistoryCount(String healthCode) {
+        try {
+            String redisKey = RedisKey.ACTIVITY_HISTORY_COUNT.getRedisKey(healthCode);
+            String ser = jedisOps.get(redisKey);
+            if (ser != null) {
+                return Integer.valueOf(ser);
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return null;
+    }
+
+    public void setActivityHistoryCount(String healthCode, int count) {
+        try {
+            String redisKey = RedisKey.ACTIVITY_HISTORY_COUNT.getRedisKey(healthCode);
+            String result = jedisOps.setex(redisKey, BridgeConstants.BRIDGE_ACTIVITY_HISTORY_COUNT_EXPIRE_IN_SECONDS,
+                    Integer.toString(count));
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("Activity history count storage error");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    public void removeActivityHistoryCount(String healthCode) {
+        try {
+            String redisKey = RedisKey.ACTIVITY_HISTORY_COUNT.getRedisKey(healthCode);
+            jedisOps.del(redisKey);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    /**
+     * Get a participant's saved options (option names to values), or null if they are not cached.
+     */
+    public Map<String,String> getParticipantOptions(String healthCode) {
+        try {
+            String redisKey = RedisKey.PARTICIPANT_OPTIONS.getRedisKey(healthCode);
+            String ser = jedisOps.get(redisKey);
+            if (ser != null) {
+                return bridgeObjectMapper.readValue(ser, OPTIONS_MAP_TYPE);
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Get the version of a participant's cached options. Read this before loading the options from DynamoDB, and 
+     * pass it to addParticipantOptions(), so that options that change in the meantime are not replaced in the cache 
+     * with the older options.
+     */
+    public String getParticipantOptionsVersion(String healthCode) {
+        try {
+            return jedisOps.get(RedisKey.PARTICIPANT_OPTIONS_VERSION.getRedisKey(healthCode));
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    /**
+     * Cache a participant's options loaded from DynamoDB, only if no options are cached and the options have not 
+     * been replaced or removed since the given version was read (see getParticipantOptionsVersion()).
+     */
+    public void addParticipantOptions(String healthCode, String version, Map<String,String> options) {
+        try {
+            String ser = bridgeObjectMapper.writeValueAsString(options);
+            evalVersionedScript(RedisKey.PARTICIPANT_OPTIONS, RedisKey.PARTICIPANT_OPTIONS_VERSION, healthCode,
+                    ADD_VERSIONED_SCRIPT, (version == null) ? "" : version, ser, OPTIONS_EXPIRE_IN_SECONDS);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
+    public void removeParticipantOptions(String healthCode) {
+        try {
+            evalVersionedScript(RedisKey.PARTICIPANT_OPTIONS, RedisKey.PARTICIPANT_OPTIONS_VERSION, healthCode,
+                    REMOVE_VERSIONED_SCRIPT, OPTIONS_EXPIRE_IN_SECONDS);
+        } catch(Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    private Object evalVersionedScript(RedisKey redisKey, RedisKey versionKey, String id, String script,
+            String... args) {
+        List<String> keys = ImmutableList.of(redisKey.getRedisKey(id), versionKey.getRedisKey(id));
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.eval(script, keys, ImmutableList.copyOf(args));
+        }
+    }
+
+    public BulkNotificationJob getBulkNotificationJob(String jobId) {
+        try {
+            String redisKey = RedisKey.BULK_NOTIFICATION_JOB.getRedisKey(jobId);
+            String ser = jedisOps.get(redisKey);
+            if (ser != null) {
+                return bridgeObjectMapper.readValue(ser, BulkNotificationJob.class);
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+        return null;
+    }
+
+    public void setBulkNotificationJob(BulkNotificationJob job) {
+        try {
+            String redisKey = RedisKey.BULK_NOTIFICATION_JOB.getRedisKey(job.getJobId());
+            String ser = bridgeObjectMapper.writeValueAsString(job);
+            String result = jedisOps.setex(redisKey, BridgeConstants.BRIDGE_BULK_NOTIFICATION_JOB_EXPIRE_IN_SECONDS,
+                    ser);
+            if (!"OK".equals(result)) {
+                throw new BridgeServiceException("Bulk notification job storage error");
+            }
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+
     public String getString(String cacheKey) {
         try {
             return jedisOps.get(cacheKey);
@@ -0,0 +1,29 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The serialized form of a cached view, held both as raw UTF-8 JSON bytes and as the gzip-compressed form of 
+ * those bytes, so that a response can be written directly from the cache without re-serializing or 
+ * re-compressing the entity on every request.
+ */
+public final class CachedView {
+    
+    private final byte[] json;
+    private final byte[] gzippedJson;
+    
+    CachedView(byte[] json, byte[] gzippedJson) {
+        this.json = checkNotNull(json);
+        this.gzippedJson = checkNotNull(gzippedJson);
+    }
+    
+    /** The JSON of the view as UTF-8 bytes. Do not modify the returned array. */
+    public byte[] getJson() {
+        return json;
+    }
+    
+    /** The gzip-compressed JSON of the view. Do not modify the returned array. */
+    public byte[] getGzippedJson() {
+        return gzippedJson;
+    }
+}
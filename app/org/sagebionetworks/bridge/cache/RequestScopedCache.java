@@ -0,0 +1,94 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+
+/**
+ * Memoizes reads for the duration of one request, so that an object loaded several times while handling a request
+ * (the study, the caller's participant options, the study's subpopulations) is only retrieved from Redis or DynamoDB
+ * once. The scope is bound to the request thread by the RequestScopeInterceptor; outside of a request (in workers
+ * and tests), every call goes through to the loader. Services that read through this cache must invalidate their
+ * entries when they write, so that a read following a write in the same request is not stale.
+ *
+ * Values are shared for the whole request and are not copied on each read, so a caller that is going to modify a
+ * memoized object must copy it first, or its unsaved changes will be seen by the callers after it.
+ */
+public final class RequestScopedCache {
+
+    private static final ThreadLocal<Map<String,Object>> SCOPE = new ThreadLocal<>();
+
+    private RequestScopedCache() {
+    }
+
+    /**
+     * Bind a new scope to the current thread. Returns false (and does nothing) if a scope is already bound, in which
+     * case the caller should not end the scope.
+     */
+    public static boolean begin() {
+        if (SCOPE.get() != null) {
+            return false;
+        }
+        SCOPE.set(Maps.newHashMap());
+        return true;
+    }
+
+    /** Discard the scope bound to the current thread, if any. */
+    public static void end() {
+        SCOPE.remove();
+    }
+
+    public static boolean isActive() {
+        return SCOPE.get() != null;
+    }
+
+    /**
+     * Get the memoized value for this key, or load it. Null values are not memoized.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String key, Supplier<T> loader) {
+        checkArgument(isNotBlank(key));
+        checkNotNull(loader);
+
+        Map<String,Object> scope = SCOPE.get();
+        if (scope == null) {
+            return loader.get();
+        }
+        T value = (T)scope.get(key);
+        if (value == null) {
+            // Not computeIfAbsent: a loader may itself write, and invalidate entries in this scope.
+            value = loader.get();
+            if (value != null) {
+                scope.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public static void invalidate(String key) {
+        Map<String,Object> scope = SCOPE.get();
+        if (scope != null) {
+            scope.remove(key);
+        }
+    }
+
+    /**
+     * Remove all the entries whose keys start with this prefix (e.g. all the variants of a query for one study).
+     */
+    public static void invalidatePrefix(String prefix) {
+        Map<String,Object> scope = SCOPE.get();
+        if (scope != null) {
+            for (Iterator<String> i = scope.keySet().iterator(); i.hasNext();) {
+                if (i.next().startsWith(prefix)) {
+                    i.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.sagebionetworks.bridge.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.sagebionetworks.bridge.dao.DistributedLockDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Coordinates the loading of cache entries so that a miss on a hot key does not send every concurrent request
+ * to the backing store at once. Within a node, only one load per key is in flight; other callers wait for its
+ * result. Across nodes, a short Redis lease is taken so that one node repopulates the cache while the others
+ * poll the cache briefly (or serve the stale value they already have) before loading on their own.
+ */
+@Component
+public class SingleFlightLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightLoader.class);
+
+    /** A lease should outlive any reasonable load, but expire quickly if the loading node dies. */
+    static final int LEASE_EXPIRE_IN_SECONDS = 10;
+
+    static final long WAIT_INTERVAL_MILLIS = 50;
+
+    static final long MAX_WAIT_MILLIS = 2000;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private DistributedLockDao lockDao;
+
+    @Autowired
+    public final void setDistributedLockDao(DistributedLockDao lockDao) {
+        this.lockDao = lockDao;
+    }
+
+    /**
+     * Load a value that is missing from the cache. The loader is expected to write the value it returns to the
+     * cache. If another node holds the lease for this key, the cache lookup is polled until that node has
+     * populated the cache; if it takes too long, the value is loaded here anyway.
+     *
+     * @param key
+     *      the cache key being loaded
+     * @param cacheLookup
+     *      reads the key from the cache, returning null if it is not present
+     * @param loader
+     *      loads the value from the backing store and caches it
+     */
+    public <T> T load(String key, Supplier<T> cacheLookup, Supplier<T> loader) {
+        checkNotNull(key);
+        checkNotNull(cacheLookup);
+        checkNotNull(loader);
+
+        return singleFlight(key, () -> {
+            String lease = acquireLease(key);
+            if (lease != null) {
+                return loadAndRelease(key, lease, loader);
+            }
+            for (long waited = 0; waited < MAX_WAIT_MILLIS; waited += WAIT_INTERVAL_MILLIS) {
+                sleep(WAIT_INTERVAL_MILLIS);
+                T value = cacheLookup.get();
+                if (value != null) {
+                    return value;
+                }
+            }
+            logger.info("Timed out waiting for another node to load '" + key + "', loading it here");
+            return loader.get();
+        });
+    }
+
+    /**
+     * Refresh a value that is still cached but has passed its soft expiration. Only the caller that obtains the
+     * lease for the key reloads it; everyone else (on this node or another) is given the stale value.
+     *
+     * @param key
+     *      the cache key being refreshed
+     * @param staleValue
+     *      the value currently in the cache
+     * @param loader
+     *      loads the value from the backing store and caches it
+     */
+    public <T> T revalidate(String key, T staleValue, Supplier<T> loader) {
+        checkNotNull(key);
+        checkNotNull(loader);
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return staleValue;
+        }
+        try {
+            T value = staleValue;
+            String lease = acquireLease(key);
+            if (lease != null) {
+                value = loadAndRelease(key, lease, loader);
+            }
+            future.complete(value);
+            return value;
+        } catch(RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T singleFlight(String key, Supplier<T> supplier) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return (T)existing.join();
+            } catch(CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)e.getCause();
+                }
+                throw new BridgeServiceException(e.getCause());
+            }
+        }
+        try {
+            T value = supplier.get();
+            future.complete(value);
+            return value;
+        } catch(RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private <T> T loadAndRelease(String key, String lease, Supplier<T> loader) {
+        try {
+            return loader.get();
+        } finally {
+            if (!lease.isEmpty()) {
+                try {
+                    lockDao.releaseLock(SingleFlightLoader.class, key, lease);
+                } catch(RuntimeException e) {
+                    // The lease will expire on its own
+                    logger.warn("Could not release cache lease for '" + key + "'", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the lease, or null if another node holds it. If Redis cannot be reached for the lease, we proceed
+     * as if we had it (returning an empty lease that is not released) rather than failing the request.
+     */
+    private String acquireLease(String key) {
+        try {
+            String lease = lockDao.acquireLock(SingleFlightLoader.class, key, LEASE_EXPIRE_IN_SECONDS);
+            return (lease == null) ? "" : lease;
+        } catch(ConcurrentModificationException e) {
+            return null;
+        } catch(RuntimeException e) {
+            logger.warn("Could not acquire cache lease for '" + key + "'", e);
+            return "";
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.sagebionetworks.bridge.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.sagebionetworks.bridge.dao.StudyDao;
+import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * An in-memory registry of all studies (including deactivated ones), holding only the identifier, active flag
+ * and version of each study. Enumerating studies through the registry does not load each study's configuration;
+ * callers that need a full study load it through the study cache, and can compare its version to the registry's
+ * version to detect a stale cached copy.
+ *
+ * The registry is reloaded from DynamoDB at most once per refresh interval, or on the next read after a study is
+ * created, updated or deleted on this node. Changes made on other nodes are picked up at the next refresh.
+ */
+@Component
+public class StudyRegistry {
+
+    static final long REFRESH_INTERVAL_MILLIS = 60 * 1000;
+
+    private StudyDao studyDao;
+
+    private volatile Map<String, StudyRegistryEntry> entries;
+    private volatile long refreshedOn;
+
+    @Autowired
+    final void setStudyDao(StudyDao studyDao) {
+        this.studyDao = studyDao;
+    }
+
+    /** All the registry entries, ordered by study identifier. */
+    public List<StudyRegistryEntry> getEntries() {
+        return ImmutableList.copyOf(getEntryMap().values());
+    }
+
+    /** The registry entry for a study, or null if the study is not in the registry. */
+    public StudyRegistryEntry getEntry(String identifier) {
+        return getEntryMap().get(identifier);
+    }
+
+    /** Forces the registry to be reloaded on the next read. */
+    public void invalidate() {
+        entries = null;
+    }
+
+    private Map<String, StudyRegistryEntry> getEntryMap() {
+        Map<String, StudyRegistryEntry> map = entries;
+        if (map == null || isExpired()) {
+            synchronized (this) {
+                // Another thread may have refreshed the registry while we waited.
+                map = entries;
+                if (map == null || isExpired()) {
+                    map = load();
+                    refreshedOn = DateUtils.getCurrentMillisFromEpoch();
+                    entries = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    private boolean isExpired() {
+        return DateUtils.getCurrentMillisFromEpoch() - refreshedOn > REFRESH_INTERVAL_MILLIS;
+    }
+
+    private Map<String, StudyRegistryEntry> load() {
+        Map<String, StudyRegistryEntry> map = new TreeMap<>();
+        for (StudyRegistryEntry entry : studyDao.getStudyRegistryEntries()) {
+            map.put(entry.getIdentifier(), entry);
+        }
+        return ImmutableMap.copyOf(map);
+    }
+}
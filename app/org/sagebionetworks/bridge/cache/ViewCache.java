@@ -1,5 +1,12 @@
 package org.sagebionetworks.bridge.cache;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
@@ -12,6 +19,7 @@ import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
 
 @Component
 public class ViewCache {
@@ -20,6 +28,12 @@ public class ViewCache {
     
     private static final Joiner COLON_JOINER = Joiner.on(":");
     
+    private static final String GZIP_SUFFIX = ":gzip";
+    
+    private static final String FRESH_SUFFIX = ":fresh";
+    
+    private static final int LOCAL_MAX_VIEWS = 500;
+    
     public final class ViewCacheKey<T> {
         private final String key;
         public ViewCacheKey(String key) {
@@ -28,34 +42,81 @@ public class ViewCache {
         String getKey() {
             return key;
         }
+        String getGzipKey() {
+            return key + GZIP_SUFFIX;
+        }
+        String getFreshKey() {
+            return key + FRESH_SUFFIX;
+        }
     };
     
     private CacheProvider cache;
     
+    private SingleFlightLoader singleFlightLoader;
+    
+    /**
+     * A small, in-process tier in front of Redis for the byte forms of views. Entries expire quickly because 
+     * removeView() can only clear the tier on the node where it is called; other nodes will see the change 
+     * once their local entry expires.
+     */
+    private final com.google.common.cache.Cache<String, CachedView> localCache = CacheBuilder.newBuilder()
+            .maximumSize(LOCAL_MAX_VIEWS)
+            .expireAfterWrite(BridgeConstants.BRIDGE_VIEW_LOCAL_EXPIRE_IN_SECONDS, TimeUnit.SECONDS)
+            .build();
+    
     @Autowired
     public void setCacheProvider(CacheProvider cacheProvider) {
         this.cache = cacheProvider;
     }
     
+    @Autowired
+    public void setSingleFlightLoader(SingleFlightLoader singleFlightLoader) {
+        this.singleFlightLoader = singleFlightLoader;
+    }
+    
     /**
      * Get the JSON for the viewCacheKey, or if nothing has been cached, call the supplier, 
-     * cache the JSON representation of the object returned, and return that JSON.
+     * cache the JSON representation of the object returned, and return that JSON. Concurrent 
+     * misses on the same key share a single call to the supplier.
      * @param key
      * @param supplier
      * @return
      */
     public <T> String getView(ViewCacheKey<T> key, Supplier<T> supplier) {
-        try {
-            String value = cache.getString(key.getKey());
-            if (value == null) {
-                value = cacheView(key, supplier);
-            } else {
-                logger.debug("Retrieving " +key.getKey()+"' JSON from cache");
-            }
-            return value;
-        } catch(JsonProcessingException e) {
-            throw new BridgeServiceException(e);
+        String value = cache.getString(key.getKey());
+        if (value == null) {
+            value = singleFlightLoader.load(key.getKey(), () -> cache.getString(key.getKey()),
+                    () -> cacheView(key, supplier));
+        } else {
+            logger.debug("Retrieving " +key.getKey()+"' JSON from cache");
+        }
+        return value;
+    }
+
+    /**
+     * Get the view for the viewCacheKey in both its raw and gzip-compressed byte forms, so it can be written 
+     * directly to a response. The view is looked up in the local tier, then in Redis, and if it is not found 
+     * in either, the supplier is called and the JSON representation of the object returned is cached in both 
+     * forms. Concurrent misses share a single call to the supplier. Once a view passes its soft expiration, one 
+     * caller refreshes it while everyone else continues to receive the stale view.
+     * @param key
+     * @param supplier
+     * @return
+     */
+    public <T> CachedView getViewBytes(ViewCacheKey<T> key, Supplier<T> supplier) {
+        CachedView view = localCache.getIfPresent(key.getKey());
+        if (view != null) {
+            return view;
+        }
+        view = getCachedViewBytes(key);
+        if (view == null) {
+            view = singleFlightLoader.load(key.getKey(), () -> getCachedViewBytes(key),
+                    () -> cacheViewBytes(key, supplier));
+        } else if (cache.getString(key.getFreshKey()) == null) {
+            view = singleFlightLoader.revalidate(key.getKey(), view, () -> cacheViewBytes(key, supplier));
         }
+        localCache.put(key.getKey(), view);
+        return view;
     }
 
     /**
@@ -64,7 +125,10 @@ public class ViewCache {
      */
     public <T> void removeView(ViewCacheKey<T> key) {
         logger.debug("Deleting JSON for '" +key.getKey() +"'");
+        localCache.invalidate(key.getKey());
         cache.removeString(key.getKey());
+        cache.removeString(key.getGzipKey());
+        cache.removeString(key.getFreshKey());
     }
     
     /**
@@ -79,12 +143,52 @@ public class ViewCache {
         return new ViewCacheKey<T>(RedisKey.VIEW.getRedisKey(id + ":" + clazz.getName()));
     }
     
-    private <T> String cacheView(ViewCacheKey<T> key, Supplier<T> supplier) throws JsonProcessingException {
+    private <T> String cacheView(ViewCacheKey<T> key, Supplier<T> supplier) {
         logger.debug("Caching JSON for " +key.getKey()+"'");
         T object = supplier.get();
-        String value = BridgeObjectMapper.get().writeValueAsString(object);
-        cache.setString(key.getKey(), value, BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
-        return value;
+        try {
+            String value = BridgeObjectMapper.get().writeValueAsString(object);
+            cache.setString(key.getKey(), value, BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
+            return value;
+        } catch(JsonProcessingException e) {
+            throw new BridgeServiceException(e);
+        }
     }
     
+    private <T> CachedView getCachedViewBytes(ViewCacheKey<T> key) {
+        String json = cache.getString(key.getKey());
+        String gzipped = (json == null) ? null : cache.getString(key.getGzipKey());
+        if (json != null && gzipped != null) {
+            logger.debug("Retrieving " +key.getKey()+"' JSON and gzipped JSON from cache");
+            return new CachedView(json.getBytes(StandardCharsets.UTF_8), Base64.getDecoder().decode(gzipped));
+        }
+        return null;
+    }
+    
+    private <T> CachedView cacheViewBytes(ViewCacheKey<T> key, Supplier<T> supplier) {
+        logger.debug("Caching JSON and gzipped JSON for " +key.getKey()+"'");
+        T object = supplier.get();
+        try {
+            byte[] json = BridgeObjectMapper.get().writeValueAsBytes(object);
+            byte[] gzipped = gzip(json);
+            // Write the compressed form first: a reader only trusts the gzip key if the raw key is also present
+            cache.setString(key.getGzipKey(), Base64.getEncoder().encodeToString(gzipped),
+                    BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
+            cache.setString(key.getKey(), new String(json, StandardCharsets.UTF_8),
+                    BridgeConstants.BRIDGE_VIEW_EXPIRE_IN_SECONDS);
+            cache.setString(key.getFreshKey(), Boolean.TRUE.toString(),
+                    BridgeConstants.BRIDGE_VIEW_SOFT_EXPIRE_IN_SECONDS);
+            return new CachedView(json, gzipped);
+        } catch(IOException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(baos)) {
+            gzipStream.write(bytes);
+        }
+        return baos.toByteArray();
+    }
 }
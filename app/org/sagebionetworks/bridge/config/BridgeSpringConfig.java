@@ -59,6 +59,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudyConsent1;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurvey;
 import org.sagebionetworks.bridge.dynamodb.DynamoSurveyElement;
+import org.sagebionetworks.bridge.dynamodb.DynamoSurveyPointer;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
 import org.sagebionetworks.bridge.dynamodb.DynamoSubpopulation;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
@@ -71,6 +72,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoUploadSchema;
 import org.sagebionetworks.bridge.dynamodb.DynamoUtils;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.services.BulkNotificationService;
 import org.sagebionetworks.bridge.upload.DecryptHandler;
 import org.sagebionetworks.bridge.upload.IosSchemaValidationHandler2;
 import org.sagebionetworks.bridge.upload.ParseJsonHandler;
@@ -80,6 +82,7 @@ import org.sagebionetworks.bridge.upload.TranscribeConsentHandler;
 import org.sagebionetworks.bridge.upload.UnzipHandler;
 import org.sagebionetworks.bridge.upload.UploadArtifactsHandler;
 import org.sagebionetworks.bridge.upload.UploadValidationHandler;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 /**
  * Annotation-based Spring config. This class is shared between both production and (Spring-based) test configs. For
@@ -156,7 +159,7 @@ public class BridgeSpringConfig {
     @Bean(name = "snsClient")
     @Resource(name = "snsCredentials")
     public AmazonSNSClient snsClient() {
-        return new AmazonSNSClient(snsCredentials());
+        return new AmazonSNSClient(snsCredentials(), dependencyClientConfig("sns"));
     }
 
     @Bean(name = "dataPipelineClient")
@@ -215,7 +218,7 @@ public class BridgeSpringConfig {
     @Bean(name = "s3ConsentsClient")
     @Resource(name = "s3ConsentsCredentials")
     public AmazonS3Client s3ConsentsClient(BasicAWSCredentials awsCredentials) {
-        return new AmazonS3Client(awsCredentials);
+        return new AmazonS3Client(awsCredentials, dependencyClientConfig("s3"));
     }
 
     @Bean(name = "s3ConsentsHelper")
@@ -229,13 +232,53 @@ public class BridgeSpringConfig {
     @Bean(name = "sesClient")
     @Resource(name="awsCredentials")
     public AmazonSimpleEmailServiceClient sesClient(BasicAWSCredentials awsCredentials) {
-        return new AmazonSimpleEmailServiceClient(awsCredentials);
+        return new AmazonSimpleEmailServiceClient(awsCredentials, dependencyClientConfig("ses"));
     }
 
     @Bean(name = "sqsClient")
     @Resource(name = "awsCredentials")
     public AmazonSQSClient sqsClient(BasicAWSCredentials awsCredentials) {
-        return new AmazonSQSClient(awsCredentials);
+        return new AmazonSQSClient(awsCredentials, dependencyClientConfig("sqs"));
+    }
+
+    @Bean(name = "stormpathCircuitBreaker")
+    public CircuitBreaker stormpathCircuitBreaker() {
+        return circuitBreaker("stormpath");
+    }
+
+    @Bean(name = "s3CircuitBreaker")
+    public CircuitBreaker s3CircuitBreaker() {
+        return circuitBreaker("s3");
+    }
+
+    @Bean(name = "sesCircuitBreaker")
+    public CircuitBreaker sesCircuitBreaker() {
+        return circuitBreaker("ses");
+    }
+
+    @Bean(name = "snsCircuitBreaker")
+    public CircuitBreaker snsCircuitBreaker() {
+        return circuitBreaker("sns");
+    }
+
+    @Bean(name = "sqsCircuitBreaker")
+    public CircuitBreaker sqsCircuitBreaker() {
+        return circuitBreaker("sqs");
+    }
+
+    private CircuitBreaker circuitBreaker(String dependency) {
+        BridgeConfig bridgeConfig = bridgeConfig();
+        return new CircuitBreaker(dependency,
+                bridgeConfig.getPropertyAsInt(dependency + ".circuit.failure.threshold"),
+                bridgeConfig.getPropertyAsInt(dependency + ".circuit.open.seconds"),
+                bridgeConfig.getPropertyAsInt(dependency + ".circuit.max.concurrent.calls"));
+    }
+
+    /** Connection, socket and overall request timeouts for a dependency behind a circuit breaker. */
+    private ClientConfiguration dependencyClientConfig(String dependency) {
+        int timeoutMillis = bridgeConfig().getPropertyAsInt(dependency + ".timeout.millis");
+        return new ClientConfiguration().withConnectionTimeout(timeoutMillis).withSocketTimeout(timeoutMillis)
+                .withRequestTimeout(timeoutMillis);
     }
 
     @Bean(name = "asyncExecutorService")
@@ -244,6 +287,22 @@ public class BridgeSpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    @Bean(name = "bulkNotificationJobExecutorService")
+    public ExecutorService bulkNotificationJobExecutorService() {
+        return BulkNotificationService.newJobExecutor();
+    }
+
+    @Bean(name = "bulkNotificationPublishExecutorService")
+    public ExecutorService bulkNotificationPublishExecutorService() {
+        return BulkNotificationService.newPublishExecutor();
+    }
+
+    /** Shared by all the index helpers to load batches of full entries in parallel. */
+    @Bean(name = "dynamoBatchLoadExecutorService")
+    public ExecutorService dynamoBatchLoadExecutorService() {
+        return DynamoIndexHelper.newBatchLoadExecutor();
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
@@ -322,6 +381,12 @@ public class BridgeSpringConfig {
         return dynamoUtils.getMapper(DynamoSurveyElement.class);
     }
 
+    @Bean(name = "surveyPointerMapper")
+    @Autowired
+    public DynamoDBMapper surveyPointerDdbMapper(DynamoUtils dynamoUtils) {
+        return dynamoUtils.getMapper(DynamoSurveyPointer.class);
+    }
+
     @Bean(name = "criteriaMapper")
     @Autowired
     public DynamoDBMapper criteriaMapper(DynamoUtils dynamoUtils) {
@@ -350,14 +415,16 @@ public class BridgeSpringConfig {
     @Autowired
     public DynamoIndexHelper uploadHealthCodeRequestedOnIndex(AmazonDynamoDBClient dynamoDBClient, DynamoUtils dynamoUtils,
             DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoUpload2.class, "healthCode-requestedOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoUpload2.class, "healthCode-requestedOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
     
     @Bean(name = "uploadStudyIdRequestedOnIndex")
     @Autowired
     public DynamoIndexHelper uploadStudyIdRequestedOnIndex(AmazonDynamoDBClient dynamoDBClient, DynamoUtils dynamoUtils,
             DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoUpload2.class, "studyId-requestedOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoUpload2.class, "studyId-requestedOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
     
     @Bean(name = "healthDataHealthCodeIndex")
@@ -365,7 +432,8 @@ public class BridgeSpringConfig {
     public DynamoIndexHelper healthDataHealthCodeIndex(AmazonDynamoDBClient dynamoDBClient,
                                                        DynamoUtils dynamoUtils,
                                                        DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "healthCode-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "healthCode-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
 
     @Bean(name = "healthDataHealthCodeCreatedOnIndex")
@@ -373,7 +441,8 @@ public class BridgeSpringConfig {
     public DynamoIndexHelper healthDataHealthCodeCreatedOnIndex(AmazonDynamoDBClient dynamoDBClient,
                                                        DynamoUtils dynamoUtils,
                                                        DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "healthCode-createdOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "healthCode-createdOn-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
 
     @Bean(name = "healthDataUploadDateIndex")
@@ -381,7 +450,8 @@ public class BridgeSpringConfig {
     public DynamoIndexHelper healthDataUploadDateIndexDynamoUtils(AmazonDynamoDBClient dynamoDBClient,
                                                                   DynamoUtils dynamoUtils,
                                                                   DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "uploadDate-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoHealthDataRecord.class, "uploadDate-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
 
     @Bean(name = "activitySchedulePlanGuidIndex")
@@ -390,7 +460,8 @@ public class BridgeSpringConfig {
                                                            DynamoUtils dynamoUtils,
                                                            DynamoNamingHelper dynamoNamingHelper) {
         return DynamoIndexHelper
-                .create(DynamoScheduledActivity.class, "schedulePlanGuid-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+                .create(DynamoScheduledActivity.class, "schedulePlanGuid-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
 
     @Bean(name = "uploadSchemaStudyIdIndex")
@@ -398,7 +469,8 @@ public class BridgeSpringConfig {
     public DynamoIndexHelper uploadSchemaStudyIdIndex(AmazonDynamoDBClient dynamoDBClient,
                                                       DynamoUtils dynamoUtils,
                                                       DynamoNamingHelper dynamoNamingHelper) {
-        return DynamoIndexHelper.create(DynamoUploadSchema.class, "studyId-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils);
+        return DynamoIndexHelper.create(DynamoUploadSchema.class, "studyId-index", dynamoDBClient, dynamoNamingHelper, dynamoUtils,
+                dynamoBatchLoadExecutorService());
     }
 
     @Bean(name = "uploadDdbMapper")
@@ -461,7 +533,8 @@ public class BridgeSpringConfig {
         ApiKey apiKey = ApiKeys.builder()
             .setId(bridgeConfig.getStormpathId())
             .setSecret(bridgeConfig.getStormpathSecret()).build();
-        ClientBuilder clientBuilder = Clients.builder().setApiKey(apiKey);
+        ClientBuilder clientBuilder = Clients.builder().setApiKey(apiKey)
+                .setConnectionTimeout(bridgeConfig.getPropertyAsInt("stormpath.timeout.seconds"));
         ((DefaultClientBuilder)clientBuilder).setBaseUrl("https://enterprise.stormpath.io/v1");
         return clientBuilder.build();        
     }
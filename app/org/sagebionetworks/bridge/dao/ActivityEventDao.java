@@ -9,9 +9,11 @@ public interface ActivityEventDao {
 
     /**
      * Publish an event into this user's event stream. This event becomes available 
-     * for scheduling activities for this user.
+     * for scheduling activities for this user. Returns true if the event was recorded, 
+     * or false if it was ignored (the enrollment event has already been recorded, or 
+     * the recorded event is not earlier than this event).
      */
-    void publishEvent(ActivityEvent event);
+    boolean publishEvent(ActivityEvent event);
     
     /**
      * Get a map of events, where the string key is an event identifier, and the value 
@@ -21,7 +21,8 @@ public interface ExternalIdDao {
      * records. Each page is identified by the offsetKey of the last record of the immediately prior page. If that value is 
      * null, there is not a further page of IDs to retrieve.
      * 
-     * More interestingly, you can retrieve the next available ID by asking for pageSize=1, assignmentFilter=FALSE.
+     * You can retrieve the next available ID by asking for pageSize=1, assignmentFilter=FALSE, but this filters the 
+     * whole study's identifiers; use reserveNextAvailableExternalId(...) to claim an ID during enrollment.
      *   
      * @param studyId
      *      study of caller
@@ -39,7 +40,8 @@ public interface ExternalIdDao {
     PagedResourceList<ExternalIdentifierInfo> getExternalIds(StudyIdentifier studyId, String offsetKey, int pageSize, String idFilter, Boolean assignmentFilter);
     
     /**
-     * Add one or more external IDs. Existing IDs are left alone without changing the assignment status of the ID.
+     * Add one or more external IDs. Existing IDs are left alone without changing the assignment status of the ID. 
+     * IDs are written in batches, up to the add limit per call.
      */
     void addExternalIds(StudyIdentifier studyId, List<String> externalIdentifiers);
     
@@ -51,6 +53,13 @@ public interface ExternalIdDao {
      */
     void reserveExternalId(StudyIdentifier studyId, String externalIdentifier);
     
+    /**
+     * Find an available ID and reserve it, as if reserveExternalId(...) had been called with it. Available IDs are read 
+     * from a sharded index of unassigned identifiers, so this does not scan the study's identifiers. Returns null if 
+     * there are no available IDs.
+     */
+    String reserveNextAvailableExternalId(StudyIdentifier studyId);
+    
     /**
      * Assign an external identifier. Once assigned, it cannot be re-assigned. If already assigned to this health code, 
      * nothing happens.  
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dao;
 
 import java.util.List;
 
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 
@@ -9,12 +10,22 @@ public interface FPHSExternalIdentifierDao {
 
     void verifyExternalId(ExternalIdentifier externalId);
     
+    /**
+     * Register the identifier, if it exists and is not registered. The check and the registration are a single 
+     * conditional write, so an identifier can only be registered once.
+     */
     void registerExternalId(ExternalIdentifier externalId);
     
     void unregisterExternalId(ExternalIdentifier externalId);
     
     List<FPHSExternalIdentifier> getExternalIds();
     
+    /**
+     * Get a page of the registered (or unregistered) identifiers, in order by identifier. The offsetKey of the 
+     * returned page retrieves the next page, and is null on the last page.
+     */
+    PagedResourceList<FPHSExternalIdentifier> getExternalIds(boolean registered, String offsetKey, int pageSize);
+    
     void addExternalIds(List<FPHSExternalIdentifier> externalIds);
     
     void deleteExternalId(String externalId);
@@ -1,8 +1,10 @@
 package org.sagebionetworks.bridge.dao;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
 
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecordBuilder;
 
@@ -47,6 +49,20 @@ public interface HealthDataDao {
      */
     List<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate);
 
+    /**
+     * DAO method used by worker apps to read the health data records uploaded for a specific date one page at a time,
+     * generally used for export. Unlike {@link #getRecordsForUploadDate}, only one page of records is held in memory.
+     * The offset key of each page can be passed back in to get the next page, and is null on the last page.
+     *
+     * @param uploadDate
+     *         upload date in YYYY-MM-DD format, must be non-null, non-empty, and must represent a valid date
+     * @param offsetKey
+     *         offset key of a previous page, to get the page after it, or null to get the first page
+     * @return a page of health records uploaded on that date
+     */
+    PagedResourceList<HealthDataRecord> getRecordPageForUploadDate(@Nonnull String uploadDate,
+            @Nullable String offsetKey);
+
     /**
      * Gets a builder instance, used for building prototype health data records. This is generally used by worker apps
      * to unpack uploads.
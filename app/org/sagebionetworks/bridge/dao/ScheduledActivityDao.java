@@ -10,10 +10,17 @@ import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 public interface ScheduledActivityDao {
     
     /**
-     * Get paged results of the scheduled activities that have been created for this user. 
+     * Get paged results of the scheduled activities that have been created for this user. The activities are not 
+     * counted, so the total is the number of activities in the page (see getActivityHistoryCount). 
      */
     PagedResourceList<? extends ScheduledActivity> getActivityHistory(String healthCode, String offsetKey, int pageSize);
     
+    /**
+     * Count all the scheduled activities that have been created for this user. This reads the user's whole 
+     * activity history, so callers should cache it.
+     */
+    int getActivityHistoryCount(String healthCode);
+    
     /**
      * Load an individual activity.
      */
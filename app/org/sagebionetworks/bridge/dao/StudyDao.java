@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.dao;
 import java.util.List;
 
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
 
 public interface StudyDao {
 
@@ -11,6 +12,12 @@ public interface StudyDao {
     Study getStudy(String identifier);
     
     List<Study> getStudies();
+
+    /**
+     * Returns the identifier, active flag and version of every study (including deactivated studies), without
+     * loading each study's full configuration.
+     */
+    List<StudyRegistryEntry> getStudyRegistryEntries();
     
     Study createStudy(Study study);
     
@@ -0,0 +1,130 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMappingException;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTypeConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * <p>
+ * Stores a JsonNode as a string attribute, like {@link JsonNodeMarshaller}, but large values are stored as
+ * Deflate-compressed JSON, Base64-encoded and prefixed with a format tag. JSON text can never start with the tag, so
+ * values in either format can be read, and records written before compression was enabled don't need to be migrated
+ * before they can be read.
+ * </p>
+ * <p>
+ * Compressed values can't be read by anything that reads the table directly and expects JSON, so compression is only
+ * written when health.data.record.compression.enabled is set.
+ * </p>
+ * <p>
+ * These converters are supposed to be "null-safe", see:
+ * http://docs.aws.amazon.com/AWSJavaSDK/latest/javadoc/com/amazonaws/services/dynamodbv2/datamodeling/DynamoDBTypeConverted.html
+ * </p>
+ */
+public class CompressedJsonNodeMarshaller implements DynamoDBTypeConverter<String,JsonNode> {
+
+    /** Marks a value stored as Base64-encoded, Deflate-compressed JSON (format version 1). */
+    static final String DEFLATE_FORMAT_TAG = "z1:";
+
+    /** Smaller values don't compress enough to be worth the Base64 overhead. */
+    static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    private static final boolean COMPRESSION_ENABLED = Boolean.parseBoolean(
+            BridgeConfigFactory.getConfig().getProperty("health.data.record.compression.enabled"));
+
+    private final boolean compressionEnabled;
+
+    public CompressedJsonNodeMarshaller() {
+        this(COMPRESSION_ENABLED);
+    }
+
+    CompressedJsonNodeMarshaller(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /** True if values written by this marshaller can be compressed. */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /** True if the stored value is in the compressed format. */
+    public static boolean isCompressed(String data) {
+        return data != null && data.startsWith(DEFLATE_FORMAT_TAG);
+    }
+
+    @Override
+    public String convert(JsonNode node) {
+        try {
+            byte[] json = BridgeObjectMapper.get().writeValueAsBytes(node);
+            if (compressionEnabled && json.length >= MIN_COMPRESSED_LENGTH) {
+                String compressed = DEFLATE_FORMAT_TAG + Base64.getEncoder().encodeToString(deflate(json));
+                // Compression is only used if it actually saves space.
+                if (compressed.length() < json.length) {
+                    return compressed;
+                }
+            }
+            return new String(json, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new DynamoDBMappingException(e);
+        }
+    }
+
+    @Override
+    public JsonNode unconvert(String data) {
+        try {
+            if (isCompressed(data)) {
+                byte[] compressed = Base64.getDecoder().decode(data.substring(DEFLATE_FORMAT_TAG.length()));
+                return BridgeObjectMapper.get().readTree(inflate(compressed));
+            }
+            return BridgeObjectMapper.get().readTree(data);
+        } catch (IOException | DataFormatException | IllegalArgumentException e) {
+            throw new DynamoDBMappingException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed value");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
-import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TWO_WEEKS_BEFORE_ENROLLMENT;
-import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TWO_MONTHS_BEFORE_ENROLLMENT;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LT;
+import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.OR;
 
 import java.util.List;
 import java.util.Map;
@@ -11,28 +10,36 @@ import java.util.Map;
 import javax.annotation.Resource;
 
 import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.models.activities.ActivityEvent;
-import org.sagebionetworks.bridge.models.activities.ActivityEventType;
+import org.sagebionetworks.bridge.models.activities.ActivityEventUtils;
 import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 @Component
 public class DynamoActivityEventDao implements ActivityEventDao {
 
-    private static final String ANSWERED_EVENT_POSTFIX = ":"+ActivityEventType.ANSWERED.name().toLowerCase();
-    private static final String TWO_WEEKS = TWO_WEEKS_BEFORE_ENROLLMENT.name().toLowerCase();
-    private static final String TWO_MONTHS = TWO_MONTHS_BEFORE_ENROLLMENT.name().toLowerCase();
+    private static final String EVENT_ID = "eventId";
+    private static final String TIMESTAMP = "timestamp";
+    
+    // Enrollment can only be recorded once, even if user withdraws and re-enrolls. Tasks are 
+    // not deleted and so one-time tasks are not re-scheduled against a new enrollment date.
+    private static final DynamoDBSaveExpression DOES_NOT_EXIST_EXPRESSION = new DynamoDBSaveExpression()
+            .withExpected(new ImmutableMap.Builder<String,ExpectedAttributeValue>()
+                    .put(EVENT_ID, new ExpectedAttributeValue(false)).build());
     
     private DynamoDBMapper mapper;
 
@@ -41,17 +48,21 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         this.mapper = mapper;
     }
     
+    /**
+     * The event is written with a single conditional update, rather than being loaded and compared with the 
+     * saved event first. Returns false if the condition fails and the event was not recorded.
+     */
     @Override
-    public void publishEvent(ActivityEvent event) {
+    public boolean publishEvent(ActivityEvent event) {
         checkNotNull(event);
         
-        DynamoActivityEvent hashKey = new DynamoActivityEvent();
-        hashKey.setHealthCode(event.getHealthCode());
-        hashKey.setEventId(event.getEventId());
-        
-        ActivityEvent savedEvent = mapper.load(hashKey);
-        if (isLaterNonEnrollmentEvent(savedEvent, event)) {
-            mapper.save(event);
+        DynamoDBSaveExpression saveExpression = ActivityEventUtils.isEnrollment(event) ? 
+                DOES_NOT_EXIST_EXPRESSION : getLaterEventExpression(event);
+        try {
+            mapper.save(event, saveExpression);
+            return true;
+        } catch(ConditionalCheckFailedException e) {
+            return false;
         }
     }
 
@@ -66,15 +77,11 @@ public class DynamoActivityEventDao implements ActivityEventDao {
 
         PaginatedQueryList<DynamoActivityEvent> queryResults = mapper.query(DynamoActivityEvent.class, query);
         
-        Builder<String,DateTime> builder = ImmutableMap.<String,DateTime>builder();
+        Map<String,DateTime> map = Maps.newHashMap();
         for (DynamoActivityEvent event : queryResults) {
-            builder.put(getEventMapKey(event), new DateTime(event.getTimestamp(), DateTimeZone.UTC));
-            if (isEnrollment(event)) {
-                builder.put(TWO_WEEKS, new DateTime(event.getTimestamp(), DateTimeZone.UTC).minusWeeks(2));
-                builder.put(TWO_MONTHS, new DateTime(event.getTimestamp(), DateTimeZone.UTC).minusMonths(2));
-            }
+            ActivityEventUtils.putEvent(map, event);
         }
-        return builder.build();
+        return ImmutableMap.copyOf(map);
     }
     
     @Override
@@ -97,31 +104,19 @@ public class DynamoActivityEventDao implements ActivityEventDao {
         }
     }
     
-    private boolean isEnrollment(ActivityEvent event) {
-        return ENROLLMENT.name().toLowerCase().equals(event.getEventId());
-    }
-    
-    // Enrollment can only be recorded once, even if user withdraws and re-enrolls. Tasks are 
-    // not deleted and so one-time tasks are not re-scheduled against a new enrollment date.
-    // Only save if the timestamp is later than the current timestamp in the table
-    private boolean isLaterNonEnrollmentEvent(ActivityEvent savedEvent, ActivityEvent event) {
-        if (savedEvent == null) {
-            return true;
-        }
-        return (!"enrollment".equals(event.getEventId()) && event.getTimestamp() > savedEvent.getTimestamp());
-    }
-
     /**
-     * Answer events do schedule against a specific answer, which is added to the key in the
-     * map only. A change in the value is continued to be a change to the same event.
-     * @param event
-     * @return
+     * Save the event IF it has not been recorded, or the recorded event is earlier than this event.
      */
-    private String getEventMapKey(DynamoActivityEvent event) {
-        if (event.getEventId().endsWith(ANSWERED_EVENT_POSTFIX)) {
-            return event.getEventId()+"="+event.getAnswerValue();
-        }
-        return event.getEventId();    
+    private DynamoDBSaveExpression getLaterEventExpression(ActivityEvent event) {
+        AttributeValue timestamp = new AttributeValue().withN(Long.toString(event.getTimestamp()));
+        
+        Map<String, ExpectedAttributeValue> map = Maps.newHashMap();
+        map.put(EVENT_ID, new ExpectedAttributeValue().withExists(false));
+        map.put(TIMESTAMP, new ExpectedAttributeValue().withValue(timestamp).withComparisonOperator(LT));
+
+        DynamoDBSaveExpression saveExpression = new DynamoDBSaveExpression();
+        saveExpression.withConditionalOperator(OR);
+        saveExpression.setExpected(map);
+        return saveExpression;
     }
-    
 }
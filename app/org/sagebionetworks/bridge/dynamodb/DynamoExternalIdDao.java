@@ -12,10 +12,13 @@ import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NULL;
 import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.AND;
 import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.OR;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -41,6 +44,7 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
@@ -49,6 +53,7 @@ import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 @Component
 public class DynamoExternalIdDao implements ExternalIdDao {
@@ -61,6 +66,17 @@ public class DynamoExternalIdDao implements ExternalIdDao {
     private static final String STUDY_ID = "studyId";
     private static final String ASSIGNMENT_FILTER = "assignmentFilter";
     private static final String ID_FILTER = "idFilter";
+    private static final String UNASSIGNED_SHARD = "unassignedShard";
+    
+    /** Unassigned IDs are spread over this many shards of the free-list index, so concurrent reservations don't 
+     * all contend for the same few identifiers. */
+    static final int UNASSIGNED_SHARD_COUNT = 10;
+    
+    /** Number of available IDs read from a shard when reserving the next available ID. */
+    static final int CANDIDATE_PAGE_SIZE = 10;
+    
+    /** DynamoDB's maximum number of items in one batch write. */
+    static final int BATCH_WRITE_SIZE = 25;
 
     private int addLimit;
     private int lockDuration;
@@ -128,16 +144,111 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         if (externalIds.size() > addLimit) {
             throw new BadRequestException("List of externalIds is too large; size=" + externalIds.size() + ", limit=" + addLimit);
         }
-        List<DynamoExternalIdentifier> idsToSave = externalIds.stream().map(id -> {
+        List<FailedBatch> failures = Lists.newArrayList();
+        for (List<String> batch : Lists.partition(externalIds, BATCH_WRITE_SIZE)) {
+            failures.addAll(addBatch(studyId, batch));
+        }
+        BridgeUtils.ifFailuresThrowException(failures);
+    }
+    
+    /**
+     * Save the identifiers in this batch that don't exist yet. Unassigned identifiers that were created before the 
+     * free-list index existed are added to it.
+     */
+    private List<FailedBatch> addBatch(StudyIdentifier studyId, List<String> externalIds) {
+        List<Object> keys = externalIds.stream().map(id -> {
             return new DynamoExternalIdentifier(studyId, id);
-        }).filter(externalId -> {
-            return mapper.load(externalId) == null;
         }).collect(Collectors.toList());
         
-        if (!idsToSave.isEmpty()) {
-            List<FailedBatch> failures = mapper.batchSave(idsToSave);
-            BridgeUtils.ifFailuresThrowException(failures);
+        Set<String> existingIds = Sets.newHashSet();
+        for (List<Object> items : mapper.batchLoad(keys).values()) {
+            for (Object item : items) {
+                DynamoExternalIdentifier existing = (DynamoExternalIdentifier)item;
+                existingIds.add(existing.getIdentifier());
+                if (existing.getHealthCode() == null && existing.getUnassignedShard() == null) {
+                    addToFreeList(studyId, existing);
+                }
+            }
+        }
+        List<DynamoExternalIdentifier> idsToSave = externalIds.stream().filter(id -> {
+            return !existingIds.contains(id);
+        }).map(id -> {
+            DynamoExternalIdentifier identifier = new DynamoExternalIdentifier(studyId, id);
+            identifier.setUnassignedShard(getUnassignedShard(studyId, id));
+            return identifier;
+        }).collect(Collectors.toList());
+        
+        if (idsToSave.isEmpty()) {
+            return Collections.emptyList();
         }
+        return mapper.batchSave(idsToSave);
+    }
+    
+    /**
+     * Add the study's unassigned identifiers that were created before the free-list index existed to the index. 
+     * Returns the number of identifiers added. This is used by the externalIdFreeListBackfill, and is safe to run 
+     * again.
+     */
+    public int addUnassignedIdsToFreeList(StudyIdentifier studyId) {
+        checkNotNull(studyId);
+        
+        DynamoDBQueryExpression<DynamoExternalIdentifier> query = new DynamoDBQueryExpression<DynamoExternalIdentifier>();
+        query.withHashKeyValues(new DynamoExternalIdentifier(studyId, null));
+        query.withQueryFilterEntry(HEALTH_CODE, new Condition().withComparisonOperator(NULL));
+        query.withQueryFilterEntry(UNASSIGNED_SHARD, new Condition().withComparisonOperator(NULL));
+        query.withConditionalOperator(AND);
+        
+        int count = 0;
+        for (DynamoExternalIdentifier identifier : mapper.query(DynamoExternalIdentifier.class, query)) {
+            if (addToFreeList(studyId, identifier)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private boolean addToFreeList(StudyIdentifier studyId, DynamoExternalIdentifier identifier) {
+        identifier.setUnassignedShard(getUnassignedShard(studyId, identifier.getIdentifier()));
+        try {
+            mapper.save(identifier, getAssignmentExpression());
+            return true;
+        } catch(ConditionalCheckFailedException e) {
+            // Assigned in the meantime, so it doesn't belong on the free-list.
+            return false;
+        }
+    }
+    
+    @Override
+    public String reserveNextAvailableExternalId(StudyIdentifier studyId) {
+        checkNotNull(studyId);
+        
+        long newReservation = DateUtils.getCurrentMillisFromEpoch();
+        
+        // Start at a random shard so concurrent callers are unlikely to compete for the same identifiers.
+        int firstShard = ThreadLocalRandom.current().nextInt(UNASSIGNED_SHARD_COUNT);
+        for (int i=0; i < UNASSIGNED_SHARD_COUNT; i++) {
+            String shard = studyId.getIdentifier() + ":" + ((firstShard + i) % UNASSIGNED_SHARD_COUNT);
+            
+            // Reserved identifiers are filtered out of a page after it is read, so a page can be empty while 
+            // there are still available identifiers further on in the shard.
+            DynamoDBQueryExpression<DynamoExternalIdentifier> query = createUnassignedQuery(shard, newReservation);
+            do {
+                QueryResultPage<DynamoExternalIdentifier> page = mapper.queryPage(DynamoExternalIdentifier.class, query);
+                List<DynamoExternalIdentifier> candidates = Lists.newArrayList(page.getResults());
+                Collections.shuffle(candidates);
+                for (DynamoExternalIdentifier candidate : candidates) {
+                    try {
+                        candidate.setReservation(newReservation);
+                        mapper.save(candidate, getReservationExpression(newReservation));
+                        return candidate.getIdentifier();
+                    } catch(ConditionalCheckFailedException e) {
+                        // Another caller reserved or assigned it first, try the next one.
+                    }
+                }
+                query.withExclusiveStartKey(page.getLastEvaluatedKey());
+            } while (query.getExclusiveStartKey() != null);
+        }
+        return null;
     }
     
     @Override
@@ -181,6 +292,7 @@ public class DynamoExternalIdDao implements ExternalIdDao {
                 
                 identifier.setReservation(0L);
                 identifier.setHealthCode(healthCode);
+                identifier.setUnassignedShard(null);
                 mapper.save(identifier, getAssignmentExpression());
                 
             } catch(ConditionalCheckFailedException e) {
@@ -202,6 +314,7 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         if (identifier != null) {
             identifier.setHealthCode(null);
             identifier.setReservation(0L);
+            identifier.setUnassignedShard(getUnassignedShard(studyId, externalId));
             mapper.save(identifier);
         }
     }
@@ -261,6 +374,27 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         return query;
     }
 
+    /**
+     * Query one shard of the free-list index for identifiers whose reservation (if any) has expired. The index 
+     * only contains identifiers without a healthCode, so only the reservation needs to be filtered.
+     */
+    private DynamoDBQueryExpression<DynamoExternalIdentifier> createUnassignedQuery(String shard, long newReservation) {
+        DynamoExternalIdentifier hashKey = new DynamoExternalIdentifier();
+        hashKey.setUnassignedShard(shard);
+        
+        AttributeValue reservationStartTime = new AttributeValue().withN(Long.toString(newReservation-lockDuration));
+        Condition reservationCondition = new Condition().withAttributeValueList(reservationStartTime)
+                .withComparisonOperator(LT);
+        
+        DynamoDBQueryExpression<DynamoExternalIdentifier> query = new DynamoDBQueryExpression<DynamoExternalIdentifier>();
+        query.withIndexName(DynamoExternalIdentifier.UNASSIGNED_INDEX);
+        query.withConsistentRead(false);
+        query.withHashKeyValues(hashKey);
+        query.withQueryFilterEntry(RESERVATION, reservationCondition);
+        query.withLimit(CANDIDATE_PAGE_SIZE);
+        return query;
+    }
+
     private void addAssignmentFilter(DynamoDBQueryExpression<DynamoExternalIdentifier> query, boolean isAssigned) {
         String reservationStartTime = Long.toString(DateTimeUtils.currentTimeMillis()-lockDuration);
         
@@ -311,6 +445,10 @@ public class DynamoExternalIdDao implements ExternalIdDao {
         return saveExpression;
     }
     
+    static String getUnassignedShard(StudyIdentifier studyId, String externalId) {
+        return studyId.getIdentifier() + ":" + Math.floorMod(externalId.hashCode(), UNASSIGNED_SHARD_COUNT);
+    }
+    
     private ExternalIdentifierInfo createInfo(ExternalIdentifier id, long lockDuration) {
         // This calculation is done a couple of times, it does not need to be accurate to the millisecond
         long reservationStartTime = DateTimeUtils.currentTimeMillis() - lockDuration;
@@ -5,8 +5,12 @@ import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Implementation of external identifier.
@@ -14,10 +18,13 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
 @DynamoDBTable(tableName = "ExternalIdentifier")
 public class DynamoExternalIdentifier implements ExternalIdentifier {
 
+    static final String UNASSIGNED_INDEX = "unassignedShard-identifier-index";
+
     private String studyId;
     private String identifier;
     private String healthCode;
     private long reservation;
+    private String unassignedShard;
     
     public DynamoExternalIdentifier() {}
     
@@ -35,6 +42,7 @@ public class DynamoExternalIdentifier implements ExternalIdentifier {
         this.studyId = studyId;
     }
     @DynamoDBRangeKey
+    @DynamoDBIndexRangeKey(attributeName = "identifier", globalSecondaryIndexName = UNASSIGNED_INDEX)
     @Override
     public String getIdentifier() {
         return identifier;
@@ -66,5 +74,17 @@ public class DynamoExternalIdentifier implements ExternalIdentifier {
     public void setReservation(long reservation) {
         this.reservation = reservation;
     }
-    
+    /**
+     * The free-list shard of an unassigned identifier ("studyId:shard"), or null once the identifier is assigned. 
+     * Because the attribute is removed on assignment, the index over it only contains unassigned identifiers.
+     */
+    @DynamoDBIndexHashKey(attributeName = "unassignedShard", globalSecondaryIndexName = UNASSIGNED_INDEX)
+    @DynamoProjection(projectionType = ProjectionType.ALL, globalSecondaryIndexName = UNASSIGNED_INDEX)
+    @JsonIgnore
+    public String getUnassignedShard() {
+        return unassignedShard;
+    }
+    public void setUnassignedShard(String unassignedShard) {
+        this.unassignedShard = unassignedShard;
+    }
 }
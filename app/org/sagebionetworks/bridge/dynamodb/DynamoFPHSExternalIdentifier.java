@@ -4,11 +4,20 @@ import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBIndexRangeKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
 
 @DynamoDBTable(tableName = "FPHSExternalIdentifier")
 public class DynamoFPHSExternalIdentifier implements FPHSExternalIdentifier {
 
+    /**
+     * Partitions the identifiers into registered and unregistered identifiers, sorted by identifier, so either set
+     * can be paged through without scanning the table.
+     */
+    static final String REGISTERED_INDEX = "registered-externalId-index";
+
     private String externalId;
     private boolean registered;
     
@@ -22,6 +31,7 @@ public class DynamoFPHSExternalIdentifier implements FPHSExternalIdentifier {
     
     @Override
     @DynamoDBHashKey
+    @DynamoDBIndexRangeKey(attributeName = "externalId", globalSecondaryIndexName = REGISTERED_INDEX)
     public String getExternalId() {
         return externalId;
     }
@@ -33,6 +43,8 @@ public class DynamoFPHSExternalIdentifier implements FPHSExternalIdentifier {
 
     @Override
     @DynamoDBAttribute
+    @DynamoDBIndexHashKey(attributeName = "registered", globalSecondaryIndexName = REGISTERED_INDEX)
+    @DynamoProjection(projectionType = ProjectionType.ALL, globalSecondaryIndexName = REGISTERED_INDEX)
     public boolean isRegistered() {
         return registered;
     }
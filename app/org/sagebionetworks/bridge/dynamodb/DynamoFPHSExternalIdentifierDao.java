@@ -1,8 +1,12 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -11,8 +15,10 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.config.Config;
 import org.sagebionetworks.bridge.dao.FPHSExternalIdentifierDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 
@@ -21,11 +27,34 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
-import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 @Component
 public class DynamoFPHSExternalIdentifierDao implements FPHSExternalIdentifierDao {
     private static final String CONFIG_KEY_ADD_LIMIT = "fphs.id.add.limit";
+    static final String PAGE_SIZE_ERROR = "pageSize must be from 1-"+API_MAXIMUM_PAGE_SIZE+" records";
+    private static final String EXTERNAL_ID = "externalId";
+    private static final String REGISTERED = "registered";
+    private static final String REGISTERED_FILTER = "registered";
+    private static final int BATCH_WRITE_SIZE = 25;
+
+    /**
+     * Registration succeeds only if the identifier exists and is not registered. The mapper writes booleans as
+     * numbers.
+     */
+    private static final DynamoDBSaveExpression REGISTER_EXPRESSION = new DynamoDBSaveExpression()
+            .withExpected(ImmutableMap.of(
+                    EXTERNAL_ID, new ExpectedAttributeValue().withExists(true),
+                    REGISTERED, new ExpectedAttributeValue(new AttributeValue().withN("0"))));
 
     private int addLimit;
     private DynamoDBMapper mapper;
@@ -53,10 +82,19 @@ public class DynamoFPHSExternalIdentifierDao implements FPHSExternalIdentifierDa
     public void registerExternalId(ExternalIdentifier externalId) {
         checkNotNull(externalId);
         
-        // This will throw an exception if the record doesn't exist or has already been registered.
-        DynamoFPHSExternalIdentifier record = getExternalId(externalId, true);
+        // Check and claim the identifier in one conditional write, so two participants can't register the same 
+        // identifier. The record is only read if the write fails, to report why.
+        DynamoFPHSExternalIdentifier record = new DynamoFPHSExternalIdentifier(externalId.getIdentifier());
         record.setRegistered(true);
-        mapper.save(record);
+        try {
+            mapper.save(record, REGISTER_EXPRESSION);
+        } catch(ConditionalCheckFailedException e) {
+            // This will throw an exception if the record doesn't exist or has already been registered.
+            DynamoFPHSExternalIdentifier existing = getExternalId(externalId, true);
+            // The record exists and is unregistered now, but wasn't when it was written: it was registered and
+            // then unregistered in between. The caller can try again.
+            throw new ConcurrentModificationException(existing);
+        }
     }
     
     @Override
@@ -72,11 +110,31 @@ public class DynamoFPHSExternalIdentifierDao implements FPHSExternalIdentifierDa
 
     @Override
     public List<FPHSExternalIdentifier> getExternalIds() {
-        DynamoDBScanExpression scan = new DynamoDBScanExpression();
-        
-        return mapper.scan(DynamoFPHSExternalIdentifier.class, scan).stream().map(identifier -> {
+        List<FPHSExternalIdentifier> identifiers = Lists.newArrayList();
+        identifiers.addAll(mapper.query(DynamoFPHSExternalIdentifier.class, createIndexQuery(false, null, null)));
+        identifiers.addAll(mapper.query(DynamoFPHSExternalIdentifier.class, createIndexQuery(true, null, null)));
+        return identifiers;
+    }
+
+    @Override
+    public PagedResourceList<FPHSExternalIdentifier> getExternalIds(boolean registered, String offsetKey,
+            int pageSize) {
+        if (pageSize < 1 || pageSize > API_MAXIMUM_PAGE_SIZE) {
+            throw new BadRequestException(PAGE_SIZE_ERROR);
+        }
+        QueryResultPage<DynamoFPHSExternalIdentifier> page = mapper.queryPage(DynamoFPHSExternalIdentifier.class,
+                createIndexQuery(registered, offsetKey, pageSize));
+
+        List<FPHSExternalIdentifier> identifiers = page.getResults().stream().map(identifier -> {
             return (FPHSExternalIdentifier)identifier;
         }).collect(Collectors.toList());
+
+        String nextPageOffsetKey = (page.getLastEvaluatedKey() != null) ?
+                page.getLastEvaluatedKey().get(EXTERNAL_ID).getS() : null;
+
+        return new PagedResourceList<FPHSExternalIdentifier>(identifiers, null, pageSize, identifiers.size())
+                .withOffsetKey(nextPageOffsetKey)
+                .withFilter(REGISTERED_FILTER, Boolean.toString(registered));
     }
 
     @Override
@@ -88,18 +146,11 @@ public class DynamoFPHSExternalIdentifierDao implements FPHSExternalIdentifierDa
         if (externalIds.size() > addLimit) {
             throw new BadRequestException("ID list too large; size=" + externalIds.size() + ", limit=" + addLimit);
         }
-
-        if (!externalIds.isEmpty()) {
-            List<DynamoFPHSExternalIdentifier> idsToSave = externalIds.stream().filter(id -> {
-                return mapper.load(id) == null;
-            }).map(id -> {
-                return new DynamoFPHSExternalIdentifier(id.getExternalId());  
-            }).collect(Collectors.toList());
-            if (!idsToSave.isEmpty()) {
-                List<FailedBatch> failures = mapper.batchSave(idsToSave);
-                BridgeUtils.ifFailuresThrowException(failures);
-            }
+        List<FailedBatch> failures = Lists.newArrayList();
+        for (List<FPHSExternalIdentifier> batch : Lists.partition(externalIds, BATCH_WRITE_SIZE)) {
+            failures.addAll(addBatch(batch));
         }
+        BridgeUtils.ifFailuresThrowException(failures);
     }
     
     @Override
@@ -108,6 +159,54 @@ public class DynamoFPHSExternalIdentifierDao implements FPHSExternalIdentifierDa
         mapper.delete(externalId);
     }
     
+    /** Save the identifiers in this batch that don't exist yet, so existing registrations are not overwritten. */
+    private List<FailedBatch> addBatch(List<FPHSExternalIdentifier> externalIds) {
+        List<Object> keys = externalIds.stream().map(id -> {
+            return new DynamoFPHSExternalIdentifier(id.getExternalId());
+        }).collect(Collectors.toList());
+
+        Set<String> existingIds = Sets.newHashSet();
+        for (List<Object> items : mapper.batchLoad(keys).values()) {
+            for (Object item : items) {
+                existingIds.add(((DynamoFPHSExternalIdentifier)item).getExternalId());
+            }
+        }
+        // Dedupe within the batch as well; batch writes fail on duplicate keys.
+        Map<String, DynamoFPHSExternalIdentifier> idsToSave = Maps.newLinkedHashMap();
+        for (FPHSExternalIdentifier id : externalIds) {
+            if (!existingIds.contains(id.getExternalId())) {
+                idsToSave.put(id.getExternalId(), new DynamoFPHSExternalIdentifier(id.getExternalId()));
+            }
+        }
+        if (idsToSave.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return mapper.batchSave(Lists.newArrayList(idsToSave.values()));
+    }
+
+    private DynamoDBQueryExpression<DynamoFPHSExternalIdentifier> createIndexQuery(boolean registered,
+            String offsetKey, Integer pageSize) {
+        DynamoFPHSExternalIdentifier hashKey = new DynamoFPHSExternalIdentifier();
+        hashKey.setRegistered(registered);
+
+        DynamoDBQueryExpression<DynamoFPHSExternalIdentifier> query = 
+                new DynamoDBQueryExpression<DynamoFPHSExternalIdentifier>()
+                .withIndexName(DynamoFPHSExternalIdentifier.REGISTERED_INDEX)
+                .withHashKeyValues(hashKey)
+                // DDB will throw an error if you don't set this to eventual consistency.
+                .withConsistentRead(false);
+        if (pageSize != null) {
+            query.withLimit(pageSize);
+        }
+        if (offsetKey != null) {
+            Map<String,AttributeValue> map = Maps.newHashMap();
+            map.put(REGISTERED, new AttributeValue().withN(registered ? "1" : "0"));
+            map.put(EXTERNAL_ID, new AttributeValue().withS(offsetKey));
+            query.withExclusiveStartKey(map);
+        }
+        return query;
+    }
+
     private DynamoFPHSExternalIdentifier getExternalId(ExternalIdentifier externalId, boolean throwExceptions) {
         DynamoFPHSExternalIdentifier hashKey = new DynamoFPHSExternalIdentifier();
         hashKey.setExternalId(externalId.getIdentifier());
@@ -1,25 +1,41 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.Resource;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.HealthDataDao;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecordBuilder;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /** DynamoDB implementation of {@link org.sagebionetworks.bridge.dao.HealthDataDao}. */
@@ -27,7 +43,21 @@ import org.springframework.stereotype.Component;
 public class DynamoHealthDataDao implements HealthDataDao {
     private static final long CREATED_ON_OFFSET_MILLIS = TimeUnit.MILLISECONDS.convert(1, TimeUnit.HOURS);
 
+    /** Number of record keys read from the uploadDate index per page of exported records. */
+    static final int EXPORT_PAGE_SIZE = 500;
+
+    /** Attributes stored with {@link CompressedJsonNodeMarshaller}. */
+    private static final List<String> COMPRESSIBLE_ATTRIBUTES = ImmutableList.of("data", "metadata");
+
+    static final int COMPRESSION_SCAN_PAGE_SIZE = 100;
+
+    /** Progress of compressRecords() is reported every this many pages. */
+    static final int COMPRESSION_PROGRESS_PAGES = 100;
+
     private DynamoDBMapper mapper;
+    private AmazonDynamoDB client;
+    private String tableName;
+    private CompressedJsonNodeMarshaller recordMarshaller = new CompressedJsonNodeMarshaller();
     private DynamoIndexHelper healthCodeIndex;
     private DynamoIndexHelper uploadDateIndex;
 
@@ -37,6 +67,18 @@ public class DynamoHealthDataDao implements HealthDataDao {
         this.mapper = mapper;
     }
 
+    /** DynamoDB client and naming helper, used to rewrite records in the compressed format. */
+    @Autowired
+    public void setDynamoDbClient(AmazonDynamoDB client, DynamoNamingHelper dynamoNamingHelper) {
+        this.client = client;
+        this.tableName = dynamoNamingHelper.getFullyQualifiedTableName(DynamoHealthDataRecord.class);
+    }
+
+    /** Marshaller for record data and metadata. Unit tests replace this to turn compression on. */
+    void setRecordMarshaller(CompressedJsonNodeMarshaller recordMarshaller) {
+        this.recordMarshaller = recordMarshaller;
+    }
+
     /**
      * DynamoDB Index reference for the healthCode index. This is needed because the DynamoDB mapper does allow queries
      * using global secondary indices. This is configured by Spring
@@ -97,6 +139,21 @@ public class DynamoHealthDataDao implements HealthDataDao {
         return uploadDateIndex.query(HealthDataRecord.class, "uploadDate", uploadDate, null);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public PagedResourceList<HealthDataRecord> getRecordPageForUploadDate(@Nonnull String uploadDate,
+            @Nullable String offsetKey) {
+        PagedResourceList<HealthDataRecord> page;
+        String nextOffsetKey = offsetKey;
+        do {
+            page = uploadDateIndex.queryPage(HealthDataRecord.class, "uploadDate", uploadDate, null, nextOffsetKey,
+                    EXPORT_PAGE_SIZE);
+            nextOffsetKey = page.getOffsetKey();
+            // A page can be empty before the end of the index, but there's no reason to return it.
+        } while (page.getItems().isEmpty() && nextOffsetKey != null);
+        return page.withFilter("uploadDate", uploadDate);
+    }
+
     /** {@inheritDoc} */
     @Override
     public HealthDataRecordBuilder getRecordBuilder() {
@@ -127,4 +184,79 @@ public class DynamoHealthDataDao implements HealthDataDao {
         return recordList.stream().filter(record -> schemaId.equals(record.getSchemaId())).collect(
                 Collectors.toList());
     }
+
+    /**
+     * Scans the whole table, rewriting the data and metadata of every record that is stored as uncompressed JSON, but
+     * would be compressed if it were written now. Each record is updated (and its version incremented) only if its
+     * version hasn't changed since it was scanned; records that were updated in the meantime are skipped, as they
+     * were written in the current format. If compression is disabled, no record would be rewritten, so the table
+     * isn't scanned. Progress messages are passed to the given consumer.
+     *
+     * @return the number of records rewritten
+     */
+    public int compressRecords(Consumer<String> progressConsumer) {
+        if (!recordMarshaller.isCompressionEnabled()) {
+            progressConsumer.accept("Record compression is disabled, nothing to compress");
+            return 0;
+        }
+
+        int pages = 0;
+        int scanned = 0;
+        int rewritten = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest request = new ScanRequest().withTableName(tableName)
+                    .withAttributesToGet("id", "data", "metadata", "version").withLimit(COMPRESSION_SCAN_PAGE_SIZE)
+                    .withExclusiveStartKey(startKey);
+            ScanResult result = client.scan(request);
+            for (Map<String, AttributeValue> item : result.getItems()) {
+                scanned++;
+                if (compressRecord(item)) {
+                    rewritten++;
+                }
+            }
+            startKey = result.getLastEvaluatedKey();
+            if (++pages % COMPRESSION_PROGRESS_PAGES == 0) {
+                progressConsumer.accept("Scanned " + scanned + " record(s), compressed " + rewritten);
+            }
+        } while (startKey != null && !startKey.isEmpty());
+        progressConsumer.accept("Finished: scanned " + scanned + " record(s), compressed " + rewritten);
+        return rewritten;
+    }
+
+    private boolean compressRecord(Map<String, AttributeValue> item) {
+        Map<String, AttributeValueUpdate> updates = new HashMap<>();
+        for (String attributeName : COMPRESSIBLE_ATTRIBUTES) {
+            AttributeValue value = item.get(attributeName);
+            if (value == null || value.getS() == null || CompressedJsonNodeMarshaller.isCompressed(value.getS())) {
+                continue;
+            }
+            String converted = recordMarshaller.convert(recordMarshaller.unconvert(value.getS()));
+            if (CompressedJsonNodeMarshaller.isCompressed(converted)) {
+                updates.put(attributeName, new AttributeValueUpdate(new AttributeValue(converted),
+                        AttributeAction.PUT));
+            }
+        }
+        if (updates.isEmpty()) {
+            return false;
+        }
+
+        Map<String, ExpectedAttributeValue> expected;
+        AttributeValue version = item.get("version");
+        if (version != null) {
+            expected = ImmutableMap.of("version", new ExpectedAttributeValue(version));
+            AttributeValue newVersion = new AttributeValue().withN(String.valueOf(Long.parseLong(version.getN()) + 1));
+            updates.put("version", new AttributeValueUpdate(newVersion, AttributeAction.PUT));
+        } else {
+            expected = ImmutableMap.of("version", new ExpectedAttributeValue(false));
+        }
+        try {
+            client.updateItem(new UpdateItemRequest().withTableName(tableName)
+                    .withKey(ImmutableMap.of("id", item.get("id"))).withAttributeUpdates(updates)
+                    .withExpected(expected));
+            return true;
+        } catch (ConditionalCheckFailedException ex) {
+            return false;
+        }
+    }
 }
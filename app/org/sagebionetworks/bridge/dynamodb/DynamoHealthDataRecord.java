@@ -60,7 +60,7 @@ public class DynamoHealthDataRecord implements HealthDataRecord {
     }
 
     /** {@inheritDoc} */
-    @DynamoDBTypeConverted(converter = JsonNodeMarshaller.class)
+    @DynamoDBTypeConverted(converter = CompressedJsonNodeMarshaller.class)
     @Override
     public JsonNode getData() {
         return data;
@@ -96,7 +96,7 @@ public class DynamoHealthDataRecord implements HealthDataRecord {
     }
 
     /** {@inheritDoc} */
-    @DynamoDBTypeConverted(converter = JsonNodeMarshaller.class)
+    @DynamoDBTypeConverted(converter = CompressedJsonNodeMarshaller.class)
     @Override
     public JsonNode getMetadata() {
         return metadata;
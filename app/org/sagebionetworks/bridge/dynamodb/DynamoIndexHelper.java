@@ -1,21 +1,46 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
 import com.amazonaws.services.dynamodbv2.document.DynamoDB;
 import com.amazonaws.services.dynamodbv2.document.Index;
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.ItemUtils;
+import com.amazonaws.services.dynamodbv2.document.PrimaryKey;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
 import com.amazonaws.services.dynamodbv2.document.Table;
+import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 
 /**
  * This class is a wrapper around a DynamoDB Index object, to enable easy testing and easy mocking. This class is used
@@ -23,20 +48,58 @@ import org.sagebionetworks.bridge.json.BridgeObjectMapper;
  * encapsulates logic to re-query tables to get full table entries.
  */
 public class DynamoIndexHelper {
+    /** Full entries are loaded in batches of this size, the DynamoDB BatchGetItem limit. */
+    static final int BATCH_LOAD_SIZE = 100;
+
+    /** Number of threads shared by all index helpers to load batches in parallel. */
+    static final int BATCH_LOAD_THREAD_COUNT = 8;
+
+    /** Number of batches that can wait for a batch load thread before callers load their batches themselves. */
+    static final int BATCH_LOAD_QUEUE_SIZE = 64;
+
+    /**
+     * Creates the executor the index helpers share to load batches in parallel. It is managed by Spring, which shuts
+     * it down with the application context. Both its threads and its queue are bounded, so that queries with many
+     * results can't tie up more than a few DynamoDB connections, or queue up work without limit. When the queue is
+     * full, the querying thread loads the batch itself.
+     */
+    public static ExecutorService newBatchLoadExecutor() {
+        return new ThreadPoolExecutor(BATCH_LOAD_THREAD_COUNT, BATCH_LOAD_THREAD_COUNT, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(BATCH_LOAD_QUEUE_SIZE),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DynamoIndexHelper-batchLoad-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
     public static DynamoIndexHelper create(final Class<?> dynamoTable, final String indexName,
-           final AmazonDynamoDB client, DynamoNamingHelper dynamoNamingHelper, DynamoUtils dynamoUtils) {
+           final AmazonDynamoDB client, DynamoNamingHelper dynamoNamingHelper, DynamoUtils dynamoUtils,
+           ExecutorService batchLoadExecutor) {
         final DynamoDB ddb = new DynamoDB(client);
         final Table ddbTable = ddb.getTable(dynamoNamingHelper.getFullyQualifiedTableName(dynamoTable));
         final Index ddbIndex = ddbTable.getIndex(indexName);
         final DynamoIndexHelper indexHelper = new DynamoIndexHelper();
         indexHelper.setIndex(ddbIndex);
         indexHelper.setMapper(dynamoUtils.getMapper(dynamoTable));
+        indexHelper.setBatchLoadExecutor(batchLoadExecutor);
+        indexHelper.setProjectedTableClass(isAllAttributesProjected(dynamoTable, indexName) ? dynamoTable : null);
         return indexHelper;
     }
 
+    /** True if the table class declares that all attributes are projected onto the index. */
+    static boolean isAllAttributesProjected(Class<?> dynamoTable, String indexName) {
+        for (Method method : dynamoTable.getMethods()) {
+            for (DynamoProjection projection : method.getAnnotationsByType(DynamoProjection.class)) {
+                if (indexName.equals(projection.globalSecondaryIndexName())) {
+                    return projection.projectionType() == ProjectionType.ALL;
+                }
+            }
+        }
+        return false;
+    }
+
     private Index index;
     private DynamoDBMapper mapper;
+    private Class<?> projectedTableClass;
+    private ExecutorService batchLoadExecutor = MoreExecutors.newDirectExecutorService();
 
     /** DynamoDB index. This is used to query the secondary index. This is configured by Spring. */
     private void setIndex(Index index) {
@@ -51,6 +114,23 @@ public class DynamoIndexHelper {
         this.mapper = mapper;
     }
 
+    /**
+     * Executor that loads batches of full entries in parallel, shared by all the index helpers. If this isn't set, 
+     * batches are loaded one after another on the querying thread. This setter is called by tests.
+     */
+    void setBatchLoadExecutor(ExecutorService batchLoadExecutor) {
+        this.batchLoadExecutor = batchLoadExecutor;
+    }
+
+    /**
+     * If all attributes are projected onto the index, this is the table class, and {@link #query} and
+     * {@link #queryPage} unmarshall the items from the index into it with the mapper, without re-querying the table.
+     * Null otherwise. This setter is called by tests.
+     */
+    void setProjectedTableClass(Class<?> projectedTableClass) {
+        this.projectedTableClass = projectedTableClass;
+    }
+
     /**
      * Queries the secondary index with the specified key name and value, and an optional range key condition. Only 
      * the attributes projected onto the index will be returned. (Generally, this is only the table index keys 
@@ -84,7 +164,8 @@ public class DynamoIndexHelper {
     }
     
     /**
-     * Query via a secondary index to return the count of matching items in the table.
+     * Query via a secondary index to return the count of matching items in the table. Only the count is returned by
+     * DynamoDB, not the items.
      *  
      * @param indexKeyName
      *         index key name to query on
@@ -96,14 +177,71 @@ public class DynamoIndexHelper {
      */
     public int queryKeyCount(@Nonnull String indexKeyName, @Nonnull Object indexKeyValue,
                     RangeKeyCondition rangeKeyCondition) {
+        QuerySpec spec = createQuerySpec(indexKeyName, indexKeyValue, rangeKeyCondition).withSelect(Select.COUNT);
         int count = 0;
-        Iterable<Item> itemIter = queryHelper(indexKeyName, indexKeyValue, rangeKeyCondition);
-        for(Iterator<Item> i = itemIter.iterator(); i.hasNext(); i.next()) {
-            count++;
-        }
+        Map<String, AttributeValue> lastKey;
+        do {
+            QueryResult result = queryPageHelper(spec);
+            count += result.getCount();
+            lastKey = result.getLastEvaluatedKey();
+            if (lastKey != null && !lastKey.isEmpty()) {
+                spec.withExclusiveStartKey(toPrimaryKey(ItemUtils.toItem(lastKey)));
+            }
+        } while (lastKey != null && !lastKey.isEmpty());
         return count;
     }
-    
+
+    /**
+     * Queries one page of the secondary index with the specified key name and value. Like {@link #query}, the full
+     * entries are returned, in index order. The offset key of the returned page
+     * can be passed back in to get the next page, and is null on the last page. A page can have fewer items than
+     * the page size (or even none) before the last page.
+     *
+     * @param clazz
+     *         expected result class
+     * @param indexKeyName
+     *         index key name to query on
+     * @param indexKeyValue
+     *         index key value to query on
+     * @param rangeKeyCondition
+     *         condition for query on range portion of key (optional)
+     * @param offsetKey
+     *         offset key of the previous page, or null for the first page
+     * @param pageSize
+     *         maximum number of items to read from the index for this page
+     * @param <T>
+     *         expected result type
+     * @return page of query results
+     */
+    public <T> PagedResourceList<T> queryPage(@Nonnull Class<? extends T> clazz, @Nonnull String indexKeyName,
+            @Nonnull Object indexKeyValue, RangeKeyCondition rangeKeyCondition, @Nullable String offsetKey,
+            int pageSize) {
+        QuerySpec spec = createQuerySpec(indexKeyName, indexKeyValue, rangeKeyCondition).withMaxPageSize(pageSize);
+        if (StringUtils.isNotBlank(offsetKey)) {
+            try {
+                spec.withExclusiveStartKey(toPrimaryKey(Item.fromJSON(offsetKey)));
+            } catch (RuntimeException ex) {
+                throw new BadRequestException("Invalid offsetKey: " + offsetKey);
+            }
+        }
+
+        QueryResult result = queryPageHelper(spec);
+        List<T> itemList;
+        if (projectedTableClass != null) {
+            itemList = result.getItems().stream().map(item -> unmarshallItem(clazz, item))
+                    .collect(Collectors.toList());
+        } else {
+            List<T> keyList = result.getItems().stream()
+                    .map(item -> BridgeObjectMapper.get().convertValue(ItemUtils.toItem(item).asMap(), clazz))
+                    .collect(Collectors.toList());
+            itemList = batchLoad(clazz, keyList);
+        }
+
+        Map<String, AttributeValue> lastKey = result.getLastEvaluatedKey();
+        String nextOffsetKey = (lastKey != null && !lastKey.isEmpty()) ? ItemUtils.toItem(lastKey).toJSON() : null;
+        return new PagedResourceList<>(itemList, null, pageSize, itemList.size()).withOffsetKey(nextOffsetKey);
+    }
+
     /**
      * <p>
      * Queries the secondary index with the specified key name and value. Results will be returned as a list of
@@ -111,9 +249,8 @@ public class DynamoIndexHelper {
      * DynamoDB rows.
      * </p>
      * <p>
-     * Note that for some reason, this method seems to return results in an unspecified order (generally sorted forward
-     * on the range key or sorted backwards). It's unclear why this is the case, and it's not obvious how to fix it.
-     * See https://sagebionetworks.jira.com/browse/BRIDGE-1467
+     * The DynamoDB batch load returns rows in an unspecified order, so the rows are put back into index order by
+     * their table keys. (See https://sagebionetworks.jira.com/browse/BRIDGE-1467)
      * </p>
      *
      * @param clazz
@@ -128,18 +265,130 @@ public class DynamoIndexHelper {
      *         expected result type
      * @return list of query results
      */
-    @SuppressWarnings("unchecked")
     public <T> List<T> query(@Nonnull Class<? extends T> clazz, @Nonnull String indexKeyName,
             @Nonnull Object indexKeyValue, RangeKeyCondition rangeKeyCondition) {
         // In general, we only project keys onto global secondary indices, to save storage space. This means the
         // objects we get back aren't full fledged objects. However, we can use them as "key objects" to re-query
         // the DDB table to get full results.
         //
-        // First step is to query the index to get these "key objects".
+        // If all attributes are projected, the index items are already the full results, and only need to be
+        // unmarshalled.
+        if (projectedTableClass != null) {
+            List<T> recordList = new ArrayList<>();
+            for (Item item : queryHelper(indexKeyName, indexKeyValue, rangeKeyCondition)) {
+                recordList.add(unmarshallItem(clazz, ItemUtils.toAttributeValues(item)));
+            }
+            return recordList;
+        }
+
+        // Otherwise, first step is to query the index to get these "key objects".
         List<T> recordKeyList = queryKeys(clazz, indexKeyName, indexKeyValue, rangeKeyCondition);
+        return batchLoad(clazz, recordKeyList);
+    }
+
+    /**
+     * Unmarshalls an item from an index with all attributes projected. This goes through the mapper, rather than JSON
+     * conversion, so that attributes with custom marshallers and converters are read the same way as from the table.
+     */
+    private <T> T unmarshallItem(Class<? extends T> clazz, Map<String, AttributeValue> item) {
+        Object record = mapper.marshallIntoObject(projectedTableClass, item);
+        if (!clazz.isInstance(record)) {
+            // This should never happen, but just in case.
+            throw new BridgeServiceException(String.format("DynamoDB returned objects of type %s instead of %s",
+                    record.getClass().getName(), clazz.getName()));
+        }
+        return clazz.cast(record);
+    }
+
+    /**
+     * Using the "key objects", batch query DDB to get full records. Keys are loaded in batches of up to
+     * BATCH_LOAD_SIZE. If there is more than one batch, the batches are loaded in parallel. Records are returned in
+     * the order of their keys.
+     */
+    private <T> List<T> batchLoad(Class<? extends T> clazz, List<T> recordKeyList) {
+        List<List<T>> batchList = Lists.partition(recordKeyList, BATCH_LOAD_SIZE);
+        if (batchList.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // The first batch is loaded on this thread, while the others are loaded on the shared executor.
+        List<Future<List<T>>> futureList = new ArrayList<>();
+        for (List<T> batch : batchList.subList(1, batchList.size())) {
+            futureList.add(batchLoadExecutor.submit(() -> batchLoadHelper(clazz, batch)));
+        }
+        List<T> recordList = batchLoadHelper(clazz, batchList.get(0));
+        for (Future<List<T>> future : futureList) {
+            try {
+                recordList.addAll(future.get());
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new BridgeServiceException(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new BridgeServiceException(ex);
+            }
+        }
+        return sortByKeyOrder(recordKeyList, recordList);
+    }
+
+    /**
+     * Puts the loaded records in the order of their key objects, matching them on the table's hash and range keys.
+     * Records whose keys weren't matched (which shouldn't happen) go at the end.
+     */
+    private static <T> List<T> sortByKeyOrder(List<T> recordKeyList, List<T> recordList) {
+        if (recordList.isEmpty()) {
+            return recordList;
+        }
+        List<Method> keyGetterList = getKeyGetters(recordList.get(0).getClass());
+        if (keyGetterList.isEmpty()) {
+            return recordList;
+        }
+
+        Map<List<Object>, T> recordsByKey = new LinkedHashMap<>();
+        for (T record : recordList) {
+            recordsByKey.put(getTableKey(keyGetterList, record), record);
+        }
+        List<T> sortedList = new ArrayList<>();
+        for (T recordKey : recordKeyList) {
+            T record = recordsByKey.remove(getTableKey(keyGetterList, recordKey));
+            if (record != null) {
+                sortedList.add(record);
+            }
+        }
+        sortedList.addAll(recordsByKey.values());
+        return sortedList;
+    }
+
+    /** The getters annotated with the table's hash key and range key, if any. */
+    private static List<Method> getKeyGetters(Class<?> tableClass) {
+        List<Method> keyGetterList = new ArrayList<>();
+        for (Method method : tableClass.getMethods()) {
+            if (method.isAnnotationPresent(DynamoDBHashKey.class)) {
+                keyGetterList.add(0, method);
+            } else if (method.isAnnotationPresent(DynamoDBRangeKey.class)) {
+                keyGetterList.add(method);
+            }
+        }
+        return keyGetterList;
+    }
+
+    private static List<Object> getTableKey(List<Method> keyGetterList, Object record) {
+        List<Object> tableKey = new ArrayList<>();
+        for (Method keyGetter : keyGetterList) {
+            try {
+                tableKey.add(keyGetter.invoke(record));
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new BridgeServiceException(ex);
+            }
+        }
+        return tableKey;
+    }
 
-        // Using the "key objects", batch query DDB to get full records. For some reason, batchLoad() returns a map.
-        // Flatten that map into a list.
+    @SuppressWarnings("unchecked")
+    private <T> List<T> batchLoadHelper(Class<? extends T> clazz, List<T> recordKeyList) {
+        // For some reason, batchLoad() returns a map. Flatten that map into a list.
         //
         // Also, for some reason, batchLoad() takes a List<Object>, not a List<T> or List<?>. Fortunately, Java type
         // erasure means we can safely cast this to a List<Object>.
@@ -173,6 +422,30 @@ public class DynamoIndexHelper {
         } else {
             return index.query(indexKeyName, indexKeyValue);
         }
-    }    
+    }
+
+    /**
+     * Queries a single page of the index, for the same reason as {@link #queryHelper}. The low-level result is
+     * returned, which has the items (or count) and the last evaluated key.
+     */
+    protected QueryResult queryPageHelper(@Nonnull QuerySpec spec) {
+        return index.query(spec).firstPage().getLowLevelResult().getQueryResult();
+    }
+
+    private static QuerySpec createQuerySpec(@Nonnull String indexKeyName, @Nonnull Object indexKeyValue,
+            @Nullable RangeKeyCondition rangeKeyCondition) {
+        QuerySpec spec = new QuerySpec().withHashKey(indexKeyName, indexKeyValue);
+        if (rangeKeyCondition != null) {
+            spec.withRangeKeyCondition(rangeKeyCondition);
+        }
+        return spec;
+    }
 
+    private static PrimaryKey toPrimaryKey(@Nonnull Item key) {
+        PrimaryKey primaryKey = new PrimaryKey();
+        for (Map.Entry<String, Object> component : key.asMap().entrySet()) {
+            primaryKey.addComponent(component.getKey(), component.getValue());
+        }
+        return primaryKey;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,36 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
 import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
 import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
 import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.config.Environment;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,11 +40,20 @@ import org.springframework.stereotype.Component;
 public class DynamoInitializer {
     private static Logger LOG = LoggerFactory.getLogger(DynamoInitializer.class);
 
+    /**
+     * Number of tables verified at once. DynamoDB limits how many tables can be created or updated at the same time,
+     * and describe calls are throttled per account, so this is kept small.
+     */
+    static final int INIT_THREAD_COUNT = 8;
+
     private final BridgeConfig bridgeConfig;
     private final AmazonDynamoDB dynamoDBClient;
     private final DynamoUtils dynamoUtils;
     private final DynamoNamingHelper dynamoNamingHelper;
 
+    /** Hash of the table schemas this server has already verified, so later calls to init() return immediately. */
+    private volatile String verifiedSchemaHash;
+
     @Autowired
     public DynamoInitializer(BridgeConfig bridgeConfig,
                              AmazonDynamoDBClient dynamoDBClient,
@@ -39,9 +67,86 @@ public class DynamoInitializer {
     /**
      * Creates DynamoDB tables, if they do not exist yet. Throws an error if the table exists but the schema (hash key, range key,
      * and secondary indices) does not match.
+     * <p>
+     * Tables are verified in parallel. Once they have been verified, later calls with the same schemas return
+     * immediately. This is only remembered by this server, since the tables themselves can be deleted or changed
+     * outside of Bridge, so each server verifies the tables once when it starts.
      */
     public void init(Collection<TableDescription> tables) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        String schemaHash = getSchemaHash(tables);
+        if (schemaHash.equals(verifiedSchemaHash)) {
+            LOG.info("DynamoDB table schemas already verified (" + schemaHash + "), skipping verification.");
+            return;
+        }
         initTables(tables);
+        verifiedSchemaHash = schemaHash;
+        LOG.info("Verified " + tables.size() + " DynamoDB tables in " + stopwatch.elapsed(MILLISECONDS) + " ms.");
+    }
+
+    /**
+     * A hash of everything compareSchema() checks, plus table names (which include the environment and user). Changes to
+     * provisioned throughput do not change the hash.
+     */
+    static String getSchemaHash(Collection<TableDescription> tables) {
+        List<TableDescription> sortedTables = Lists.newArrayList(tables);
+        sortedTables.sort(Comparator.comparing(TableDescription::getTableName));
+
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (TableDescription table : sortedTables) {
+            putString(hasher, "table", table.getTableName());
+            putKeySchema(hasher, table.getKeySchema());
+            List<AttributeDefinition> attributes = Lists.newArrayList(nullSafe(table.getAttributeDefinitions()));
+            attributes.sort(Comparator.comparing(AttributeDefinition::getAttributeName));
+            for (AttributeDefinition attribute : attributes) {
+                putString(hasher, "attribute", attribute.getAttributeName() + "=" + attribute.getAttributeType());
+            }
+            List<GlobalSecondaryIndexDescription> globalIndices = Lists.newArrayList(
+                    nullSafe(table.getGlobalSecondaryIndexes()));
+            globalIndices.sort(Comparator.comparing(GlobalSecondaryIndexDescription::getIndexName));
+            for (GlobalSecondaryIndexDescription index : globalIndices) {
+                putString(hasher, "globalIndex", index.getIndexName());
+                putKeySchema(hasher, index.getKeySchema());
+                putProjection(hasher, index.getProjection());
+            }
+            List<LocalSecondaryIndexDescription> localIndices = Lists.newArrayList(
+                    nullSafe(table.getLocalSecondaryIndexes()));
+            localIndices.sort(Comparator.comparing(LocalSecondaryIndexDescription::getIndexName));
+            for (LocalSecondaryIndexDescription index : localIndices) {
+                putString(hasher, "localIndex", index.getIndexName());
+                putKeySchema(hasher, index.getKeySchema());
+                putProjection(hasher, index.getProjection());
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private static void putKeySchema(Hasher hasher, List<KeySchemaElement> keySchema) {
+        // Key order is significant (hash key, then range key), so it is not sorted.
+        for (KeySchemaElement key : nullSafe(keySchema)) {
+            putString(hasher, "key", key.getAttributeName() + "=" + key.getKeyType());
+        }
+    }
+
+    private static void putProjection(Hasher hasher, Projection projection) {
+        if (projection != null) {
+            putString(hasher, "projection", projection.getProjectionType());
+            List<String> attributes = Lists.newArrayList(nullSafe(projection.getNonKeyAttributes()));
+            attributes.sort(Comparator.naturalOrder());
+            for (String attribute : attributes) {
+                putString(hasher, "projected", attribute);
+            }
+        }
+    }
+
+    // Each value is tagged and terminated, so adjacent values can't run together into the same hash.
+    private static void putString(Hasher hasher, String tag, String value) {
+        hasher.putString(tag, StandardCharsets.UTF_8).putChar('=').putString(String.valueOf(value),
+                StandardCharsets.UTF_8).putChar('\n');
+    }
+
+    private static <T> List<T> nullSafe(List<T> list) {
+        return (list == null) ? Lists.newArrayList() : list;
     }
 
     void deleteTable(Class<?> table) {
@@ -66,33 +171,52 @@ public class DynamoInitializer {
     }
 
     private void initTables(final Collection<TableDescription> tables) {
-        Map<String, TableDescription> existingTables = dynamoUtils.getExistingTables();
-        Environment env = bridgeConfig.getEnvironment();
-        if (Environment.UAT.equals(env) || Environment.PROD.equals(env)) {
-            StringBuilder builder = new StringBuilder("[");
-            for (Map.Entry<String, TableDescription> entry : existingTables.entrySet()) {
-                builder.append("(");
-                builder.append(entry.getKey());
-                builder.append(", ");
-                builder.append(entry.getValue().getTableName());
-                builder.append(", ");
-                builder.append(entry.getValue().getTableStatus());
-                builder.append("), ");
+        ExecutorService executor = Executors.newFixedThreadPool(INIT_THREAD_COUNT,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DynamoInitializer-%d").build());
+        try {
+            List<Future<?>> futures = Lists.newArrayListWithCapacity(tables.size());
+            for (TableDescription table : tables) {
+                futures.add(executor.submit(() -> initTable(table)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
             }
-            builder.append("]");
-            LOG.info("Existing tables: " + builder.toString());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BridgeServiceException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BridgeServiceException(e);
+        } finally {
+            // Stops the remaining tables if one of them failed.
+            executor.shutdownNow();
         }
-        for (TableDescription table : tables) {
-            if (!existingTables.containsKey(table.getTableName())) {
-                CreateTableRequest createTableRequest = dynamoUtils.getCreateTableRequest(table);
-                LOG.info("Creating table " + table.getTableName());
-                dynamoDBClient.createTable(createTableRequest);
-            } else {
-                final TableDescription existingTable = existingTables.get(table.getTableName());
-                dynamoUtils.compareSchema(table, existingTable);
+        LOG.info("DynamoDB tables are ready.");
+    }
+
+    private void initTable(TableDescription table) {
+        TableDescription existingTable;
+        try {
+            existingTable = dynamoDBClient.describeTable(table.getTableName()).getTable();
+        } catch (ResourceNotFoundException e) {
+            existingTable = null;
+        }
+        if (existingTable == null) {
+            CreateTableRequest createTableRequest = dynamoUtils.getCreateTableRequest(table);
+            LOG.info("Creating table " + table.getTableName());
+            dynamoDBClient.createTable(createTableRequest);
+        } else {
+            Environment env = bridgeConfig.getEnvironment();
+            if (Environment.UAT.equals(env) || Environment.PROD.equals(env)) {
+                LOG.info("Existing table: (" + existingTable.getTableName() + ", " + existingTable.getTableStatus() + ")");
             }
+            dynamoUtils.compareSchema(table, existingTable);
+        }
+        // A table that is already active doesn't need to be described again.
+        if (existingTable == null || !TableStatus.ACTIVE.toString().equals(existingTable.getTableStatus())) {
             dynamoUtils.waitForActive(table.getTableName());
         }
-        LOG.info("DynamoDB tables are ready.");
     }
 }
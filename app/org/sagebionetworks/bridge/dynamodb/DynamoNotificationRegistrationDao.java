@@ -16,6 +16,7 @@ import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.DateUtils;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
@@ -41,6 +42,8 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
     
     private AmazonSNSClient snsClient;
     
+    private CircuitBreaker circuitBreaker;
+    
     @Resource(name = "notificationRegistrationMapper")
     final void setNotificationRegistrationMapper(DynamoDBMapper mapper) {
         this.mapper = mapper;
@@ -51,6 +54,11 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
         this.snsClient = snsClient;
     }
     
+    @Resource(name = "snsCircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+    
     @Override
     public List<NotificationRegistration> listRegistrations(String healthCode) {
         checkNotNull(healthCode);
@@ -96,7 +104,7 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
                 .withToken(registration.getDeviceId())
                 .withCustomUserData(registration.getHealthCode())
                 .withPlatformApplicationArn(platformARN);
-        CreatePlatformEndpointResult result = snsClient.createPlatformEndpoint(request);
+        CreatePlatformEndpointResult result = circuitBreaker.call(() -> snsClient.createPlatformEndpoint(request));
         
         // If the data is the same and returns an existing endpointARN, we want to re-use the original record 
         // and GUID we provided to the client, not create a new record. Look for it.
@@ -155,7 +163,7 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
         NotificationRegistration registration = getRegistration(healthCode, guid);
         
         DeleteEndpointRequest request = new DeleteEndpointRequest().withEndpointArn(registration.getEndpointARN());
-        snsClient.deleteEndpoint(request);
+        circuitBreaker.run(() -> snsClient.deleteEndpoint(request));
         
         mapper.delete(registration);
     }
@@ -173,7 +181,7 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
     private Map<String, String> getEndpointAttributes(String endpointARN) {
         try {
             GetEndpointAttributesRequest request = new GetEndpointAttributesRequest().withEndpointArn(endpointARN);
-            GetEndpointAttributesResult result = snsClient.getEndpointAttributes(request);
+            GetEndpointAttributesResult result = circuitBreaker.call(() -> snsClient.getEndpointAttributes(request));
             return Maps.newHashMap(result.getAttributes());
         } catch(InvalidParameterException e) {
             throw new BridgeServiceException(e.getMessage());
@@ -187,6 +195,6 @@ public class DynamoNotificationRegistrationDao implements NotificationRegistrati
         attrRequest.addAttributesEntry(TOKEN, deviceToken);
         attrRequest.addAttributesEntry(ENABLED, Boolean.TRUE.toString());
         attrRequest.addAttributesEntry(CUSTOM_USER_DATA, healthCode);
-        snsClient.setEndpointAttributes(attrRequest);
+        circuitBreaker.run(() -> snsClient.setEndpointAttributes(attrRequest));
     }
 }
@@ -13,10 +13,12 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.NotificationTopicDao;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.DateUtils;
 import org.sagebionetworks.bridge.models.notifications.NotificationTopic;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
@@ -36,6 +38,8 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
     
     private AmazonSNSClient snsClient;
     
+    private CircuitBreaker circuitBreaker;
+    
     private BridgeConfig config;
     
     @Resource(name = "notificationTopicMapper")
@@ -47,6 +51,11 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
     final void setSnsClient(AmazonSNSClient snsClient) {
         this.snsClient = snsClient;
     }
+    
+    @Resource(name = "snsCircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
 
     @Resource(name = "bridgeConfig")
     public void setBridgeConfig(BridgeConfig bridgeConfig) {
@@ -97,7 +106,7 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
         
         String snsTopicName = createSnsTopicName(topic);
         CreateTopicRequest request = new CreateTopicRequest().withName(snsTopicName);
-        CreateTopicResult result = snsClient.createTopic(request);
+        CreateTopicResult result = circuitBreaker.call(() -> snsClient.createTopic(request));
         topic.setTopicARN(result.getTopicArn());
         long timestamp = DateUtils.getCurrentMillisFromEpoch();
         topic.setCreatedOn(timestamp);
@@ -140,8 +149,8 @@ public class DynamoNotificationTopicDao implements NotificationTopicDao {
         
         try {
             DeleteTopicRequest request = new DeleteTopicRequest().withTopicArn(existing.getTopicARN());
-            snsClient.deleteTopic(request);
-        } catch(AmazonServiceException e) {
+            circuitBreaker.run(() -> snsClient.deleteTopic(request));
+        } catch(AmazonServiceException | DependencyUnavailableException e) {
             LOG.warn("Bridge topic '" + existing.getName() + "' in study '" + existing.getStudyId()
                     + "' deleted, but SNS topic deletion threw exception", e);
         }
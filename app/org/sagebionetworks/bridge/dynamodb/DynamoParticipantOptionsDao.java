@@ -97,13 +97,10 @@ public class DynamoParticipantOptionsDao implements ParticipantOptionsDao {
     public void deleteAllOptions(String healthCode) {
         checkArgument(isNotBlank(healthCode));
         
+        // Deleting by key succeeds whether or not the record exists, so there is no need to load it first.
         DynamoParticipantOptions keyObject = new DynamoParticipantOptions();
         keyObject.setHealthCode(healthCode);
-        
-        DynamoParticipantOptions options = mapper.load(keyObject);
-        if (options != null) {
-            mapper.delete(options);    
-        }
+        mapper.delete(keyObject);
     }
 
     @Override
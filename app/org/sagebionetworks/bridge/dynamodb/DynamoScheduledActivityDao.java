@@ -58,10 +58,8 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
         
         String nextPageOffsetKey = (page.getLastEvaluatedKey() != null) ? page.getLastEvaluatedKey().get(GUID).getS() : null;
         
-        int total = mapper.count(DynamoScheduledActivity.class, createCountQuery(healthCode));
-        
         PagedResourceList<? extends ScheduledActivity> resourceList = new PagedResourceList<>(page.getResults(), null,
-                pageSize, total).withOffsetKey(nextPageOffsetKey);
+                pageSize, page.getResults().size()).withOffsetKey(nextPageOffsetKey);
         
         for (ScheduledActivity activity : resourceList.getItems()) {
             activity.setTimeZone(DateTimeZone.UTC);
@@ -69,6 +67,12 @@ public class DynamoScheduledActivityDao implements ScheduledActivityDao {
         return resourceList;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public int getActivityHistoryCount(String healthCode) {
+        return mapper.count(DynamoScheduledActivity.class, createCountQuery(healthCode));
+    }
+
     /**
      * Get the count query (applies filters) and then sets an offset key and the limit to a page of records, 
      * plus one, to determine if there are records beyond the current page. 
@@ -51,6 +51,8 @@ public final class DynamoStudy implements Study {
     private boolean externalIdValidationEnabled;
     private Map<String, Integer> minSupportedAppVersions;
     private Map<String, String> pushNotificationARNs;
+    private int requestRateLimit;
+    private int participantRequestRateLimit;
 
     public DynamoStudy() {
         profileAttributes = new HashSet<>();
@@ -357,6 +359,30 @@ public final class DynamoStudy implements Study {
         this.pushNotificationARNs = (map == null) ? new HashMap<>() : map;
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public int getRequestRateLimit() {
+        return requestRateLimit;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setRequestRateLimit(int requestRateLimit) {
+        this.requestRateLimit = requestRateLimit;
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public int getParticipantRequestRateLimit() {
+        return participantRequestRateLimit;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setParticipantRequestRateLimit(int participantRequestRateLimit) {
+        this.participantRequestRateLimit = participantRequestRateLimit;
+    }
+    
     
 
     @Override
@@ -366,7 +392,7 @@ public final class DynamoStudy implements Study {
                 dataGroups, passwordPolicy, verifyEmailTemplate, resetPasswordTemplate, active,
                 strictUploadValidationEnabled, healthCodeExportEnabled, emailVerificationEnabled,
                 externalIdValidationEnabled, minSupportedAppVersions, synapseDataAccessTeamId, synapseProjectId,
-                usesCustomExportSchedule, pushNotificationARNs);
+                usesCustomExportSchedule, pushNotificationARNs, requestRateLimit, participantRequestRateLimit);
     }
 
     @Override
@@ -398,7 +424,9 @@ public final class DynamoStudy implements Study {
                 && Objects.equals(externalIdValidationEnabled, other.externalIdValidationEnabled)
                 && Objects.equals(emailVerificationEnabled, other.emailVerificationEnabled)
                 && Objects.equals(minSupportedAppVersions, other.minSupportedAppVersions)
-                && Objects.equals(pushNotificationARNs, other.pushNotificationARNs);
+                && Objects.equals(pushNotificationARNs, other.pushNotificationARNs)
+                && Objects.equals(requestRateLimit, other.requestRateLimit)
+                && Objects.equals(participantRequestRateLimit, other.participantRequestRateLimit);
     }
 
     @Override
@@ -410,11 +438,11 @@ public final class DynamoStudy implements Study {
                             + "dataGroups=%s, passwordPolicy=%s, verifyEmailTemplate=%s, resetPasswordTemplate=%s, "
                             + "strictUploadValidationEnabled=%s, healthCodeExportEnabled=%s, emailVerificationEnabled=%s, "
                             + "externalIdValidationEnabled=%s, minSupportedAppVersions=%s, usesCustomExportSchedule=%s, "
-                            + "pushNotificationARNs=%s]",
+                            + "pushNotificationARNs=%s, requestRateLimit=%s, participantRequestRateLimit=%s]",
                 name, active, sponsorName, identifier, stormpathHref, minAgeOfConsent, supportEmail, synapseDataAccessTeamId, 
                 synapseProjectId, technicalEmail, consentNotificationEmail, version, profileAttributes, taskIdentifiers, 
                 dataGroups, passwordPolicy, verifyEmailTemplate, resetPasswordTemplate, strictUploadValidationEnabled, 
                 healthCodeExportEnabled, emailVerificationEnabled, externalIdValidationEnabled, minSupportedAppVersions, 
-                usesCustomExportSchedule, pushNotificationARNs);
+                usesCustomExportSchedule, pushNotificationARNs, requestRateLimit, participantRequestRateLimit);
     }
 }
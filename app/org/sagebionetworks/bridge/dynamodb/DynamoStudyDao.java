@@ -6,6 +6,7 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
@@ -14,7 +15,11 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.dao.StudyDao;
@@ -23,6 +28,7 @@ import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
 import org.sagebionetworks.bridge.validators.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -32,6 +38,12 @@ public class DynamoStudyDao implements StudyDao {
     private static final Set<String> STUDY_WHITE_LIST = ImmutableSet.copyOf(
             BridgeConfigFactory.getConfig().getPropertyAsList("study.whitelist"));
 
+    // Only the attributes of a StudyRegistryEntry are read when enumerating studies. "version" is a reserved word.
+    private static final String REGISTRY_PROJECTION = "identifier, active, #version";
+    private static final Map<String,String> REGISTRY_ATTRIBUTE_NAMES = ImmutableMap.of("#version", "version");
+
+    private AmazonDynamoDB client;
+    private String tableName;
     private DynamoDBMapper mapper;
 
     @Autowired
@@ -39,6 +51,8 @@ public class DynamoStudyDao implements StudyDao {
         DynamoDBMapperConfig mapperConfig = new DynamoDBMapperConfig.Builder().withSaveBehavior(SaveBehavior.UPDATE)
                 .withConsistentReads(ConsistentReads.CONSISTENT)
                 .withTableNameOverride(dynamoNamingHelper.getTableNameOverride(DynamoStudy.class)).build();
+        this.client = client;
+        this.tableName = dynamoNamingHelper.getFullyQualifiedTableName(DynamoStudy.class);
         mapper = new DynamoDBMapper(client, mapperConfig);
     }
 
@@ -72,6 +86,45 @@ public class DynamoStudyDao implements StudyDao {
         return new ArrayList<Study>(mappings);
     }
 
+    /**
+     * Scans the study table for only the identifier, active flag and version of each study. Each page of the
+     * scan reads the same items as a full scan, but returns a small fraction of the data, and none of it needs
+     * to be deserialized into a study.
+     */
+    @Override
+    public List<StudyRegistryEntry> getStudyRegistryEntries() {
+        List<StudyRegistryEntry> entries = new ArrayList<>();
+        Map<String,AttributeValue> startKey = null;
+        do {
+            ScanRequest request = new ScanRequest().withTableName(tableName)
+                    .withProjectionExpression(REGISTRY_PROJECTION)
+                    .withExpressionAttributeNames(REGISTRY_ATTRIBUTE_NAMES)
+                    .withConsistentRead(true)
+                    .withExclusiveStartKey(startKey);
+            ScanResult result = client.scan(request);
+            for (Map<String,AttributeValue> item : result.getItems()) {
+                entries.add(toRegistryEntry(item));
+            }
+            startKey = result.getLastEvaluatedKey();
+        } while (startKey != null && !startKey.isEmpty());
+        return entries;
+    }
+
+    static StudyRegistryEntry toRegistryEntry(Map<String,AttributeValue> item) {
+        String identifier = item.get("identifier").getS();
+
+        // The mapper persists booleans as numbers (1 or 0). Studies that were never activated have no attribute.
+        AttributeValue activeValue = item.get("active");
+        boolean active = false;
+        if (activeValue != null) {
+            active = (activeValue.getBOOL() != null) ? activeValue.getBOOL() : "1".equals(activeValue.getN());
+        }
+        AttributeValue versionValue = item.get("version");
+        Long version = (versionValue != null) ? Long.valueOf(versionValue.getN()) : null;
+
+        return new StudyRegistryEntry(identifier, active, version);
+    }
+
     @Override
     public Study createStudy(Study study) {
         checkNotNull(study, Validate.CANNOT_BE_NULL, "study");
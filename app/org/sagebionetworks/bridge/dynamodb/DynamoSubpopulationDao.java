@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.RequestScopedCache;
 import org.sagebionetworks.bridge.dao.CriteriaDao;
 import org.sagebionetworks.bridge.dao.StudyConsentDao;
 import org.sagebionetworks.bridge.dao.SubpopulationDao;
@@ -68,6 +69,7 @@ public class DynamoSubpopulationDao implements SubpopulationDao {
         subpop.setCriteria(criteria);
 
         mapper.save(subpop);
+        RequestScopedCache.invalidatePrefix(getScopeKeyPrefix(subpop.getStudyIdentifier()));
         return subpop;
     }
 
@@ -93,11 +95,18 @@ public class DynamoSubpopulationDao implements SubpopulationDao {
         subpop.setDefaultGroup(existing.isDefaultGroup()); 
         subpop.setDeleted(false);
         mapper.save(subpop);
+        RequestScopedCache.invalidatePrefix(getScopeKeyPrefix(studyId));
         return subpop;
     }
 
     @Override
     public List<Subpopulation> getSubpopulations(StudyIdentifier studyId, boolean createDefault, boolean includeDeleted) {
+        // Subpopulations are needed several times during sign in (for the account and for consent statuses)
+        String scopeKey = getScopeKeyPrefix(studyId) + createDefault + ":" + includeDeleted;
+        return RequestScopedCache.get(scopeKey, () -> loadSubpopulations(studyId, createDefault, includeDeleted));
+    }
+    
+    private List<Subpopulation> loadSubpopulations(StudyIdentifier studyId, boolean createDefault, boolean includeDeleted) {
         DynamoSubpopulation hashKey = new DynamoSubpopulation();
         hashKey.setStudyIdentifier(studyId.getIdentifier());
         
@@ -141,6 +150,7 @@ public class DynamoSubpopulationDao implements SubpopulationDao {
         subpop.setCriteria(criteria);
         
         mapper.save(subpop);
+        RequestScopedCache.invalidatePrefix(getScopeKeyPrefix(studyId));
         return subpop;
     }
     
@@ -186,6 +196,7 @@ public class DynamoSubpopulationDao implements SubpopulationDao {
             subpop.setDeleted(true);
             mapper.save(subpop);
         }
+        RequestScopedCache.invalidatePrefix(getScopeKeyPrefix(studyId));
     }
 
     @Override
@@ -197,10 +208,19 @@ public class DynamoSubpopulationDao implements SubpopulationDao {
                 criteriaDao.deleteCriteria(subpop.getCriteria().getKey());
             }
             List<FailedBatch> failures = mapper.batchDelete(subpops);
+            RequestScopedCache.invalidatePrefix(getScopeKeyPrefix(studyId));
             BridgeUtils.ifFailuresThrowException(failures);
         }
     }
     
+    private String getScopeKeyPrefix(StudyIdentifier studyId) {
+        return getScopeKeyPrefix(studyId.getIdentifier());
+    }
+    
+    private String getScopeKeyPrefix(String studyId) {
+        return "subpopulations:" + studyId + ":";
+    }
+    
     private String getKey(Subpopulation subpop) {
         return "subpopulation:" + subpop.getGuidString();
     }
@@ -4,10 +4,14 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.annotation.Resource;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.SurveyDao;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -27,6 +31,7 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
@@ -36,6 +41,7 @@ import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 @Component
 public class DynamoSurveyDao implements SurveyDao {
@@ -187,9 +193,29 @@ public class DynamoSurveyDao implements SurveyDao {
         }
     }
 
+    static final String LIST_BY_POINTER_PROPERTY = "survey.list.by.pointer.enabled";
+
+    /** Attempts to update a survey pointer before giving up, if other requests keep updating the same pointer. */
+    static final int POINTER_UPDATE_ATTEMPTS = 5;
+
+    private static final DynamoDBMapperConfig CONSISTENT_READ = new DynamoDBMapperConfig.Builder()
+            .withConsistentReads(DynamoDBMapperConfig.ConsistentReads.CONSISTENT).build();
+
     private DynamoDBMapper surveyMapper;
     private DynamoDBMapper surveyElementMapper;
+    private DynamoDBMapper surveyPointerMapper;
     private UploadSchemaDao uploadSchemaDao;
+    private boolean listByPointer;
+    
+    /**
+     * Surveys are listed by their pointers only once survey.list.by.pointer.enabled is set, which should be done after 
+     * surveyPointerBackfill has run. Until then surveys created before the pointers existed would not be listed. 
+     * Pointers are kept up to date either way.
+     */
+    @Autowired
+    public final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.listByPointer = Boolean.parseBoolean(bridgeConfig.getProperty(LIST_BY_POINTER_PROPERTY));
+    }
     
     @Resource(name = "surveyMapper")
     public void setSurveyMapper(DynamoDBMapper surveyMapper) {
@@ -201,6 +227,11 @@ public class DynamoSurveyDao implements SurveyDao {
         this.surveyElementMapper = surveyElementMapper;
     }
 
+    @Resource(name = "surveyPointerMapper")
+    public void setSurveyPointerMapper(DynamoDBMapper surveyPointerMapper) {
+        this.surveyPointerMapper = surveyPointerMapper;
+    }
+
     @Autowired
     public final void setUploadSchemaDao(UploadSchemaDao uploadSchemaDao) {
         this.uploadSchemaDao = uploadSchemaDao;
@@ -219,7 +250,9 @@ public class DynamoSurveyDao implements SurveyDao {
         survey.setPublished(false);
         survey.setDeleted(false);
         survey.setVersion(null);
-        return saveSurvey(survey);
+        Survey saved = saveSurvey(survey);
+        advancePointer(saved, false);
+        return saved;
     }
 
     @Override
@@ -241,6 +274,7 @@ public class DynamoSurveyDao implements SurveyDao {
             } catch(ConditionalCheckFailedException e) {
                 throw new ConcurrentModificationException(survey);
             }
+            advancePointer(survey, true);
         }
         return survey;
     }
@@ -287,7 +321,9 @@ public class DynamoSurveyDao implements SurveyDao {
         for (SurveyElement element : copy.getElements()) {
             element.setGuid(BridgeUtils.generateGuid());
         }
-        return saveSurvey(copy);
+        Survey saved = saveSurvey(copy);
+        advancePointer(saved, false);
+        return saved;
     }
 
     @Override
@@ -306,6 +342,7 @@ public class DynamoSurveyDao implements SurveyDao {
         }
         existing.setDeleted(true);
         saveSurvey(existing);
+        rebuildPointer(existing.getStudyIdentifier(), existing.getGuid());
     }
 
     @Override
@@ -313,6 +350,7 @@ public class DynamoSurveyDao implements SurveyDao {
         Survey existing = getSurvey(keys);
         deleteAllElements(existing.getGuid(), existing.getCreatedOn());
         surveyMapper.delete(existing);
+        rebuildPointer(existing.getStudyIdentifier(), existing.getGuid());
         
         // Delete the schemas as well, or they accumulate.
         try {
@@ -338,16 +376,22 @@ public class DynamoSurveyDao implements SurveyDao {
         return new QueryBuilder().setStudy(studyIdentifier).isPublished().setSurvey(guid).isNotDeleted().getOne(true);
     }
     
-    // secondary index query (not survey GUID) 
+    // survey pointer query, or secondary index query until pointers are backfilled (not survey GUID) 
     @Override
     public List<Survey> getAllSurveysMostRecentlyPublishedVersion(StudyIdentifier studyIdentifier) {
+        if (listByPointer) {
+            return getSurveysByPointer(studyIdentifier, DynamoSurveyPointer::getLatestPublishedCreatedOn);
+        }
         List<Survey> surveys = new QueryBuilder().setStudy(studyIdentifier).isPublished().isNotDeleted().getAll(false);
         return findMostRecentVersions(surveys);
     }
     
-    // secondary index query (not survey GUID)
+    // survey pointer query, or secondary index query until pointers are backfilled (not survey GUID)
     @Override
     public List<Survey> getAllSurveysMostRecentVersion(StudyIdentifier studyIdentifier) {
+        if (listByPointer) {
+            return getSurveysByPointer(studyIdentifier, DynamoSurveyPointer::getLatestCreatedOn);
+        }
         List<Survey> surveys = new QueryBuilder().setStudy(studyIdentifier).isNotDeleted().getAll(false);
         return findMostRecentVersions(surveys);
     }
@@ -362,9 +406,34 @@ public class DynamoSurveyDao implements SurveyDao {
         return new QueryBuilder().setSurvey(keys.getGuid()).setCreatedOn(keys.getCreatedOn()).getOne(true);
     }
     
+    /**
+     * Rebuild the pointers for every survey in a study from all of the study's survey revisions. This scan gets 
+     * expensive when there are many revisions, so it's only used to backfill pointers for surveys that were created 
+     * before there were pointers.
+     * @return the number of surveys that have a pointer
+     */
+    public int rebuildSurveyPointers(StudyIdentifier studyIdentifier) {
+        DynamoSurvey hashKey = new DynamoSurvey();
+        hashKey.setStudyIdentifier(studyIdentifier.getIdentifier());
+        DynamoDBQueryExpression<DynamoSurvey> query = new DynamoDBQueryExpression<DynamoSurvey>()
+                .withHashKeyValues(hashKey).withConsistentRead(false);
+
+        Set<String> guids = Sets.newLinkedHashSet();
+        for (DynamoSurvey survey : surveyMapper.query(DynamoSurvey.class, query)) {
+            guids.add(survey.getGuid());
+        }
+        int count = 0;
+        for (String guid : guids) {
+            if (rebuildPointer(studyIdentifier.getIdentifier(), guid)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * This scan gets expensive when there are many revisions. We don't know the set of unique GUIDs, so 
-     * we also have to iterate over everything. 
+     * we also have to iterate over everything. Only used until the survey pointers are backfilled.
      * @param surveys
      * @return
      */
@@ -381,6 +450,119 @@ public class DynamoSurveyDao implements SurveyDao {
         }
         return ImmutableList.copyOf(map.values());
     }
+
+    /**
+     * Load the revision of each survey in the study that is referenced by the pointer, with one query of the 
+     * pointers and a batch load of the revisions, however many revisions each survey has.
+     */
+    private List<Survey> getSurveysByPointer(StudyIdentifier studyIdentifier,
+            Function<DynamoSurveyPointer, Long> createdOnGetter) {
+        DynamoDBQueryExpression<DynamoSurveyPointer> query = new DynamoDBQueryExpression<DynamoSurveyPointer>()
+                .withHashKeyValues(new DynamoSurveyPointer(studyIdentifier.getIdentifier(), null));
+        List<DynamoSurveyPointer> pointers = surveyPointerMapper.query(DynamoSurveyPointer.class, query);
+
+        List<Object> keys = Lists.newArrayList();
+        for (DynamoSurveyPointer pointer : pointers) {
+            Long createdOn = createdOnGetter.apply(pointer);
+            if (createdOn != null) {
+                keys.add(new DynamoSurvey(pointer.getGuid(), createdOn));
+            }
+        }
+        if (keys.isEmpty()) {
+            return ImmutableList.of();
+        }
+        Map<String, DynamoSurvey> surveysByGuid = Maps.newHashMap();
+        for (List<Object> tableResults : surveyMapper.batchLoad(keys).values()) {
+            for (Object result : tableResults) {
+                DynamoSurvey survey = (DynamoSurvey)result;
+                surveysByGuid.put(survey.getGuid(), survey);
+            }
+        }
+        // Return the surveys in the order of the pointers (by GUID). A revision can disappear if it is deleted 
+        // permanently after the pointers are read.
+        ImmutableList.Builder<Survey> builder = ImmutableList.builder();
+        for (Object key : keys) {
+            DynamoSurvey survey = surveysByGuid.get(((DynamoSurvey)key).getGuid());
+            if (survey != null) {
+                builder.add(survey);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Move the survey's pointer forward to this revision (and to this published revision, if published is true). 
+     * Pointers never move backward here, so an older revision that's published later doesn't hide a newer one.
+     */
+    private void advancePointer(Survey survey, boolean published) {
+        long createdOn = survey.getCreatedOn();
+        updatePointer(survey.getStudyIdentifier(), survey.getGuid(), pointer -> {
+            if (pointer.getLatestCreatedOn() == null || pointer.getLatestCreatedOn() < createdOn) {
+                pointer.setLatestCreatedOn(createdOn);
+            }
+            if (published && (pointer.getLatestPublishedCreatedOn() == null
+                    || pointer.getLatestPublishedCreatedOn() < createdOn)) {
+                pointer.setLatestPublishedCreatedOn(createdOn);
+            }
+        });
+    }
+
+    /**
+     * Recalculate a survey's pointer from all of the survey's revisions, after a revision is deleted. The pointer is 
+     * deleted if no revisions remain.
+     * @return true if the survey still has a pointer
+     */
+    private boolean rebuildPointer(String studyKey, String guid) {
+        boolean[] exists = new boolean[1];
+        updatePointer(studyKey, guid, pointer -> {
+            DynamoDBQueryExpression<DynamoSurvey> query = new DynamoDBQueryExpression<DynamoSurvey>()
+                    .withHashKeyValues(new DynamoSurvey(guid, 0L));
+            Long latestCreatedOn = null;
+            Long latestPublishedCreatedOn = null;
+            for (DynamoSurvey survey : surveyMapper.query(DynamoSurvey.class, query)) {
+                if (survey.isDeleted()) {
+                    continue;
+                }
+                if (latestCreatedOn == null || survey.getCreatedOn() > latestCreatedOn) {
+                    latestCreatedOn = survey.getCreatedOn();
+                }
+                if (survey.isPublished() && (latestPublishedCreatedOn == null
+                        || survey.getCreatedOn() > latestPublishedCreatedOn)) {
+                    latestPublishedCreatedOn = survey.getCreatedOn();
+                }
+            }
+            pointer.setLatestCreatedOn(latestCreatedOn);
+            pointer.setLatestPublishedCreatedOn(latestPublishedCreatedOn);
+            exists[0] = (latestCreatedOn != null);
+        });
+        return exists[0];
+    }
+
+    /**
+     * Read, update and conditionally write a survey pointer. If another request updates the pointer in between, the 
+     * version check fails and the update is applied again to the newer pointer.
+     */
+    private void updatePointer(String studyKey, String guid, Consumer<DynamoSurveyPointer> update) {
+        for (int i=0; i < POINTER_UPDATE_ATTEMPTS; i++) {
+            DynamoSurveyPointer pointer = surveyPointerMapper.load(DynamoSurveyPointer.class, studyKey, guid,
+                    CONSISTENT_READ);
+            if (pointer == null) {
+                pointer = new DynamoSurveyPointer(studyKey, guid);
+            }
+            update.accept(pointer);
+            try {
+                if (pointer.getLatestCreatedOn() != null) {
+                    surveyPointerMapper.save(pointer);
+                } else if (pointer.getVersion() != null) {
+                    surveyPointerMapper.delete(pointer);
+                }
+                return;
+            } catch(ConditionalCheckFailedException e) {
+                // Another request updated the pointer; try again.
+            }
+        }
+        throw new BridgeServiceException("Could not update pointer for survey " + guid);
+    }
     
     private Survey saveSurvey(Survey survey) {
         deleteAllElements(survey.getGuid(), survey.getCreatedOn());
@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAttribute;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBRangeKey;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBTable;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBVersionAttribute;
+
+/**
+ * Points to the most recent revision and the most recently published revision of a survey, so that the surveys in a
+ * study can be listed without reading every revision of every survey. Deleted revisions are never pointed to. A
+ * pointer with neither createdOn value is deleted rather than saved.
+ */
+@DynamoDBTable(tableName = "SurveyPointer")
+public class DynamoSurveyPointer {
+    private String studyKey;
+    private String guid;
+    private Long latestCreatedOn;
+    private Long latestPublishedCreatedOn;
+    private Long version;
+
+    public DynamoSurveyPointer() {
+    }
+
+    public DynamoSurveyPointer(String studyKey, String guid) {
+        this.studyKey = studyKey;
+        this.guid = guid;
+    }
+
+    @DynamoDBHashKey
+    public String getStudyKey() {
+        return studyKey;
+    }
+
+    public void setStudyKey(String studyKey) {
+        this.studyKey = studyKey;
+    }
+
+    @DynamoDBRangeKey
+    public String getGuid() {
+        return guid;
+    }
+
+    public void setGuid(String guid) {
+        this.guid = guid;
+    }
+
+    /** createdOn of the most recent revision that has not been deleted. */
+    @DynamoDBAttribute
+    public Long getLatestCreatedOn() {
+        return latestCreatedOn;
+    }
+
+    public void setLatestCreatedOn(Long latestCreatedOn) {
+        this.latestCreatedOn = latestCreatedOn;
+    }
+
+    /** createdOn of the most recent published revision that has not been deleted, or null if none is published. */
+    @DynamoDBAttribute
+    public Long getLatestPublishedCreatedOn() {
+        return latestPublishedCreatedOn;
+    }
+
+    public void setLatestPublishedCreatedOn(Long latestPublishedCreatedOn) {
+        this.latestPublishedCreatedOn = latestPublishedCreatedOn;
+    }
+
+    @DynamoDBVersionAttribute
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -1,25 +1,81 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.dao.UploadDedupeDao;
+import org.sagebionetworks.bridge.json.DateUtils;
 
-/** DDB implementation of UploadDedupeDao. */
+/**
+ * <p>
+ * DDB implementation of UploadDedupeDao.
+ * </p>
+ * <p>
+ * Almost no uploads are dupes, so before querying the dedupe table, this DAO checks a per-node Bloom filter of
+ * recent registrations. If the filter says the upload is definitely new, only the registrations the filter might
+ * not have seen yet (those since its last refresh, less the refresh overlap) are queried, instead of the whole dupe
+ * window. The filter is rebuilt from the table's uploadRequestedDate index periodically (so registrations that have
+ * aged out of the dupe window are dropped), and in between, registrations from other nodes are loaded incrementally
+ * every 30 seconds. Until the filter has been built, every lookup queries the whole dupe window.
+ * </p>
+ */
 @Component
 public class DynamoUploadDedupeDao implements UploadDedupeDao {
+    private static final Logger LOG = LoggerFactory.getLogger(DynamoUploadDedupeDao.class);
+
     private static final int NUM_DAYS_BEFORE = 7;
 
+    static final String REQUESTED_DATE_INDEX = "uploadRequestedDate-index";
+
+    /** How often registrations from other nodes are loaded into the filter. */
+    static final long FILTER_REFRESH_INTERVAL_MILLIS = 30 * 1000;
+
+    /**
+     * Each refresh re-reads registrations from slightly before the previous refresh, to pick up registrations that
+     * hadn't yet propagated to the (eventually consistent) index. For the same reason, lookups always query the table
+     * for registrations from this long before the last refresh onwards.
+     */
+    static final long FILTER_REFRESH_OVERLAP_MILLIS = 60 * 1000;
+
+    /** How often the filter is rebuilt from scratch. */
+    static final long FILTER_REBUILD_INTERVAL_MILLIS = 6 * 60 * 60 * 1000;
+
+    // Only the hash key (health code and MD5) is read. The key conditions and query filter are in the legacy
+    // (non-expression) form, so the attribute is selected the same way.
+    private static final String REGISTRATION_ATTRIBUTE = "ddbKey";
+
     private DynamoDBMapper mapper;
+    private AmazonDynamoDB client;
+    private String tableName;
+
+    private volatile UploadDedupeFilter filter;
+    private final AtomicBoolean filterUpdating = new AtomicBoolean();
+    private Executor filterExecutor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("DynamoUploadDedupeDao-filter-%d").build());
 
     /** UploadDedupe DDB mapper. */
     @Resource(name = "uploadDedupeDdbMapper")
@@ -27,6 +83,26 @@ public class DynamoUploadDedupeDao implements UploadDedupeDao {
         this.mapper = mapper;
     }
 
+    /** DDB client and naming helper, used to load registrations into the filter. */
+    @Autowired
+    public void setDynamoDbClient(AmazonDynamoDB client, DynamoNamingHelper dynamoNamingHelper) {
+        this.client = client;
+        this.tableName = dynamoNamingHelper.getFullyQualifiedTableName(DynamoUploadDedupe.class);
+    }
+
+    /** Executor that builds and refreshes the filter. Unit tests replace this to update the filter synchronously. */
+    void setFilterExecutor(Executor filterExecutor) {
+        this.filterExecutor = filterExecutor;
+    }
+
+    /** Stops the filter executor when the application shuts down. */
+    @PreDestroy
+    public void shutdown() {
+        if (filterExecutor instanceof ExecutorService) {
+            ((ExecutorService) filterExecutor).shutdownNow();
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getDuplicate(String healthCode, String uploadMd5, DateTime uploadRequestedOn) {
@@ -39,8 +115,13 @@ public class DynamoUploadDedupeDao implements UploadDedupeDao {
         // certain time. Since apps are known to upload a file, then upload the same file the next day, we'll give it
         // a 7-day buffer period for finding dupes.
         DateTime dupeWindowStartTime = uploadRequestedOn.minusDays(NUM_DAYS_BEFORE);
+        long queryStartMillis = getQueryStartMillis(hashKey.getDdbKey(), dupeWindowStartTime, uploadRequestedOn);
+        if (queryStartMillis > uploadRequestedOn.getMillis()) {
+            return null;
+        }
+
         Condition requestedOnCondition = new Condition().withComparisonOperator(ComparisonOperator.BETWEEN)
-                .withAttributeValueList(new AttributeValue().withN(String.valueOf(dupeWindowStartTime.getMillis())),
+                .withAttributeValueList(new AttributeValue().withN(String.valueOf(queryStartMillis)),
                         new AttributeValue().withN(String.valueOf(uploadRequestedOn.getMillis())));
 
         // make and execute query
@@ -66,5 +147,112 @@ public class DynamoUploadDedupeDao implements UploadDedupeDao {
         dedupe.setUploadRequestedDate(uploadRequestedOn.withZone(BridgeConstants.LOCAL_TIME_ZONE).toLocalDate());
         dedupe.setUploadRequestedOn(uploadRequestedOn.getMillis());
         mapper.save(dedupe);
+
+        // Add it to the filter once it's in the table, so lookups on this node don't need the next refresh to find it.
+        UploadDedupeFilter currentFilter = filter;
+        if (currentFilter != null) {
+            currentFilter.put(dedupe.getDdbKey(), dedupe.getUploadRequestedDate());
+        }
+    }
+
+    /**
+     * Returns the epoch milliseconds from which the table needs to be queried for registrations with this key. This
+     * is the start of the window if the upload might be a dupe, or if the filter can't answer. Otherwise, it's the
+     * point from which registrations on other nodes might not be in the filter yet, which can be after the end of the
+     * window, in which case the table doesn't need to be queried at all. Also kicks off a filter update if one is due.
+     */
+    long getQueryStartMillis(String ddbKey, DateTime windowStartTime, DateTime windowEndTime) {
+        UploadDedupeFilter currentFilter = filter;
+        long now = DateUtils.getCurrentMillisFromEpoch();
+        long refreshedThrough = currentFilter != null ? currentFilter.getRefreshedThrough() : 0;
+        if (currentFilter == null || now - refreshedThrough >= FILTER_REFRESH_INTERVAL_MILLIS) {
+            scheduleFilterUpdate();
+        }
+
+        long windowStartMillis = windowStartTime.getMillis();
+        if (currentFilter == null) {
+            return windowStartMillis;
+        }
+        LocalDate startDate = windowStartTime.withZone(BridgeConstants.LOCAL_TIME_ZONE).toLocalDate();
+        LocalDate endDate = windowEndTime.withZone(BridgeConstants.LOCAL_TIME_ZONE).toLocalDate();
+        if (startDate.isBefore(currentFilter.getCoveredFrom())
+                || currentFilter.mightContain(ddbKey, startDate, endDate)) {
+            return windowStartMillis;
+        }
+        return Math.max(windowStartMillis, refreshedThrough - FILTER_REFRESH_OVERLAP_MILLIS);
+    }
+
+    private void scheduleFilterUpdate() {
+        if (filterUpdating.compareAndSet(false, true)) {
+            try {
+                filterExecutor.execute(() -> {
+                    try {
+                        updateFilter();
+                    } catch (RuntimeException ex) {
+                        // Lookups query the table further back until the filter is updated.
+                        LOG.error("Error updating upload dedupe filter: " + ex.getMessage(), ex);
+                    } finally {
+                        filterUpdating.set(false);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                filterUpdating.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    /** Rebuilds the filter if it's missing or due to be rebuilt, otherwise loads registrations since last refresh. */
+    void updateFilter() {
+        UploadDedupeFilter currentFilter = filter;
+        long now = DateUtils.getCurrentMillisFromEpoch();
+        LocalDate today = new DateTime(now, BridgeConstants.LOCAL_TIME_ZONE).toLocalDate();
+
+        if (currentFilter == null || now - currentFilter.getBuiltOn() >= FILTER_REBUILD_INTERVAL_MILLIS) {
+            // Covers the dupe window of any upload requested from now on.
+            LocalDate coveredFrom = today.minusDays(NUM_DAYS_BEFORE);
+            UploadDedupeFilter newFilter = new UploadDedupeFilter(coveredFrom, now);
+            for (LocalDate date = coveredFrom; !date.isAfter(today); date = date.plusDays(1)) {
+                loadRegistrations(newFilter, date, null);
+            }
+            filter = newFilter;
+            LOG.info("Rebuilt upload dedupe filter from " + coveredFrom + " in " +
+                    (DateUtils.getCurrentMillisFromEpoch() - now) + " ms");
+        } else {
+            long since = currentFilter.getRefreshedThrough() - FILTER_REFRESH_OVERLAP_MILLIS;
+            LocalDate sinceDate = new DateTime(since, BridgeConstants.LOCAL_TIME_ZONE).toLocalDate();
+            for (LocalDate date = sinceDate; !date.isAfter(today); date = date.plusDays(1)) {
+                loadRegistrations(currentFilter, date, since);
+            }
+            currentFilter.setRefreshedThrough(now);
+        }
+    }
+
+    /**
+     * Loads the registrations requested on the given date into the filter, optionally only those requested after
+     * the given epoch milliseconds.
+     */
+    private void loadRegistrations(UploadDedupeFilter targetFilter, LocalDate uploadRequestedDate,
+            Long requestedAfter) {
+        Map<String, Condition> keyConditions = ImmutableMap.of("uploadRequestedDate", new Condition()
+                .withComparisonOperator(ComparisonOperator.EQ)
+                .withAttributeValueList(new AttributeValue(DateUtils.getCalendarDateString(uploadRequestedDate))));
+
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryRequest request = new QueryRequest().withTableName(tableName).withIndexName(REQUESTED_DATE_INDEX)
+                    .withKeyConditions(keyConditions).withAttributesToGet(REGISTRATION_ATTRIBUTE)
+                    .withExclusiveStartKey(startKey);
+            if (requestedAfter != null) {
+                request.withQueryFilter(ImmutableMap.of("uploadRequestedOn", new Condition()
+                        .withComparisonOperator(ComparisonOperator.GT)
+                        .withAttributeValueList(new AttributeValue().withN(String.valueOf(requestedAfter)))));
+            }
+            QueryResult result = client.query(request);
+            for (Map<String, AttributeValue> item : result.getItems()) {
+                targetFilter.put(item.get("ddbKey").getS(), uploadRequestedDate);
+            }
+            startKey = result.getLastEvaluatedKey();
+        } while (startKey != null && !startKey.isEmpty());
     }
 }
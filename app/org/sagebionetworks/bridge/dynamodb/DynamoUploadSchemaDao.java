@@ -4,7 +4,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -610,20 +609,40 @@ public class DynamoUploadSchemaDao implements UploadSchemaDao {
         }
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     *
+     * The studyId index only projects keys, so the index query reads just the key and revision of each schema
+     * revision. Only the latest revision of each schema is loaded from the table, so loading the full schemas costs
+     * the same however many revisions each schema has.
+     */
     @Override
     public @Nonnull List<UploadSchema> getUploadSchemasForStudy(@Nonnull StudyIdentifier studyId) {
-        List<UploadSchema> allSchemasAllRevisions = studyIdIndex.query(UploadSchema.class, "studyId", studyId.getIdentifier(), null);
-        
-        // Find the most recent version of each schema with a unique schemaId
-        Map<String,UploadSchema> schemaMap = new HashMap<>();
-        for (UploadSchema schema : allSchemasAllRevisions) {
-            UploadSchema existing = schemaMap.get(schema.getSchemaId());
-            if (existing == null || schema.getRevision() > existing.getRevision()) {
+        List<DynamoUploadSchema> allRevisionKeys = studyIdIndex.queryKeys(DynamoUploadSchema.class, "studyId",
+                studyId.getIdentifier(), null);
+
+        // Find the key of the most recent revision of each schema with a unique schemaId
+        Map<String, DynamoUploadSchema> latestKeyMap = new TreeMap<>();
+        for (DynamoUploadSchema schemaKey : allRevisionKeys) {
+            DynamoUploadSchema existing = latestKeyMap.get(schemaKey.getSchemaId());
+            if (existing == null || schemaKey.getRevision() > existing.getRevision()) {
+                latestKeyMap.put(schemaKey.getSchemaId(), schemaKey);
+            }
+        }
+        if (latestKeyMap.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        // batchLoad() takes a List<Object> and returns the results by table name, in no particular order.
+        List<Object> latestKeyList = new ArrayList<>(latestKeyMap.values());
+        Map<String, UploadSchema> schemaMap = new TreeMap<>();
+        for (List<Object> resultList : mapper.batchLoad(latestKeyList).values()) {
+            for (Object oneResult : resultList) {
+                UploadSchema schema = (UploadSchema) oneResult;
                 schemaMap.put(schema.getSchemaId(), schema);
             }
         }
-        // Do we care if it's sorted? What would it be sorted by?
+        // Sorted by schema ID, so callers get a stable order.
         return ImmutableList.copyOf(schemaMap.values());
     }
 
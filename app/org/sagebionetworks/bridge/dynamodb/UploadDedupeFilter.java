@@ -0,0 +1,86 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.joda.time.LocalDate;
+
+import org.sagebionetworks.bridge.json.DateUtils;
+
+/**
+ * Bloom filter over upload dedupe registrations, keyed by health code, upload MD5 and the calendar date the upload
+ * was requested on. A filter only knows about registrations on or after the date it covers from, and (for uploads
+ * registered on other nodes) requested before the time it was last refreshed through. Guava's BloomFilter is not
+ * thread-safe in this version, so access is synchronized.
+ */
+class UploadDedupeFilter {
+    /** Sized for a week of uploads, with room to spare. */
+    static final int EXPECTED_INSERTIONS = 2000000;
+
+    /**
+     * Each lookup checks one key per day of the dupe window, so roughly 1 in 100 new uploads will still be checked
+     * against the dedupe table.
+     */
+    static final double FALSE_POSITIVE_PROBABILITY = 0.001;
+
+    private final BloomFilter<String> bloomFilter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+            EXPECTED_INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+    private final LocalDate coveredFrom;
+    private final long builtOn;
+    private volatile long refreshedThrough;
+
+    /**
+     * @param coveredFrom
+     *         earliest upload requested date this filter has loaded registrations for
+     * @param builtOn
+     *         epoch milliseconds when the filter was built, and the registrations were loaded through
+     */
+    UploadDedupeFilter(LocalDate coveredFrom, long builtOn) {
+        this.coveredFrom = coveredFrom;
+        this.builtOn = builtOn;
+        this.refreshedThrough = builtOn;
+    }
+
+    /** Earliest upload requested date this filter has loaded registrations for. */
+    LocalDate getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /** Epoch milliseconds when the filter was built. */
+    long getBuiltOn() {
+        return builtOn;
+    }
+
+    /** Epoch milliseconds through which registrations from all nodes have been loaded into the filter. */
+    long getRefreshedThrough() {
+        return refreshedThrough;
+    }
+
+    /** @see #getRefreshedThrough */
+    void setRefreshedThrough(long refreshedThrough) {
+        this.refreshedThrough = refreshedThrough;
+    }
+
+    /** Adds a registration, identified by its dedupe table hash key (health code and MD5) and requested date. */
+    synchronized void put(String ddbKey, LocalDate uploadRequestedDate) {
+        bloomFilter.put(getFilterKey(ddbKey, uploadRequestedDate));
+    }
+
+    /**
+     * False if there is definitely no registration with this dedupe table hash key requested between these dates
+     * (inclusive). True if there might be.
+     */
+    synchronized boolean mightContain(String ddbKey, LocalDate startDate, LocalDate endDate) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (bloomFilter.mightContain(getFilterKey(ddbKey, date))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getFilterKey(String ddbKey, LocalDate uploadRequestedDate) {
+        return ddbKey + ":" + DateUtils.getCalendarDateString(uploadRequestedDate);
+    }
+}
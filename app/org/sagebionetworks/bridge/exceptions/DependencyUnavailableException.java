@@ -0,0 +1,24 @@
+package org.sagebionetworks.bridge.exceptions;
+
+/**
+ * A call to an external dependency (Stormpath, S3, SES, SNS or SQS) was not made, because the circuit breaker for
+ * that dependency is open, or too many calls to it are already in progress. Callers that have a cached copy of
+ * what they were reading can catch this and serve the cached copy instead. Otherwise this is returned as a 503
+ * with a Retry-After header.
+ */
+@SuppressWarnings("serial")
+@NoStackTraceException
+public class DependencyUnavailableException extends ServiceUnavailableException {
+
+    private final String dependency;
+
+    public DependencyUnavailableException(String dependency, int retryAfterSeconds) {
+        super("A service Bridge depends on is temporarily unavailable, please try again.", retryAfterSeconds);
+        this.dependency = dependency;
+    }
+
+    /** The name of the circuit breaker that rejected the call. */
+    public String getDependency() {
+        return dependency;
+    }
+}
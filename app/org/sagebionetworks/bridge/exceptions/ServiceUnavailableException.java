@@ -3,12 +3,30 @@ package org.sagebionetworks.bridge.exceptions;
 @SuppressWarnings("serial")
 public class ServiceUnavailableException extends BridgeServiceException {
 
+    private final Integer retryAfterSeconds;
+    
     public ServiceUnavailableException(String message) {
         super(message, 503);
+        this.retryAfterSeconds = null;
     }
     
     public ServiceUnavailableException(Exception e) {
         super(e, 503);
+        this.retryAfterSeconds = null;
+    }
+    
+    /**
+     * The service is temporarily unavailable, and the response will include a Retry-After header with the number of 
+     * seconds after which the request can be retried.
+     */
+    public ServiceUnavailableException(String message, int retryAfterSeconds) {
+        super(message, 503);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    /** Seconds after which the request can be retried, or null if unknown. */
+    public Integer getRetryAfterSeconds() {
+        return retryAfterSeconds;
     }
     
 }
@@ -0,0 +1,21 @@
+package org.sagebionetworks.bridge.exceptions;
+
+/**
+ * The caller has exceeded a request rate limit. The response includes a Retry-After header with the number of 
+ * seconds until a request would be allowed.
+ */
+@SuppressWarnings("serial")
+@NoStackTraceException
+public class TooManyRequestsException extends BridgeServiceException {
+    
+    private final int retryAfterSeconds;
+
+    public TooManyRequestsException(String message, int retryAfterSeconds) {
+        super(message, 429);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
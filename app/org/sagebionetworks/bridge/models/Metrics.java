@@ -3,9 +3,12 @@ package org.sagebionetworks.bridge.models;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.List;
+
 import org.sagebionetworks.bridge.json.DateUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -110,6 +113,14 @@ public class Metrics {
         put("sharing_option", sharingOption);
     }
 
+    /** The circuit breakers (named for their dependencies) that were open or half open when the request ended. */
+    public void setOpenCircuits(List<String> circuits) {
+        if (circuits != null && !circuits.isEmpty()) {
+            ArrayNode array = json.putArray("open_circuits");
+            circuits.forEach(array::add);
+        }
+    }
+
     private void put(final String field, final String value) {
         if (isNotBlank(value)) {
             json.put(field, value);
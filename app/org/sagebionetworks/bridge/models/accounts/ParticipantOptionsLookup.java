@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.models.accounts;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -21,6 +22,13 @@ public class ParticipantOptionsLookup {
         this.options = options;
     }
     
+    /**
+     * The saved values, keyed by option name. Default values are not applied to options that have not been set.
+     */
+    public Map<String,String> getOptions() {
+        return Collections.unmodifiableMap(options);
+    }
+    
     public String getString(ParticipantOption option) {
         String value = options.get(option.name());
         if (value == null) {
@@ -0,0 +1,63 @@
+package org.sagebionetworks.bridge.models.activities;
+
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TWO_MONTHS_BEFORE_ENROLLMENT;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TWO_WEEKS_BEFORE_ENROLLMENT;
+
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+/**
+ * Builds the map of event identifiers to timestamps that is used to schedule activities, from the events 
+ * that are persisted for a user.
+ */
+public final class ActivityEventUtils {
+
+    private static final String ANSWERED_EVENT_POSTFIX = ":"+ActivityEventType.ANSWERED.name().toLowerCase();
+    private static final String TWO_WEEKS = TWO_WEEKS_BEFORE_ENROLLMENT.name().toLowerCase();
+    private static final String TWO_MONTHS = TWO_MONTHS_BEFORE_ENROLLMENT.name().toLowerCase();
+    
+    private ActivityEventUtils() {
+    }
+    
+    /**
+     * Put the event into the map of events, along with the events that are calculated from it (e.g. 
+     * "two_weeks_before_enrollment"). An answer event replaces the entry for any earlier answer to the 
+     * same question.
+     */
+    public static void putEvent(Map<String,DateTime> map, ActivityEvent event) {
+        DateTime timestamp = new DateTime(event.getTimestamp(), DateTimeZone.UTC);
+        if (isAnswerEvent(event)) {
+            String answerPrefix = event.getEventId() + "=";
+            map.keySet().removeIf(key -> key.startsWith(answerPrefix));
+        }
+        map.put(getEventMapKey(event), timestamp);
+        if (isEnrollment(event)) {
+            map.put(TWO_WEEKS, timestamp.minusWeeks(2));
+            map.put(TWO_MONTHS, timestamp.minusMonths(2));
+        }
+    }
+    
+    public static boolean isEnrollment(ActivityEvent event) {
+        return ENROLLMENT.name().toLowerCase().equals(event.getEventId());
+    }
+    
+    /**
+     * Answer events do schedule against a specific answer, which is added to the key in the
+     * map only. A change in the value is continued to be a change to the same event.
+     * @param event
+     * @return
+     */
+    private static String getEventMapKey(ActivityEvent event) {
+        if (isAnswerEvent(event)) {
+            return event.getEventId()+"="+event.getAnswerValue();
+        }
+        return event.getEventId();    
+    }
+    
+    private static boolean isAnswerEvent(ActivityEvent event) {
+        return event.getEventId().endsWith(ANSWERED_EVENT_POSTFIX);
+    }
+}
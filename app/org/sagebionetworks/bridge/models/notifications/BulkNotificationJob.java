@@ -0,0 +1,131 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.json.DateTimeSerializer;
+import org.sagebionetworks.bridge.models.BridgeEntity;
+import org.sagebionetworks.bridge.models.Criteria;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The status of a bulk notification job. While the job is running, it is saved periodically with the counts and
+ * outcomes so far, and the time it was saved (updatedOn). Once it has finished, the counts cover every registration of
+ * every matching participant. The outcomes list is capped, with failures listed before successes, so it can be
+ * shorter than the sent and failed counts.
+ */
+public final class BulkNotificationJob implements BridgeEntity {
+    
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+    
+    private final String jobId;
+    private final String studyId;
+    private final Status status;
+    private final NotificationMessage message;
+    private final Criteria criteria;
+    private final DateTime startedOn;
+    private final DateTime updatedOn;
+    private final DateTime finishedOn;
+    private final int participantCount;
+    private final int sentCount;
+    private final int failedCount;
+    private final List<NotificationOutcome> outcomes;
+    
+    @JsonCreator
+    public BulkNotificationJob(@JsonProperty("jobId") String jobId, @JsonProperty("studyId") String studyId,
+            @JsonProperty("status") Status status, @JsonProperty("message") NotificationMessage message,
+            @JsonProperty("criteria") Criteria criteria, @JsonProperty("startedOn") DateTime startedOn,
+            @JsonProperty("updatedOn") DateTime updatedOn, @JsonProperty("finishedOn") DateTime finishedOn, @JsonProperty("participantCount") int participantCount,
+            @JsonProperty("sentCount") int sentCount, @JsonProperty("failedCount") int failedCount,
+            @JsonProperty("outcomes") List<NotificationOutcome> outcomes) {
+        this.jobId = jobId;
+        this.studyId = studyId;
+        this.status = status;
+        this.message = message;
+        this.criteria = criteria;
+        this.startedOn = startedOn;
+        this.updatedOn = updatedOn;
+        this.finishedOn = finishedOn;
+        this.participantCount = participantCount;
+        this.sentCount = sentCount;
+        this.failedCount = failedCount;
+        this.outcomes = (outcomes == null) ? ImmutableList.of() : ImmutableList.copyOf(outcomes);
+    }
+    public String getJobId() {
+        return jobId;
+    }
+    public String getStudyId() {
+        return studyId;
+    }
+    public Status getStatus() {
+        return status;
+    }
+    public NotificationMessage getMessage() {
+        return message;
+    }
+    public Criteria getCriteria() {
+        return criteria;
+    }
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getStartedOn() {
+        return startedOn;
+    }
+    /** When the job was last saved. A running job that hasn't been saved for a while is no longer running. */
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getUpdatedOn() {
+        return updatedOn;
+    }
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getFinishedOn() {
+        return finishedOn;
+    }
+    /** The number of participants who matched the criteria, whether or not they had registered a device. */
+    public int getParticipantCount() {
+        return participantCount;
+    }
+    public int getSentCount() {
+        return sentCount;
+    }
+    public int getFailedCount() {
+        return failedCount;
+    }
+    public List<NotificationOutcome> getOutcomes() {
+        return outcomes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobId, studyId, status, message, criteria, startedOn, updatedOn, finishedOn,
+                participantCount, sentCount, failedCount, outcomes);
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        BulkNotificationJob other = (BulkNotificationJob) obj;
+        return Objects.equals(jobId, other.jobId) && Objects.equals(studyId, other.studyId)
+                && Objects.equals(status, other.status) && Objects.equals(message, other.message)
+                && Objects.equals(criteria, other.criteria) && Objects.equals(startedOn, other.startedOn)
+                && Objects.equals(updatedOn, other.updatedOn) && Objects.equals(finishedOn, other.finishedOn) && participantCount == other.participantCount
+                && sentCount == other.sentCount && failedCount == other.failedCount
+                && Objects.equals(outcomes, other.outcomes);
+    }
+    @Override
+    public String toString() {
+        return "BulkNotificationJob [jobId=" + jobId + ", studyId=" + studyId + ", status=" + status + ", startedOn="
+                + startedOn + ", updatedOn=" + updatedOn + ", finishedOn=" + finishedOn + ", participantCount=" + participantCount
+                + ", sentCount=" + sentCount + ", failedCount=" + failedCount + "]";
+    }
+}
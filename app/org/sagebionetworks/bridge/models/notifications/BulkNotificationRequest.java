@@ -0,0 +1,49 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+import java.util.Objects;
+
+import org.sagebionetworks.bridge.models.BridgeEntity;
+import org.sagebionetworks.bridge.models.Criteria;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A request to send a push notification to every participant in a study who matches the criteria (data groups and
+ * language). If there are no criteria, the notification is sent to every participant in the study.
+ */
+public final class BulkNotificationRequest implements BridgeEntity {
+    private final NotificationMessage message;
+    private final Criteria criteria;
+    
+    @JsonCreator
+    public BulkNotificationRequest(@JsonProperty("message") NotificationMessage message,
+            @JsonProperty("criteria") Criteria criteria) {
+        this.message = message;
+        this.criteria = criteria;
+    }
+    public NotificationMessage getMessage() {
+        return message;
+    }
+    public Criteria getCriteria() {
+        return criteria;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(message, criteria);
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        BulkNotificationRequest other = (BulkNotificationRequest) obj;
+        return Objects.equals(message, other.message) && Objects.equals(criteria, other.criteria);
+    }
+    @Override
+    public String toString() {
+        return "BulkNotificationRequest [message=" + message + ", criteria=" + criteria + "]";
+    }
+}
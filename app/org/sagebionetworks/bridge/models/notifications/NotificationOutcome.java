@@ -0,0 +1,73 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The result of publishing a bulk notification to one push notification registration (one device of one
+ * participant).
+ */
+public final class NotificationOutcome {
+    
+    public enum Status {
+        SENT,
+        FAILED
+    }
+    
+    private final String registrationGuid;
+    private final String osName;
+    private final Status status;
+    private final int attempts;
+    private final String errorMessage;
+    
+    @JsonCreator
+    public NotificationOutcome(@JsonProperty("registrationGuid") String registrationGuid,
+            @JsonProperty("osName") String osName, @JsonProperty("status") Status status,
+            @JsonProperty("attempts") int attempts, @JsonProperty("errorMessage") String errorMessage) {
+        this.registrationGuid = registrationGuid;
+        this.osName = osName;
+        this.status = status;
+        this.attempts = attempts;
+        this.errorMessage = errorMessage;
+    }
+    public String getRegistrationGuid() {
+        return registrationGuid;
+    }
+    public String getOsName() {
+        return osName;
+    }
+    public Status getStatus() {
+        return status;
+    }
+    /** The number of times publishing was attempted, including retries. */
+    public int getAttempts() {
+        return attempts;
+    }
+    /** The error from the last attempt, if the notification could not be sent. */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(registrationGuid, osName, status, attempts, errorMessage);
+    }
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        NotificationOutcome other = (NotificationOutcome) obj;
+        return Objects.equals(registrationGuid, other.registrationGuid) && Objects.equals(osName, other.osName)
+                && Objects.equals(status, other.status) && attempts == other.attempts
+                && Objects.equals(errorMessage, other.errorMessage);
+    }
+    @Override
+    public String toString() {
+        return "NotificationOutcome [registrationGuid=" + registrationGuid + ", osName=" + osName + ", status="
+                + status + ", attempts=" + attempts + ", errorMessage=" + errorMessage + "]";
+    }
+}
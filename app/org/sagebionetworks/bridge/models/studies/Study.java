@@ -221,4 +221,24 @@ public interface Study extends BridgeEntity, StudyIdentifier {
 
     /** @see #getPushNotificationARNs(); */
     void setPushNotificationARNs(Map<String, String> pushNotificationARNs);
+    
+    /**
+     * The maximum number of requests per minute that can be made by all the participants of this study together, 
+     * across all servers. Zero (the default) uses the server-wide default limit. Can only be changed by an 
+     * administrator.
+     */
+    int getRequestRateLimit();
+    
+    /** @see #getRequestRateLimit(); */
+    void setRequestRateLimit(int requestRateLimit);
+    
+    /**
+     * The maximum number of requests per minute that can be made through one session, for each class of endpoint 
+     * (reads, writes). Zero (the default) uses the server-wide default limit. Can only be changed by an 
+     * administrator.
+     */
+    int getParticipantRequestRateLimit();
+    
+    /** @see #getParticipantRequestRateLimit(); */
+    void setParticipantRequestRateLimit(int participantRequestRateLimit);
 }
@@ -0,0 +1,63 @@
+package org.sagebionetworks.bridge.models.studies;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.util.Objects;
+
+/**
+ * The few attributes of a study needed to enumerate studies: its identifier, whether it is active, and its
+ * version. The version changes every time the study is updated, so it can be compared with the version of a
+ * cached study to determine whether the cached copy is stale.
+ */
+public final class StudyRegistryEntry {
+
+    private final String identifier;
+    private final boolean active;
+    private final Long version;
+
+    public StudyRegistryEntry(String identifier, boolean active, Long version) {
+        checkArgument(isNotBlank(identifier));
+        this.identifier = identifier;
+        this.active = active;
+        this.version = version;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public StudyIdentifier getStudyIdentifier() {
+        return new StudyIdentifierImpl(identifier);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(identifier, active, version);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        StudyRegistryEntry other = (StudyRegistryEntry) obj;
+        return Objects.equals(identifier, other.identifier) && active == other.active
+                && Objects.equals(version, other.version);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StudyRegistryEntry [identifier=%s, active=%s, version=%s]", identifier, active,
+                version);
+    }
+}
@@ -19,8 +19,10 @@ import javax.annotation.Nonnull;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.CachedView;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.exceptions.UnsupportedVersionException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.exceptions.NotAuthenticatedException;
@@ -50,12 +52,15 @@ import play.libs.Json;
 import play.mvc.Controller;
 import play.mvc.Http;
 import play.mvc.Http.Cookie;
+import play.mvc.Http.RawBuffer;
 import play.mvc.Http.Request;
 import play.mvc.Result;
 
 import com.amazonaws.util.Throwables;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 
@@ -306,11 +311,69 @@ public abstract class BaseController extends Controller {
     }
 
     Result okResult(Object obj) {
-        return ok((JsonNode)MAPPER.valueToTree(obj));
+        return jsonResult(OK, MAPPER.writer(), obj);
     }
     
     <T> Result okResult(List<T> list) {
-        return ok((JsonNode)MAPPER.valueToTree(new ResourceList<T>(list)));
+        return jsonResult(OK, MAPPER.writer(), new ResourceList<T>(list));
+    }
+    
+    /**
+     * Write the object to the response with a specific writer, usually one of the filtered views defined on the 
+     * model (e.g. StudyParticipant.API_NO_HEALTH_CODE_WRITER).
+     */
+    Result okResult(ObjectWriter writer, Object obj) {
+        return jsonResult(OK, writer, obj);
+    }
+    
+    /**
+     * Write a cached view directly to the response. If the client accepts gzip encoding, the precompressed form 
+     * is returned with a Content-Encoding header, which also causes the GzipFilter to pass the response through 
+     * without compressing it again.
+     */
+    Result okResult(CachedView view) {
+        response().setHeader(VARY, ACCEPT_ENCODING);
+        if (acceptsGzipEncoding()) {
+            response().setHeader(CONTENT_ENCODING, "gzip");
+            return ok(view.getGzippedJson()).as(BridgeConstants.JSON_MIME_TYPE);
+        }
+        return ok(view.getJson()).as(BridgeConstants.JSON_MIME_TYPE);
+    }
+    
+    /**
+     * True if the Accept-Encoding header accepts gzip. An explicit gzip coding takes precedence over the * wildcard
+     * wherever it appears in the header, so "*, gzip;q=0" does not accept gzip.
+     */
+    boolean acceptsGzipEncoding() {
+        String acceptEncodingHeader = request().getHeader(ACCEPT_ENCODING);
+        if (isNotBlank(acceptEncodingHeader)) {
+            Boolean gzipAccepted = null;
+            Boolean wildcardAccepted = null;
+            for (String coding : acceptEncodingHeader.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if ("gzip".equalsIgnoreCase(name)) {
+                    gzipAccepted = hasNonZeroQuality(parts);
+                } else if ("*".equals(name)) {
+                    wildcardAccepted = hasNonZeroQuality(parts);
+                }
+            }
+            if (gzipAccepted != null) {
+                return gzipAccepted;
+            }
+            return Boolean.TRUE.equals(wildcardAccepted);
+        }
+        return false;
+    }
+    
+    private static boolean hasNonZeroQuality(String[] codingParts) {
+        for (int i=1; i < codingParts.length; i++) {
+            String param = codingParts[i].replace(" ", "");
+            if (param.matches("[qQ]=0(\\.0*)?")) {
+                return false;
+            }
+        }
+        return true;
     }
     
     Result createdResult(String message) throws Exception {
@@ -318,18 +381,44 @@ public abstract class BaseController extends Controller {
     }
     
     Result createdResult(Object obj) throws Exception {
-        return created((JsonNode)MAPPER.valueToTree(obj));
+        return jsonResult(CREATED, MAPPER.writer(), obj);
+    }
+    
+    Result createdResult(ObjectWriter writer, Object obj) throws Exception {
+        return jsonResult(CREATED, writer, obj);
     }
     
     Result acceptedResult(String message) {
         return status(202, Json.toJson(new StatusMessage(message)));
     }
     
+    Result acceptedResult(Object obj) {
+        return jsonResult(ACCEPTED, MAPPER.writer(), obj);
+    }
+    
+    /**
+     * Serializes the object directly to the bytes of the response body. Going through valueToTree() (or 
+     * writeValueAsString()) first builds a complete copy of the response as a JsonNode (or String), which is 
+     * expensive for large payloads like scheduled activities and survey definitions.
+     */
+    private Result jsonResult(int statusCode, ObjectWriter writer, Object obj) {
+        try {
+            return status(statusCode, writer.writeValueAsBytes(obj)).as(BridgeConstants.JSON_MIME_TYPE);
+        } catch(JsonProcessingException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     // This is needed or tests fail. It appears to be a bug in Play Framework,
     // that the asJson() method doesn't return a node in that context, possibly
     // because the root object in the JSON is an array (which is legal). 
     JsonNode requestToJSON(Request request) {
         try {
+            RawBuffer raw = request.body().asRaw();
+            if (raw != null && raw.size() > 0) {
+                byte[] bytes = raw.asBytes();
+                return (bytes != null) ? MAPPER.readTree(bytes) : MAPPER.readTree(raw.asFile());
+            }
             JsonNode node = request.body().asJson();
             if (node == null) {
                 node = MAPPER.readTree(request().body().asText());
@@ -357,17 +446,26 @@ public abstract class BaseController extends Controller {
         try {
             // Calling request.body() twice is safe. (Has been confirmed using "play debug" and stepping through this
             // code in a debugger.)
-            // Whether asText() or asJson() works depends on the content-type header of the request
-            // asText() returns data if the content-type is text/plain. asJson() returns data if the content-type is
-            // text/json or application/json.
+            // Which of these works depends on the body parser and the content-type header of the request. asRaw() 
+            // returns data for actions annotated with the raw body parser, which we read straight into the target 
+            // class. asText() returns data if the content-type is text/plain. asJson() returns data if the 
+            // content-type is text/json or application/json.
+            RawBuffer raw = request.body().asRaw();
+            if (raw != null && raw.size() > 0) {
+                // Play spools larger raw bodies to a temporary file, in which case asBytes() returns null.
+                byte[] bytes = raw.asBytes();
+                return (bytes != null) ? MAPPER.readValue(bytes, clazz) : MAPPER.readValue(raw.asFile(), clazz);
+            }
+            
             String jsonText = request.body().asText();
             if (!Strings.isNullOrEmpty(jsonText)) {
                 return MAPPER.readValue(jsonText, clazz);
             }
 
+            // treeToValue() reads the tree directly, where convertValue() would serialize it and parse it again.
             JsonNode jsonNode = request.body().asJson();
             if (jsonNode != null) {
-                return MAPPER.convertValue(jsonNode, clazz);
+                return MAPPER.treeToValue(jsonNode, clazz);
             }
         } catch (Throwable ex) {
             if (Throwables.getRootCause(ex) instanceof InvalidEntityException) {
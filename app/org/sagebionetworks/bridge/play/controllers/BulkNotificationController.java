@@ -0,0 +1,44 @@
+package org.sagebionetworks.bridge.play.controllers;
+
+import static org.sagebionetworks.bridge.Roles.RESEARCHER;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationJob;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationRequest;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.services.BulkNotificationService;
+
+import play.mvc.Result;
+
+@Controller
+public class BulkNotificationController extends BaseController {
+    
+    private BulkNotificationService bulkNotificationService;
+    
+    @Autowired
+    final void setBulkNotificationService(BulkNotificationService bulkNotificationService) {
+        this.bulkNotificationService = bulkNotificationService;
+    }
+    
+    public Result sendNotification() {
+        UserSession session = getAuthenticatedSession(RESEARCHER);
+        Study study = studyService.getStudy(session.getStudyIdentifier());
+        
+        BulkNotificationRequest request = parseJson(request(), BulkNotificationRequest.class);
+        
+        BulkNotificationJob job = bulkNotificationService.startJob(study, request);
+        
+        return acceptedResult(job);
+    }
+    
+    public Result getJob(String jobId) {
+        UserSession session = getAuthenticatedSession(RESEARCHER);
+        
+        BulkNotificationJob job = bulkNotificationService.getJob(session.getStudyIdentifier(), jobId);
+        
+        return okResult(job);
+    }
+}
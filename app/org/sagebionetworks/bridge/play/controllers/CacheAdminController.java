@@ -1,15 +1,21 @@
 package org.sagebionetworks.bridge.play.controllers;
 
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
+import static org.sagebionetworks.bridge.BridgeUtils.getIntOrDefault;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 
 import java.util.Set;
 
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.services.CacheAdminService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
 import play.mvc.Result;
 
+import com.google.common.collect.Sets;
+
 @Controller
 public class CacheAdminController extends BaseController {
 
@@ -19,19 +25,38 @@ public class CacheAdminController extends BaseController {
     public void setCacheAdminService(CacheAdminService cacheService) {
         this.cacheAdminService = cacheService;
     }
-    
-    public Result listItems() throws Exception {
+
+    /**
+     * With an offsetKey or pageSize, returns one page of the keys that match the pattern. Otherwise all the
+     * matching keys are returned. The keys are collected before the response is written, so a scan that fails
+     * partway through returns an error rather than a truncated list.
+     */
+    public Result listItems(String pattern, String offsetKey, String pageSizeString) throws Exception {
         getAuthenticatedSession(ADMIN);
-        
-        Set<String> keys = cacheAdminService.listItems();
+
+        if (offsetKey != null || pageSizeString != null) {
+            int pageSize = getIntOrDefault(pageSizeString, API_DEFAULT_PAGE_SIZE);
+            PagedResourceList<String> page = cacheAdminService.listItems(pattern, offsetKey, pageSize);
+            return okResult(page);
+        }
+        String match = isNotBlank(pattern) ? pattern : "*";
+        // SCAN can return a key more than once, and the response is a plain JSON array, as it was before paging
+        Set<String> keys = Sets.newLinkedHashSet();
+        cacheAdminService.scanItems(match, keys::addAll);
         return okResult(keys);
     }
-    
+
     public Result removeItem(String cacheKey) {
         getAuthenticatedSession(ADMIN);
-        
+
         cacheAdminService.removeItem(cacheKey);
         return okResult("Item removed from cache.");
     }
 
+    public Result removeItems(String pattern) {
+        getAuthenticatedSession(ADMIN);
+
+        long removed = cacheAdminService.removeItems(pattern);
+        return okResult(removed + " item(s) removed from cache.");
+    }
 }
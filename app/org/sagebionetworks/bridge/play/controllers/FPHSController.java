@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
@@ -77,9 +78,21 @@ public class FPHSController extends BaseController {
         
         return okResult("External identifier added to user profile.");
     }
-    public Result getExternalIdentifiers() throws Exception {
+    /**
+     * With the registered parameter, returns one page of the registered or unregistered identifiers. Otherwise 
+     * returns all of the identifiers.
+     */
+    public Result getExternalIdentifiers(String registeredString, String offsetKey, String pageSizeString)
+            throws Exception {
         getAuthenticatedSession(ADMIN);
         
+        if (registeredString != null) {
+            // Play will not convert these to null if they are not included in the query string.
+            Integer pageSize = (pageSizeString != null) ? Integer.parseInt(pageSizeString,10) : null;
+            PagedResourceList<FPHSExternalIdentifier> page = fphsService.getExternalIdentifiers(
+                    Boolean.valueOf(registeredString), offsetKey, pageSize);
+            return okResult(page);
+        }
         List<FPHSExternalIdentifier> identifiers = fphsService.getExternalIdentifiers();
         
         return okResult(identifiers);
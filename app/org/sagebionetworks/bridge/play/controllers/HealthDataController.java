@@ -7,12 +7,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import play.mvc.Result;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
 import static org.sagebionetworks.bridge.Roles.WORKER;
 
 @Controller
 public class HealthDataController extends BaseController {
+    static final String NDJSON_MIME_TYPE = "application/x-ndjson; charset=UTF-8";
 
     private HealthDataService healthDataService;
 
@@ -30,4 +33,18 @@ public class HealthDataController extends BaseController {
 
         return okResult("Update exporter status to: " + updatedRecordIds + " complete.");
     }
+
+    /**
+     * Returns one page of the records uploaded on the given date as newline-delimited JSON. The client gets the rest
+     * of the day by calling again with the offsetKey on the last line, until a page ends without one. See
+     * {@link HealthDataService#exportRecordsForUploadDate} for the format. Play's chunked responses don't apply
+     * backpressure, so a whole day written to one response would be buffered in memory.
+     */
+    public Result exportRecordsForUploadDate(String uploadDate, String offsetKey) throws IOException {
+        getAuthenticatedSession(WORKER);
+
+        StringWriter writer = new StringWriter();
+        healthDataService.exportRecordsForUploadDate(uploadDate, offsetKey, writer);
+        return ok(writer.toString()).as(NDJSON_MIME_TYPE);
+    }
 }
@@ -13,7 +13,6 @@ import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
-import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
@@ -57,9 +56,7 @@ public class ParticipantController extends BaseController {
         
         StudyParticipant participant = participantService.getParticipant(study, session.getId(), false);
         
-        String ser = StudyParticipant.API_NO_HEALTH_CODE_WRITER.writeValueAsString(participant);
-        
-        return ok(ser).as(BridgeConstants.JSON_MIME_TYPE);
+        return okResult(StudyParticipant.API_NO_HEALTH_CODE_WRITER, participant);
     }
     
     public Result updateSelfParticipant() throws Exception {
@@ -123,9 +120,7 @@ public class ParticipantController extends BaseController {
         ObjectWriter writer = (study.isHealthCodeExportEnabled()) ?
                 StudyParticipant.API_WITH_HEALTH_CODE_WRITER :
                 StudyParticipant.API_NO_HEALTH_CODE_WRITER;
-        String ser = writer.writeValueAsString(participant);
-
-        return ok(ser).as(BridgeConstants.JSON_MIME_TYPE);
+        return okResult(writer, participant);
     }
     
     public Result getRequestInfo(String userId) throws Exception {
@@ -175,15 +170,19 @@ public class ParticipantController extends BaseController {
         return okResult("Request to reset password sent to user.");
     }
     
-    public Result getActivityHistory(String userId, String offsetKey, String pageSizeString) throws Exception {
+    public Result getActivityHistory(String userId, String offsetKey, String pageSizeString,
+            String includeTotalString) throws Exception {
         UserSession session = getAuthenticatedSession(RESEARCHER);
         Study study = studyService.getStudy(session.getStudyIdentifier());
         
         Integer pageSize = (pageSizeString != null) ? Integer.parseInt(pageSizeString,10) : null;
+        // The total is included unless the caller opts out.
+        boolean includeTotal = !"false".equals(includeTotalString);
         
-        PagedResourceList<? extends ScheduledActivity> history = participantService.getActivityHistory(study, userId, offsetKey, pageSize);
+        PagedResourceList<? extends ScheduledActivity> history = participantService.getActivityHistory(study, userId,
+                offsetKey, pageSize, includeTotal);
         
-        return ok(ScheduledActivity.RESEARCHER_SCHEDULED_ACTIVITY_WRITER.writeValueAsString(history));
+        return okResult(ScheduledActivity.RESEARCHER_SCHEDULED_ACTIVITY_WRITER, history);
     }
     
     public Result deleteActivities(String userId) throws Exception {
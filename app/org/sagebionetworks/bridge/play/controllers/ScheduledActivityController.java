@@ -51,8 +51,8 @@ public class ScheduledActivityController extends BaseController {
             throws Exception {
         List<ScheduledActivity> scheduledActivities = getScheduledActivitiesInternal(untilString, offset, daysAhead, minimumPerScheduleString);
         
-        return ok(ScheduledActivity.SCHEDULED_ACTIVITY_WRITER
-                .writeValueAsString(new ResourceList<ScheduledActivity>(scheduledActivities)));
+        return okResult(ScheduledActivity.SCHEDULED_ACTIVITY_WRITER,
+                new ResourceList<ScheduledActivity>(scheduledActivities));
     }
 
     public Result updateScheduledActivities() throws Exception {
@@ -79,14 +79,14 @@ public class StudyController extends BaseController {
     public Result getStudyList() throws Exception {
         List<Study> studies = studyService.getStudies();
 
-        return ok(Study.STUDY_LIST_WRITER.writeValueAsString(new ResourceList<Study>(studies)));
+        return okResult(Study.STUDY_LIST_WRITER, new ResourceList<Study>(studies));
     }
 
     public Result getCurrentStudy() throws Exception {
         UserSession session = getAuthenticatedSession(DEVELOPER, RESEARCHER, ADMIN);
         Study study = studyService.getStudy(session.getStudyIdentifier());
 
-        return ok(Study.STUDY_WRITER.writeValueAsString(study));
+        return okResult(Study.STUDY_WRITER, study);
     }
 
     public Result updateStudyForDeveloper() throws Exception {
@@ -112,7 +112,7 @@ public class StudyController extends BaseController {
         getAuthenticatedSession(ADMIN);
 
         Study study = studyService.getStudy(identifier);
-        return ok(Study.STUDY_WRITER.writeValueAsString(study));
+        return okResult(Study.STUDY_WRITER, study);
     }
 
     // You can get a truncated view of studies with either format=summary or summary=true;
@@ -124,12 +124,12 @@ public class StudyController extends BaseController {
             List<Study> activeStudiesSummary = studies.stream()
                     .filter(s -> s.isActive()).collect(Collectors.toList());
             Collections.sort(activeStudiesSummary, STUDY_COMPARATOR);
-            return ok(Study.STUDY_LIST_WRITER.writeValueAsString(new ResourceList<Study>(activeStudiesSummary)));
+            return okResult(Study.STUDY_LIST_WRITER, new ResourceList<Study>(activeStudiesSummary));
         }
         getAuthenticatedSession(ADMIN);
 
         // otherwise, return all studies including deactivated ones
-        return ok(Study.STUDY_WRITER.writeValueAsString(new ResourceList<Study>(studies)));
+        return okResult(Study.STUDY_WRITER, new ResourceList<Study>(studies));
     }
 
     public Result createStudy() throws Exception {
@@ -155,7 +155,7 @@ public class StudyController extends BaseController {
         Study study = studyService.getStudy(session.getStudyIdentifier());
 
         // then create project and team and grant admin permission to current user and exporter
-        studyService.createSynapseProjectTeam(synapseUserId, study);
+        study = studyService.createSynapseProjectTeam(synapseUserId, study);
 
         return createdResult(new SynapseProjectIdTeamIdHolder(study.getSynapseProjectId(), study.getSynapseDataAccessTeamId()));
     }
@@ -1,6 +1,5 @@
 package org.sagebionetworks.bridge.play.controllers;
 
-import static org.sagebionetworks.bridge.BridgeConstants.JSON_MIME_TYPE;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
@@ -8,6 +7,7 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import java.util.List;
 
 import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.cache.CachedView;
 import org.sagebionetworks.bridge.cache.ViewCache;
 import org.sagebionetworks.bridge.cache.ViewCache.ViewCacheKey;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
@@ -133,11 +133,11 @@ public class SurveyController extends BaseController {
         
         ViewCacheKey<Survey> cacheKey = viewCache.getCacheKey(Survey.class, surveyGuid, MOSTRECENT_KEY, studyId.getIdentifier());
         
-        String json = getView(cacheKey, session, () -> {
+        CachedView view = getView(cacheKey, session, () -> {
             return surveyService.getSurveyMostRecentVersion(studyId, surveyGuid);
         });
 
-        return ok(json).as(JSON_MIME_TYPE);
+        return okResult(view);
     }
     
     public Result getSurveyMostRecentlyPublishedVersion(String surveyGuid) throws Exception {
@@ -182,6 +182,7 @@ public class SurveyController extends BaseController {
         return okResult(surveys);
     }
     
+    @BodyParser.Of(BodyParser.Raw.class)
     public Result createSurvey() throws Exception {
         UserSession session = getAuthenticatedSession(DEVELOPER);
         StudyIdentifier studyId = session.getStudyIdentifier();
@@ -206,6 +207,7 @@ public class SurveyController extends BaseController {
         return createdResult(new GuidCreatedOnVersionHolderImpl(survey));
     }
     
+    @BodyParser.Of(BodyParser.Raw.class)
     public Result updateSurvey(String surveyGuid, String createdOnString) throws Exception {
         UserSession session = getAuthenticatedSession(DEVELOPER);
         StudyIdentifier studyId = session.getStudyIdentifier();
@@ -255,26 +257,26 @@ public class SurveyController extends BaseController {
         ViewCacheKey<Survey> cacheKey = viewCache.getCacheKey(Survey.class, surveyGuid, createdOnString,
                 session.getStudyIdentifier().getIdentifier());
         
-        String json = getView(cacheKey, session, () -> {
+        CachedView view = getView(cacheKey, session, () -> {
             return surveyService.getSurvey(keys);
         });
 
-        return ok(json).as(JSON_MIME_TYPE);
+        return okResult(view);
     }
     
     private Result getCachedSurveyMostRecentlyPublishedInternal(String surveyGuid, UserSession session) {
         ViewCacheKey<Survey> cacheKey = viewCache.getCacheKey(Survey.class, surveyGuid, PUBLISHED_KEY,
                 session.getStudyIdentifier().getIdentifier());
         
-        String json = getView(cacheKey, session, () -> {
+        CachedView view = getView(cacheKey, session, () -> {
             return surveyService.getSurveyMostRecentlyPublishedVersion(session.getStudyIdentifier(), surveyGuid);
         });
         
-        return ok(json).as(JSON_MIME_TYPE);
+        return okResult(view);
     }
     
-    private String getView(ViewCacheKey<Survey> cacheKey, UserSession session, Supplier<Survey> supplier) {
-        return viewCache.getView(cacheKey, () -> {
+    private CachedView getView(ViewCacheKey<Survey> cacheKey, UserSession session, Supplier<Survey> supplier) {
+        return viewCache.getViewBytes(cacheKey, () -> {
             Survey survey = supplier.get();
             verifySurveyIsInStudy(session, survey);
             return survey;
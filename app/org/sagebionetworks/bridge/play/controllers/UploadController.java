@@ -53,7 +53,7 @@ public class UploadController extends BaseController {
         UploadValidationStatus validationStatus = uploadService.getUploadValidationStatus(uploadId);
         
         // Upload validation status may contain the health data record. Use the filter to filter out health code.
-        return ok(HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(validationStatus));
+        return okResult(HealthDataRecord.PUBLIC_RECORD_WRITER, validationStatus);
     }
     
     public Result upload() throws Exception {
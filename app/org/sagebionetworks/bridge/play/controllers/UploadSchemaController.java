@@ -42,7 +42,7 @@ public class UploadSchemaController extends BaseController {
 
         UploadSchema uploadSchema = parseJson(request(), UploadSchema.class);
         UploadSchema createdSchema = uploadSchemaService.createSchemaRevisionV4(studyId, uploadSchema);
-        return created(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(createdSchema));
+        return createdResult(UploadSchema.PUBLIC_SCHEMA_WRITER, createdSchema);
     }
 
     /**
@@ -58,7 +58,7 @@ public class UploadSchemaController extends BaseController {
         
         UploadSchema uploadSchema = parseJson(request(), UploadSchema.class);
         UploadSchema createdSchema = uploadSchemaService.createOrUpdateUploadSchema(studyId, uploadSchema);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(createdSchema));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, createdSchema);
     }
 
     /**
@@ -91,7 +91,7 @@ public class UploadSchemaController extends BaseController {
         StudyIdentifier studyId = session.getStudyIdentifier();
         
         UploadSchema uploadSchema = uploadSchemaService.getUploadSchema(studyId, schemaId);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(uploadSchema));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, uploadSchema);
     }
     
     /**
@@ -107,7 +107,7 @@ public class UploadSchemaController extends BaseController {
         
         List<UploadSchema> uploadSchemas = uploadSchemaService.getUploadSchemaAllRevisions(studyId, schemaId);
         ResourceList<UploadSchema> uploadSchemaResourceList = new ResourceList<>(uploadSchemas);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(uploadSchemaResourceList));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, uploadSchemaResourceList);
     }
 
     /**
@@ -125,7 +125,7 @@ public class UploadSchemaController extends BaseController {
         StudyIdentifier studyId = session.getStudyIdentifier();
 
         UploadSchema uploadSchema = uploadSchemaService.getUploadSchemaByIdAndRev(studyId, schemaId, rev);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(uploadSchema));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, uploadSchema);
     }
 
     /**
@@ -158,7 +158,7 @@ public class UploadSchemaController extends BaseController {
 
         List<UploadSchema> schemaList = uploadSchemaService.getUploadSchemasForStudy(studyId);
         ResourceList<UploadSchema> schemaResourceList = new ResourceList<>(schemaList);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(schemaResourceList));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, schemaResourceList);
     }
 
     /**
@@ -178,6 +178,6 @@ public class UploadSchemaController extends BaseController {
         UploadSchema uploadSchema = parseJson(request(), UploadSchema.class);
         UploadSchema updatedSchema = uploadSchemaService.updateSchemaRevisionV4(studyId, schemaId, revision,
                 uploadSchema);
-        return ok(UploadSchema.PUBLIC_SCHEMA_WRITER.writeValueAsString(updatedSchema));
+        return okResult(UploadSchema.PUBLIC_SCHEMA_WRITER, updatedSchema);
     }
 }
@@ -0,0 +1,39 @@
+package org.sagebionetworks.bridge.play.interceptors;
+
+/**
+ * Classes of endpoints that are rate limited separately, so an app polling a read endpoint doesn't prevent it from 
+ * uploading data. The class also sets the priority of a request when the server is saturated: requests are shed 
+ * when the number of requests in progress exceeds a percentage of the maximum that depends on the class.
+ */
+public enum EndpointClass {
+    /** Signing in, signing up, and other account requests, usually made without a session. Never rate limited. */
+    AUTH(100),
+    /** Requests that change state (POST, DELETE), including uploads. */
+    WRITE(90),
+    /** Requests that only read state (GET). */
+    READ(75);
+    
+    private final int sheddingPercentage;
+    
+    private EndpointClass(int sheddingPercentage) {
+        this.sheddingPercentage = sheddingPercentage;
+    }
+    
+    /**
+     * The number of requests that can be in progress on this server (including this one) before requests of this 
+     * class are shed.
+     */
+    public int getMaxConcurrentRequests(int maxConcurrentRequests) {
+        return Math.max(1, maxConcurrentRequests * sheddingPercentage / 100);
+    }
+    
+    public static EndpointClass of(String method, String path) {
+        if (path != null && (path.startsWith("/v3/auth/") || path.startsWith("/api/v1/auth/"))) {
+            return AUTH;
+        }
+        if ("GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method)) {
+            return READ;
+        }
+        return WRITE;
+    }
+}
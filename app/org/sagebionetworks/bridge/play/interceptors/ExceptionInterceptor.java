@@ -6,6 +6,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
 import org.sagebionetworks.bridge.exceptions.NoStackTraceException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.exceptions.TooManyRequestsException;
 import org.sagebionetworks.bridge.models.ExceptionMessage;
 import org.sagebionetworks.bridge.models.accounts.UserSessionInfo;
 import org.slf4j.Logger;
@@ -59,6 +61,11 @@ public class ExceptionInterceptor implements MethodInterceptor {
             // serialization strategies, to be consistent with the rest of the API.
             return Results.status(cre.getStatusCode(), info.toString());
         }
+        Integer retryAfterSeconds = getRetryAfterSeconds(throwable);
+        if (retryAfterSeconds != null) {
+            Http.Context.current().response().setHeader(Http.HeaderNames.RETRY_AFTER,
+                    Integer.toString(retryAfterSeconds));
+        }
         String message = getMessage(throwable, status);
         final ExceptionMessage exceptionMessage = new ExceptionMessage(throwable, message);
         return Results.status(status, Json.toJson(exceptionMessage));
@@ -72,6 +79,15 @@ public class ExceptionInterceptor implements MethodInterceptor {
         return status;
     }
 
+    private Integer getRetryAfterSeconds(final Throwable throwable) {
+        if (throwable instanceof TooManyRequestsException) {
+            return ((TooManyRequestsException)throwable).getRetryAfterSeconds();
+        } else if (throwable instanceof ServiceUnavailableException) {
+            return ((ServiceUnavailableException)throwable).getRetryAfterSeconds();
+        }
+        return null;
+    }
+
     private String getMessage(final Throwable throwable, final int status) {
         String message = throwable.getMessage();
         if (StringUtils.isBlank(message)) {
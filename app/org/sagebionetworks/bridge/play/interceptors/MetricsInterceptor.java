@@ -4,13 +4,20 @@ import static org.apache.http.HttpHeaders.USER_AGENT;
 import static org.sagebionetworks.bridge.BridgeConstants.METRICS_EXPIRE_SECONDS;
 import static org.sagebionetworks.bridge.BridgeConstants.X_FORWARDED_FOR_HEADER;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.sagebionetworks.bridge.models.Metrics;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.collect.ImmutableList;
+
 import play.cache.Cache;
 import play.mvc.Http;
 import play.mvc.Http.Request;
@@ -21,6 +28,14 @@ public class MetricsInterceptor implements MethodInterceptor {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricsInterceptor.class);
 
+    private List<CircuitBreaker> circuitBreakers = ImmutableList.of();
+
+    /** The circuit breakers around external dependencies; any that aren't closed are noted in the metrics. */
+    @Autowired
+    final void setCircuitBreakers(List<CircuitBreaker> circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
     @Override
     public Object invoke(MethodInvocation method) throws Throwable {
         final Metrics metrics = initMetrics();
@@ -31,11 +46,17 @@ public class MetricsInterceptor implements MethodInterceptor {
             return result;
         } finally {
             Cache.remove(metrics.getCacheKey());
+            metrics.setOpenCircuits(getOpenCircuits());
             metrics.end();
             logger.info(metrics.toJsonString());
         }
     }
 
+    List<String> getOpenCircuits() {
+        return circuitBreakers.stream().filter(breaker -> breaker.getState() != CircuitBreaker.State.CLOSED)
+                .map(CircuitBreaker::getName).collect(Collectors.toList());
+    }
+
     Metrics initMetrics() {
         final Request request = Http.Context.current().request();
         final Metrics metrics = new Metrics(RequestUtils.getRequestId(request));
@@ -0,0 +1,230 @@
+package org.sagebionetworks.bridge.play.interceptors;
+
+import static org.sagebionetworks.bridge.BridgeConstants.SESSION_TOKEN_HEADER;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.lang3.StringUtils;
+import org.joda.time.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.exceptions.TooManyRequestsException;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.Denial;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.TokenBucket;
+import org.sagebionetworks.bridge.services.StudyService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+
+import play.mvc.Http;
+import play.mvc.Http.Cookie;
+import play.mvc.Http.Request;
+
+/**
+ * <p>Admission control for controller methods. Two things are checked before a request is handled:</p>
+ *
+ * <ol>
+ *   <li>Load shedding: if too many requests are already in progress on this server, the request is rejected with a
+ *   503. Reads are shed first, then writes, and sign in requests last (see {@link EndpointClass}). Only requests
+ *   that have reached a Play dispatcher thread are counted, so the maximum should not be more than the dispatcher's
+ *   parallelism-max. Shedding is turned on separately from rate limiting.</li>
+ *   <li>Rate limits: requests made with a session take a token from a bucket for the study, and from a bucket for
+ *   the session and endpoint class. The buckets are shared by all servers through Redis. If either is empty, the
+ *   request is rejected with a 429. The limits can be set per study, otherwise server defaults are used.</li>
+ * </ol>
+ *
+ * <p>To keep this off the critical path, the study of each session and the limits of each study are cached on this
+ * server, and once a bucket is found to be empty, requests against it are rejected locally until it will have a
+ * token again. If Redis can't be reached, requests are allowed.</p>
+ */
+@Component("rateLimitInterceptor")
+public class RateLimitInterceptor implements MethodInterceptor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    static final String ENABLED_PROPERTY = "rate.limit.enabled";
+    static final String SHEDDING_ENABLED_PROPERTY = "rate.limit.shedding.enabled";
+    static final String STUDY_REQUESTS_PER_MINUTE_PROPERTY = "rate.limit.study.requests.per.minute";
+    static final String SESSION_REQUESTS_PER_MINUTE_PROPERTY = "rate.limit.session.requests.per.minute";
+    static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "rate.limit.max.concurrent.requests";
+
+    static final int SHED_RETRY_AFTER_SECONDS = 1;
+
+    static final String SERVER_BUSY_MESSAGE = "The server is busy, please try again.";
+    static final String STUDY_LIMIT_MESSAGE = "Too many requests have been made to this study, please try again.";
+    static final String SESSION_LIMIT_MESSAGE = "Too many requests have been made, please try again.";
+
+    // Package-scoped so unit tests can simulate a saturated server.
+    final AtomicInteger requestsInProgress = new AtomicInteger();
+
+    private final Cache<String, String> sessionStudies = CacheBuilder.newBuilder().maximumSize(100000)
+            .expireAfterAccess(5, TimeUnit.MINUTES).build();
+
+    private final Cache<String, Study> studies = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+    private final Cache<String, Long> deniedUntil = CacheBuilder.newBuilder().maximumSize(100000)
+            .expireAfterWrite(1, TimeUnit.MINUTES).build();
+
+    private boolean enabled;
+    private boolean sheddingEnabled;
+    private int studyRequestsPerMinute;
+    private int sessionRequestsPerMinute;
+    private int maxConcurrentRequests;
+    private CacheProvider cacheProvider;
+    private StudyService studyService;
+    private RedisRateLimiter rateLimiter;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig bridgeConfig) {
+        this.enabled = Boolean.parseBoolean(bridgeConfig.getProperty(ENABLED_PROPERTY));
+        this.sheddingEnabled = Boolean.parseBoolean(bridgeConfig.getProperty(SHEDDING_ENABLED_PROPERTY));
+        this.studyRequestsPerMinute = bridgeConfig.getPropertyAsInt(STUDY_REQUESTS_PER_MINUTE_PROPERTY);
+        this.sessionRequestsPerMinute = bridgeConfig.getPropertyAsInt(SESSION_REQUESTS_PER_MINUTE_PROPERTY);
+        this.maxConcurrentRequests = bridgeConfig.getPropertyAsInt(MAX_CONCURRENT_REQUESTS_PROPERTY);
+    }
+
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @Autowired
+    final void setStudyService(StudyService studyService) {
+        this.studyService = studyService;
+    }
+
+    @Autowired
+    final void setRedisRateLimiter(RedisRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation method) throws Throwable {
+        final Request request = Http.Context.current().request();
+        final EndpointClass endpointClass = EndpointClass.of(request.method(), request.path());
+
+        int inProgress = requestsInProgress.incrementAndGet();
+        try {
+            if (sheddingEnabled && inProgress > endpointClass.getMaxConcurrentRequests(maxConcurrentRequests)) {
+                LOG.warn("Shedding " + endpointClass + " request, " + inProgress + " requests in progress");
+                throw new ServiceUnavailableException(SERVER_BUSY_MESSAGE, SHED_RETRY_AFTER_SECONDS);
+            }
+            if (enabled && endpointClass != EndpointClass.AUTH) {
+                checkRateLimits(request, endpointClass);
+            }
+            return method.proceed();
+        } finally {
+            requestsInProgress.decrementAndGet();
+        }
+    }
+
+    private void checkRateLimits(Request request, EndpointClass endpointClass) {
+        String sessionToken = getSessionToken(request);
+        if (sessionToken == null) {
+            return;
+        }
+        TokenBucket studyBucket;
+        TokenBucket sessionBucket;
+        try {
+            String studyId = getStudyId(sessionToken);
+            if (studyId == null) {
+                // Not signed in; the controller will reject the request.
+                return;
+            }
+            Study study = studies.get(studyId, () -> studyService.getStudy(studyId));
+
+            int studyLimit = (study.getRequestRateLimit() > 0) ?
+                    study.getRequestRateLimit() : studyRequestsPerMinute;
+            int sessionLimit = (study.getParticipantRequestRateLimit() > 0) ?
+                    study.getParticipantRequestRateLimit() : sessionRequestsPerMinute;
+
+            studyBucket = new TokenBucket("study:" + studyId, studyLimit);
+            sessionBucket = new TokenBucket("session:" + hash(sessionToken) + ":" + endpointClass.name(),
+                    sessionLimit);
+        } catch(ExecutionException | RuntimeException e) {
+            LOG.warn("Could not look up rate limits, allowing request", e);
+            return;
+        }
+
+        // Fast path: a bucket that was empty is not checked again until it will have a token.
+        checkDeniedLocally(studyBucket, STUDY_LIMIT_MESSAGE);
+        checkDeniedLocally(sessionBucket, SESSION_LIMIT_MESSAGE);
+
+        Denial denial;
+        try {
+            denial = rateLimiter.tryAcquire(ImmutableList.of(studyBucket, sessionBucket));
+        } catch(RuntimeException e) {
+            LOG.warn("Could not check rate limits, allowing request", e);
+            return;
+        }
+        if (denial != null) {
+            String key = denial.getBucket().getKey();
+            deniedUntil.put(key, DateTimeUtils.currentTimeMillis() + denial.getRetryAfterMillis());
+
+            String message = (denial.getBucket() == studyBucket) ? STUDY_LIMIT_MESSAGE : SESSION_LIMIT_MESSAGE;
+            throw new TooManyRequestsException(message, toSeconds(denial.getRetryAfterMillis()));
+        }
+    }
+
+    private void checkDeniedLocally(TokenBucket bucket, String message) {
+        Long until = deniedUntil.getIfPresent(bucket.getKey());
+        if (until != null) {
+            long remaining = until - DateTimeUtils.currentTimeMillis();
+            if (remaining > 0) {
+                throw new TooManyRequestsException(message, toSeconds(remaining));
+            }
+            deniedUntil.invalidate(bucket.getKey());
+        }
+    }
+
+    private String getStudyId(String sessionToken) {
+        String studyId = sessionStudies.getIfPresent(sessionToken);
+        if (studyId == null) {
+            UserSession session = cacheProvider.getUserSession(sessionToken);
+            if (session == null || session.getStudyIdentifier() == null) {
+                return null;
+            }
+            studyId = session.getStudyIdentifier().getIdentifier();
+            sessionStudies.put(sessionToken, studyId);
+        }
+        return studyId;
+    }
+
+    private static String getSessionToken(Request request) {
+        String sessionToken = RequestUtils.header(request, SESSION_TOKEN_HEADER, null);
+        if (StringUtils.isBlank(sessionToken)) {
+            Cookie sessionCookie = request.cookie(SESSION_TOKEN_HEADER);
+            if (sessionCookie != null && StringUtils.isNotBlank(sessionCookie.value())) {
+                return sessionCookie.value();
+            }
+            return null;
+        }
+        return sessionToken;
+    }
+
+    /** Session tokens are not stored in rate limit keys, which are visible to administrators. */
+    private static String hash(String sessionToken) {
+        return Hashing.sha256().hashString(sessionToken, StandardCharsets.UTF_8).toString();
+    }
+
+    private static int toSeconds(long millis) {
+        return (int) Math.max(1L, (millis + 999L) / 1000L);
+    }
+}
@@ -0,0 +1,26 @@
+package org.sagebionetworks.bridge.play.interceptors;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.sagebionetworks.bridge.cache.RequestScopedCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds a RequestScopedCache to the thread handling a controller method, and discards it when the method
+ * returns, so reads are never memoized across requests.
+ */
+@Component("requestScopeInterceptor")
+public class RequestScopeInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation method) throws Throwable {
+        boolean bound = RequestScopedCache.begin();
+        try {
+            return method.proceed();
+        } finally {
+            if (bound) {
+                RequestScopedCache.end();
+            }
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package org.sagebionetworks.bridge.play.modules;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.google.common.base.Stopwatch;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
@@ -35,15 +38,29 @@ public abstract class BridgeSpringContextModule extends AbstractModule {
     @Override
     protected void configure() {
         LOG.info("Environment: " + BridgeConfigFactory.getConfig().getEnvironment().name());
+        // Time each phase, so slow starts can be traced to a phase from the logs.
+        Stopwatch total = Stopwatch.createStarted();
+        Stopwatch phase = Stopwatch.createStarted();
         ConfigurableApplicationContext appContext = loadAppContext();
+        long appContextMillis = phase.elapsed(MILLISECONDS);
+
+        phase.reset().start();
         loadDynamo(appContext);
+        long dynamoMillis = phase.elapsed(MILLISECONDS);
+
+        phase.reset().start();
         bindControllers(appContext);
+        long controllersMillis = phase.elapsed(MILLISECONDS);
+
+        LOG.info(String.format("Startup took %d ms: Spring context %d ms, DynamoDB tables %d ms, controllers %d ms",
+                total.elapsed(MILLISECONDS), appContextMillis, dynamoMillis, controllersMillis));
     }
 
     private void loadDynamo(ConfigurableApplicationContext appContext) {
         AnnotationBasedTableCreator tableCreator = appContext.getBean(AnnotationBasedTableCreator.class);
         DynamoInitializer dynamoInitializer = appContext.getBean(DynamoInitializer.class);
 
+        // DefaultStudyBootstrapper normally verifies the tables while the context loads, so this returns immediately.
         List<TableDescription> tables = tableCreator.getTables("org.sagebionetworks.bridge.dynamodb");
         dynamoInitializer.init(tables);
         LOG.info("DynamoDB tables loaded.");
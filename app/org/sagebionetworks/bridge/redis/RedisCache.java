@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.sagebionetworks.bridge.cache.Cache;
+import org.sagebionetworks.bridge.cache.SingleFlightLoader;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Supplier;
 
 @Component
 public class RedisCache implements Cache {
@@ -22,12 +24,18 @@ public class RedisCache implements Cache {
     private static final String LIST_KEY_PATTERN = "List:%s:%s";
 
     private JedisOps jedisOps;
+    private SingleFlightLoader singleFlightLoader;
 
     @Autowired
     public void setStringOps(JedisOps jedisOps) {
         this.jedisOps = jedisOps;
     }
 
+    @Autowired
+    public void setSingleFlightLoader(SingleFlightLoader singleFlightLoader) {
+        this.singleFlightLoader = singleFlightLoader;
+    }
+
     @Override
     public <T> T get(Class<? extends T> clazz, String key) {
         String redisKey = String.format(KEY_PATTERN, clazz.getName(), key);
@@ -45,6 +53,22 @@ public class RedisCache implements Cache {
         }
     }
 
+    @Override
+    public <T> T get(Class<? extends T> clazz, String key, Supplier<T> loader, int ttlSeconds) {
+        T value = get(clazz, key);
+        if (value != null) {
+            return value;
+        }
+        String redisKey = String.format(KEY_PATTERN, clazz.getName(), key);
+        return singleFlightLoader.load(redisKey, () -> get(clazz, key), () -> {
+            T loadedValue = loader.get();
+            if (loadedValue != null) {
+                put(clazz, key, loadedValue, ttlSeconds);
+            }
+            return loadedValue;
+        });
+    }
+
     @Override
     public <T> List<T> getList(Class<? extends T> clazz, String key) {
         String redisKey = String.format(LIST_KEY_PATTERN, clazz.getName(), key);
@@ -51,6 +51,30 @@ public interface RedisKey {
 
     RedisKey STUDY_EMAIL_STATUS = new SimpleKey("study-email-status");
     
+    /** A user's activity events, by health code. */
+    RedisKey ACTIVITY_EVENTS = new SimpleKey("activity-events");
+
+    /** Incremented whenever a user's cached activity events are removed, by health code. */
+    RedisKey ACTIVITY_EVENTS_VERSION = new SimpleKey("activity-events-version");
+
+    /** The number of scheduled activities in a user's activity history, by health code. */
+    RedisKey ACTIVITY_HISTORY_COUNT = new SimpleKey("activity-history-count");
+
+    /** The status and outcomes of a bulk notification job, by job ID. */
+    RedisKey BULK_NOTIFICATION_JOB = new SimpleKey("bulk-notification-job");
+
+    /** A request rate limit token bucket, by study or by session and endpoint class. */
+    RedisKey RATE_LIMIT = new SimpleKey("rate-limit");
+
+    /** Marks a user's cached session as older than their account, by user ID. */
+    RedisKey STALE_SESSION = new SimpleKey("stale-session");
+
+    /** A participant's options, by health code. */
+    RedisKey PARTICIPANT_OPTIONS = new SimpleKey("participant-options");
+
+    /** Incremented whenever a participant's cached options are replaced or removed, by health code. */
+    RedisKey PARTICIPANT_OPTIONS_VERSION = new SimpleKey("participant-options-version");
+    
     String SEPARATOR = ":";
 
     /**
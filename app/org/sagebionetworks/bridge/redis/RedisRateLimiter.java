@@ -0,0 +1,169 @@
+package org.sagebionetworks.bridge.redis;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.joda.time.DateTimeUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Token bucket rate limits shared by all servers. Each bucket holds up to a burst of tokens and is refilled at a
+ * steady rate; a request takes one token from each of its buckets. Buckets are stored as Redis hashes and updated
+ * atomically by a Lua script, so a request is only counted against its buckets if every bucket has a token.
+ */
+@Component
+public class RedisRateLimiter {
+
+    /**
+     * KEYS are the bucket keys. ARGV[1] is the current time in milliseconds, followed by the capacity and refill rate
+     * (tokens per millisecond) of each bucket. Returns {0, 0} if a token was taken from every bucket, otherwise the
+     * (1-based) index of the first empty bucket and the milliseconds until it will have a token. The time is passed
+     * in, because a script can't write after reading the Redis clock.
+     */
+    static final String SCRIPT =
+            "local now = tonumber(ARGV[1])\n" +
+            "local tokens = {}\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  local capacity = tonumber(ARGV[i * 2])\n" +
+            "  local rate = tonumber(ARGV[i * 2 + 1])\n" +
+            "  local state = redis.call('HMGET', key, 'tokens', 'ts')\n" +
+            "  local available = tonumber(state[1]) or capacity\n" +
+            "  local ts = tonumber(state[2]) or now\n" +
+            "  available = math.min(capacity, available + math.max(0, now - ts) * rate)\n" +
+            "  if available < 1 then\n" +
+            "    return {i, math.ceil((1 - available) / rate)}\n" +
+            "  end\n" +
+            "  tokens[i] = available\n" +
+            "end\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  local capacity = tonumber(ARGV[i * 2])\n" +
+            "  local rate = tonumber(ARGV[i * 2 + 1])\n" +
+            "  redis.call('HMSET', key, 'tokens', tostring(tokens[i] - 1), 'ts', ARGV[1])\n" +
+            "  redis.call('PEXPIRE', key, math.ceil(capacity / rate))\n" +
+            "end\n" +
+            "return {0, 0}\n";
+
+    static final String SCRIPT_SHA1 = Hashing.sha1().hashString(SCRIPT, StandardCharsets.UTF_8).toString();
+
+    /** A bucket can hold this many seconds worth of requests, so short bursts are not limited. */
+    static final int BURST_SECONDS = 10;
+
+    private JedisPool jedisPool;
+
+    @Autowired
+    public void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    /**
+     * Take a token from each bucket, if they all have a token. Returns null if the tokens were taken, otherwise the
+     * first empty bucket and how long until it will have a token.
+     */
+    public Denial tryAcquire(List<TokenBucket> buckets) {
+        checkNotNull(buckets);
+        checkArgument(!buckets.isEmpty());
+
+        List<String> keys = Lists.newArrayListWithCapacity(buckets.size());
+        List<String> args = Lists.newArrayListWithCapacity(buckets.size() * 2 + 1);
+        args.add(Long.toString(DateTimeUtils.currentTimeMillis()));
+        for (TokenBucket bucket : buckets) {
+            keys.add(bucket.getRedisKey());
+            args.add(Integer.toString(bucket.getCapacity()));
+            args.add(Double.toString(bucket.getTokensPerMilli()));
+        }
+
+        List<?> result;
+        try (Jedis jedis = jedisPool.getResource()) {
+            result = (List<?>) evalScript(jedis, keys, args);
+        }
+        int emptyBucket = ((Number) result.get(0)).intValue();
+        if (emptyBucket == 0) {
+            return null;
+        }
+        long retryAfterMillis = ((Number) result.get(1)).longValue();
+        return new Denial(buckets.get(emptyBucket - 1), retryAfterMillis);
+    }
+
+    private static Object evalScript(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(SCRIPT_SHA1, keys, args);
+        } catch (JedisDataException e) {
+            // The script cache is empty after Redis restarts; EVAL loads the script again.
+            if (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")) {
+                return jedis.eval(SCRIPT, keys, args);
+            }
+            throw e;
+        }
+    }
+
+    /** A token bucket, refilled at a number of requests per minute. */
+    public static final class TokenBucket {
+        private final String key;
+        private final int requestsPerMinute;
+
+        /**
+         * @param key
+         *         identifies the bucket, e.g. the study identifier
+         * @param requestsPerMinute
+         *         the rate at which the bucket is refilled, must be positive
+         */
+        public TokenBucket(String key, int requestsPerMinute) {
+            checkNotNull(key);
+            checkArgument(requestsPerMinute > 0);
+            this.key = key;
+            this.requestsPerMinute = requestsPerMinute;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        String getRedisKey() {
+            return RedisKey.RATE_LIMIT.getRedisKey(key);
+        }
+
+        int getCapacity() {
+            return Math.max(1, requestsPerMinute * BURST_SECONDS / 60);
+        }
+
+        double getTokensPerMilli() {
+            return requestsPerMinute / 60000.0;
+        }
+    }
+
+    /** A request that was not allowed, because one of its buckets was empty. */
+    public static final class Denial {
+        private final TokenBucket bucket;
+        private final long retryAfterMillis;
+
+        public Denial(TokenBucket bucket, long retryAfterMillis) {
+            this.bucket = bucket;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        /** The bucket that was empty. */
+        public TokenBucket getBucket() {
+            return bucket;
+        }
+
+        /** Milliseconds until the bucket will have a token. */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+}
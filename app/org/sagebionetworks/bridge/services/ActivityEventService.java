@@ -6,6 +6,7 @@ import static org.sagebionetworks.bridge.BridgeUtils.COMMA_JOINER;
 import java.util.Map;
 
 import org.joda.time.DateTime;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
 import org.sagebionetworks.bridge.models.activities.ActivityEvent;
@@ -22,11 +23,18 @@ public class ActivityEventService {
 
     private ActivityEventDao activityEventDao;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     public void setActivityEventDao(ActivityEventDao activityEventDao) {
         this.activityEventDao = activityEventDao;
     }
     
+    @Autowired
+    public void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
     public void publishEnrollmentEvent(String healthCode, ConsentSignature signature) {
         checkNotNull(signature);
         
@@ -34,7 +42,7 @@ public class ActivityEventService {
             .withHealthCode(healthCode)
             .withTimestamp(signature.getSignedOn())
             .withObjectType(ActivityEventObjectType.ENROLLMENT).build();
-        activityEventDao.publishEvent(event);    
+        publishEvent(event);
     }
     
     public void publishQuestionAnsweredEvent(String healthCode, SurveyAnswer answer) {
@@ -48,7 +56,7 @@ public class ActivityEventService {
             .withObjectId(answer.getQuestionGuid())
             .withEventType(ActivityEventType.ANSWERED)
             .withAnswerValue(COMMA_JOINER.join(answer.getAnswers())).build();
-        activityEventDao.publishEvent(event);
+        publishEvent(event);
     }
     
     public void publishActivityFinishedEvent(ScheduledActivity schActivity) {
@@ -67,7 +75,7 @@ public class ActivityEventService {
                 .withTimestamp(schActivity.getFinishedOn())
                 .build();
 
-            activityEventDao.publishEvent(event);
+            publishEvent(event);
         }
     }
     
@@ -81,22 +89,41 @@ public class ActivityEventService {
      */
     public void publishActivityEvent(ActivityEvent event) {
         checkNotNull(event);
-        activityEventDao.publishEvent(event);
+        publishEvent(event);
     }
 
     /**
-     * Gets the activity events times for a specific user in order to schedule against them.
+     * Gets the activity events times for a specific user in order to schedule against them. The map 
+     * is cached, and removed from the cache when an event is published. A map loaded while an event is 
+     * being published is not cached, since it may not include that event.
      * @param healthCode
      * @return
      */
     public Map<String, DateTime> getActivityEventMap(String healthCode) {
         checkNotNull(healthCode);
-        return activityEventDao.getActivityEventMap(healthCode);
+        Map<String, DateTime> eventMap = cacheProvider.getActivityEventMap(healthCode);
+        if (eventMap == null) {
+            String version = cacheProvider.getActivityEventMapVersion(healthCode);
+            eventMap = activityEventDao.getActivityEventMap(healthCode);
+            cacheProvider.addActivityEventMap(healthCode, version, eventMap);
+        }
+        return eventMap;
     }
 
     public void deleteActivityEvents(String healthCode) {
         checkNotNull(healthCode);
         activityEventDao.deleteActivityEvents(healthCode);
+        cacheProvider.removeActivityEventMap(healthCode);
+    }
+    
+    /**
+     * Drop the user's cached event map if the event was recorded; the next read rebuilds it from DynamoDB. 
+     * Rewriting the cached map here would lose one of two events published for the user at the same moment.
+     */
+    private void publishEvent(ActivityEvent event) {
+        if (activityEventDao.publishEvent(event)) {
+            cacheProvider.removeActivityEventMap(event.getHealthCode());
+        }
     }
 
 }
@@ -9,6 +9,7 @@ import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
@@ -110,7 +111,9 @@ public class AuthenticationService {
     
     /**
      * This method re-constructs the session based on potential changes to the user. It is called after a user 
-     * account is updated, and takes the updated CriteriaContext to calculate the current state of the user.
+     * account is updated, and takes the updated CriteriaContext to calculate the current state of the user. If 
+     * the account can't be retrieved because Stormpath is unavailable, the user's cached session is returned, 
+     * unless it was marked stale because the account or its consents have been changed since it was cached.
      * @param study
      *      the user's study
      * @param context
@@ -122,7 +125,18 @@ public class AuthenticationService {
         checkNotNull(study);
         checkNotNull(context);
         
-        Account account = accountDao.getAccount(study, context.getUserId());
+        Account account;
+        try {
+            account = accountDao.getAccount(study, context.getUserId());
+        } catch(DependencyUnavailableException e) {
+            UserSession cachedSession = (context.getUserId() == null) ? null :
+                    cacheProvider.getUserSessionByUserId(context.getUserId());
+            if (cachedSession == null || cacheProvider.isUserSessionStale(context.getUserId())) {
+                throw e;
+            }
+            logger.warn("Account service is unavailable, returning cached session for user " + context.getUserId());
+            return cachedSession;
+        }
         return getSessionFromAccount(study, context, account);
     }
 
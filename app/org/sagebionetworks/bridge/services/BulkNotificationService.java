@@ -0,0 +1,457 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Resource;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
+import org.sagebionetworks.bridge.dao.ParticipantOption;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.Criteria;
+import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountStatus;
+import org.sagebionetworks.bridge.models.accounts.AccountSummary;
+import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationJob;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationRequest;
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+import org.sagebionetworks.bridge.models.notifications.NotificationOutcome;
+import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
+import org.sagebionetworks.bridge.validators.BulkNotificationRequestValidator;
+import org.sagebionetworks.bridge.validators.Validate;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.amazonaws.retry.RetryUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Sends a push notification to every consented participant in a study who matches some criteria (data groups and
+ * language), rather than to one participant at a time. Jobs run in the background, one at a time on each server; a job
+ * can't be started while another is running on the same server. Participants are found through the
+ * study's accounts. Disabled accounts, and participants who haven't consented to all the required consents that apply
+ * to them (including participants who have withdrawn), are skipped. App version criteria are ignored, because
+ * registrations don't record the app version.
+ *
+ * Registrations are published to concurrently, but publishing is rate limited across all jobs on this server, so a
+ * large study doesn't exceed the SNS publish limits. Throttled and server-side errors are retried with back-off.
+ * Publishes rejected because SNS is unavailable (its circuit breaker is open) fail without stopping the job. The job
+ * records the number of registrations sent to and failed, and a capped list of outcomes, and can be retrieved for a
+ * week after it was started. Running jobs are saved periodically, so a job that stops being saved (because its
+ * server was restarted) is reported as failed.
+ */
+@Component
+public class BulkNotificationService {
+    private static final Logger LOG = LoggerFactory.getLogger(BulkNotificationService.class);
+
+    /** The number of participants whose registrations are published to at the same time. */
+    static final int PUBLISH_THREAD_COUNT = 8;
+
+    /** Publishes per second, across all jobs. */
+    static final double PUBLISH_RATE_PER_SECOND = 50.0;
+
+    /** Attempts to publish to each registration, including the first. */
+    static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+    /** Delay before the first retry, which doubles for each retry after that. */
+    static final long RETRY_DELAY_MILLIS = 1000L;
+
+    /** The most outcomes recorded in a job. Failures are recorded before successes. */
+    static final int MAX_RECORDED_OUTCOMES = 1000;
+
+    /** The most participants queued for publishing at once, so a large study isn't held in memory. */
+    static final int MAX_PENDING_PARTICIPANTS = 1000;
+
+    /** How often a running job's progress is saved. */
+    static final long PROGRESS_SAVE_INTERVAL_MILLIS = 60 * 1000L;
+
+    /** A running job that hasn't been saved for this long is no longer running, and is reported as failed. */
+    static final long ORPHANED_JOB_TIMEOUT_MILLIS = 10 * PROGRESS_SAVE_INTERVAL_MILLIS;
+
+    private AccountDao accountDao;
+
+    private SubpopulationService subpopService;
+
+    private NotificationRegistrationDao notificationRegistrationDao;
+
+    private NotificationPublishService notificationPublishService;
+
+    private ParticipantOptionsService optionsService;
+
+    private CacheProvider cacheProvider;
+
+    // Jobs run one at a time. Each job's publishes are spread over the publish threads.
+    private Executor jobExecutor;
+
+    private ExecutorService publishExecutor;
+
+    // Set while a job is running. A job started behind another would wait without being saved, and would be reported
+    // as failed (orphaned) before it ran, so it is rejected instead.
+    private final AtomicBoolean jobRunning = new AtomicBoolean();
+
+    private RateLimiter rateLimiter = RateLimiter.create(PUBLISH_RATE_PER_SECOND);
+
+    private long retryDelayMillis = RETRY_DELAY_MILLIS;
+
+    @Autowired
+    final void setAccountDao(AccountDao accountDao) {
+        this.accountDao = accountDao;
+    }
+
+    @Autowired
+    final void setSubpopulationService(SubpopulationService subpopService) {
+        this.subpopService = subpopService;
+    }
+
+    @Autowired
+    final void setNotificationRegistrationDao(NotificationRegistrationDao notificationRegistrationDao) {
+        this.notificationRegistrationDao = notificationRegistrationDao;
+    }
+
+    @Autowired
+    final void setNotificationPublishService(NotificationPublishService notificationPublishService) {
+        this.notificationPublishService = notificationPublishService;
+    }
+
+    @Autowired
+    final void setParticipantOptionsService(ParticipantOptionsService optionsService) {
+        this.optionsService = optionsService;
+    }
+
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    /** Runs jobs. Unit tests run jobs in the calling thread. */
+    @Resource(name = "bulkNotificationJobExecutorService")
+    final void setJobExecutor(Executor jobExecutor) {
+        this.jobExecutor = jobExecutor;
+    }
+
+    /** Publishes to participants. Unit tests publish in the calling thread. */
+    @Resource(name = "bulkNotificationPublishExecutorService")
+    final void setPublishExecutor(ExecutorService publishExecutor) {
+        this.publishExecutor = publishExecutor;
+    }
+
+    /** Creates the executor that runs jobs, one at a time. It is managed by Spring. */
+    public static ExecutorService newJobExecutor() {
+        return Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("BulkNotificationService-job-%d").build());
+    }
+
+    /** Creates the executor that publishes to participants for the running job. It is managed by Spring. */
+    public static ExecutorService newPublishExecutor() {
+        return Executors.newFixedThreadPool(PUBLISH_THREAD_COUNT,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("BulkNotificationService-publish-%d").build());
+    }
+
+    /** Allows unit tests to publish without waiting. */
+    final void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /** Allows unit tests to retry without waiting. */
+    final void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Start a job to send a notification to all participants in the study who match the criteria of the request (or
+     * all participants in the study, if there are no criteria). Returns the job in its running state; the job can be
+     * retrieved by its ID to get its outcomes when it has completed. Throws a ConcurrentModificationException if a job
+     * is already running on this server.
+     */
+    public BulkNotificationJob startJob(Study study, BulkNotificationRequest request) {
+        checkNotNull(study);
+        checkNotNull(request);
+
+        Validate.entityThrowingException(new BulkNotificationRequestValidator(study.getDataGroups()), request);
+
+        if (!jobRunning.compareAndSet(false, true)) {
+            throw new ConcurrentModificationException(
+                    "A bulk notification job is already running. Try again when it has finished.");
+        }
+        try {
+            DateTime startedOn = DateTime.now(DateTimeZone.UTC);
+            BulkNotificationJob job = new BulkNotificationJob(BridgeUtils.generateGuid(), study.getIdentifier(),
+                    BulkNotificationJob.Status.RUNNING, request.getMessage(), request.getCriteria(), startedOn,
+                    startedOn, null, 0, 0, 0, null);
+            cacheProvider.setBulkNotificationJob(job);
+
+            jobExecutor.execute(() -> {
+                try {
+                    runJob(study, job);
+                } finally {
+                    jobRunning.set(false);
+                }
+            });
+            return job;
+        } catch (RuntimeException e) {
+            jobRunning.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Get a bulk notification job, which includes the outcomes of each notification once the job has completed.
+     */
+    public BulkNotificationJob getJob(StudyIdentifier studyId, String jobId) {
+        checkNotNull(studyId);
+        checkNotNull(jobId);
+
+        BulkNotificationJob job = cacheProvider.getBulkNotificationJob(jobId);
+        if (job == null || !studyId.getIdentifier().equals(job.getStudyId())) {
+            throw new EntityNotFoundException(BulkNotificationJob.class);
+        }
+        if (isOrphaned(job)) {
+            job = new BulkNotificationJob(job.getJobId(), job.getStudyId(), BulkNotificationJob.Status.FAILED,
+                    job.getMessage(), job.getCriteria(), job.getStartedOn(), job.getUpdatedOn(),
+                    DateTime.now(DateTimeZone.UTC), job.getParticipantCount(), job.getSentCount(),
+                    job.getFailedCount(), job.getOutcomes());
+            cacheProvider.setBulkNotificationJob(job);
+        }
+        return job;
+    }
+
+    /** A running job that hasn't been saved recently was stopped without finishing, e.g. by a server restart. */
+    private static boolean isOrphaned(BulkNotificationJob job) {
+        if (job.getStatus() != BulkNotificationJob.Status.RUNNING) {
+            return false;
+        }
+        DateTime updatedOn = (job.getUpdatedOn() != null) ? job.getUpdatedOn() : job.getStartedOn();
+        return updatedOn != null
+                && DateUtils.getCurrentMillisFromEpoch() - updatedOn.getMillis() > ORPHANED_JOB_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Publish to the registrations of all matching participants, and record the outcomes in the job. Returns the
+     * finished job.
+     */
+    BulkNotificationJob runJob(Study study, BulkNotificationJob job) {
+        JobProgress progress = new JobProgress(job);
+        BulkNotificationJob finishedJob;
+        try {
+            // Participants are loaded and published to on the publish threads. Finished participants are collected
+            // as the accounts are listed, so only a limited number of them are pending at once.
+            Deque<Future<List<NotificationOutcome>>> pending = new ArrayDeque<>();
+            Iterator<AccountSummary> summaries = accountDao.getStudyAccounts(study);
+            while (summaries.hasNext()) {
+                AccountSummary summary = summaries.next();
+                if (summary.getStatus() != AccountStatus.DISABLED) {
+                    pending.add(publishExecutor.submit(() -> notifyParticipant(study, summary.getId(), job)));
+                }
+                while (!pending.isEmpty()
+                        && (pending.size() >= MAX_PENDING_PARTICIPANTS || pending.peek().isDone())) {
+                    progress.add(pending.remove().get());
+                }
+                saveProgressIfDue(progress);
+            }
+            while (!pending.isEmpty()) {
+                progress.add(pending.remove().get());
+                saveProgressIfDue(progress);
+            }
+
+            finishedJob = progress.toJob(BulkNotificationJob.Status.COMPLETED);
+            LOG.info("Bulk notification job completed, study=" + job.getStudyId() + ", jobId=" + job.getJobId()
+                    + ", participants=" + finishedJob.getParticipantCount() + ", sent=" + finishedJob.getSentCount()
+                    + ", failed=" + finishedJob.getFailedCount());
+        } catch (Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.error("Bulk notification job failed, study=" + job.getStudyId() + ", jobId=" + job.getJobId(), e);
+            finishedJob = progress.toJob(BulkNotificationJob.Status.FAILED);
+        }
+        cacheProvider.setBulkNotificationJob(finishedJob);
+        return finishedJob;
+    }
+
+    /** Saves the running job, if it hasn't been saved recently, so it isn't mistaken for an orphaned job. */
+    private void saveProgressIfDue(JobProgress progress) {
+        long now = DateUtils.getCurrentMillisFromEpoch();
+        if (now - progress.savedOn >= PROGRESS_SAVE_INTERVAL_MILLIS) {
+            progress.savedOn = now;
+            try {
+                cacheProvider.setBulkNotificationJob(progress.toJob(BulkNotificationJob.Status.RUNNING));
+            } catch (RuntimeException e) {
+                // The job can carry on. It will be saved again when it finishes.
+                LOG.warn("Error saving progress of bulk notification job, jobId=" + progress.job.getJobId(), e);
+            }
+        }
+    }
+
+    /**
+     * Publishes to the registrations of a participant, if the participant is consented and matches the criteria of
+     * the job. Returns null if the participant was skipped.
+     */
+    private List<NotificationOutcome> notifyParticipant(Study study, String userId, BulkNotificationJob job) {
+        List<NotificationRegistration> registrations;
+        try {
+            Account account = accountDao.getAccount(study, userId);
+            if (account == null || account.getHealthCode() == null) {
+                return null;
+            }
+            String healthCode = account.getHealthCode();
+
+            ParticipantOptionsLookup options = optionsService.getOptions(healthCode);
+            CriteriaContext context = new CriteriaContext.Builder()
+                    .withStudyIdentifier(study.getStudyIdentifier())
+                    .withHealthCode(healthCode)
+                    .withUserId(userId)
+                    .withUserDataGroups(options.getStringSet(ParticipantOption.DATA_GROUPS))
+                    .withLanguages(options.getOrderedStringSet(ParticipantOption.LANGUAGES)).build();
+            if (!isConsented(context, account) || !matchesCriteria(context, job.getCriteria())) {
+                return null;
+            }
+            registrations = notificationRegistrationDao.listRegistrations(healthCode);
+        } catch (RuntimeException e) {
+            LOG.warn("Error loading participant for bulk notification", e);
+            return ImmutableList.of(new NotificationOutcome(null, null, NotificationOutcome.Status.FAILED, 0,
+                    e.getMessage()));
+        }
+        NotificationMessage message = job.getMessage();
+        List<NotificationOutcome> outcomes = Lists.newArrayListWithCapacity(registrations.size());
+        for (NotificationRegistration registration : registrations) {
+            outcomes.add(publish(registration, message));
+        }
+        return outcomes;
+    }
+
+    private NotificationOutcome publish(NotificationRegistration registration, NotificationMessage message) {
+        long delayMillis = retryDelayMillis;
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            rateLimiter.acquire();
+            try {
+                String messageId = notificationPublishService.publish(registration.getEndpointARN(), message);
+                LOG.debug("Sent bulk message to participant, endpointARN=" + registration.getEndpointARN()
+                        + ", message ID=" + messageId);
+                return new NotificationOutcome(registration.getGuid(), registration.getOsName(),
+                        NotificationOutcome.Status.SENT, attempts, null);
+            } catch (AmazonServiceException e) {
+                if (attempts >= MAX_PUBLISH_ATTEMPTS || !isRetryable(e)) {
+                    LOG.warn("Error publishing bulk SNS message to participant, endpointARN="
+                            + registration.getEndpointARN(), e);
+                    return new NotificationOutcome(registration.getGuid(), registration.getOsName(),
+                            NotificationOutcome.Status.FAILED, attempts, e.getErrorMessage());
+                }
+            } catch (DependencyUnavailableException e) {
+                // The publish wasn't made. Waiting out the open circuit for every registration would stall the job,
+                // so this registration fails and the job moves on.
+                LOG.warn("SNS unavailable, bulk message not published to participant, endpointARN="
+                        + registration.getEndpointARN());
+                return new NotificationOutcome(registration.getGuid(), registration.getOsName(),
+                        NotificationOutcome.Status.FAILED, attempts, e.getMessage());
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new NotificationOutcome(registration.getGuid(), registration.getOsName(),
+                        NotificationOutcome.Status.FAILED, attempts, "Interrupted before retrying");
+            }
+            delayMillis *= 2;
+        }
+    }
+
+    /**
+     * Same as ConsentStatus.isUserConsented(): the participant has an active (not withdrawn) consent to every
+     * required subpopulation that applies to them.
+     */
+    private boolean isConsented(CriteriaContext context, Account account) {
+        List<Subpopulation> subpops = subpopService.getSubpopulationForUser(context);
+        return !subpops.isEmpty() && subpops.stream().allMatch(
+                subpop -> !subpop.isRequired() || account.getActiveConsentSignature(subpop.getGuid()) != null);
+    }
+
+    private static boolean matchesCriteria(CriteriaContext context, Criteria criteria) {
+        return criteria == null || CriteriaUtils.matchCriteria(context, criteria);
+    }
+
+    /** Throttling and server errors may succeed if retried. Client errors (e.g. a disabled endpoint) will not. */
+    private static boolean isRetryable(AmazonServiceException e) {
+        return e.getErrorType() == ErrorType.Service || RetryUtils.isThrottlingException(e);
+    }
+
+    /** The counts and capped outcomes of a running job. This is only used by the job's thread. */
+    private static class JobProgress {
+        private final BulkNotificationJob job;
+        private final List<NotificationOutcome> failedOutcomes = Lists.newArrayList();
+        private final List<NotificationOutcome> sentOutcomes = Lists.newArrayList();
+        private int participantCount;
+        private int sentCount;
+        private int failedCount;
+        private long savedOn;
+
+        JobProgress(BulkNotificationJob job) {
+            this.job = job;
+            this.savedOn = DateUtils.getCurrentMillisFromEpoch();
+        }
+
+        /** Adds the outcomes of one participant, or nothing if the participant was skipped (null). */
+        void add(List<NotificationOutcome> outcomes) {
+            if (outcomes == null) {
+                return;
+            }
+            participantCount++;
+            for (NotificationOutcome outcome : outcomes) {
+                if (outcome.getStatus() == NotificationOutcome.Status.SENT) {
+                    sentCount++;
+                    if (sentOutcomes.size() < MAX_RECORDED_OUTCOMES) {
+                        sentOutcomes.add(outcome);
+                    }
+                } else {
+                    failedCount++;
+                    if (failedOutcomes.size() < MAX_RECORDED_OUTCOMES) {
+                        failedOutcomes.add(outcome);
+                    }
+                }
+            }
+        }
+
+        BulkNotificationJob toJob(BulkNotificationJob.Status status) {
+            List<NotificationOutcome> outcomes = Lists.newArrayList(failedOutcomes);
+            int sentRecorded = Math.min(sentOutcomes.size(), MAX_RECORDED_OUTCOMES - outcomes.size());
+            outcomes.addAll(sentOutcomes.subList(0, sentRecorded));
+            DateTime now = DateTime.now(DateTimeZone.UTC);
+            DateTime finishedOn = (status == BulkNotificationJob.Status.RUNNING) ? null : now;
+            return new BulkNotificationJob(job.getJobId(), job.getStudyId(), status, job.getMessage(),
+                    job.getCriteria(), job.getStartedOn(), now, finishedOn, participantCount, sentCount, failedCount,
+                    outcomes);
+        }
+    }
+}
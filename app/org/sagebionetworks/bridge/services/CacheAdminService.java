@@ -1,29 +1,51 @@
 package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.sagebionetworks.bridge.BridgeConstants.API_MAXIMUM_PAGE_SIZE;
 
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.redis.RedisKey;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
+/**
+ * Lists and removes cache items. The keyspace is walked with SCAN rather than KEYS, so that each call to Redis
+ * only examines a small number of keys and does not block other clients (every authenticated request reads a
+ * session from Redis). Session and request info keys are never listed or removed.
+ */
 @Component
 public class CacheAdminService {
 
+    static final String PAGE_SIZE_ERROR = "pageSize must be from 1-"+API_MAXIMUM_PAGE_SIZE+" records";
+
+    static final String ALL_KEYS_PATTERN = "*";
+
+    /** The number of keys Redis examines for each SCAN call while walking the whole keyspace. */
+    static final int SCAN_COUNT = 1000;
+
     private final String SESSION_SUFFIX = RedisKey.SEPARATOR + RedisKey.SESSION.getSuffix();
     private final String USER_SESSION_SUFFIX = RedisKey.SEPARATOR + RedisKey.SESSION.getSuffix() + RedisKey.SEPARATOR + RedisKey.USER.getSuffix();
     private final String REQUEST_INFO_SUFFIX = RedisKey.SEPARATOR + RedisKey.REQUEST_INFO.getSuffix();
-    
+
     private JedisPool jedisPool;
-    
+
     @Autowired
     public void setJedisPool(JedisPool jedisPool) {
         this.jedisPool = jedisPool;
@@ -34,16 +56,59 @@ public class CacheAdminService {
      * @return
      */
     public Set<String> listItems() {
+        Set<String> set = Sets.newHashSet();
+        scanItems(ALL_KEYS_PATTERN, set::addAll);
+        return set;
+    }
+
+    /**
+     * Returns a page of the keys matching a pattern (in Redis glob syntax), excluding session keys. The offsetKey
+     * of the returned page is the SCAN cursor to pass in to retrieve the next page, and is null when the scan is
+     * complete. Redis only approximates the page size, and a page can be empty before the scan is complete. The
+     * total for the keyspace is not known during a scan, so the total is the number of keys in the page.
+     */
+    public PagedResourceList<String> listItems(String pattern, String offsetKey, int pageSize) {
+        if (pageSize < 1 || pageSize > API_MAXIMUM_PAGE_SIZE) {
+            throw new BadRequestException(PAGE_SIZE_ERROR);
+        }
+        String match = isNotBlank(pattern) ? pattern : ALL_KEYS_PATTERN;
+        String cursor = isNotBlank(offsetKey) ? offsetKey : ScanParams.SCAN_POINTER_START;
+
+        ScanResult<String> result = null;
         try (Jedis jedis = jedisPool.getResource()) {
-            Set<String> allKeys = jedis.keys("*");
-            Set<String> set = Sets.newHashSet();
-            for (String key : allKeys) {
-                if (notASessionKey(key)) {
-                    set.add(key);
-                }
-            }
-            return set;
+            result = jedis.scan(cursor, new ScanParams().match(match).count(pageSize));
+        }
+        List<String> keys = withoutSessionKeys(result.getResult());
+        String nextCursor = result.getStringCursor();
+        if (ScanParams.SCAN_POINTER_START.equals(nextCursor)) {
+            nextCursor = null;
         }
+        return new PagedResourceList<String>(keys, null, pageSize, keys.size())
+                .withOffsetKey(nextCursor)
+                .withFilter("pattern", pattern);
+    }
+
+    /**
+     * Walk all the keys that match a pattern, passing each batch of keys (excluding session keys) to the consumer
+     * as it is returned by Redis. A connection is only held for each SCAN call, not for the whole walk.
+     */
+    public void scanItems(String pattern, Consumer<List<String>> consumer) {
+        checkArgument(isNotBlank(pattern));
+        checkNotNull(consumer);
+
+        ScanParams params = new ScanParams().match(pattern).count(SCAN_COUNT);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> result = null;
+            try (Jedis jedis = jedisPool.getResource()) {
+                result = jedis.scan(cursor, params);
+            }
+            List<String> keys = withoutSessionKeys(result.getResult());
+            if (!keys.isEmpty()) {
+                consumer.accept(keys);
+            }
+            cursor = result.getStringCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
     }
 
     /**
@@ -53,17 +118,43 @@ public class CacheAdminService {
     public void removeItem(String cacheKey) {
         checkArgument(isNotBlank(cacheKey));
         Long removed = null;
-        
+
         if (notASessionKey(cacheKey)) {
             try (Jedis jedis = jedisPool.getResource()) {
                 removed = jedis.del(cacheKey);
             }
         }
         if (removed == null || removed == 0) {
-            throw new BridgeServiceException("Item could not be removed from cache: does key '"+cacheKey+"' exist?"); 
+            throw new BridgeServiceException("Item could not be removed from cache: does key '"+cacheKey+"' exist?");
+        }
+    }
+
+    /**
+     * Delete all the items that match a pattern (in Redis glob syntax), other than sessions. Keys are deleted in
+     * batches as the keyspace is scanned, so this does not block Redis for the duration of the operation.
+     * @return the number of items removed
+     */
+    public long removeItems(String pattern) {
+        if (!isNotBlank(pattern)) {
+            throw new BadRequestException("A pattern is required to remove items from the cache.");
+        }
+        long[] removed = new long[1];
+        scanItems(pattern, keys -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                Long count = jedis.del(keys.toArray(new String[keys.size()]));
+                removed[0] += (count == null) ? 0L : count;
+            }
+        });
+        return removed[0];
+    }
+
+    private List<String> withoutSessionKeys(List<String> keys) {
+        if (keys == null) {
+            return Lists.newArrayList();
         }
+        return keys.stream().filter(this::notASessionKey).collect(Collectors.toList());
     }
-    
+
     private boolean notASessionKey(String key) {
         return !(key.endsWith(SESSION_SUFFIX) || key.endsWith(USER_SESSION_SUFFIX) || key.endsWith(REQUEST_INFO_SUFFIX));
     }
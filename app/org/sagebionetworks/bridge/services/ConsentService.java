@@ -14,6 +14,7 @@ import javax.annotation.Resource;
 
 import org.apache.commons.io.IOUtils;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -54,6 +55,7 @@ public class ConsentService {
     private ActivityEventService activityEventService;
     private SubpopulationService subpopService;
     private StudyService studyService;
+    private CacheProvider cacheProvider;
     
     private String consentTemplate;
     
@@ -89,6 +91,10 @@ public class ConsentService {
     final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
     }
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
     
     /**
      * Get the user's active consent signature (a signature that has not been withdrawn).
@@ -162,8 +168,9 @@ public class ConsentService {
                 .withConsentSignature(consentSignature).withWithdrewOn(null)
                 .withConsentCreatedOn(studyConsent.getCreatedOn()).build();
         
-        // Add consent signature to the list of signatures, save account.
+        // Add consent signature to the list of signatures, save account. The cached session no longer reflects it.
         account.getConsentSignatureHistory(subpopGuid).add(withConsentCreatedOnSignature);
+        cacheProvider.setUserSessionStale(participant.getId());
         accountDao.updateAccount(account);
         
         // Publish an enrollment event, set sharing scope 
@@ -232,6 +239,7 @@ public class ConsentService {
         if(!withdrawSignatures(account, subpopGuid, withdrewOn)) {
             throw new EntityNotFoundException(ConsentSignature.class);
         }
+        cacheProvider.setUserSessionStale(participant.getId());
         accountDao.updateAccount(account);
         
         MimeTypeEmailProvider consentEmail = new WithdrawConsentEmailProvider(study, participant.getExternalId(),
@@ -279,6 +287,7 @@ public class ConsentService {
         for (SubpopulationGuid subpopGuid : account.getAllConsentSignatureHistories().keySet()) {
             withdrawSignatures(account, subpopGuid, withdrewOn);
         }
+        cacheProvider.setUserSessionStale(account.getId());
         accountDao.updateAccount(account);
         
         String externalId = optionsService.getOptions(account.getHealthCode()).getString(EXTERNAL_IDENTIFIER);
@@ -78,6 +78,19 @@ public class ExternalIdService {
         }
     }
     
+    /**
+     * Reserve the next available external ID for a new participant. Returns null if validation is not enabled 
+     * for the study, or if there are no unassigned IDs left.
+     */
+    public String reserveNextAvailableExternalId(Study study) {
+        checkNotNull(study);
+        
+        if (study.isExternalIdValidationEnabled()) {
+            return externalIdDao.reserveNextAvailableExternalId(study.getStudyIdentifier());
+        }
+        return null;
+    }
+    
     public void assignExternalId(Study study, String externalIdentifier, String healthCode) {
         checkNotNull(study);
         checkArgument(isNotBlank(externalIdentifier));
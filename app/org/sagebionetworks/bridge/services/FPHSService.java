@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.dao.ParticipantOption.DATA_GROUPS;
 import static org.sagebionetworks.bridge.dao.ParticipantOption.EXTERNAL_IDENTIFIER;
 
@@ -11,6 +12,7 @@ import java.util.Set;
 
 import org.sagebionetworks.bridge.dao.FPHSExternalIdentifierDao;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
@@ -50,13 +52,19 @@ public class FPHSService {
         if (isBlank(externalId.getIdentifier())) {
             throw new InvalidEntityException(externalId);
         }
-        verifyExternalIdentifier(externalId);
-        
-        Set<String> dataGroups = optionsService.getOptions(healthCode).getStringSet(DATA_GROUPS);
-        dataGroups.add("football_player");
-        optionsService.setString(studyId, healthCode, EXTERNAL_IDENTIFIER, externalId.getIdentifier());
-        optionsService.setStringSet(studyId, healthCode, DATA_GROUPS, dataGroups);
+        // Throws exception if the identifier doesn't exist or is already registered. The identifier is claimed 
+        // first, so two participants can't both record the same identifier in their options.
         fphsDao.registerExternalId(externalId);
+        try {
+            Set<String> dataGroups = optionsService.getOptions(healthCode).getStringSet(DATA_GROUPS);
+            dataGroups.add("football_player");
+            optionsService.setString(studyId, healthCode, EXTERNAL_IDENTIFIER, externalId.getIdentifier());
+            optionsService.setStringSet(studyId, healthCode, DATA_GROUPS, dataGroups);
+        } catch(RuntimeException e) {
+            // Release the identifier so the participant can try again.
+            fphsDao.unregisterExternalId(externalId);
+            throw e;
+        }
     }
     
     /**
@@ -68,6 +76,22 @@ public class FPHSService {
     public List<FPHSExternalIdentifier> getExternalIdentifiers() throws Exception {
         return fphsDao.getExternalIds();
     }
+
+    /**
+     * Get a page of the registered or unregistered FPHS identifiers, in order by identifier.
+     * 
+     * @param registered
+     *      true to page through registered identifiers, false for unregistered identifiers
+     * @param offsetKey
+     *      the offsetKey of the previous page, or null for the first page
+     * @param pageSize
+     *      the page size, or null for the default page size
+     */
+    public PagedResourceList<FPHSExternalIdentifier> getExternalIdentifiers(boolean registered, String offsetKey,
+            Integer pageSize) {
+        return fphsDao.getExternalIds(registered, offsetKey,
+                (pageSize == null) ? API_DEFAULT_PAGE_SIZE : pageSize);
+    }
     
     /**
      * Add new external identifiers to the database. This will not overwrite the registration status of existing
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -15,11 +17,16 @@ import org.sagebionetworks.bridge.dao.HealthDataAttachmentDao;
 import org.sagebionetworks.bridge.dao.HealthDataDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.validators.HealthDataRecordValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 import org.springframework.validation.Validator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
 
 /** Service handler for health data APIs. */
 @Component
@@ -111,7 +118,52 @@ public class HealthDataService {
      * @return list of health data records
      */
     public List<HealthDataRecord> getRecordsForUploadDate(String uploadDate) {
-        // validate upload date
+        validateUploadDate(uploadDate);
+
+        // call through to DAO
+        return healthDataDao.getRecordsForUploadDate(uploadDate);
+    }
+
+    /**
+     * <p>
+     * Writes one page of the health data records uploaded on the given date to the writer as newline-delimited JSON,
+     * one record per line. This is used by worker apps to export a day of records without holding them all in memory.
+     * </p>
+     * <p>
+     * If there are more records, the page is followed by a line of the form {"offsetKey":"...","type":"OffsetKey"}.
+     * The export is continued by passing in that offset key, until a page is written without one.
+     * </p>
+     *
+     * @param uploadDate
+     *         an upload date in YYYY-MM-DD format, must be non-null, non-empty, and represent a valid date
+     * @param offsetKey
+     *         offset key written by the previous page of this export, or null to start from the beginning
+     * @param writer
+     *         writer to write the records to
+     */
+    public void exportRecordsForUploadDate(String uploadDate, String offsetKey, Writer writer) throws IOException {
+        validateUploadDate(uploadDate);
+
+        ObjectMapper mapper = BridgeObjectMapper.get();
+        PagedResourceList<HealthDataRecord> page = healthDataDao.getRecordPageForUploadDate(uploadDate, offsetKey);
+        for (HealthDataRecord record : page.getItems()) {
+            writer.write(mapper.writeValueAsString(record));
+            writer.write('\n');
+        }
+        if (page.getOffsetKey() != null) {
+            ObjectNode offsetNode = mapper.createObjectNode();
+            offsetNode.put(PagedResourceList.OFFSET_KEY_FILTER, page.getOffsetKey());
+            offsetNode.put("type", "OffsetKey");
+            writer.write(mapper.writeValueAsString(offsetNode));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * Throws a BadRequestException if the upload date is not a valid date in YYYY-MM-DD format.
+     */
+    private static void validateUploadDate(String uploadDate) {
         if (StringUtils.isBlank(uploadDate)) {
             throw new BadRequestException(String.format(Validate.CANNOT_BE_BLANK, "uploadDate"));
         }
@@ -123,9 +175,6 @@ public class HealthDataService {
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException(String.format("Expected date format YYYY-MM-DD, received %s", uploadDate));
         }
-
-        // call through to DAO
-        return healthDataDao.getRecordsForUploadDate(uploadDate);
     }
 
     public List<HealthDataRecord> getRecordsByHealthcodeCreatedOnSchemaId(String healthCode, Long createdOn, String schemaId) {
@@ -0,0 +1,32 @@
+package org.sagebionetworks.bridge.services;
+
+import javax.annotation.Nonnull;
+
+import com.amazonaws.AmazonServiceException;
+
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+
+/**
+ * Interface for publishing a push notification to a single registered device. Current implementation uses SNS (see
+ * {@link NotificationPublishViaSnsService}), but this is an interface to allow different implementations, and so
+ * tests can use an in-memory fake.
+ */
+public interface NotificationPublishService {
+    /**
+     * Publishes a notification message to the device endpoint of a push notification registration.
+     *
+     * @param endpointARN
+     *         endpoint ARN of the registration to publish to
+     * @param message
+     *         notification message to publish
+     * @return the ID assigned to the published message
+     * @throws AmazonServiceException
+     *         if the message could not be published
+     * @throws DependencyUnavailableException
+     *         if the call was not made because the notification service is unavailable (its circuit breaker is
+     *         open or too many calls to it are in progress)
+     */
+    String publish(@Nonnull String endpointARN, @Nonnull NotificationMessage message)
+            throws DependencyUnavailableException;
+}
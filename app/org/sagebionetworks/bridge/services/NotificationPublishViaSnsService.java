@@ -0,0 +1,43 @@
+package org.sagebionetworks.bridge.services;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Resource;
+
+import com.amazonaws.services.sns.AmazonSNSClient;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
+
+/**
+ * Implementation of {@link NotificationPublishService} that publishes to device endpoints through SNS.
+ */
+@Component
+public class NotificationPublishViaSnsService implements NotificationPublishService {
+    private AmazonSNSClient snsClient;
+    private CircuitBreaker circuitBreaker;
+
+    /** SNS client. */
+    @Resource(name = "snsClient")
+    final void setSnsClient(AmazonSNSClient snsClient) {
+        this.snsClient = snsClient;
+    }
+
+    /** All calls to SNS are made through this circuit breaker. */
+    @Resource(name = "snsCircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String publish(@Nonnull String endpointARN, @Nonnull NotificationMessage message) {
+        PublishRequest request = new PublishRequest().withTargetArn(endpointARN)
+                .withSubject(message.getSubject()).withMessage(message.getMessage());
+
+        PublishResult result = circuitBreaker.call(() -> snsClient.publish(request));
+        return result.getMessageId();
+    }
+}
@@ -13,6 +13,7 @@ import org.sagebionetworks.bridge.dao.NotificationTopicDao;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationTopic;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 import org.sagebionetworks.bridge.validators.NotificationMessageValidator;
 import org.sagebionetworks.bridge.validators.NotificationTopicValidator;
 import org.sagebionetworks.bridge.validators.Validate;
@@ -26,6 +27,8 @@ public class NotificationTopicService {
     private NotificationTopicDao topicDao;
     
     private AmazonSNSClient snsClient;
+    
+    private CircuitBreaker circuitBreaker;
 
     @Autowired
     final void setNotificationTopicDao(NotificationTopicDao topicDao) {
@@ -37,6 +40,11 @@ public class NotificationTopicService {
         this.snsClient = snsClient;
     }
     
+    @Resource(name = "snsCircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+    
     public List<NotificationTopic> listTopics(StudyIdentifier studyId) {
         checkNotNull(studyId);
         
@@ -91,6 +99,6 @@ public class NotificationTopicService {
         PublishRequest request = new PublishRequest().withTopicArn(topic.getTopicARN())
                 .withSubject(message.getSubject()).withMessage(message.getMessage());
         
-        snsClient.publish(request);
+        circuitBreaker.run(() -> snsClient.publish(request));
     }
 }
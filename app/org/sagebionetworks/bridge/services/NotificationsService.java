@@ -5,8 +5,6 @@ import static org.sagebionetworks.bridge.BridgeUtils.SEMICOLON_SPACE_JOINER;
 
 import java.util.List;
 
-import javax.annotation.Resource;
-
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,9 +24,6 @@ import org.sagebionetworks.bridge.validators.NotificationRegistrationValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
 import com.amazonaws.AmazonServiceException;
-import com.amazonaws.services.sns.AmazonSNSClient;
-import com.amazonaws.services.sns.model.PublishRequest;
-import com.amazonaws.services.sns.model.PublishResult;
 import com.google.common.collect.Lists;
 
 /**
@@ -43,7 +38,7 @@ public class NotificationsService {
     
     private NotificationRegistrationDao notificationRegistrationDao;
 
-    private AmazonSNSClient snsClient;
+    private NotificationPublishService notificationPublishService;
 
     @Autowired
     final void setStudyService(StudyService studyService) {
@@ -55,9 +50,9 @@ public class NotificationsService {
         this.notificationRegistrationDao = notificationRegistrationDao;
     }
     
-    @Resource(name = "snsClient")
-    final void setSnsClient(AmazonSNSClient snsClient) {
-        this.snsClient = snsClient;
+    @Autowired
+    final void setNotificationPublishService(NotificationPublishService notificationPublishService) {
+        this.notificationPublishService = notificationPublishService;
     }
     
     /**
@@ -133,7 +128,7 @@ public class NotificationsService {
      * Send a push notification to an individual participant (assuming they have registered for push notification). 
      * This mechanism is intended to message specific individuals, <i>and should not be used to send out notifications 
      * to many accounts.</i> Create a topic, ask your users to subscribe to that topic in your application, and message 
-     * them via that topic.
+     * them via that topic, or use {@link BulkNotificationService} to notify the participants who match some criteria.
      */
     public void sendNotificationToUser(StudyIdentifier studyId, String healthCode, NotificationMessage message) {
         checkNotNull(studyId);
@@ -150,14 +145,10 @@ public class NotificationsService {
         List<String> errorMessages = Lists.newArrayListWithCapacity(registrations.size());
         for (NotificationRegistration registration : registrations) {
             String endpointARN = registration.getEndpointARN();
-            
-            PublishRequest request = new PublishRequest().withTargetArn(endpointARN)
-                    .withSubject(message.getSubject()).withMessage(message.getMessage());
-            
             try {
-                PublishResult result = snsClient.publish(request);
+                String messageId = notificationPublishService.publish(endpointARN, message);
                 LOG.debug("Sent message to participant, study=" + studyId.getIdentifier() + ", endpointARN="
-                        + endpointARN + ", message ID=" + result.getMessageId());
+                        + endpointARN + ", message ID=" + messageId);
             } catch(AmazonServiceException e) {
                 LOG.warn("Error publishing SNS message to participant", e);
                 errorMessages.add(e.getErrorMessage());
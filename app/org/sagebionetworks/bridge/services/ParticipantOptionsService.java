@@ -8,25 +8,44 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.RequestScopedCache;
 import org.sagebionetworks.bridge.dao.ParticipantOption;
 import org.sagebionetworks.bridge.dao.ParticipantOptionsDao;
 import org.sagebionetworks.bridge.models.accounts.AllParticipantOptionsLookup;
 import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 
+/**
+ * Participant options are cached in Redis (and memoized for the length of a request). Changes are made to the 
+ * options saved in DynamoDB, never to the cached options, and the cached options are removed before and after 
+ * the change. If the cached options can't be removed, the change fails, so stale options are not served. If 
+ * Redis is unavailable, options are still read from DynamoDB without the cache.
+ */
 @Component
 public class ParticipantOptionsService {
     
+    private static final Logger LOG = LoggerFactory.getLogger(ParticipantOptionsService.class);
+    
     private ParticipantOptionsDao optionsDao;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     final void setParticipantOptionsDao(ParticipantOptionsDao participantOptionsDao) {
         this.optionsDao = participantOptionsDao;
     }
+    
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
 
     /**
      * Get all options and their values for a participant in a lookup object with type-safe 
@@ -36,7 +55,7 @@ public class ParticipantOptionsService {
     public ParticipantOptionsLookup getOptions(String healthCode) {
         checkArgument(isNotBlank(healthCode));
         
-        return optionsDao.getOptions(healthCode);
+        return new ParticipantOptionsLookup(getOptionsMap(healthCode));
     }
     
     /**
@@ -56,7 +75,7 @@ public class ParticipantOptionsService {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(option);
         
-        optionsDao.setOption(studyIdentifier, healthCode, option, Boolean.toString(value));
+        setOption(studyIdentifier, healthCode, option, Boolean.toString(value));
     }
 
     /**
@@ -67,7 +86,7 @@ public class ParticipantOptionsService {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(option);
         
-        optionsDao.setOption(studyIdentifier, healthCode, option, value);
+        setOption(studyIdentifier, healthCode, option, value);
     }
 
     /**
@@ -79,7 +98,7 @@ public class ParticipantOptionsService {
         checkNotNull(option);
 
         String result = (value == null) ? null : value.name();
-        optionsDao.setOption(studyIdentifier, healthCode, option, result);
+        setOption(studyIdentifier, healthCode, option, result);
     }
 
     /**
@@ -91,7 +110,7 @@ public class ParticipantOptionsService {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(option);
         
-        optionsDao.setOption(studyIdentifier, healthCode, option, BridgeUtils.setToCommaList(value));
+        setOption(studyIdentifier, healthCode, option, BridgeUtils.setToCommaList(value));
     }
 
     /**
@@ -110,7 +129,13 @@ public class ParticipantOptionsService {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(options);
         
+        // A special case: if there's nothing to update, don't.
+        if (options.isEmpty()) {
+            return;
+        }
+        removeCachedOptions(healthCode);
         optionsDao.setAllOptions(studyIdentifier, healthCode, options);
+        removeCachedOptions(healthCode);
     }
     
     /**
@@ -119,7 +144,9 @@ public class ParticipantOptionsService {
     public void deleteAllParticipantOptions(String healthCode) {
         checkArgument(isNotBlank(healthCode));
         
+        removeCachedOptions(healthCode);
         optionsDao.deleteAllOptions(healthCode);
+        removeCachedOptions(healthCode);
     }
     
     /**
@@ -129,7 +156,53 @@ public class ParticipantOptionsService {
         checkArgument(isNotBlank(healthCode));
         checkNotNull(option);
         
+        removeCachedOptions(healthCode);
         optionsDao.deleteOption(healthCode, option);
+        removeCachedOptions(healthCode);
+    }
+    
+    private void setOption(StudyIdentifier studyIdentifier, String healthCode, ParticipantOption option, String value) {
+        removeCachedOptions(healthCode);
+        optionsDao.setOption(studyIdentifier, healthCode, option, value);
+        removeCachedOptions(healthCode);
+    }
+    
+    /**
+     * Removing the cached options before a change fails the change if Redis is unavailable, before DynamoDB is 
+     * changed. Removing them again afterwards drops any options that were loaded and cached during the change. 
+     * Errors are not caught, so a change whose cached options can't be removed fails rather than leaving stale 
+     * options in the cache.
+     */
+    private void removeCachedOptions(String healthCode) {
+        RequestScopedCache.invalidate(getOptionsScopeKey(healthCode));
+        cacheProvider.removeParticipantOptions(healthCode);
+    }
+    
+    private Map<String,String> getOptionsMap(String healthCode) {
+        return RequestScopedCache.get(getOptionsScopeKey(healthCode), () -> {
+            String version = null;
+            try {
+                Map<String,String> options = cacheProvider.getParticipantOptions(healthCode);
+                if (options != null) {
+                    return options;
+                }
+                // Read before DynamoDB, so options changed while they are loaded are not cached.
+                version = cacheProvider.getParticipantOptionsVersion(healthCode);
+            } catch(RuntimeException e) {
+                LOG.warn("Could not read cached participant options, reading from DynamoDB", e);
+                return optionsDao.getOptions(healthCode).getOptions();
+            }
+            Map<String,String> options = optionsDao.getOptions(healthCode).getOptions();
+            try {
+                cacheProvider.addParticipantOptions(healthCode, version, options);
+            } catch(RuntimeException e) {
+                LOG.warn("Could not cache participant options", e);
+            }
+            return options;
+        });
     }
     
+    private static String getOptionsScopeKey(String healthCode) {
+        return "participant-options:" + healthCode;
+    }
 }
@@ -232,7 +232,13 @@ public class ParticipantService {
         accountDao.requestResetPassword(study, email);
     }
     
-    public PagedResourceList<? extends ScheduledActivity> getActivityHistory(Study study, String userId, String offsetKey, Integer pageSize) {
+    /**
+     * Get a page of a participant's activity history. Counting the whole history is expensive, so the count is 
+     * cached until activities are added or deleted (or it expires). Clients that only follow the offset key can 
+     * skip the count, in which case the total is the number of activities in the page.
+     */
+    public PagedResourceList<? extends ScheduledActivity> getActivityHistory(Study study, String userId,
+            String offsetKey, Integer pageSize, boolean includeTotal) {
         checkNotNull(study);
         checkArgument(isNotBlank(userId));
         if (pageSize == null) {
@@ -243,7 +249,22 @@ public class ParticipantService {
         }
         Account account = getAccountThrowingException(study, userId);
         
-        return activityDao.getActivityHistory(account.getHealthCode(), offsetKey, pageSize);
+        PagedResourceList<? extends ScheduledActivity> page = activityDao.getActivityHistory(account.getHealthCode(),
+                offsetKey, pageSize);
+        if (!includeTotal) {
+            return page;
+        }
+        return new PagedResourceList<>(page.getItems(), null, pageSize,
+                getActivityHistoryCount(account.getHealthCode())).withOffsetKey(page.getOffsetKey());
+    }
+    
+    private int getActivityHistoryCount(String healthCode) {
+        Integer count = cacheProvider.getActivityHistoryCount(healthCode);
+        if (count == null) {
+            count = activityDao.getActivityHistoryCount(healthCode);
+            cacheProvider.setActivityHistoryCount(healthCode, count);
+        }
+        return count;
     }
     
     public void deleteActivities(Study study, String userId) {
@@ -253,6 +274,7 @@ public class ParticipantService {
         Account account = getAccountThrowingException(study, userId);
         
         activityDao.deleteActivitiesForUser(account.getHealthCode());
+        cacheProvider.removeActivityHistoryCount(account.getHealthCode());
     }
     
     public void resendEmailVerification(Study study, String userId) {
@@ -354,6 +376,8 @@ public class ParticipantService {
             account = accountDao.constructAccount(study, participant.getEmail(), participant.getPassword());
         } else {
             account = getAccountThrowingException(study, participant.getId());
+            // The user's cached session no longer reflects their account.
+            cacheProvider.setUserSessionStale(account.getId());
             
             addValidatedExternalId(study, participant, account.getHealthCode());
         }
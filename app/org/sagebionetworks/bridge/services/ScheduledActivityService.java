@@ -14,6 +14,7 @@ import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.schedules.Activity;
@@ -46,6 +47,8 @@ public class ScheduledActivityService {
     
     private SurveyService surveyService;
     
+    private CacheProvider cacheProvider;
+    
     @Autowired
     public final void setScheduledActivityDao(ScheduledActivityDao activityDao) {
         this.activityDao = activityDao;
@@ -62,6 +65,10 @@ public class ScheduledActivityService {
     public final void setSurveyService(SurveyService surveyService) {
         this.surveyService = surveyService;
     }
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
     
     public List<ScheduledActivity> getScheduledActivities(ScheduleContext context) {
         checkNotNull(context);
@@ -78,6 +85,10 @@ public class ScheduledActivityService {
         
         List<ScheduledActivity> saves = updateActivitiesAndCollectSaves(scheduledActivities, dbActivities);
         activityDao.saveActivities(saves);
+        if (!saves.isEmpty()) {
+            // Only new activities are saved, so the history count has changed. Updates don't change it.
+            cacheProvider.removeActivityHistoryCount(context.getCriteriaContext().getHealthCode());
+        }
         
         return orderActivities(scheduledActivities);
     }
@@ -115,6 +126,7 @@ public class ScheduledActivityService {
         checkArgument(isNotBlank(healthCode));
         
         activityDao.deleteActivitiesForUser(healthCode);
+        cacheProvider.removeActivityHistoryCount(healthCode);
     }
     
     protected List<ScheduledActivity> updateActivitiesAndCollectSaves(List<ScheduledActivity> scheduledActivities, List<ScheduledActivity> dbActivities) {
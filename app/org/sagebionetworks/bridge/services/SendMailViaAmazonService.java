@@ -18,6 +18,7 @@ import javax.mail.internet.MimeMultipart;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmail;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmailProvider;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.services.simpleemail.model.MessageRejectedException;
 import org.slf4j.Logger;
@@ -44,6 +45,7 @@ public class SendMailViaAmazonService implements SendMailService {
 
     private String supportEmail;
     private AmazonSimpleEmailServiceClient emailClient;
+    private CircuitBreaker circuitBreaker;
 
     @Resource(name="supportEmail")
     public void setSupportEmail(String supportEmail) {
@@ -53,6 +55,10 @@ public class SendMailViaAmazonService implements SendMailService {
     public void setEmailClient(AmazonSimpleEmailServiceClient emailClient) {
         this.emailClient = emailClient;
     }
+    @Resource(name="sesCircuitBreaker")
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
     
     @Override
     public void sendEmail(MimeTypeEmailProvider provider) {
@@ -98,7 +104,7 @@ public class SendMailViaAmazonService implements SendMailService {
         req.setSource(sendFrom);
         req.setDestinations(Collections.singleton(recipient));
         emailClient.setRegion(REGION);
-        SendRawEmailResult result = emailClient.sendRawEmail(req);
+        SendRawEmailResult result = circuitBreaker.call(() -> emailClient.sendRawEmail(req));
 
         logger.info(String.format("Sent email to SES with message ID %s", result.getMessageId()));
     }
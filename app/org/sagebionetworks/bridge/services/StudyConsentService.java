@@ -31,6 +31,7 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.dao.StudyConsentDao;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.DateUtils;
 import org.sagebionetworks.bridge.models.studies.MimeType;
@@ -41,6 +42,7 @@ import org.sagebionetworks.bridge.models.subpopulations.StudyConsentView;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 import org.sagebionetworks.bridge.validators.StudyConsentValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 import org.slf4j.Logger;
@@ -53,6 +55,8 @@ import org.xhtmlrenderer.pdf.ITextRenderer;
 import org.xhtmlrenderer.util.XRRuntimeException;
 
 import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.lowagie.text.DocumentException;
 
@@ -69,6 +73,10 @@ public class StudyConsentService {
     private SubpopulationService subpopService;
     private AmazonS3Client s3Client;
     private S3Helper s3Helper;
+    private CircuitBreaker circuitBreaker;
+    // A consent document is never changed once it has been written, so the last copy read of each document is kept
+    // here, to be returned while S3 is unavailable.
+    private final Cache<String,String> documentContentCache = CacheBuilder.newBuilder().maximumSize(500).build();
     private static final String CONSENTS_BUCKET = BridgeConfigFactory.getConfig().getConsentsBucket();
     private static final String PUBLICATIONS_BUCKET = BridgeConfigFactory.getConfig().getHostnameWithPostfix("docs");
     private String fullPageTemplate;
@@ -102,6 +110,12 @@ public class StudyConsentService {
     final void setS3Helper(S3Helper helper) {
         this.s3Helper = helper;
     }
+
+    /** All calls to S3 are made through this circuit breaker. */
+    @Resource(name = "s3CircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
     
     /**
      * Adds a new consent document to the study, and sets that consent document as active.
@@ -123,9 +137,12 @@ public class StudyConsentService {
         long createdOn = DateUtils.getCurrentMillisFromEpoch();
         String storagePath = subpopGuid.getGuid() + "." + createdOn;
         try {
-            s3Helper.writeBytesToS3(CONSENTS_BUCKET, storagePath, sanitizedContent.getBytes());
+            circuitBreaker.run(() -> s3Helper.writeBytesToS3(CONSENTS_BUCKET, storagePath, sanitizedContent.getBytes()));
             StudyConsent consent = studyConsentDao.addConsent(subpopGuid, storagePath, createdOn);
+            documentContentCache.put(storagePath, sanitizedContent);
             return new StudyConsentView(consent, sanitizedContent);
+        } catch(DependencyUnavailableException e) {
+            throw e;
         } catch(Throwable t) {
             throw new BridgeServiceException(t);
         }
@@ -233,8 +250,19 @@ public class StudyConsentService {
     }
     
     private String loadDocumentContent(StudyConsent consent) {
+        String storagePath = consent.getStoragePath();
         try {
-            return s3Helper.readS3FileAsString(CONSENTS_BUCKET, consent.getStoragePath());
+            String documentContent = circuitBreaker.call(
+                    () -> s3Helper.readS3FileAsString(CONSENTS_BUCKET, storagePath));
+            documentContentCache.put(storagePath, documentContent);
+            return documentContent;
+        } catch(DependencyUnavailableException e) {
+            String documentContent = documentContentCache.getIfPresent(storagePath);
+            if (documentContent == null) {
+                throw e;
+            }
+            logger.warn("S3 is unavailable, returning cached copy of storagePath: " + storagePath);
+            return documentContent;
         } catch(IOException ioe) {
             logger.error("Failure loading storagePath: " + consent.getStoragePath());
             throw new BridgeServiceException(ioe);
@@ -297,7 +325,7 @@ public class StudyConsentService {
             metadata.setContentType(type.toString());
             PutObjectRequest request = new PutObjectRequest(bucket, key, dataInputStream, metadata)
                     .withCannedAcl(CannedAccessControlList.PublicRead);
-            s3Client.putObject(request);
+            circuitBreaker.run(() -> s3Client.putObject(request));
         }
     }
 }
\ No newline at end of file
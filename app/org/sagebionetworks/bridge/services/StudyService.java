@@ -7,10 +7,12 @@ import static org.sagebionetworks.bridge.BridgeUtils.checkNewEntity;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
@@ -21,19 +23,25 @@ import org.jsoup.safety.Whitelist;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.RequestScopedCache;
+import org.sagebionetworks.bridge.cache.SingleFlightLoader;
+import org.sagebionetworks.bridge.cache.StudyRegistry;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.dao.DirectoryDao;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.SynapseAccount;
 import org.sagebionetworks.bridge.models.studies.EmailTemplate;
 import org.sagebionetworks.bridge.models.studies.MimeType;
 import org.sagebionetworks.bridge.models.studies.PasswordPolicy;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
 import org.sagebionetworks.bridge.validators.StudyValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
@@ -68,6 +76,8 @@ public class StudyService {
     private DirectoryDao directoryDao;
     private StudyValidator validator;
     private CacheProvider cacheProvider;
+    private SingleFlightLoader singleFlightLoader;
+    private StudyRegistry studyRegistry;
     private SubpopulationService subpopService;
     private NotificationTopicService topicService;
     private EmailVerificationService emailVerificationService;
@@ -115,6 +125,14 @@ public class StudyService {
         this.cacheProvider = cacheProvider;
     }
     @Autowired
+    final void setSingleFlightLoader(SingleFlightLoader singleFlightLoader) {
+        this.singleFlightLoader = singleFlightLoader;
+    }
+    @Autowired
+    final void setStudyRegistry(StudyRegistry studyRegistry) {
+        this.studyRegistry = studyRegistry;
+    }
+    @Autowired
     final void setSubpopulationService(SubpopulationService subpopService) {
         this.subpopService = subpopService;
     }
@@ -135,11 +153,19 @@ public class StudyService {
     private Study getStudy(String identifier, boolean includeDeleted) {
         checkArgument(isNotBlank(identifier), Validate.CANNOT_BE_BLANK, "identifier");
 
-        Study study = cacheProvider.getStudy(identifier);
-        if (study == null) {
-            study = studyDao.getStudy(identifier);
-            cacheProvider.setStudy(study);
-        }
+        // The study is shared by every caller in the request. Callers that change it work on a copy (see copyOf).
+        Study study = RequestScopedCache.get(getStudyScopeKey(identifier), () -> {
+            Study cachedStudy = cacheProvider.getStudy(identifier);
+            if (cachedStudy == null) {
+                // Only one request per node (and one node at a time) reloads an evicted study
+                cachedStudy = singleFlightLoader.load("study:" + identifier, () -> cacheProvider.getStudy(identifier), () -> {
+                    Study loadedStudy = studyDao.getStudy(identifier);
+                    cacheProvider.setStudy(loadedStudy);
+                    return loadedStudy;
+                });
+            }
+            return cachedStudy;
+        });
 
         if (study != null && !study.isActive() && !includeDeleted) {
             throw new EntityNotFoundException(Study.class, "Study not found.");
@@ -159,8 +185,44 @@ public class StudyService {
         return getStudy(studyId.getIdentifier());
     }
 
+    /**
+     * Returns all studies, including deactivated ones. Studies are enumerated from the study registry and each
+     * study is loaded through the cache; a cached study that is older than the registry's version is reloaded.
+     */
     public List<Study> getStudies() {
-        return studyDao.getStudies();
+        List<Study> studies = new ArrayList<>();
+        for (StudyRegistryEntry entry : studyRegistry.getEntries()) {
+            Study study = getStudy(entry);
+            if (study != null) {
+                studies.add(study);
+            }
+        }
+        return studies;
+    }
+
+    /**
+     * Returns the identifiers of all studies, including deactivated ones, without loading the studies.
+     */
+    public List<StudyIdentifier> getStudyIdentifiers() {
+        return studyRegistry.getEntries().stream().map(StudyRegistryEntry::getStudyIdentifier)
+                .collect(Collectors.toList());
+    }
+
+    private Study getStudy(StudyRegistryEntry entry) {
+        String identifier = entry.getIdentifier();
+        try {
+            Study study = getStudy(identifier, true);
+            if (study != null && entry.getVersion() != null
+                    && (study.getVersion() == null || study.getVersion() < entry.getVersion())) {
+                cacheProvider.removeStudy(identifier);
+                RequestScopedCache.invalidate(getStudyScopeKey(identifier));
+                study = getStudy(identifier, true);
+            }
+            return study;
+        } catch (EntityNotFoundException e) {
+            // The study was deleted after the registry was loaded.
+            return null;
+        }
     }
 
     public Study createStudy(Study study) {
@@ -194,6 +256,7 @@ public class StudyService {
         emailVerificationService.verifyEmailAddress(study.getSupportEmail());
         
         cacheProvider.setStudy(study);
+        studyRegistry.invalidate();
 
         return study;
     }
@@ -277,7 +340,8 @@ public class StudyService {
         String newTeamId = newTeam.getId();
         String newProjectId = newProject.getId();
 
-        // finally, update study
+        // finally, update study. It is usually the instance memoized for this request, so a copy is changed.
+        study = copyOf(study);
         study.setSynapseProjectId(newProjectId);
         study.setSynapseDataAccessTeamId(Long.parseLong(newTeamId));
         updateStudy(study, false);
@@ -301,6 +365,8 @@ public class StudyService {
 
             study.setHealthCodeExportEnabled(originalStudy.isHealthCodeExportEnabled());
             study.setEmailVerificationEnabled(originalStudy.isEmailVerificationEnabled());
+            study.setRequestRateLimit(originalStudy.getRequestRateLimit());
+            study.setParticipantRequestRateLimit(originalStudy.getParticipantRequestRateLimit());
         }
 
         // prevent anyone changing active to false -- it should be done by deactivateStudy() method
@@ -317,6 +383,7 @@ public class StudyService {
         // is not updated in the cache. At least we can delete the study before this, so the next 
         // time it should succeed. Have not figured out why they get out of sync.
         cacheProvider.removeStudy(study.getIdentifier());
+        RequestScopedCache.invalidate(getStudyScopeKey(study.getIdentifier()));
         
         // Only update the directory if a relevant aspect of the study has changed.
         if (studyDirectoryHasChanged(originalStudy, study)) {
@@ -329,6 +396,7 @@ public class StudyService {
         }
         
         cacheProvider.setStudy(updatedStudy);
+        studyRegistry.invalidate();
         
         return updatedStudy;
     }
@@ -362,6 +430,25 @@ public class StudyService {
         }
 
         cacheProvider.removeStudy(identifier);
+        RequestScopedCache.invalidate(getStudyScopeKey(identifier));
+        studyRegistry.invalidate();
+    }
+    
+    private static String getStudyScopeKey(String identifier) {
+        return "study:" + identifier;
+    }
+    
+    /**
+     * Copy a study through its JSON, which is the same form the study is cached in, so a copy is what a fresh read 
+     * from the cache would return. Only needed when a study that may be memoized for the request is going to be 
+     * changed.
+     */
+    private static Study copyOf(Study study) {
+        try {
+            return BridgeObjectMapper.get().readValue(BridgeObjectMapper.get().writeValueAsString(study), Study.class);
+        } catch(IOException e) {
+            throw new BridgeServiceException(e);
+        }
     }
     
     /**
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Resource;
 
 import com.amazonaws.services.sqs.AmazonSQSClient;
 import com.amazonaws.services.sqs.model.SendMessageResult;
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.models.DateRange;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 /**
  * Implementation of {@link UserDataDownloadService} that connects to the Bridge User Data Download Service via SQS.
@@ -34,6 +36,7 @@ public class UserDataDownloadViaSqsService implements UserDataDownloadService {
 
     private BridgeConfig bridgeConfig;
     private AmazonSQSClient sqsClient;
+    private CircuitBreaker circuitBreaker;
 
     /** Bridge config, used to get the SQS queue URL. */
     @Autowired
@@ -47,6 +50,12 @@ public class UserDataDownloadViaSqsService implements UserDataDownloadService {
         this.sqsClient = sqsClient;
     }
 
+    /** All calls to SQS are made through this circuit breaker. */
+    @Resource(name = "sqsCircuitBreaker")
+    public final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void requestUserData(@Nonnull StudyIdentifier studyIdentifier, @Nonnull String email,
@@ -70,7 +79,7 @@ public class UserDataDownloadViaSqsService implements UserDataDownloadService {
 
         // send to SQS
         String queueUrl = bridgeConfig.getProperty(CONFIG_KEY_UDD_SQS_QUEUE_URL);
-        SendMessageResult sqsResult = sqsClient.sendMessage(queueUrl, requestJson);
+        SendMessageResult sqsResult = circuitBreaker.call(() -> sqsClient.sendMessage(queueUrl, requestJson));
         logger.info("Sent request to SQS for hash[username]=" + email.hashCode() + ", study=" + studyId +
                 ", startDate=" + startDateStr + ", endDate=" + endDateStr + "; received message ID=" +
                 sqsResult.getMessageId());
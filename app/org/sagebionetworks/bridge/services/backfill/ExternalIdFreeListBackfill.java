@@ -0,0 +1,58 @@
+package org.sagebionetworks.bridge.services.backfill;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.dynamodb.DynamoExternalIdDao;
+import org.sagebionetworks.bridge.models.backfill.BackfillTask;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.services.StudyService;
+
+/**
+ * Backfill to add unassigned external IDs created before the free-list index existed to that index. Until they are
+ * added, these IDs are not handed out as the next available ID, so this should be run once when the index is
+ * created. It is safe to run again.
+ */
+@Component("externalIdFreeListBackfill")
+public class ExternalIdFreeListBackfill extends AsyncBackfillTemplate {
+    private StudyService studyService;
+    private DynamoExternalIdDao externalIdDao;
+
+    /** Used to get all studies. */
+    @Autowired
+    final void setStudyService(StudyService studyService) {
+        this.studyService = studyService;
+    }
+
+    /**
+     * Used to add unassigned IDs to the free-list.
+     * NOTE: This leaks the Dynamo implementation, but the free-list only exists in the Dynamo implementation.
+     */
+    @Autowired
+    final void setExternalIdDao(DynamoExternalIdDao externalIdDao) {
+        this.externalIdDao = externalIdDao;
+    }
+
+    @Override
+    int getLockExpireInSeconds() {
+        return 15 * 60;
+    }
+
+    @Override
+    void doBackfill(BackfillTask task, BackfillCallback callback) {
+        List<StudyIdentifier> studyIdList = studyService.getStudyIdentifiers();
+        for (StudyIdentifier studyId : studyIdList) {
+            try {
+                int count = externalIdDao.addUnassignedIdsToFreeList(studyId);
+                recordMessage(task, callback, "Added " + count + " external ID(s) to the free-list for study " +
+                        studyId.getIdentifier());
+            } catch (RuntimeException ex) {
+                // Ensure that errors don't fail the entire backfill.
+                recordError(task, callback, "Error adding external IDs to the free-list for study " +
+                        studyId.getIdentifier() + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.sagebionetworks.bridge.services.backfill;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.dynamodb.DynamoHealthDataDao;
+import org.sagebionetworks.bridge.models.backfill.BackfillTask;
+
+/**
+ * Backfill to rewrite health data records written before record compression was enabled, so that their data and
+ * metadata are stored compressed. Uncompressed records can still be read, so this is optional, but it reduces the
+ * read capacity consumed by reading old records. If compression is disabled, this returns without scanning the
+ * table. It is safe to run again.
+ */
+@Component("healthDataRecordCompressionBackfill")
+public class HealthDataRecordCompressionBackfill extends AsyncBackfillTemplate {
+    private DynamoHealthDataDao healthDataDao;
+
+    /**
+     * Used to rewrite the records.
+     * NOTE: This leaks the Dynamo implementation, but the compressed format only exists in the Dynamo implementation.
+     */
+    @Autowired
+    final void setHealthDataDao(DynamoHealthDataDao healthDataDao) {
+        this.healthDataDao = healthDataDao;
+    }
+
+    @Override
+    int getLockExpireInSeconds() {
+        // This scans the whole record table.
+        return 12 * 60 * 60;
+    }
+
+    @Override
+    void doBackfill(BackfillTask task, BackfillCallback callback) {
+        int count = healthDataDao.compressRecords(message -> recordMessage(task, callback, message));
+        recordMessage(task, callback, "Compressed " + count + " health data record(s)");
+    }
+}
@@ -0,0 +1,59 @@
+package org.sagebionetworks.bridge.services.backfill;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.dynamodb.DynamoSurveyDao;
+import org.sagebionetworks.bridge.models.backfill.BackfillTask;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.services.StudyService;
+
+/**
+ * Backfill to write the survey pointers for surveys created before surveys were listed by pointer. Surveys without a
+ * pointer are not listed once survey.list.by.pointer.enabled is set, so this should be run once, before that setting
+ * is turned on. It is safe to run again.
+ */
+@Component("surveyPointerBackfill")
+public class SurveyPointerBackfill extends AsyncBackfillTemplate {
+    private StudyService studyService;
+    private DynamoSurveyDao surveyDao;
+
+    /** Used to get all studies. */
+    @Autowired
+    final void setStudyService(StudyService studyService) {
+        this.studyService = studyService;
+    }
+
+    /**
+     * Used to rebuild the pointers from survey revisions.
+     * NOTE: This leaks the Dynamo implementation, but the pointers only exist in the Dynamo implementation.
+     */
+    @Autowired
+    final void setSurveyDao(DynamoSurveyDao surveyDao) {
+        this.surveyDao = surveyDao;
+    }
+
+    @Override
+    int getLockExpireInSeconds() {
+        return 15 * 60;
+    }
+
+    @Override
+    void doBackfill(BackfillTask task, BackfillCallback callback) {
+        // Only the study IDs are needed, so the studies themselves aren't loaded.
+        List<StudyIdentifier> studyIdList = studyService.getStudyIdentifiers();
+        for (StudyIdentifier studyId : studyIdList) {
+            try {
+                int count = surveyDao.rebuildSurveyPointers(studyId);
+                recordMessage(task, callback, "Backfilled " + count + " survey pointer(s) for study " +
+                        studyId.getIdentifier());
+            } catch (RuntimeException ex) {
+                // Ensure that errors don't fail the entire backfill.
+                recordError(task, callback, "Error backfilling survey pointers for study " + studyId.getIdentifier()
+                        + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -43,6 +43,10 @@ import com.google.common.collect.Maps;
  * There are historical exceptions including the "<studyId>version" key for the health ID and 
  * no version for the phone value; these are handled in the current implementation. Again, on 
  * updating these values, the version keys will be updated.
+ * 
+ * Decrypted values are remembered along with the encrypted value they came from, so a value is only 
+ * decrypted once for each account, however many times it's read. A value is only re-encrypted if it has 
+ * changed, or if it was encrypted with an older encryptor.
  */
 @BridgeTypeName("Account")
 public class StormpathAccount implements Account {
@@ -62,6 +66,7 @@ public class StormpathAccount implements Account {
     private final String oldHealthIdVersionKey;
     private final String oldConsentSignatureKey;
     private final Map<SubpopulationGuid, List<ConsentSignature>> allSignatures;
+    private final Map<String, DecryptedValue> decryptedValues;
 
     private com.stormpath.sdk.account.Account acct;
     private ImmutableSet<Roles> roles;
@@ -83,6 +88,7 @@ public class StormpathAccount implements Account {
         this.oldHealthIdVersionKey = studyId + OLD_VERSION_SUFFIX;
         this.oldConsentSignatureKey = studyId + CONSENT_SIGNATURE_SUFFIX;
         this.allSignatures = Maps.newHashMap();
+        this.decryptedValues = Maps.newHashMap();
         
         for (SubpopulationGuid subpopGuid : subpopGuids) {
             List<ConsentSignature> signatures = decryptJSONFrom(subpopGuid.getGuid()+CONSENT_SIGNATURES_SUFFIX, CONSENT_SIGNATURES_TYPE);
@@ -248,15 +254,24 @@ public class StormpathAccount implements Account {
         if (value == null) {
             acct.getCustomData().remove(key);
             acct.getCustomData().remove(key+VERSION_SUFFIX);
+            decryptedValues.remove(key);
             return;
         }
         // Encryption is always done with the most recent encryptor, which is last in the list (most revent version #)
         Integer encryptorKey = encryptors.lastKey();
         BridgeEncryptor encryptor = encryptors.get(encryptorKey);
 
+        // Skip encryption if this value is already stored, encrypted with the most recent encryptor.
+        String encryptedString = (String)acct.getCustomData().get(key);
+        DecryptedValue decrypted = decryptedValues.get(key);
+        if (decrypted != null && decrypted.isDecryptionOf(encryptedString) && value.equals(decrypted.value)
+                && encryptor.getVersion().equals(acct.getCustomData().get(key+VERSION_SUFFIX))) {
+            return;
+        }
         String encrypted = encryptor.encrypt(value);
         acct.getCustomData().put(key+VERSION_SUFFIX, encryptor.getVersion());
         acct.getCustomData().put(key, encrypted);
+        decryptedValues.put(key, new DecryptedValue(encrypted, value));
     }
     
     private String decryptFrom(String key) {
@@ -264,13 +279,19 @@ public class StormpathAccount implements Account {
         if (encryptedString == null) {
             return null;
         }
+        DecryptedValue decrypted = decryptedValues.get(key);
+        if (decrypted != null && decrypted.isDecryptionOf(encryptedString)) {
+            return decrypted.value;
+        }
         // Decryption is always done with the version that was used for encryption.
         Integer version = getVersionAccountingForExceptions(key);
         BridgeEncryptor encryptor = encryptors.get(version);
         if (encryptor == null) {
             throw new BridgeServiceException("No encryptor can be found for version " + version);
         }
-        return encryptor.decrypt(encryptedString);
+        String value = encryptor.decrypt(encryptedString);
+        decryptedValues.put(key, new DecryptedValue(encryptedString, value));
+        return value;
     }
     
     /**
@@ -307,6 +328,22 @@ public class StormpathAccount implements Account {
         return version;
     }
     
+    /** A decrypted value, and the encrypted value it was decrypted from (or encrypted to). */
+    private static final class DecryptedValue {
+        private final String encrypted;
+        private final String value;
+
+        DecryptedValue(String encrypted, String value) {
+            this.encrypted = encrypted;
+            this.value = value;
+        }
+
+        /** True if the stored value hasn't changed since it was decrypted. */
+        boolean isDecryptionOf(String encryptedString) {
+            return encrypted.equals(encryptedString);
+        }
+    }
+    
     @Override
     public String toString() {
         return String.format("StormpathAccount [firstName=%s, lastName=%s, email=%s, roles=%s, signatures=%s]",
@@ -47,6 +47,7 @@ import org.sagebionetworks.bridge.services.HealthCodeService;
 import org.sagebionetworks.bridge.services.StudyService;
 import org.sagebionetworks.bridge.services.SubpopulationService;
 import org.sagebionetworks.bridge.util.BridgeCollectors;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.stormpath.sdk.directory.CustomData;
 
@@ -87,6 +88,7 @@ public class StormpathAccountDao implements AccountDao {
 
     private Application application;
     private Client client;
+    private CircuitBreaker circuitBreaker;
     private boolean isProd;
     private StudyService studyService;
     private SubpopulationService subpopService;
@@ -107,6 +109,11 @@ public class StormpathAccountDao implements AccountDao {
     final void setStormpathClient(Client client) {
         this.client = client;
     }
+    /** All calls to Stormpath are made through this circuit breaker. */
+    @Resource(name = "stormpathCircuitBreaker")
+    final void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
     @Autowired
     final void setStudyService(StudyService studyService) {
         this.studyService = studyService;
@@ -148,7 +155,7 @@ public class StormpathAccountDao implements AccountDao {
         // Also eagerly fetch custom data, which we typically examine every time for every user.
         AccountCriteria criteria = Accounts.criteria().limitTo(100).withCustomData().withGroupMemberships();
         
-        Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+        Directory directory = circuitBreaker.call(() -> client.getResource(study.getStormpathHref(), Directory.class));
         return new StormpathAccountIterator(study.getStudyIdentifier(), directory.getAccounts(criteria).iterator());
     }
 
@@ -178,20 +185,23 @@ public class StormpathAccountDao implements AccountDao {
         if (isNotBlank(emailFilter)) {
             criteria = criteria.add(Accounts.email().containsIgnoreCase(emailFilter));
         }
-        
-        Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
-        AccountList accts = directory.getAccounts(criteria);
-        
-        Iterator<com.stormpath.sdk.account.Account> it = accts.iterator();
+        AccountCriteria pageCriteria = criteria;
         
         List<AccountSummary> results = Lists.newArrayListWithCapacity(pageSize);
-        for (int i=0; i < pageSize; i++) {
-            if (it.hasNext()) {
-                com.stormpath.sdk.account.Account acct = it.next();
-                results.add(AccountSummary.create(study.getStudyIdentifier(), acct));
+        int total = circuitBreaker.call(() -> {
+            Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+            AccountList accts = directory.getAccounts(pageCriteria);
+            
+            Iterator<com.stormpath.sdk.account.Account> it = accts.iterator();
+            for (int i=0; i < pageSize; i++) {
+                if (it.hasNext()) {
+                    com.stormpath.sdk.account.Account acct = it.next();
+                    results.add(AccountSummary.create(study.getStudyIdentifier(), acct));
+                }
             }
-        }
-        return new PagedResourceList<AccountSummary>(results, offsetBy, pageSize, accts.getSize())
+            return accts.getSize();
+        });
+        return new PagedResourceList<AccountSummary>(results, offsetBy, pageSize, total)
                 .withFilter("emailFilter", emailFilter)
                 .withFilter("startDate", startDate)
                 .withFilter("endDate", endDate);
@@ -202,7 +212,7 @@ public class StormpathAccountDao implements AccountDao {
         checkNotNull(verification);
         
         try {
-            client.verifyAccountEmail(verification.getSptoken());
+            circuitBreaker.run(() -> client.verifyAccountEmail(verification.getSptoken()));
         } catch(ResourceException e) {
             rethrowResourceException(e, null);
         }
@@ -214,15 +224,16 @@ public class StormpathAccountDao implements AccountDao {
         checkNotNull(email);
         
         final Study study = studyService.getStudy(studyIdentifier);
-        final Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
-        VerificationEmailRequestBuilder requestBuilder = Applications.verificationEmailBuilder();
-        VerificationEmailRequest request = requestBuilder
-                .setAccountStore(directory)
-                .setLogin(email.getEmail())
-                .build();
-
         try {
-            application.sendVerificationEmail(request);
+            circuitBreaker.run(() -> {
+                Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+                VerificationEmailRequestBuilder requestBuilder = Applications.verificationEmailBuilder();
+                VerificationEmailRequest request = requestBuilder
+                        .setAccountStore(directory)
+                        .setLogin(email.getEmail())
+                        .build();
+                application.sendVerificationEmail(request);
+            });
         } catch (ResourceException e) {
             rethrowResourceException(e, null);
         }
@@ -234,8 +245,10 @@ public class StormpathAccountDao implements AccountDao {
         checkNotNull(email);
 
         try {
-            Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
-            application.sendPasswordResetEmail(email.getEmail(), directory);
+            circuitBreaker.run(() -> {
+                Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+                application.sendPasswordResetEmail(email.getEmail(), directory);
+            });
         } catch (ResourceException e) {
             rethrowResourceException(e, null);
         }
@@ -246,12 +259,12 @@ public class StormpathAccountDao implements AccountDao {
         checkNotNull(passwordReset);
         
         try {
-            application.verifyPasswordResetToken(passwordReset.getSptoken());
+            circuitBreaker.run(() -> application.verifyPasswordResetToken(passwordReset.getSptoken()));
         } catch(ResourceException e) {
             throw new BadRequestException("Password reset token has expired (or already been used).");
         }
         try {
-            application.resetPassword(passwordReset.getSptoken(), passwordReset.getPassword());
+            circuitBreaker.run(() -> application.resetPassword(passwordReset.getSptoken(), passwordReset.getPassword()));
         } catch (ResourceException e) {
             rethrowResourceException(e, null);
         }
@@ -265,21 +278,26 @@ public class StormpathAccountDao implements AccountDao {
         checkArgument(isNotBlank(signIn.getPassword()));
         
         try {
-            Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
-            
-            AuthenticationRequest<?,?> request = UsernamePasswordRequests.builder()
-                    .setUsernameOrEmail(signIn.getEmail())
-                    .setPassword(signIn.getPassword())
-                    .withResponseOptions(UsernamePasswordRequests.options().withAccount())
-                    .inAccountStore(directory).build();
-            
-            AuthenticationResult result = application.authenticateAccount(request);
-            com.stormpath.sdk.account.Account acct = result.getAccount();
+            com.stormpath.sdk.account.Account acct = circuitBreaker.call(() -> {
+                Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+                
+                AuthenticationRequest<?,?> request = UsernamePasswordRequests.builder()
+                        .setUsernameOrEmail(signIn.getEmail())
+                        .setPassword(signIn.getPassword())
+                        .withResponseOptions(UsernamePasswordRequests.options().withAccount())
+                        .inAccountStore(directory).build();
+                
+                AuthenticationResult result = application.authenticateAccount(request);
+                com.stormpath.sdk.account.Account authenticated = result.getAccount();
+                if (authenticated != null) {
+                    // eagerly fetch remaining data with further calls to Stormpath (these are not retrieved in 
+                    // authentication call, this has been verified with Stormpath). If we fail to fully initialize the 
+                    // user, we want it to happen here, not later in the call where we don't expect it.
+                    authenticated.getCustomData();
+                }
+                return authenticated;
+            });
             if (acct != null) {
-                // eagerly fetch remaining data with further calls to Stormpath (these are not retrieved in authentication 
-                // call, this has been verified with Stormpath). If we fail to fully initialize the user, we want it to 
-                // happen here, not later in the call where we don't expect it.
-                acct.getCustomData();
                 return constructAccount(study, acct);
             }
         } catch (ResourceException e) {
@@ -293,6 +311,8 @@ public class StormpathAccountDao implements AccountDao {
         checkNotNull(study);
         checkArgument(isNotBlank(identifier));
         
+        // Not memoized per request: changes to an account are made on the underlying Stormpath resource, which 
+        // can't be copied, so callers in the same request would see each other's unsaved changes.
         String href = BridgeConstants.STORMPATH_ACCOUNT_BASE_HREF+identifier;
 
         AccountOptions<?> options = Accounts.options();
@@ -300,11 +320,12 @@ public class StormpathAccountDao implements AccountDao {
         options.withGroups();
         options.withGroupMemberships();
         try {
-            com.stormpath.sdk.account.Account acct = client.getResource(href, com.stormpath.sdk.account.Account.class, options);
+            com.stormpath.sdk.account.Account acct = circuitBreaker.call(
+                    () -> client.getResource(href, com.stormpath.sdk.account.Account.class, options));
 
             // Validate the user is in the correct directory
-            Directory directory = acct.getDirectory();
-            if (directory.getHref().equals(study.getStormpathHref())) {
+            String directoryHref = circuitBreaker.call(() -> acct.getDirectory().getHref());
+            if (directoryHref.equals(study.getStormpathHref())) {
                 return constructAccount(study, acct);
             }
         } catch(ResourceException e) {
@@ -357,8 +378,11 @@ public class StormpathAccountDao implements AccountDao {
         try {
             // Appears to be unavoidable to make multiple calls here. You have to create the account 
             // before you can manipulate the groups, you cannot submit them all in one request.
-            Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
-            acct = directory.createAccount(acct, sendVerifyEmail);
+            com.stormpath.sdk.account.Account newAcct = acct;
+            acct = circuitBreaker.call(() -> {
+                Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+                return directory.createAccount(newAcct, sendVerifyEmail);
+            });
             updateGroups(account);
             ((StormpathAccount)account).setAccount(acct);
         } catch(ResourceException e) {
@@ -374,15 +398,17 @@ public class StormpathAccountDao implements AccountDao {
         if (acct == null) {
             throw new BridgeServiceException("Account has not been initialized correctly (use new account methods)");
         }
-
         Map<String, Object> customDataAsMap = null;
         try {
             updateGroups(account);
 
             // Save custom data. Get the custom data as a map for our consistency check.
-            CustomData customData = acct.getCustomData();
-            customDataAsMap = customDataToMap(customData);
-            customData.save();
+            customDataAsMap = circuitBreaker.call(() -> {
+                CustomData customData = acct.getCustomData();
+                Map<String, Object> asMap = customDataToMap(customData);
+                customData.save();
+                return asMap;
+            });
 
             // This will throw an exception if the account object has not changed, which it may not have
             // if this call was made simply to persist a change in the groups. To get around this, we dig 
@@ -390,7 +416,7 @@ public class StormpathAccountDao implements AccountDao {
             // In mock tests we override the method involved to avoid test errors. This was verified to be 
             // an issue as of stormpath 1.0.RC9.
             if (isAccountDirty(acct)) {
-                acct.save();
+                circuitBreaker.run(acct::save);
             }
         } catch(ResourceException e) {
             rethrowResourceException(e, account);
@@ -463,7 +489,7 @@ public class StormpathAccountDao implements AccountDao {
         
         Account account = getAccount(study, id);
         com.stormpath.sdk.account.Account acct =((StormpathAccount)account).getAccount();
-        acct.delete();
+        circuitBreaker.run(acct::delete);
     }
     
     /**
@@ -490,12 +516,14 @@ public class StormpathAccountDao implements AccountDao {
     }
     
     private Account getAccountWithEmail(Study study, String email) {
-        Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
+        com.stormpath.sdk.account.Account acct = circuitBreaker.call(() -> {
+            Directory directory = client.getResource(study.getStormpathHref(), Directory.class);
 
-        AccountList accounts = directory.getAccounts(Accounts.where(Accounts.email().eqIgnoreCase(email))
-                .withCustomData().withGroups().withGroupMemberships());
-        if (accounts.iterator().hasNext()) {
-            com.stormpath.sdk.account.Account acct = accounts.iterator().next();
+            AccountList accounts = directory.getAccounts(Accounts.where(Accounts.email().eqIgnoreCase(email))
+                    .withCustomData().withGroups().withGroupMemberships());
+            return accounts.iterator().hasNext() ? accounts.iterator().next() : null;
+        });
+        if (acct != null) {
             return constructAccount(study, acct);
         }
         return null;
@@ -544,11 +572,11 @@ public class StormpathAccountDao implements AccountDao {
 
         // added groups = new groups - old groups
         Set<String> addedGroupSet = Sets.difference(newGroupSet, oldGroupSet);
-        addedGroupSet.forEach(acct::addGroup);
+        circuitBreaker.run(() -> addedGroupSet.forEach(acct::addGroup));
 
         // removed groups = old groups - new groups
         Set<String> removedGroupSet = Sets.difference(oldGroupSet, newGroupSet);
-        removedGroupSet.forEach(acct::removeGroup);
+        circuitBreaker.run(() -> removedGroupSet.forEach(acct::removeGroup));
     }
     
     private List<SubpopulationGuid> getSubpopulationGuids(StudyIdentifier studyId) {
@@ -33,7 +33,6 @@ import org.sagebionetworks.bridge.models.healthdata.HealthDataRecordBuilder;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.surveys.Survey;
 import org.sagebionetworks.bridge.models.upload.Upload;
-import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
 import org.sagebionetworks.bridge.models.upload.UploadFieldType;
 import org.sagebionetworks.bridge.models.upload.UploadSchema;
 import org.sagebionetworks.bridge.models.upload.UploadSchemaType;
@@ -447,13 +446,13 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
         Map<String, byte[]> sanitizedUnzippedDataMap = sanitizeFieldNames(unzippedDataMap);
 
         // Using schema, copy fields over to data map. Or if it's an attachment, add it to the attachment map.
-        for (UploadFieldDefinition oneFieldDef : schema.getFieldDefinitions()) {
-            String fieldName = oneFieldDef.getName();
+        for (UploadSchemaPlan.Field oneField : UploadSchemaPlan.forSchema(schema).getFieldList()) {
+            String fieldName = oneField.getName();
 
             if (sanitizedUnzippedDataMap.containsKey(fieldName)) {
                 addAttachment(attachmentMap, fieldName, sanitizedUnzippedDataMap.get(fieldName));
             } else if (sanitizedFlattenedJsonDataMap.containsKey(fieldName)) {
-                copyJsonField(context, uploadId, sanitizedFlattenedJsonDataMap.get(fieldName), oneFieldDef, dataMap,
+                copyJsonField(context, uploadId, sanitizedFlattenedJsonDataMap.get(fieldName), oneField, dataMap,
                         attachmentMap);
             }
         }
@@ -497,14 +496,14 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
     }
 
     private static void copyJsonField(UploadValidationContext context, String uploadId, JsonNode fieldValue,
-            UploadFieldDefinition fieldDef, ObjectNode dataMap, Map<String, byte[]> attachmentMap) {
-        String fieldName = fieldDef.getName();
+            UploadSchemaPlan.Field field, ObjectNode dataMap, Map<String, byte[]> attachmentMap) {
+        String fieldName = field.getName();
         if (fieldValue == null || fieldValue.isNull()) {
             context.addMessage(String.format("Upload ID %s field %s is null", uploadId, fieldName));
             return;
         }
 
-        if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldDef.getType())) {
+        if (field.isAttachment()) {
             try {
                 addAttachment(attachmentMap, fieldName, BridgeObjectMapper.get().writeValueAsBytes(fieldValue));
             } catch (JsonProcessingException ex) {
@@ -512,7 +511,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
                         "Upload ID %s field %s could not be converted from JSON: %s", uploadId, fieldName,
                         ex.getMessage()));
             }
-        } else if (fieldDef.getType().equals(UploadFieldType.CALENDAR_DATE)) {
+        } else if (field.getType() == UploadFieldType.CALENDAR_DATE) {
             // Older iOS apps submit a timestamp instead of a calendar date. Use this hack to convert it back.
             String dateStr = fieldValue.textValue();
             LocalDate parsedDate = UploadUtil.parseIosCalendarDate(dateStr);
@@ -524,7 +523,7 @@ public class IosSchemaValidationHandler2 implements UploadValidationHandler {
                 logger.warn(warnMsg);
                 context.addMessage(warnMsg);
             }
-        } else if (fieldDef.getType().equals(UploadFieldType.STRING) && !fieldValue.isTextual()) {
+        } else if (field.getType() == UploadFieldType.STRING && !fieldValue.isTextual()) {
             // Research Kit "helpfully" converts strings that look like ints into actual ints (example: "80" into 80).
             // This breaks Strict Validation later down the line, so we need to un-convert them back strings.
             // Note that we do it here, as this is an iOS-specific behavior, rather than in StrictValidation, which is
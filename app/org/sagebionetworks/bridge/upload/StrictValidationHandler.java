@@ -3,7 +3,6 @@ package org.sagebionetworks.bridge.upload;
 import javax.annotation.Nonnull;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -18,8 +17,6 @@ import org.springframework.stereotype.Component;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecordBuilder;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
-import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
-import org.sagebionetworks.bridge.models.upload.UploadFieldType;
 import org.sagebionetworks.bridge.models.upload.UploadSchema;
 import org.sagebionetworks.bridge.services.StudyService;
 import org.sagebionetworks.bridge.services.UploadSchemaService;
@@ -85,10 +82,9 @@ public class StrictValidationHandler implements UploadValidationHandler {
 
         // get schema
         UploadSchema schema = uploadSchemaService.getUploadSchemaByIdAndRev(studyIdentifier, schemaId, schemaRev);
-        List<UploadFieldDefinition> fieldDefList = schema.getFieldDefinitions();
+        UploadSchemaPlan plan = UploadSchemaPlan.forSchema(schema);
 
-        List<String> errorList = validateAllFields(fieldDefList, attachmentFieldNameSet,
-                recordDataNode);
+        List<String> errorList = validateAllFields(plan, attachmentFieldNameSet, recordDataNode);
 
         handleErrors(context, schemaId, schemaRev, errorList);
     }
@@ -144,28 +140,26 @@ public class StrictValidationHandler implements UploadValidationHandler {
     }
 
     /**
-     * Given the schema, the attachments (all we need are names), and the JSON data nodes, we validate the data against
-     * the schema.
+     * Given the compiled schema, the attachments (all we need are names), and the JSON data nodes, we validate the
+     * data against the schema.
      *
-     * @param fieldDefList
-     *         list of field definitions from the schema
+     * @param plan
+     *         compiled schema
      * @param attachmentFieldNameSet
      *         set of attachment field names that we have attachments for
      * @param recordDataNode
      *         JSON node of the parsed data to validate
      * @return list of error messages, empty if there are no errors
      */
-    private static List<String> validateAllFields(
-            @Nonnull List<UploadFieldDefinition> fieldDefList, @Nonnull Set<String> attachmentFieldNameSet,
-            @Nonnull JsonNode recordDataNode) {
+    private static List<String> validateAllFields(@Nonnull UploadSchemaPlan plan,
+            @Nonnull Set<String> attachmentFieldNameSet, @Nonnull JsonNode recordDataNode) {
         // walk the field definitions and validate fields
         List<String> errorList = new ArrayList<>();
-        for (UploadFieldDefinition oneFieldDef : fieldDefList) {
-            String fieldName = oneFieldDef.getName();
-            UploadFieldType fieldType = oneFieldDef.getType();
-            boolean isRequired = oneFieldDef.isRequired();
+        for (UploadSchemaPlan.Field oneField : plan.getFieldList()) {
+            String fieldName = oneField.getName();
+            boolean isRequired = oneField.isRequired();
 
-            if (UploadFieldType.ATTACHMENT_TYPE_SET.contains(fieldType)) {
+            if (oneField.isAttachment()) {
                 // For attachment types, since they just get exported as raw files, we only need to check if it's
                 // required and present. Specifically, if it's required and it's not present, then that's an error.
                 if (isRequired && !attachmentFieldNameSet.contains(fieldName)) {
@@ -176,15 +170,13 @@ public class StrictValidationHandler implements UploadValidationHandler {
 
                 if (fieldValueNode != null && !fieldValueNode.isNull()) {
                     // Canonicalize the field.
-                    CanonicalizationResult canonicalizationResult = UploadUtil.canonicalize(fieldValueNode, fieldType);
+                    CanonicalizationResult canonicalizationResult = oneField.canonicalize(fieldValueNode);
                     if (canonicalizationResult.isValid()) {
                         JsonNode canonicalizedValueNode = canonicalizationResult.getCanonicalizedValueNode();
 
                         // Special case: MULTI_CHOICE value validation (unless it allows other choices)
-                        if (fieldType == UploadFieldType.MULTI_CHOICE &&
-                                !Boolean.TRUE.equals(oneFieldDef.getAllowOtherChoices())) {
-                            //noinspection ConstantConditions
-                            Set<String> validAnswerSet = new HashSet<>(oneFieldDef.getMultiChoiceAnswerList());
+                        Set<String> validAnswerSet = oneField.getValidAnswerSet();
+                        if (validAnswerSet != null) {
                             int numAnswers = canonicalizedValueNode.size();
                             for (int i = 0; i < numAnswers; i++) {
                                 String answer = canonicalizedValueNode.get(i).textValue();
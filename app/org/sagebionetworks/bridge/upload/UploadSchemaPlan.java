@@ -0,0 +1,134 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
+import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+import org.sagebionetworks.bridge.models.upload.UploadSchema;
+
+/**
+ * An upload schema revision compiled for upload validation. Each field definition is resolved once into a
+ * {@link Field}, with its canonicalizer, attachment and required flags, and the set of valid multi-choice answers, so
+ * validating a record doesn't re-examine the field definitions for every value.
+ */
+public class UploadSchemaPlan {
+    // Schema revisions rarely change, and there are only a few hundred of them, so this doesn't need to expire.
+    private static final Cache<String, UploadSchemaPlan> PLAN_CACHE = CacheBuilder.newBuilder().maximumSize(1000)
+            .build();
+
+    /** A field definition compiled for upload validation. */
+    public static class Field {
+        private final String name;
+        private final UploadFieldType type;
+        private final boolean isAttachment;
+        private final boolean isRequired;
+        private final Set<String> validAnswerSet;
+        private final Function<JsonNode, CanonicalizationResult> canonicalizer;
+
+        private Field(UploadFieldDefinition fieldDef) {
+            this.name = fieldDef.getName();
+            this.type = fieldDef.getType();
+            this.isAttachment = UploadFieldType.ATTACHMENT_TYPE_SET.contains(type);
+            this.isRequired = fieldDef.isRequired();
+            this.canonicalizer = UploadUtil.getCanonicalizer(type);
+
+            // Multi-choice answers are validated, unless the field allows other choices.
+            List<String> answerList = fieldDef.getMultiChoiceAnswerList();
+            if (type == UploadFieldType.MULTI_CHOICE && !Boolean.TRUE.equals(fieldDef.getAllowOtherChoices())
+                    && answerList != null) {
+                this.validAnswerSet = ImmutableSet.copyOf(answerList);
+            } else {
+                this.validAnswerSet = null;
+            }
+        }
+
+        /** Field name. */
+        public String getName() {
+            return name;
+        }
+
+        /** Field type. */
+        public UploadFieldType getType() {
+            return type;
+        }
+
+        /** True if the field type is one of {@link UploadFieldType#ATTACHMENT_TYPE_SET}. */
+        public boolean isAttachment() {
+            return isAttachment;
+        }
+
+        /** True if the field is required. */
+        public boolean isRequired() {
+            return isRequired;
+        }
+
+        /** Valid multi-choice answers, or null if this field's answers aren't validated. */
+        public Set<String> getValidAnswerSet() {
+            return validAnswerSet;
+        }
+
+        /** Canonicalizes a value for this field. */
+        public CanonicalizationResult canonicalize(JsonNode valueNode) {
+            return canonicalizer.apply(valueNode);
+        }
+    }
+
+    private final List<Field> fieldList;
+    private final Map<String, Integer> slotsByName;
+
+    private UploadSchemaPlan(UploadSchema schema) {
+        ImmutableList.Builder<Field> fieldListBuilder = ImmutableList.builder();
+        Map<String, Integer> slotMap = new HashMap<>();
+        List<UploadFieldDefinition> fieldDefList = schema.getFieldDefinitions();
+        for (int i = 0; i < fieldDefList.size(); i++) {
+            UploadFieldDefinition oneFieldDef = fieldDefList.get(i);
+            fieldListBuilder.add(new Field(oneFieldDef));
+            // If a name is somehow repeated, the first field wins.
+            slotMap.putIfAbsent(oneFieldDef.getName(), i);
+        }
+        this.fieldList = fieldListBuilder.build();
+        this.slotsByName = ImmutableMap.copyOf(slotMap);
+    }
+
+    /**
+     * Returns the compiled plan for this schema revision. Plans for persisted schemas are cached by study, schema ID,
+     * revision and version (the version changes if a revision is updated in place). Schemas that haven't been
+     * persisted are compiled every time.
+     */
+    public static UploadSchemaPlan forSchema(UploadSchema schema) {
+        if (schema.getVersion() == null) {
+            return new UploadSchemaPlan(schema);
+        }
+        String key = schema.getStudyId() + ":" + schema.getSchemaId() + ":" + schema.getRevision() + ":" +
+                schema.getVersion();
+        try {
+            return PLAN_CACHE.get(key, () -> new UploadSchemaPlan(schema));
+        } catch (ExecutionException ex) {
+            throw new BridgeServiceException(ex.getCause());
+        }
+    }
+
+    /** Compiled fields, in the order of the schema's field definitions. */
+    public List<Field> getFieldList() {
+        return fieldList;
+    }
+
+    /** Returns the compiled field with the given name, or null if the schema has no such field. */
+    public Field getField(String name) {
+        Integer slot = slotsByName.get(name);
+        return (slot != null) ? fieldList.get(slot) : null;
+    }
+}
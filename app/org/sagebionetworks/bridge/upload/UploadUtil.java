@@ -1,10 +1,14 @@
 package org.sagebionetworks.bridge.upload;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -36,6 +40,9 @@ public class UploadUtil {
     private static final Pattern FIELD_NAME_MULTIPLE_SPECIAL_CHARS_PATTERN = Pattern.compile("[\\-\\._ ]{2,}");
     private static final Pattern FIELD_NAME_SPECIAL_CHARS_PATTERN = Pattern.compile("[\\-\\._ ]");
     private static final Pattern FIELD_NAME_VALID_CHARS_PATTERN = Pattern.compile("[a-zA-Z0-9\\-\\._ ]+");
+    private static final Pattern DECIMAL_PATTERN = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    // An ISO 8601 time without a date (LocalTime.parse() also accepts a leading 'T')
+    private static final Pattern LOCAL_TIME_PATTERN = Pattern.compile("T?\\d{1,2}(:\\d{1,2}(:\\d{1,2})?)?([.,]\\d+)?");
     public static final String INVALID_ANSWER_CHOICE_ERROR_MESSAGE = "invalid value %s: must start and end with an " +
             "alphanumeric character, can only contain alphanumeric characters, spaces, dashes, underscores, and " +
             "periods, can't contain two or more non-alphanumeric characters in a row";
@@ -62,205 +69,254 @@ public class UploadUtil {
      */
     public static final String UNIT_FIELD_SUFFIX = "_unit";
 
+    // Canonicalizers for each field type, so callers (and compiled schema plans) don't dispatch on the type for
+    // every value.
+    private static final Map<UploadFieldType, Function<JsonNode, CanonicalizationResult>> CANONICALIZER_MAP;
+    static {
+        Map<UploadFieldType, Function<JsonNode, CanonicalizationResult>> map = new EnumMap<>(UploadFieldType.class);
+        for (UploadFieldType oneType : UploadFieldType.ATTACHMENT_TYPE_SET) {
+            // always valid, always canonical
+            map.put(oneType, CanonicalizationResult::makeResult);
+        }
+        map.put(UploadFieldType.INLINE_JSON_BLOB, CanonicalizationResult::makeResult);
+        map.put(UploadFieldType.BOOLEAN, UploadUtil::canonicalizeBoolean);
+        map.put(UploadFieldType.CALENDAR_DATE, UploadUtil::canonicalizeCalendarDate);
+        map.put(UploadFieldType.DURATION_V2, UploadUtil::canonicalizeDuration);
+        map.put(UploadFieldType.FLOAT, UploadUtil::canonicalizeFloat);
+        map.put(UploadFieldType.INT, UploadUtil::canonicalizeInt);
+        map.put(UploadFieldType.MULTI_CHOICE, UploadUtil::canonicalizeMultiChoice);
+        map.put(UploadFieldType.SINGLE_CHOICE, UploadUtil::canonicalizeSingleChoice);
+        // If the value isn't a string, trivially convert it into a string.
+        map.put(UploadFieldType.STRING, valueNode -> CanonicalizationResult.makeResult(convertToStringNode(
+                valueNode)));
+        map.put(UploadFieldType.TIME_V2, UploadUtil::canonicalizeTime);
+        map.put(UploadFieldType.TIMESTAMP, UploadUtil::canonicalizeTimestamp);
+        CANONICALIZER_MAP = Collections.unmodifiableMap(map);
+    }
+
     /** Utility method for canonicalizing an upload JSON value given the schema's field type. */
     public static CanonicalizationResult canonicalize(final JsonNode valueNode, UploadFieldType type) {
-        if (valueNode == null || valueNode.isNull()) {
-            // Short-cut: Don't do anything if the value is Java null (non-existent) or JSON null.
-            return CanonicalizationResult.makeResult(valueNode);
-        }
+        return getCanonicalizer(type).apply(valueNode);
+    }
 
-        switch (type) {
-            case ATTACHMENT_BLOB:
-            case ATTACHMENT_CSV:
-            case ATTACHMENT_JSON_BLOB:
-            case ATTACHMENT_JSON_TABLE:
-            case ATTACHMENT_V2:
-            case INLINE_JSON_BLOB: {
-                // always valid, always canonical
+    /**
+     * Returns the function that canonicalizes values of the given field type. Null values (Java null or JSON null)
+     * are returned as is.
+     */
+    public static Function<JsonNode, CanonicalizationResult> getCanonicalizer(UploadFieldType type) {
+        Function<JsonNode, CanonicalizationResult> canonicalizer = CANONICALIZER_MAP.get(type);
+        if (canonicalizer == null) {
+            // Should never happen, but just in case.
+            return valueNode -> CanonicalizationResult.makeError("Unknown field type " + type.name());
+        }
+        return valueNode -> {
+            if (valueNode == null || valueNode.isNull()) {
+                // Short-cut: Don't do anything if the value is Java null (non-existent) or JSON null.
                 return CanonicalizationResult.makeResult(valueNode);
             }
-            case BOOLEAN: {
-                if (valueNode.isIntegralNumber()) {
-                    // For numbers, 0 is false and everything else is true.
-                    boolean booleanValue = valueNode.intValue() != 0;
-                    return CanonicalizationResult.makeResult(BooleanNode.valueOf(booleanValue));
-                } else if (valueNode.isTextual()) {
-                    // We accept "true" and "false" (ignoring case), but not anything else.
-                    String boolStr = valueNode.textValue();
-                    if ("false".equalsIgnoreCase(boolStr)) {
-                        return CanonicalizationResult.makeResult(BooleanNode.FALSE);
-                    } else if ("true".equalsIgnoreCase(boolStr)) {
-                        return CanonicalizationResult.makeResult(BooleanNode.TRUE);
-                    } else {
-                        return CanonicalizationResult.makeError("Invalid boolean string " + boolStr);
-                    }
-                } else if (valueNode.isBoolean()) {
-                    // This is already canonicalized.
-                    return CanonicalizationResult.makeResult(valueNode);
-                } else {
-                    return CanonicalizationResult.makeError("Invalid boolean JSON value " + valueNode.toString());
-                }
-            }
-            case CALENDAR_DATE: {
-                if (!valueNode.isTextual()) {
-                    return CanonicalizationResult.makeError("Invalid calendar date JSON value " +
-                            valueNode.toString());
-                }
-
-                // parseIosCalendarDate() will truncate full date-times to calendar dates as needed.
-                String dateStr = valueNode.textValue();
-                LocalDate parsedDate = parseIosCalendarDate(dateStr);
-
-                if (parsedDate != null) {
-                    return CanonicalizationResult.makeResult(new TextNode(DateUtils.getCalendarDateString(
-                            parsedDate)));
-                } else {
-                    return CanonicalizationResult.makeError("Invalid calendar date string " + dateStr);
-                }
-            }
-            case DURATION_V2: {
-                if (!valueNode.isTextual()) {
-                    return CanonicalizationResult.makeError("Invalid duration JSON value " + valueNode.toString());
-                }
-
-                String durationStr = valueNode.textValue();
-                try {
-                    // Joda Duration only parses seconds and milliseconds. Use Period to get an ISO 8601 duration.
-                    // Period.parse() never returns null.
-                    Period parsedPeriod = Period.parse(durationStr);
-                    return CanonicalizationResult.makeResult(new TextNode(parsedPeriod.toString()));
-                } catch (IllegalArgumentException ex) {
-                    return CanonicalizationResult.makeError("Invalid duration string " + durationStr);
-                }
-            }
-            case FLOAT: {
-                if (valueNode.isNumber()) {
-                    // Already canonicalized.
-                    return CanonicalizationResult.makeResult(valueNode);
-                } else if (valueNode.isTextual()) {
-                    // Convert to decimal.
-                    String decimalStr = valueNode.textValue();
-                    try {
-                        BigDecimal parsedDecimal = new BigDecimal(decimalStr);
-                        return CanonicalizationResult.makeResult(new DecimalNode(parsedDecimal));
-                    } catch (IllegalArgumentException ex) {
-                        return CanonicalizationResult.makeError("Invalid decimal string " + decimalStr);
-                    }
-                } else {
-                    return CanonicalizationResult.makeError("Invalid decimal JSON value " + valueNode.toString());
-                }
-            }
-            case INT: {
-                if (valueNode.isIntegralNumber()) {
-                    // Already canonicalized
-                    return CanonicalizationResult.makeResult(valueNode);
-                } else if (valueNode.isFloatingPointNumber()) {
-                    // Convert floats to ints.
-                    return CanonicalizationResult.makeResult(new BigIntegerNode(valueNode.bigIntegerValue()));
-                } else if (valueNode.isTextual()) {
-                    // Parse as a big decimal, truncate to big int.
-                    String numberStr = valueNode.textValue();
-                    try {
-                        BigDecimal parsedNumber = new BigDecimal(numberStr);
-                        return CanonicalizationResult.makeResult(new BigIntegerNode(parsedNumber.toBigInteger()));
-                    } catch (IllegalArgumentException ex) {
-                        return CanonicalizationResult.makeError("Invalid int string " + numberStr);
-                    }
-                } else {
-                    return CanonicalizationResult.makeError("Invalid int JSON value " + valueNode.toString());
-                }
+            return canonicalizer.apply(valueNode);
+        };
+    }
+
+    private static CanonicalizationResult canonicalizeBoolean(JsonNode valueNode) {
+        if (valueNode.isIntegralNumber()) {
+            // For numbers, 0 is false and everything else is true.
+            boolean booleanValue = valueNode.intValue() != 0;
+            return CanonicalizationResult.makeResult(BooleanNode.valueOf(booleanValue));
+        } else if (valueNode.isTextual()) {
+            // We accept "true" and "false" (ignoring case), but not anything else.
+            String boolStr = valueNode.textValue();
+            if ("false".equalsIgnoreCase(boolStr)) {
+                return CanonicalizationResult.makeResult(BooleanNode.FALSE);
+            } else if ("true".equalsIgnoreCase(boolStr)) {
+                return CanonicalizationResult.makeResult(BooleanNode.TRUE);
+            } else {
+                return CanonicalizationResult.makeError("Invalid boolean string " + boolStr);
             }
-            case MULTI_CHOICE: {
-                // Expect it in the format ["foo", "bar", "baz"]
-                if (!valueNode.isArray()) {
-                    return CanonicalizationResult.makeError("Invalid multi-choice JSON value " + valueNode.toString());
-                }
-
-                // Fields inside might not be strings. Trivially convert them to strings if they are not.
-                ArrayNode convertedValueNode = BridgeObjectMapper.get().createArrayNode();
-                int numValues = valueNode.size();
-                for (int i = 0; i < numValues; i++) {
-                    // Sanitize the multi-choice answers so they match up with the field def's multi-choice answer list
-                    String rawAnswer = getAsString(valueNode.get(i));
-                    String sanitizedAnswer = SchemaUtils.sanitizeFieldName(rawAnswer);
-                    convertedValueNode.add(sanitizedAnswer);
-                }
-
-                return CanonicalizationResult.makeResult(convertedValueNode);
+        } else if (valueNode.isBoolean()) {
+            // This is already canonicalized.
+            return CanonicalizationResult.makeResult(valueNode);
+        } else {
+            return CanonicalizationResult.makeError("Invalid boolean JSON value " + valueNode.toString());
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeCalendarDate(JsonNode valueNode) {
+        if (!valueNode.isTextual()) {
+            return CanonicalizationResult.makeError("Invalid calendar date JSON value " + valueNode.toString());
+        }
+
+        // parseIosCalendarDate() will truncate full date-times to calendar dates as needed.
+        String dateStr = valueNode.textValue();
+        LocalDate parsedDate = parseIosCalendarDate(dateStr);
+
+        if (parsedDate != null) {
+            return CanonicalizationResult.makeResult(new TextNode(DateUtils.getCalendarDateString(parsedDate)));
+        } else {
+            return CanonicalizationResult.makeError("Invalid calendar date string " + dateStr);
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeDuration(JsonNode valueNode) {
+        if (!valueNode.isTextual()) {
+            return CanonicalizationResult.makeError("Invalid duration JSON value " + valueNode.toString());
+        }
+
+        String durationStr = valueNode.textValue();
+        try {
+            // Joda Duration only parses seconds and milliseconds. Use Period to get an ISO 8601 duration.
+            // Period.parse() never returns null.
+            Period parsedPeriod = Period.parse(durationStr);
+            return CanonicalizationResult.makeResult(new TextNode(parsedPeriod.toString()));
+        } catch (IllegalArgumentException ex) {
+            return CanonicalizationResult.makeError("Invalid duration string " + durationStr);
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeFloat(JsonNode valueNode) {
+        if (valueNode.isNumber()) {
+            // Already canonicalized.
+            return CanonicalizationResult.makeResult(valueNode);
+        } else if (valueNode.isTextual()) {
+            // Convert to decimal.
+            String decimalStr = valueNode.textValue();
+            BigDecimal parsedDecimal = parseDecimal(decimalStr);
+            if (parsedDecimal != null) {
+                return CanonicalizationResult.makeResult(new DecimalNode(parsedDecimal));
+            } else {
+                return CanonicalizationResult.makeError("Invalid decimal string " + decimalStr);
             }
-            case SINGLE_CHOICE: {
-                // Older versions would send a single-element array (example: ["foo"]) as a single-choice answer. For
-                // backwards compatibility, accept arrays, but use just the single element.
-                JsonNode convertedValueNode;
-                if (valueNode.isArray()) {
-                    if (valueNode.size() == 1) {
-                        convertedValueNode = valueNode.get(0);
-                    } else {
-                        return CanonicalizationResult.makeError("Single-choice array doesn't have exactly 1 element: "
-                                + valueNode.toString());
-                    }
-                } else {
-                    // Not an array. Pass this straight through to the next step.
-                    convertedValueNode = valueNode;
-                }
-
-                // If the value isn't a string, trivially convert it into a string.
-                return CanonicalizationResult.makeResult(convertToStringNode(convertedValueNode));
+        } else {
+            return CanonicalizationResult.makeError("Invalid decimal JSON value " + valueNode.toString());
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeInt(JsonNode valueNode) {
+        if (valueNode.isIntegralNumber()) {
+            // Already canonicalized
+            return CanonicalizationResult.makeResult(valueNode);
+        } else if (valueNode.isFloatingPointNumber()) {
+            // Convert floats to ints.
+            return CanonicalizationResult.makeResult(new BigIntegerNode(valueNode.bigIntegerValue()));
+        } else if (valueNode.isTextual()) {
+            // Parse as a big decimal, truncate to big int.
+            String numberStr = valueNode.textValue();
+            BigDecimal parsedNumber = parseDecimal(numberStr);
+            if (parsedNumber != null) {
+                return CanonicalizationResult.makeResult(new BigIntegerNode(parsedNumber.toBigInteger()));
+            } else {
+                return CanonicalizationResult.makeError("Invalid int string " + numberStr);
             }
-            case STRING: {
-                // If the value isn't a string, trivially convert it into a string.
-                return CanonicalizationResult.makeResult(convertToStringNode(valueNode));
+        } else {
+            return CanonicalizationResult.makeError("Invalid int JSON value " + valueNode.toString());
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeMultiChoice(JsonNode valueNode) {
+        // Expect it in the format ["foo", "bar", "baz"]
+        if (!valueNode.isArray()) {
+            return CanonicalizationResult.makeError("Invalid multi-choice JSON value " + valueNode.toString());
+        }
+
+        // Fields inside might not be strings. Trivially convert them to strings if they are not.
+        ArrayNode convertedValueNode = BridgeObjectMapper.get().createArrayNode();
+        int numValues = valueNode.size();
+        for (int i = 0; i < numValues; i++) {
+            // Sanitize the multi-choice answers so they match up with the field def's multi-choice answer list
+            String rawAnswer = getAsString(valueNode.get(i));
+            String sanitizedAnswer = SchemaUtils.sanitizeFieldName(rawAnswer);
+            convertedValueNode.add(sanitizedAnswer);
+        }
+
+        return CanonicalizationResult.makeResult(convertedValueNode);
+    }
+
+    private static CanonicalizationResult canonicalizeSingleChoice(JsonNode valueNode) {
+        // Older versions would send a single-element array (example: ["foo"]) as a single-choice answer. For
+        // backwards compatibility, accept arrays, but use just the single element.
+        JsonNode convertedValueNode;
+        if (valueNode.isArray()) {
+            if (valueNode.size() == 1) {
+                convertedValueNode = valueNode.get(0);
+            } else {
+                return CanonicalizationResult.makeError("Single-choice array doesn't have exactly 1 element: "
+                        + valueNode.toString());
             }
-            case TIME_V2: {
-                if (!valueNode.isTextual()) {
-                    return CanonicalizationResult.makeError("Invalid time JSON value " + valueNode.toString());
-                }
-
-                // This is a time without date or time-zone, akin to Joda LocalTime. First parse it as a LocalTime.
-                String timeStr = valueNode.textValue();
-                LocalTime parsedLocalTime = null;
-                try {
-                    parsedLocalTime = LocalTime.parse(timeStr);
-                } catch (IllegalArgumentException ex) {
-                    // Swallow exception. We have better logging later in the chain.
-                }
-
-                if (parsedLocalTime == null) {
-                    // If that doesn't work, fall back to parsing a full timestamp and use just the LocalTime part.
-                    DateTime parsedDateTime = parseIosTimestamp(timeStr);
-                    if (parsedDateTime != null) {
-                        parsedLocalTime = parsedDateTime.toLocalTime();
-                    }
-                }
-
-                if (parsedLocalTime != null) {
-                    return CanonicalizationResult.makeResult(new TextNode(parsedLocalTime.toString()));
-                } else {
-                    return CanonicalizationResult.makeError("Invalid time string " + timeStr);
-                }
+        } else {
+            // Not an array. Pass this straight through to the next step.
+            convertedValueNode = valueNode;
+        }
+
+        // If the value isn't a string, trivially convert it into a string.
+        return CanonicalizationResult.makeResult(convertToStringNode(convertedValueNode));
+    }
+
+    private static CanonicalizationResult canonicalizeTime(JsonNode valueNode) {
+        if (!valueNode.isTextual()) {
+            return CanonicalizationResult.makeError("Invalid time JSON value " + valueNode.toString());
+        }
+
+        // This is a time without date or time-zone, akin to Joda LocalTime. A full timestamp is at least 11 chars
+        // (it starts with a date), and can't be a LocalTime, so parse it as a timestamp and use just the LocalTime
+        // part. Otherwise, parse it as a LocalTime.
+        String timeStr = valueNode.textValue();
+        LocalTime parsedLocalTime = null;
+        if (timeStr.length() >= 11 && !LOCAL_TIME_PATTERN.matcher(timeStr).matches()) {
+            DateTime parsedDateTime = parseIosTimestamp(timeStr);
+            if (parsedDateTime != null) {
+                parsedLocalTime = parsedDateTime.toLocalTime();
             }
-            case TIMESTAMP: {
-                if (valueNode.isNumber()) {
-                    // If this is a number, then it's epoch milliseconds (implicitly in UTC).
-                    return CanonicalizationResult.makeResult(new TextNode(DateUtils.convertToISODateTime(
-                            valueNode.longValue())));
-                } else if (valueNode.isTextual()) {
-                    String dateTimeStr = valueNode.textValue();
-                    DateTime parsedDateTime = parseIosTimestamp(dateTimeStr);
-                    if (parsedDateTime != null) {
-                        return CanonicalizationResult.makeResult(new TextNode(parsedDateTime.toString()));
-                    } else {
-                        return CanonicalizationResult.makeError("Invalid date-time (timestamp) string " + dateTimeStr);
-                    }
-                } else {
-                    return CanonicalizationResult.makeError("Invalid date-time (timestamp) JSON value " +
-                            valueNode.toString());
-                }
+        } else {
+            try {
+                parsedLocalTime = LocalTime.parse(timeStr);
+            } catch (IllegalArgumentException ex) {
+                // Swallow exception. We have better logging later in the chain.
             }
-            default: {
-                // Should never happen, but just in case.
-                return CanonicalizationResult.makeError("Unknown field type " + type.name());
+        }
+
+        if (parsedLocalTime != null) {
+            return CanonicalizationResult.makeResult(new TextNode(parsedLocalTime.toString()));
+        } else {
+            return CanonicalizationResult.makeError("Invalid time string " + timeStr);
+        }
+    }
+
+    private static CanonicalizationResult canonicalizeTimestamp(JsonNode valueNode) {
+        if (valueNode.isNumber()) {
+            // If this is a number, then it's epoch milliseconds (implicitly in UTC).
+            return CanonicalizationResult.makeResult(new TextNode(DateUtils.convertToISODateTime(
+                    valueNode.longValue())));
+        } else if (valueNode.isTextual()) {
+            String dateTimeStr = valueNode.textValue();
+            DateTime parsedDateTime = parseIosTimestamp(dateTimeStr);
+            if (parsedDateTime != null) {
+                return CanonicalizationResult.makeResult(new TextNode(parsedDateTime.toString()));
+            } else {
+                return CanonicalizationResult.makeError("Invalid date-time (timestamp) string " + dateTimeStr);
             }
+        } else {
+            return CanonicalizationResult.makeError("Invalid date-time (timestamp) JSON value " +
+                    valueNode.toString());
+        }
+    }
+
+    /**
+     * Parses a decimal string in the format accepted by BigDecimal. Strings that are obviously not numbers are
+     * rejected without constructing (and catching) an exception.
+     *
+     * @param decimalStr
+     *         string to parse
+     * @return parsed BigDecimal, or null if it couldn't be parsed
+     */
+    static BigDecimal parseDecimal(String decimalStr) {
+        if (decimalStr == null || !DECIMAL_PATTERN.matcher(decimalStr).matches()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(decimalStr);
+        } catch (NumberFormatException ex) {
+            // The exponent is out of range.
+            return null;
         }
     }
 
@@ -0,0 +1,233 @@
+package org.sagebionetworks.bridge.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTimeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+
+import com.amazonaws.AmazonServiceException;
+import com.google.common.base.Throwables;
+import com.stormpath.sdk.resource.ResourceException;
+
+/**
+ * <p>Circuit breaker and bulkhead for the calls this server makes to one external dependency. There is one of these
+ * for each of Stormpath, S3, SES, SNS and SQS (see BridgeSpringConfig); timeouts are set on the client for each
+ * dependency, so a call that hangs fails as any other call does.</p>
+ *
+ * <ul>
+ *   <li>Closed: calls are made. After failureThreshold consecutive failures the circuit opens.</li>
+ *   <li>Open: calls are rejected with a {@link DependencyUnavailableException} for openSeconds.</li>
+ *   <li>Half open: after that, a single trial call is made (others are still rejected). If it succeeds the circuit
+ *   closes, otherwise it opens again.</li>
+ * </ul>
+ *
+ * <p>Independently of the circuit, no more than maxConcurrentCalls calls are made at once; the rest are rejected
+ * immediately, so a slow dependency can't tie up every request thread. Only errors on the dependency's side (I/O errors
+ * and 5xx responses) count as failures: a 4xx response (a bad password, a missing object) shows the dependency is
+ * working.</p>
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    static final int BULKHEAD_RETRY_AFTER_SECONDS = 1;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final int maxConcurrentCalls;
+    private final Semaphore permits;
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedOn;
+    private boolean trialInProgress;
+
+    public CircuitBreaker(String name, int failureThreshold, int openSeconds, int maxConcurrentCalls) {
+        checkArgument(isNotBlank(name), "Name cannot be blank.");
+        checkArgument(failureThreshold > 0, "Failure threshold must be positive.");
+        checkArgument(openSeconds > 0, "Open seconds must be positive.");
+        checkArgument(maxConcurrentCalls > 0, "Max concurrent calls must be positive.");
+
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openSeconds * 1000L;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Make a call to the dependency, unless the circuit is open or too many calls are in progress, in which case a
+     * {@link DependencyUnavailableException} is thrown. Exceptions thrown by the call are recorded and rethrown.
+     */
+    public <T, E extends Exception> T call(Call<T,E> call) throws E {
+        boolean trial = admit();
+        try {
+            T result = call.call();
+            onSuccess(trial);
+            return result;
+        } catch(Throwable throwable) {
+            if (isFailure(throwable)) {
+                onFailure(trial);
+            } else {
+                onSuccess(trial);
+            }
+            throw throwable;
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** As {@link #call(Call)}, for calls that don't return anything. */
+    public <E extends Exception> void run(Task<E> task) throws E {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int getCallsInProgress() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    /** Calls rejected since the server started, because the circuit was open or too many calls were in progress. */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /** Calls that failed since the server started. */
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    /** Returns true if this call is the trial call of a half-open circuit. */
+    private boolean admit() {
+        boolean trial = false;
+        synchronized(this) {
+            if (state == State.OPEN) {
+                long remaining = openedOn + openMillis - DateTimeUtils.currentTimeMillis();
+                if (remaining > 0) {
+                    rejectedCalls.incrementAndGet();
+                    throw new DependencyUnavailableException(name, toSeconds(remaining));
+                }
+                transition(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialInProgress) {
+                    rejectedCalls.incrementAndGet();
+                    throw new DependencyUnavailableException(name, BULKHEAD_RETRY_AFTER_SECONDS);
+                }
+                trialInProgress = true;
+                trial = true;
+            }
+        }
+        if (!permits.tryAcquire()) {
+            if (trial) {
+                synchronized(this) {
+                    trialInProgress = false;
+                }
+            }
+            rejectedCalls.incrementAndGet();
+            LOG.warn("Rejecting call to " + name + ", " + maxConcurrentCalls + " calls in progress");
+            throw new DependencyUnavailableException(name, BULKHEAD_RETRY_AFTER_SECONDS);
+        }
+        return trial;
+    }
+
+    private synchronized void onSuccess(boolean trial) {
+        consecutiveFailures = 0;
+        if (trial) {
+            trialInProgress = false;
+            transition(State.CLOSED);
+        }
+    }
+
+    private synchronized void onFailure(boolean trial) {
+        failedCalls.incrementAndGet();
+        consecutiveFailures++;
+        if (trial) {
+            trialInProgress = false;
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedOn = DateTimeUtils.currentTimeMillis();
+        transition(State.OPEN);
+    }
+
+    private void transition(State newState) {
+        if (state != newState) {
+            LOG.warn("Circuit breaker " + name + " changed from " + state + " to " + newState + " after "
+                    + consecutiveFailures + " consecutive failures");
+            state = newState;
+        }
+    }
+
+    /**
+     * Only errors on the dependency's side are failures: I/O errors (timeouts, connection failures), which the SDKs 
+     * wrap in their own exceptions, and 5xx responses. Errors in the request (4xx responses), and any other exception 
+     * (including bugs in the calling code), are not. Package-scoped to allow unit tests.
+     */
+    static boolean isFailure(Throwable throwable) {
+        for (Throwable cause : Throwables.getCausalChain(throwable)) {
+            if (cause instanceof IOException) {
+                return true;
+            } else if (cause instanceof AmazonServiceException) {
+                return ((AmazonServiceException)cause).getStatusCode() >= 500;
+            } else if (cause instanceof ResourceException) {
+                return ((ResourceException)cause).getStatus() >= 500;
+            }
+        }
+        return false;
+    }
+
+    private static int toSeconds(long millis) {
+        return (int) Math.max(1L, (millis + 999L) / 1000L);
+    }
+}
@@ -0,0 +1,39 @@
+package org.sagebionetworks.bridge.validators;
+
+import java.util.Set;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationRequest;
+
+public class BulkNotificationRequestValidator implements Validator {
+
+    private Set<String> dataGroups;
+    
+    public BulkNotificationRequestValidator(Set<String> dataGroups) {
+        this.dataGroups = dataGroups;
+    }
+    
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return BulkNotificationRequest.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public void validate(Object object, Errors errors) {
+        BulkNotificationRequest request = (BulkNotificationRequest)object;
+        
+        if (request.getMessage() == null) {
+            errors.rejectValue("message", "is required");
+        } else {
+            errors.pushNestedPath("message");
+            NotificationMessageValidator.INSTANCE.validate(request.getMessage(), errors);
+            errors.popNestedPath();
+        }
+        if (request.getCriteria() != null) {
+            CriteriaUtils.validate(request.getCriteria(), dataGroups, errors);
+        }
+    }
+}
@@ -88,6 +88,12 @@ public class StudyValidator implements Validator {
         if (study.getMinAgeOfConsent() < 0) {
             errors.rejectValue("minAgeOfConsent", "must be zero (no minimum age of consent) or higher");
         }
+        if (study.getRequestRateLimit() < 0) {
+            errors.rejectValue("requestRateLimit", "must be zero (server default) or higher");
+        }
+        if (study.getParticipantRequestRateLimit() < 0) {
+            errors.rejectValue("participantRequestRateLimit", "must be zero (server default) or higher");
+        }
         validateTemplate(errors, study.getVerifyEmailTemplate(), "verifyEmailTemplate");
         validateTemplate(errors, study.getResetPasswordTemplate(), "resetPasswordTemplate");
         
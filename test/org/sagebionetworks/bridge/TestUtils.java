@@ -23,7 +23,9 @@ import org.joda.time.DateTime;
 import org.joda.time.Period;
 import org.springframework.validation.Validator;
 
+import org.sagebionetworks.bridge.cache.SingleFlightLoader;
 import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.dao.DistributedLockDao;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.dynamodb.DynamoCriteria;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
@@ -188,6 +190,15 @@ public class TestUtils {
         mockPlayContext(request);
     }
     
+    /**
+     * A single-flight loader whose lease is always granted, for unit tests that don't exercise Redis.
+     */
+    public static SingleFlightLoader getSingleFlightLoader() {
+        SingleFlightLoader loader = new SingleFlightLoader();
+        loader.setDistributedLockDao(mock(DistributedLockDao.class));
+        return loader;
+    }
+    
     public static String randomName(Class<?> clazz) {
         return "test-" + clazz.getSimpleName().toLowerCase() + "-" + RandomStringUtils.randomAlphabetic(5).toLowerCase();
     }
@@ -326,6 +337,8 @@ public class TestUtils {
         study.setExternalIdValidationEnabled(true);
         study.setActive(true);
         study.setPushNotificationARNs(pushNotificationARNs);
+        study.setRequestRateLimit(6000);
+        study.setParticipantRequestRateLimit(120);
         return study;
     }
     
@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -17,11 +18,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.Roles;
@@ -41,8 +45,11 @@ import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 import org.sagebionetworks.bridge.redis.RedisKey;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -90,9 +97,21 @@ public class CacheProviderMockTest {
         String userKey = RedisKey.USER_SESSION.getRedisKey(USER_ID);
         verify(transaction, times(1)).setex(eq(sessionKey), anyInt(), anyString());
         verify(transaction, times(1)).setex(eq(userKey), anyInt(), eq(SESSION_TOKEN));
+        verify(transaction, times(1)).del(RedisKey.STALE_SESSION.getRedisKey(USER_ID));
         verify(transaction, times(1)).exec();
     }
 
+    @Test
+    public void userSessionCanBeMarkedStale() {
+        CacheProvider simpleCacheProvider = new CacheProvider();
+        simpleCacheProvider.setJedisOps(getJedisOps());
+        simpleCacheProvider.setSessionExpireInSeconds(60);
+        assertFalse(simpleCacheProvider.isUserSessionStale(USER_ID));
+
+        simpleCacheProvider.setUserSessionStale(USER_ID);
+        assertTrue(simpleCacheProvider.isUserSessionStale(USER_ID));
+    }
+
     @Test
     public void testSetUserSessionNullSessionToken() throws Exception {
         StudyParticipant participant = new StudyParticipant.Builder()
@@ -216,6 +235,76 @@ public class CacheProviderMockTest {
         assertNull(cachedString);
     }
 
+    @Test
+    public void getParticipantOptions() throws Exception {
+        JedisOps jedisOps = getJedisOps();
+        CacheProvider simpleCacheProvider = new CacheProvider();
+        simpleCacheProvider.setJedisOps(jedisOps);
+        simpleCacheProvider.setBridgeObjectMapper(BridgeObjectMapper.get());
+        assertNull(simpleCacheProvider.getParticipantOptions("healthCode"));
+
+        Map<String,String> options = participantOptions();
+        jedisOps.setex(RedisKey.PARTICIPANT_OPTIONS.getRedisKey("healthCode"), 60,
+                BridgeObjectMapper.get().writeValueAsString(options));
+        assertEquals(options, simpleCacheProvider.getParticipantOptions("healthCode"));
+    }
+
+    @Test
+    public void addParticipantOptionsSetsIfAbsentAtVersion() throws Exception {
+        Jedis jedis = mockScriptJedis(null);
+        
+        cacheProvider.addParticipantOptions("healthCode", "3", participantOptions());
+        
+        List<String> args = verifyParticipantOptionsScript(jedis, "'NX', 'EX'");
+        assertEquals(ImmutableList.of("3", BridgeObjectMapper.get().writeValueAsString(participantOptions()),
+                Integer.toString(BridgeConstants.BRIDGE_PARTICIPANT_OPTIONS_EXPIRE_IN_SECONDS)), args);
+    }
+
+    @Test
+    public void addParticipantOptionsWithoutVersion() throws Exception {
+        Jedis jedis = mockScriptJedis(null);
+        
+        cacheProvider.addParticipantOptions("healthCode", null, participantOptions());
+        
+        List<String> args = verifyParticipantOptionsScript(jedis, "'NX', 'EX'");
+        assertEquals("", args.get(0));
+    }
+
+    @Test
+    public void removeParticipantOptionsIncrementsVersion() {
+        Jedis jedis = mockScriptJedis(1L);
+        
+        cacheProvider.removeParticipantOptions("healthCode");
+        
+        List<String> args = verifyParticipantOptionsScript(jedis, "'DEL'");
+        assertEquals(ImmutableList.of(Integer.toString(BridgeConstants.BRIDGE_PARTICIPANT_OPTIONS_EXPIRE_IN_SECONDS)),
+                args);
+    }
+
+    @Test
+    public void addActivityEventMapSetsIfAbsentAtVersion() throws Exception {
+        Jedis jedis = mockScriptJedis(null);
+        Map<String,DateTime> eventMap = ImmutableMap.of("enrollment", new DateTime(1000L, DateTimeZone.UTC));
+        
+        cacheProvider.addActivityEventMap("healthCode", "5", eventMap);
+        
+        List<String> args = verifyScript(jedis, "'NX', 'EX'", RedisKey.ACTIVITY_EVENTS,
+                RedisKey.ACTIVITY_EVENTS_VERSION);
+        assertEquals(ImmutableList.of("5", "{\"enrollment\":1000}",
+                Integer.toString(BridgeConstants.BRIDGE_ACTIVITY_EVENTS_EXPIRE_IN_SECONDS)), args);
+    }
+
+    @Test
+    public void removeActivityEventMapIncrementsVersion() {
+        Jedis jedis = mockScriptJedis(1L);
+        
+        cacheProvider.removeActivityEventMap("healthCode");
+        
+        List<String> args = verifyScript(jedis, "'DEL'", RedisKey.ACTIVITY_EVENTS, RedisKey.ACTIVITY_EVENTS_VERSION);
+        assertEquals(ImmutableList.of(Integer.toString(BridgeConstants.BRIDGE_ACTIVITY_EVENTS_EXPIRE_IN_SECONDS)),
+                args);
+    }
+
     @Test
     public void newUserSessionDeserializes() {
         String json = TestUtils.createJson("{'authenticated':true,"+
@@ -293,6 +382,41 @@ public class CacheProviderMockTest {
         assertFalse(status.isConsented());
     }
     
+    private static Map<String,String> participantOptions() {
+        Map<String,String> options = Maps.newHashMap();
+        options.put("SHARING_SCOPE", SharingScope.ALL_QUALIFIED_RESEARCHERS.name());
+        options.put("DATA_GROUPS", "group1,group2");
+        return options;
+    }
+
+    private Jedis mockScriptJedis(Object result) {
+        Jedis jedis = mock(Jedis.class);
+        when(jedis.eval(anyString(), anyListOf(String.class), anyListOf(String.class))).thenReturn(result);
+        JedisPool jedisPool = mock(JedisPool.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        cacheProvider.setJedisPool(jedisPool);
+        return jedis;
+    }
+
+    private static List<String> verifyParticipantOptionsScript(Jedis jedis, String expectedCommand) {
+        return verifyScript(jedis, expectedCommand, RedisKey.PARTICIPANT_OPTIONS, RedisKey.PARTICIPANT_OPTIONS_VERSION);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> verifyScript(Jedis jedis, String expectedCommand, RedisKey redisKey,
+            RedisKey versionKey) {
+        ArgumentCaptor<String> scriptCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jedis).eval(scriptCaptor.capture(), keysCaptor.capture(), argsCaptor.capture());
+        verify(jedis).close();
+        
+        assertTrue(scriptCaptor.getValue().contains(expectedCommand));
+        assertEquals(ImmutableList.of(redisKey.getRedisKey("healthCode"), versionKey.getRedisKey("healthCode")),
+                keysCaptor.getValue());
+        return argsCaptor.getValue();
+    }
+
     private JedisOps getJedisOps() {
         return new JedisOps(new JedisPool()) {
             private Map<String,String> map = Maps.newHashMap();
@@ -306,11 +430,6 @@ public class CacheProviderMockTest {
                 return "OK";
             }
             @Override
-            public Long setnx(final String key, final String value) {
-                map.put(key, value);
-                return 1L;
-            }
-            @Override
             public String get(final String key) {
                 return map.get(key);
             }
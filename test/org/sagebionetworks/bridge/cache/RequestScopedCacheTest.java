@@ -0,0 +1,88 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RequestScopedCacheTest {
+
+    @After
+    public void after() {
+        RequestScopedCache.end();
+    }
+
+    @Test
+    public void loadsEveryTimeOutsideOfScope() {
+        AtomicInteger count = new AtomicInteger();
+        
+        RequestScopedCache.get("key", () -> count.incrementAndGet());
+        RequestScopedCache.get("key", () -> count.incrementAndGet());
+        
+        assertFalse(RequestScopedCache.isActive());
+        assertEquals(2, count.get());
+    }
+    
+    @Test
+    public void memoizesWithinScope() {
+        AtomicInteger count = new AtomicInteger();
+        assertTrue(RequestScopedCache.begin());
+        
+        assertEquals(Integer.valueOf(1), RequestScopedCache.get("key", () -> count.incrementAndGet()));
+        assertEquals(Integer.valueOf(1), RequestScopedCache.get("key", () -> count.incrementAndGet()));
+        assertEquals(1, count.get());
+        
+        // A new scope does not see the values of the last one
+        RequestScopedCache.end();
+        RequestScopedCache.begin();
+        assertEquals(Integer.valueOf(2), RequestScopedCache.get("key", () -> count.incrementAndGet()));
+    }
+    
+    @Test
+    public void nestedBeginDoesNotReplaceScope() {
+        assertTrue(RequestScopedCache.begin());
+        RequestScopedCache.get("key", () -> "value");
+        
+        assertFalse(RequestScopedCache.begin());
+        assertEquals("value", RequestScopedCache.get("key", () -> "other value"));
+    }
+    
+    @Test
+    public void nullValuesAreNotMemoized() {
+        AtomicInteger count = new AtomicInteger();
+        RequestScopedCache.begin();
+        
+        assertNull(RequestScopedCache.get("key", () -> { count.incrementAndGet(); return null; }));
+        assertNull(RequestScopedCache.get("key", () -> { count.incrementAndGet(); return null; }));
+        assertEquals(2, count.get());
+    }
+    
+    @Test
+    public void invalidateRemovesEntry() {
+        RequestScopedCache.begin();
+        RequestScopedCache.get("key", () -> "value");
+        
+        RequestScopedCache.invalidate("key");
+        
+        assertEquals("new value", RequestScopedCache.get("key", () -> "new value"));
+    }
+    
+    @Test
+    public void invalidatePrefixRemovesMatchingEntries() {
+        RequestScopedCache.begin();
+        RequestScopedCache.get("subpops:api:true", () -> "A");
+        RequestScopedCache.get("subpops:api:false", () -> "B");
+        RequestScopedCache.get("subpops:other:true", () -> "C");
+        
+        RequestScopedCache.invalidatePrefix("subpops:api:");
+        
+        assertEquals("A2", RequestScopedCache.get("subpops:api:true", () -> "A2"));
+        assertEquals("B2", RequestScopedCache.get("subpops:api:false", () -> "B2"));
+        assertEquals("C", RequestScopedCache.get("subpops:other:true", () -> "C2"));
+    }
+}
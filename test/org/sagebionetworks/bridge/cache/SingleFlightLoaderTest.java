@@ -0,0 +1,145 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.bridge.dao.DistributedLockDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
+
+import com.google.common.collect.Lists;
+
+public class SingleFlightLoaderTest {
+
+    private static final String KEY = "key";
+    
+    private SingleFlightLoader loader;
+    
+    private DistributedLockDao lockDao;
+    
+    @Before
+    public void before() {
+        lockDao = mock(DistributedLockDao.class);
+        when(lockDao.acquireLock(eq(SingleFlightLoader.class), anyString(), anyInt())).thenReturn("lease");
+        
+        loader = new SingleFlightLoader();
+        loader.setDistributedLockDao(lockDao);
+    }
+    
+    @Test
+    public void concurrentLoadsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<String>> futures = Lists.newArrayList();
+            futures.add(executor.submit(() -> loader.load(KEY, () -> null, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            })));
+            started.await();
+            for (int i=0; i < 4; i++) {
+                futures.add(executor.submit(() -> loader.load(KEY, () -> null, () -> {
+                    calls.incrementAndGet();
+                    return "other value";
+                })));
+            }
+            // Give the waiting threads time to join the in-flight load
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("value", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        verify(lockDao).releaseLock(SingleFlightLoader.class, KEY, "lease");
+    }
+    
+    @Test
+    public void waitsForAnotherNodeHoldingTheLease() {
+        when(lockDao.acquireLock(eq(SingleFlightLoader.class), anyString(), anyInt()))
+                .thenThrow(new ConcurrentModificationException("Lock already set."));
+        AtomicInteger lookups = new AtomicInteger();
+        
+        String value = loader.load(KEY, () -> (lookups.incrementAndGet() < 3) ? null : "cached value", () -> {
+            fail("Should not have loaded the value");
+            return null;
+        });
+        assertEquals("cached value", value);
+        assertEquals(3, lookups.get());
+        verify(lockDao, never()).releaseLock(eq(SingleFlightLoader.class), anyString(), anyString());
+    }
+    
+    @Test
+    public void loadsWhenLeaseCannotBeObtained() {
+        when(lockDao.acquireLock(eq(SingleFlightLoader.class), anyString(), anyInt()))
+                .thenThrow(new BridgeServiceException("Redis is down"));
+        
+        String value = loader.load(KEY, () -> null, () -> "value");
+        assertEquals("value", value);
+        verify(lockDao, never()).releaseLock(eq(SingleFlightLoader.class), anyString(), anyString());
+    }
+    
+    @Test
+    public void loaderExceptionIsPropagatedAndLeaseReleased() {
+        try {
+            loader.load(KEY, () -> null, () -> {
+                throw new BridgeServiceException("Load failed");
+            });
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            assertEquals("Load failed", e.getMessage());
+        }
+        verify(lockDao).releaseLock(SingleFlightLoader.class, KEY, "lease");
+        
+        // Nothing is left in flight
+        assertEquals("value", loader.load(KEY, () -> null, () -> "value"));
+    }
+    
+    @Test
+    public void revalidateReloadsWithLease() {
+        assertEquals("fresh", loader.revalidate(KEY, "stale", () -> "fresh"));
+    }
+    
+    @Test
+    public void revalidateServesStaleWithoutLease() {
+        when(lockDao.acquireLock(eq(SingleFlightLoader.class), anyString(), anyInt()))
+                .thenThrow(new ConcurrentModificationException("Lock already set."));
+        
+        assertEquals("stale", loader.revalidate(KEY, "stale", () -> {
+            fail("Should not have loaded the value");
+            return null;
+        }));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch(InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
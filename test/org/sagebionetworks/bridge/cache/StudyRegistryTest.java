@@ -0,0 +1,88 @@
+package org.sagebionetworks.bridge.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.bridge.dao.StudyDao;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
+
+import com.google.common.collect.ImmutableList;
+
+public class StudyRegistryTest {
+
+    private static final long NOW = 1456790400000L;
+
+    private static final StudyRegistryEntry ENTRY_A = new StudyRegistryEntry("study-a", true, 3L);
+    private static final StudyRegistryEntry ENTRY_B = new StudyRegistryEntry("study-b", false, 7L);
+    private static final StudyRegistryEntry ENTRY_B_UPDATED = new StudyRegistryEntry("study-b", true, 8L);
+
+    private StudyDao studyDao;
+
+    private StudyRegistry registry;
+
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+
+        studyDao = mock(StudyDao.class);
+        when(studyDao.getStudyRegistryEntries()).thenReturn(ImmutableList.of(ENTRY_B, ENTRY_A),
+                ImmutableList.of(ENTRY_B_UPDATED, ENTRY_A));
+
+        registry = new StudyRegistry();
+        registry.setStudyDao(studyDao);
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    public void entriesAreOrderedByIdentifier() {
+        List<StudyRegistryEntry> entries = registry.getEntries();
+        assertEquals(ImmutableList.of(ENTRY_A, ENTRY_B), entries);
+    }
+
+    @Test
+    public void entriesAreLoadedOnce() {
+        registry.getEntries();
+        registry.getEntries();
+        assertEquals(ENTRY_B, registry.getEntry("study-b"));
+        assertNull(registry.getEntry("study-c"));
+
+        verify(studyDao, times(1)).getStudyRegistryEntries();
+    }
+
+    @Test
+    public void invalidateReloadsEntries() {
+        assertEquals(ENTRY_B, registry.getEntry("study-b"));
+
+        registry.invalidate();
+        assertEquals(ENTRY_B_UPDATED, registry.getEntry("study-b"));
+
+        verify(studyDao, times(2)).getStudyRegistryEntries();
+    }
+
+    @Test
+    public void entriesAreRefreshedAfterInterval() {
+        assertEquals(ENTRY_B, registry.getEntry("study-b"));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + StudyRegistry.REFRESH_INTERVAL_MILLIS);
+        assertEquals(ENTRY_B, registry.getEntry("study-b"));
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + StudyRegistry.REFRESH_INTERVAL_MILLIS + 1);
+        assertEquals(ENTRY_B_UPDATED, registry.getEntry("study-b"));
+
+        verify(studyDao, times(2)).getStudyRegistryEntries();
+    }
+}
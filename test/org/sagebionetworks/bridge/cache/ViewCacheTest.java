@@ -1,14 +1,24 @@
 package org.sagebionetworks.bridge.cache;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.ViewCache.ViewCacheKey;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
@@ -21,6 +31,8 @@ import com.google.common.collect.Maps;
 
 public class ViewCacheTest {
     
+    private static final byte[] GZIPPED_BYTES = new byte[] { 31, -117, 8, 0 };
+    
     private BridgeObjectMapper mapper;
     private Study study;
     
@@ -34,6 +46,7 @@ public class ViewCacheTest {
     @Test
     public void nothingWasCached() throws Exception {
         ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         CacheProvider provider = mock(CacheProvider.class);
         when(provider.getString(cacheKey.getKey())).thenReturn(null);
@@ -54,6 +67,7 @@ public class ViewCacheTest {
     @Test
     public void nothingWasCachedAndThereIsAnException() {
         ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         
         CacheProvider provider = mock(CacheProvider.class);
@@ -79,6 +93,7 @@ public class ViewCacheTest {
         String originalStudyJson = mapper.writeValueAsString(study);
         
         ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         CacheProvider provider = mock(CacheProvider.class);
         when(provider.getString(cacheKey.getKey())).thenReturn(originalStudyJson);
@@ -100,6 +115,7 @@ public class ViewCacheTest {
         
         final String originalStudyJson = mapper.writeValueAsString(study);
         ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         final ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
         cache.setCacheProvider(getSimpleCacheProvider(cacheKey.getKey(), originalStudyJson));
         
@@ -116,14 +132,112 @@ public class ViewCacheTest {
         assertEquals("Test Study 2", foundStudy.getName());
     }
     
+    @Test
+    public void viewBytesAreCachedInBothForms() throws Exception {
+        ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
+        ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        CacheProvider provider = getSimpleCacheProvider("dummy-key", "dummy-value");
+        cache.setCacheProvider(provider);
+        
+        CachedView view = cache.getViewBytes(cacheKey, () -> study);
+        
+        String json = new String(view.getJson(), StandardCharsets.UTF_8);
+        assertEquals(mapper.writeValueAsString(study), json);
+        assertArrayEquals(view.getJson(), gunzip(view.getGzippedJson()));
+        
+        // Both forms are written through to Redis
+        assertEquals(json, provider.getString(cacheKey.getKey()));
+        assertArrayEquals(view.getGzippedJson(),
+                Base64.getDecoder().decode(provider.getString(cacheKey.getGzipKey())));
+    }
+    
+    @Test
+    public void viewBytesAreReadFromRedis() throws Exception {
+        String originalStudyJson = mapper.writeValueAsString(study);
+        
+        ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
+        ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        CacheProvider provider = mock(CacheProvider.class);
+        when(provider.getString(cacheKey.getKey())).thenReturn(originalStudyJson);
+        when(provider.getString(cacheKey.getGzipKey())).thenReturn(Base64.getEncoder().encodeToString(GZIPPED_BYTES));
+        when(provider.getString(cacheKey.getFreshKey())).thenReturn("true");
+        cache.setCacheProvider(provider);
+        
+        CachedView view = cache.getViewBytes(cacheKey, () -> {
+            fail("This should not be called");
+            return null;
+        });
+        assertEquals(originalStudyJson, new String(view.getJson(), StandardCharsets.UTF_8));
+        assertArrayEquals(GZIPPED_BYTES, view.getGzippedJson());
+    }
+    
+    @Test
+    public void staleViewBytesAreRefreshed() throws Exception {
+        String originalStudyJson = mapper.writeValueAsString(study);
+        
+        ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
+        ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        CacheProvider provider = mock(CacheProvider.class);
+        when(provider.getString(cacheKey.getKey())).thenReturn(originalStudyJson);
+        when(provider.getString(cacheKey.getGzipKey())).thenReturn(Base64.getEncoder().encodeToString(GZIPPED_BYTES));
+        cache.setCacheProvider(provider);
+        
+        // The soft expiration marker is missing, so this caller gets the lease and refreshes the view
+        CachedView view = cache.getViewBytes(cacheKey, () -> {
+            Study study = TestUtils.getValidStudy(ViewCacheTest.class);
+            study.setName("Test Study 2");
+            return study;
+        });
+        Study foundStudy = BridgeObjectMapper.get().readValue(view.getJson(), DynamoStudy.class);
+        assertEquals("Test Study 2", foundStudy.getName());
+        verify(provider).setString(cacheKey.getFreshKey(), "true", BridgeConstants.BRIDGE_VIEW_SOFT_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void viewBytesAreServedFromLocalTierUntilRemoved() throws Exception {
+        ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
+        ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, study.getIdentifier());
+        CacheProvider provider = mock(CacheProvider.class);
+        cache.setCacheProvider(provider);
+        
+        cache.getViewBytes(cacheKey, () -> study);
+        cache.getViewBytes(cacheKey, () -> {
+            fail("This should not be called");
+            return null;
+        });
+        // Redis was only consulted on the first call
+        verify(provider, times(1)).getString(cacheKey.getKey());
+        
+        cache.removeView(cacheKey);
+        verify(provider).removeString(cacheKey.getKey());
+        verify(provider).removeString(cacheKey.getGzipKey());
+        verify(provider).removeString(cacheKey.getFreshKey());
+        
+        study.setName("Test Study 2");
+        CachedView view = cache.getViewBytes(cacheKey, () -> study);
+        Study foundStudy = BridgeObjectMapper.get().readValue(view.getJson(), DynamoStudy.class);
+        assertEquals("Test Study 2", foundStudy.getName());
+    }
+    
     @Test
     public void getCacheKeyWorks() {
         ViewCache cache = new ViewCache();
+        cache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         
         ViewCacheKey<Study> cacheKey = cache.getCacheKey(Study.class, "mostRandom", "leastRandom");
         assertEquals("mostRandom:leastRandom:org.sagebionetworks.bridge.models.studies.Study:view", cacheKey.getKey());
     }
     
+    private static byte[] gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return IOUtils.toByteArray(gzipStream);
+        }
+    }
+    
     private CacheProvider getSimpleCacheProvider(final String cacheKey, final String originalStudyJson) {
         return new CacheProvider() {
             private Map<String,String> map = Maps.newHashMap();
@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+public class CompressedJsonNodeMarshallerTest {
+
+    private static final CompressedJsonNodeMarshaller MARSHALLER = new CompressedJsonNodeMarshaller(true);
+
+    @Test
+    public void largeValueIsCompressed() {
+        JsonNode node = sensorData(200);
+
+        String stored = MARSHALLER.convert(node);
+        assertTrue(CompressedJsonNodeMarshaller.isCompressed(stored));
+        assertTrue(stored.length() < node.toString().length() / 4);
+
+        JsonNode deser = MARSHALLER.unconvert(stored);
+        assertEquals(node, deser);
+    }
+
+    @Test
+    public void smallValueIsNotCompressed() {
+        JsonNode node = sensorData(1);
+
+        String stored = MARSHALLER.convert(node);
+        assertFalse(CompressedJsonNodeMarshaller.isCompressed(stored));
+        assertEquals(node, MARSHALLER.unconvert(stored));
+    }
+
+    @Test
+    public void nothingIsCompressedWhenDisabled() {
+        CompressedJsonNodeMarshaller marshaller = new CompressedJsonNodeMarshaller(false);
+        JsonNode node = sensorData(200);
+
+        String stored = marshaller.convert(node);
+        assertFalse(CompressedJsonNodeMarshaller.isCompressed(stored));
+        assertEquals(node, marshaller.unconvert(stored));
+
+        // Compressed values can be read even if compression is disabled.
+        assertEquals(node, marshaller.unconvert(MARSHALLER.convert(node)));
+    }
+
+    @Test
+    public void readsLegacyJson() throws Exception {
+        JsonNode node = sensorData(200);
+
+        // Values written by JsonNodeMarshaller.
+        String legacy = new JsonNodeMarshaller().convert(node);
+        assertEquals(node, MARSHALLER.unconvert(legacy));
+        assertEquals(BridgeObjectMapper.get().readTree("\"text\""), MARSHALLER.unconvert("\"text\""));
+    }
+
+    @Test(expected = DynamoDBMappingException.class)
+    public void corruptValueThrows() {
+        String stored = MARSHALLER.convert(sensorData(200));
+        MARSHALLER.unconvert(stored.substring(0, stored.length() / 2));
+    }
+
+    private static JsonNode sensorData(int count) {
+        ArrayNode node = BridgeObjectMapper.get().createArrayNode();
+        for (int i = 0; i < count; i++) {
+            node.addObject().put("timestamp", 1427970429000L + i).put("x", 0.25).put("y", -0.5).put("z", 9.8);
+        }
+        return node;
+    }
+}
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -99,11 +100,11 @@ public class DynamoActivityEventDaoTest {
         final DateTime firstEvent = DateTime.now();
         
         ActivityEvent event = getEnrollmentEvent(firstEvent);
-        activityEventDao.publishEvent(event);
+        assertTrue(activityEventDao.publishEvent(event));
         
         // This does not work. You can't do this.
         event = getEnrollmentEvent(firstEvent.plusHours(2));
-        activityEventDao.publishEvent(event);
+        assertFalse(activityEventDao.publishEvent(event));
         
         Map<String,DateTime> eventMap = activityEventDao.getActivityEventMap("BBB");
         assertEquals(firstEvent.withZone(DateTimeZone.UTC), eventMap.get("enrollment"));
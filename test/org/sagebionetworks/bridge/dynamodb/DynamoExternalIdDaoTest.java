@@ -171,6 +171,7 @@ public class DynamoExternalIdDaoTest {
         DynamoExternalIdentifier identifier = mapper.load(keyObject);
         assertNull(identifier.getHealthCode());
         assertEquals(0L, identifier.getReservation());
+        assertEquals(DynamoExternalIdDao.getUnassignedShard(studyId, "AAA"), identifier.getUnassignedShard());
     }
     
     @Test
@@ -366,6 +367,46 @@ public class DynamoExternalIdDaoTest {
         assertEquals("CCC", ids.getItems().get(0).getIdentifier());
     }
 
+    @Test
+    public void assignedIdentifierIsRemovedFromFreeList() {
+        DynamoExternalIdentifier keyObject = new DynamoExternalIdentifier(studyId, "AAA");
+        assertEquals(DynamoExternalIdDao.getUnassignedShard(studyId, "AAA"), mapper.load(keyObject).getUnassignedShard());
+        
+        dao.assignExternalId(studyId, "AAA", "healthCode");
+        
+        assertNull(mapper.load(keyObject).getUnassignedShard());
+    }
+    
+    @Test
+    public void reserveNextAvailableID() {
+        // We should skip over reserved and assigned IDs to find a free one
+        dao.assignExternalId(studyId, "AAA", "healthCode");
+        dao.reserveExternalId(studyId, "BBB");
+        
+        assertEquals("CCC", dao.reserveNextAvailableExternalId(studyId));
+        
+        DynamoExternalIdentifier identifier = mapper.load(new DynamoExternalIdentifier(studyId, "CCC"));
+        assertTrue(identifier.getReservation() > 0L);
+        
+        // Everything is now taken
+        assertNull(dao.reserveNextAvailableExternalId(studyId));
+    }
+    
+    @Test
+    public void unassignedIdentifiersAreBackfilledIntoFreeList() {
+        // As if created before the free-list index existed
+        DynamoExternalIdentifier identifier = mapper.load(new DynamoExternalIdentifier(studyId, "AAA"));
+        identifier.setUnassignedShard(null);
+        mapper.save(identifier);
+        dao.assignExternalId(studyId, "BBB", "healthCode");
+        
+        assertEquals(1, dao.addUnassignedIdsToFreeList(studyId));
+        
+        identifier = mapper.load(new DynamoExternalIdentifier(studyId, "AAA"));
+        assertEquals(DynamoExternalIdDao.getUnassignedShard(studyId, "AAA"), identifier.getUnassignedShard());
+        assertNull(mapper.load(new DynamoExternalIdentifier(studyId, "BBB")).getUnassignedShard());
+    }
+    
     private Set<ExternalIdentifierInfo> toSet(boolean isAssigned, String... infos) {
         Set<ExternalIdentifierInfo> set = Sets.newHashSetWithExpectedSize(infos.length);
         for (String identifier : infos) {
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -20,6 +21,7 @@ import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 import org.springframework.test.context.ContextConfiguration;
@@ -170,6 +172,30 @@ public class DynamoFPHSExternalIdentifierDaoTest {
         assertFalse(found.isRegistered());
     }
 
+    @Test
+    public void pageThroughIdentifiersByRegistration() {
+        DynamoFPHSExternalIdentifier id1 = new DynamoFPHSExternalIdentifier(getId());
+        DynamoFPHSExternalIdentifier id2 = new DynamoFPHSExternalIdentifier(getId());
+        dao.addExternalIds(Lists.newArrayList(id1, id2));
+        idsToDelete.add(id1.getExternalId());
+        idsToDelete.add(id2.getExternalId());
+        
+        dao.registerExternalId(ExternalIdentifier.create(TestConstants.TEST_STUDY, id1.getExternalId()));
+        
+        List<FPHSExternalIdentifier> registered = getAllPages(true);
+        assertTrue(getById(registered, id1).isRegistered());
+        assertNull(getById(registered, id2));
+        
+        List<FPHSExternalIdentifier> unregistered = getAllPages(false);
+        assertFalse(getById(unregistered, id2).isRegistered());
+        assertNull(getById(unregistered, id1));
+    }
+    
+    @Test(expected = BadRequestException.class)
+    public void pageSizeTooLarge() {
+        dao.getExternalIds(false, null, 101);
+    }
+    
     @Test(expected = BadRequestException.class)
     public void addExternalIdsExceedsLimit() {
         List<FPHSExternalIdentifier> idList = new ArrayList<>();
@@ -181,6 +207,17 @@ public class DynamoFPHSExternalIdentifierDaoTest {
         dao.addExternalIds(idList);
     }
 
+    private List<FPHSExternalIdentifier> getAllPages(boolean registered) {
+        List<FPHSExternalIdentifier> results = new ArrayList<>();
+        String offsetKey = null;
+        do {
+            PagedResourceList<FPHSExternalIdentifier> page = dao.getExternalIds(registered, offsetKey, 100);
+            results.addAll(page.getItems());
+            offsetKey = page.getOffsetKey();
+        } while (offsetKey != null);
+        return results;
+    }
+    
     private FPHSExternalIdentifier getById(List<FPHSExternalIdentifier> identifiers, FPHSExternalIdentifier externalId) {
         for (FPHSExternalIdentifier identifier : identifiers) {
             if (identifier.getExternalId().equals(externalId.getExternalId())) {
@@ -2,25 +2,43 @@ package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
 @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -134,6 +152,32 @@ public class DynamoHealthDataDaoTest {
         assertSame(mockResult, retVal);
     }
 
+    @Test
+    public void getRecordPageForUploadDate() {
+        // Three pages. The second is empty, but isn't the last.
+        DynamoIndexHelper mockIndex = mock(DynamoIndexHelper.class);
+        when(mockIndex.queryPage(HealthDataRecord.class, "uploadDate", "2015-02-11", null, "offset-0",
+                DynamoHealthDataDao.EXPORT_PAGE_SIZE)).thenReturn(recordPage("offset-1", "record-1", "record-2"));
+        when(mockIndex.queryPage(HealthDataRecord.class, "uploadDate", "2015-02-11", null, "offset-1",
+                DynamoHealthDataDao.EXPORT_PAGE_SIZE)).thenReturn(recordPage("offset-2"));
+        when(mockIndex.queryPage(HealthDataRecord.class, "uploadDate", "2015-02-11", null, "offset-2",
+                DynamoHealthDataDao.EXPORT_PAGE_SIZE)).thenReturn(recordPage(null, "record-3"));
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setUploadDateIndex(mockIndex);
+
+        // execute and validate
+        PagedResourceList<HealthDataRecord> page = dao.getRecordPageForUploadDate("2015-02-11", "offset-0");
+        assertEquals(ImmutableList.of("record-1", "record-2"), recordIds(page));
+        assertEquals("offset-1", page.getOffsetKey());
+        assertEquals("2015-02-11", page.getFilters().get("uploadDate"));
+
+        // The empty page is skipped
+        page = dao.getRecordPageForUploadDate("2015-02-11", "offset-1");
+        assertEquals(ImmutableList.of("record-3"), recordIds(page));
+        assertNull(page.getOffsetKey());
+    }
+
     @Test
     public void getRecordsByHealthCodeCreatedOnSchemaId() {
         // For branch coverage, first record has the wrong schema ID.
@@ -165,4 +209,101 @@ public class DynamoHealthDataDaoTest {
         assertEquals(1, retVal.size());
         assertSame(record, retVal.get(0));
     }
+
+    @Test
+    public void compressRecords() {
+        CompressedJsonNodeMarshaller marshaller = new CompressedJsonNodeMarshaller(true);
+        String largeJson = marshaller.convert(largeNode());
+
+        // One record with large uncompressed data, one with small data, one already compressed, and one that is
+        // updated concurrently.
+        Map<String, AttributeValue> largeRecord = ImmutableMap.of("id", new AttributeValue("large-record"),
+                "data", new AttributeValue(largeNode().toString()), "metadata", new AttributeValue("{}"),
+                "version", new AttributeValue().withN("3"));
+        Map<String, AttributeValue> smallRecord = ImmutableMap.of("id", new AttributeValue("small-record"),
+                "data", new AttributeValue("{\"a\":1}"), "version", new AttributeValue().withN("1"));
+        Map<String, AttributeValue> compressedRecord = ImmutableMap.of("id", new AttributeValue("compressed-record"),
+                "data", new AttributeValue(largeJson), "version", new AttributeValue().withN("1"));
+        Map<String, AttributeValue> updatedRecord = ImmutableMap.of("id", new AttributeValue("updated-record"),
+                "data", new AttributeValue(largeNode().toString()), "version", new AttributeValue().withN("1"));
+
+        AmazonDynamoDB mockClient = mock(AmazonDynamoDB.class);
+        when(mockClient.scan(any(ScanRequest.class))).thenReturn(
+                new ScanResult().withItems(largeRecord, smallRecord)
+                        .withLastEvaluatedKey(ImmutableMap.of("id", new AttributeValue("small-record"))),
+                new ScanResult().withItems(compressedRecord, updatedRecord));
+        when(mockClient.updateItem(any(UpdateItemRequest.class))).thenAnswer(invocation -> {
+            UpdateItemRequest request = (UpdateItemRequest) invocation.getArguments()[0];
+            if (request.getKey().get("id").getS().equals("updated-record")) {
+                throw new ConditionalCheckFailedException("test exception");
+            }
+            return new UpdateItemResult();
+        });
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setDynamoDbClient(mockClient, new DynamoNamingHelper(BridgeConfigFactory.getConfig()));
+        dao.setRecordMarshaller(marshaller);
+
+        List<String> messages = new ArrayList<>();
+        int count = dao.compressRecords(messages::add);
+        assertEquals(1, count);
+        assertEquals(ImmutableList.of("Finished: scanned 4 record(s), compressed 1"), messages);
+
+        // The second page started from the first page's last key.
+        ArgumentCaptor<ScanRequest> scanCaptor = ArgumentCaptor.forClass(ScanRequest.class);
+        verify(mockClient, times(2)).scan(scanCaptor.capture());
+        assertEquals("small-record", scanCaptor.getAllValues().get(1).getExclusiveStartKey().get("id").getS());
+
+        // The large record's data was compressed, its small metadata wasn't rewritten, and the version was checked
+        // and incremented.
+        ArgumentCaptor<UpdateItemRequest> updateCaptor = ArgumentCaptor.forClass(UpdateItemRequest.class);
+        verify(mockClient, times(2)).updateItem(updateCaptor.capture());
+        UpdateItemRequest update = updateCaptor.getAllValues().get(0);
+        assertEquals("large-record", update.getKey().get("id").getS());
+        assertEquals(largeJson, update.getAttributeUpdates().get("data").getValue().getS());
+        assertNull(update.getAttributeUpdates().get("metadata"));
+        assertEquals("4", update.getAttributeUpdates().get("version").getValue().getN());
+        assertEquals("3", update.getExpected().get("version").getValue().getN());
+    }
+
+    @Test
+    public void compressRecordsDoesNotScanWhenCompressionIsDisabled() {
+        AmazonDynamoDB mockClient = mock(AmazonDynamoDB.class);
+
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setDynamoDbClient(mockClient, new DynamoNamingHelper(BridgeConfigFactory.getConfig()));
+        dao.setRecordMarshaller(new CompressedJsonNodeMarshaller(false));
+
+        List<String> messages = new ArrayList<>();
+        assertEquals(0, dao.compressRecords(messages::add));
+        assertEquals(ImmutableList.of("Record compression is disabled, nothing to compress"), messages);
+        verify(mockClient, never()).scan(any(ScanRequest.class));
+    }
+
+    private static PagedResourceList<HealthDataRecord> recordPage(String offsetKey, String... ids) {
+        List<HealthDataRecord> recordList = new ArrayList<>();
+        for (String id : ids) {
+            DynamoHealthDataRecord record = new DynamoHealthDataRecord();
+            record.setId(id);
+            recordList.add(record);
+        }
+        return new PagedResourceList<>(recordList, null, DynamoHealthDataDao.EXPORT_PAGE_SIZE, recordList.size())
+                .withOffsetKey(offsetKey);
+    }
+
+    private static List<String> recordIds(PagedResourceList<HealthDataRecord> page) {
+        List<String> idList = new ArrayList<>();
+        for (HealthDataRecord record : page.getItems()) {
+            idList.add(record.getId());
+        }
+        return idList;
+    }
+
+    private static JsonNode largeNode() {
+        ArrayNode node = BridgeObjectMapper.get().createArrayNode();
+        for (int i = 0; i < 100; i++) {
+            node.addObject().put("timestamp", 1427970429000L + i).put("value", "sensor-value");
+        }
+        return node;
+    }
 }
@@ -1,25 +1,46 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.when;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.document.Item;
+import com.amazonaws.services.dynamodbv2.document.KeyAttribute;
 import com.amazonaws.services.dynamodbv2.document.RangeKeyCondition;
+import com.amazonaws.services.dynamodbv2.document.spec.QuerySpec;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
+
 @SuppressWarnings({ "rawtypes", "unchecked" })
 public class DynamoIndexHelperTest {
     
@@ -41,6 +62,12 @@ public class DynamoIndexHelperTest {
             this.key = key;
             this.value = value;
         }
+
+        // used to put batch loaded things back in index order
+        @DynamoDBHashKey
+        public String getKey() {
+            return key;
+        }
     }
 
     // index.query() can't be mocked, so override queryHelper to sidestep this problem
@@ -49,6 +76,9 @@ public class DynamoIndexHelperTest {
         private final String expectedValue;
         private final RangeKeyCondition expectedRangeKeyCondition;
         private final Iterable<Item> itemIterable;
+        private final Queue<QueryResult> queryResultQueue = new LinkedList<>();
+        private final List<QuerySpec> querySpecList = new ArrayList<>();
+        private final List<Map<String, Object>> startKeyList = new ArrayList<>();
 
         TestDynamoIndexHelper(String expectedKey, String expectedValue, RangeKeyCondition rangeKeyCondition, Iterable<Item> itemIterable) {
             this.expectedKey = expectedKey;
@@ -64,6 +94,18 @@ public class DynamoIndexHelperTest {
             assertEquals(expectedRangeKeyCondition, rangeKeyCondition);
             return itemIterable;
         }
+
+        @Override
+        protected QueryResult queryPageHelper(@Nonnull QuerySpec spec) {
+            assertEquals(expectedKey, spec.getHashKey().getName());
+            assertEquals(expectedValue, spec.getHashKey().getValue());
+            assertEquals(expectedRangeKeyCondition, spec.getRangeKeyCondition());
+
+            // Specs are modified between pages, so save the exclusive start key as a map.
+            querySpecList.add(spec);
+            startKeyList.add(startKeyMap(spec));
+            return queryResultQueue.remove();
+        }
     }
     
     public void mockResultsOfQuery(RangeKeyCondition condition) {
@@ -120,10 +162,176 @@ public class DynamoIndexHelperTest {
     
     @Test
     public void testCount() {
-        mockResultsOfQuery(null);
-        int count = helper.queryKeyCount("test key", "test value", null);
-        // There are two lists of two items each
+        TestDynamoIndexHelper testHelper = new TestDynamoIndexHelper("test key", "test value", null,
+                ImmutableList.of());
+        testHelper.queryResultQueue.add(new QueryResult().withCount(3)
+                .withLastEvaluatedKey(ImmutableMap.of("key", new AttributeValue("jkl; key"))));
+        testHelper.queryResultQueue.add(new QueryResult().withCount(1));
+
+        int count = testHelper.queryKeyCount("test key", "test value", null);
         assertEquals(4, count);
+
+        // DynamoDB only counted the items, and the second page started after the first.
+        assertEquals(2, testHelper.querySpecList.size());
+        assertEquals(Select.COUNT.toString(), testHelper.querySpecList.get(1).getSelect());
+        assertNull(testHelper.startKeyList.get(0));
+        assertEquals(ImmutableMap.of("key", "jkl; key"), testHelper.startKeyList.get(1));
+    }
+
+    @Test
+    public void queryPage() {
+        RangeKeyCondition rangeKeyCondition = new RangeKeyCondition("antwerp").eq("belgium");
+        mockResultsOfQuery(rangeKeyCondition);
+        TestDynamoIndexHelper testHelper = (TestDynamoIndexHelper) helper;
+        testHelper.queryResultQueue.add(new QueryResult()
+                .withItems(keyItem("foo key"), keyItem("bar key"), keyItem("asdf key"), keyItem("jkl; key"))
+                .withLastEvaluatedKey(ImmutableMap.of("key", new AttributeValue("jkl; key"))));
+        testHelper.queryResultQueue.add(new QueryResult());
+
+        // first page
+        PagedResourceList<Thing> page = helper.queryPage(Thing.class, "test key", "test value", rangeKeyCondition,
+                null, 4);
+        assertEquals(4, page.getItems().size());
+        assertEquals(4, page.getPageSize());
+        validateKeyObjects(arg.getValue());
+        assertNull(testHelper.startKeyList.get(0));
+        assertEquals(4, testHelper.querySpecList.get(0).getMaxPageSize().intValue());
+
+        // The offset key resumes after the first page. The last page is empty.
+        PagedResourceList<Thing> lastPage = helper.queryPage(Thing.class, "test key", "test value",
+                rangeKeyCondition, page.getOffsetKey(), 4);
+        assertTrue(lastPage.getItems().isEmpty());
+        assertNull(lastPage.getOffsetKey());
+        assertEquals(ImmutableMap.of("key", "jkl; key"), testHelper.startKeyList.get(1));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void queryPageInvalidOffsetKey() {
+        mockResultsOfQuery(null);
+        helper.queryPage(Thing.class, "test key", "test value", null, "not an offset key", 4);
+    }
+
+    @Test
+    public void queryLoadsBatchesInParallel() {
+        // 250 keys are loaded in 3 batches.
+        List<Item> itemList = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            itemList.add(new Item().with("key", "key " + i));
+        }
+        helper = new TestDynamoIndexHelper("test key", "test value", null, itemList);
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        when(mockMapper.batchLoad(any(List.class))).thenAnswer(invocation -> {
+            List<Object> thingList = new ArrayList<>();
+            for (Object key : (List<Object>) invocation.getArguments()[0]) {
+                thingList.add(new Thing(((Thing) key).key, "value"));
+            }
+            return ImmutableMap.of("dummy key", thingList);
+        });
+        helper.setMapper(mockMapper);
+        ExecutorService executor = DynamoIndexHelper.newBatchLoadExecutor();
+        helper.setBatchLoadExecutor(executor);
+
+        List<Thing> resultList;
+        try {
+            resultList = helper.query(Thing.class, "test key", "test value", null);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(250, resultList.size());
+
+        arg = ArgumentCaptor.forClass(List.class);
+        verify(mockMapper, times(3)).batchLoad(arg.capture());
+        int total = 0;
+        for (List batch : arg.getAllValues()) {
+            assertTrue(batch.size() <= DynamoIndexHelper.BATCH_LOAD_SIZE);
+            total += batch.size();
+        }
+        assertEquals(250, total);
+    }
+
+    @Test
+    public void queryReturnsRecordsInIndexOrder() {
+        mockResultsOfQuery(null);
+
+        // The batch load returns the records out of order.
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        when(mockMapper.batchLoad(any(List.class))).thenReturn(ImmutableMap.of(
+                "dummy key 1", ImmutableList.<Object>of(new Thing("jkl; key", "jkl; value"),
+                        new Thing("asdf key", "asdf value")),
+                "dummy key 2", ImmutableList.<Object>of(new Thing("bar key", "bar value"),
+                        new Thing("foo key", "foo value"))));
+        helper.setMapper(mockMapper);
+
+        List<Thing> resultList = helper.query(Thing.class, "test key", "test value", null);
+        assertEquals(4, resultList.size());
+        assertEquals("foo value", resultList.get(0).value);
+        assertEquals("bar value", resultList.get(1).value);
+        assertEquals("asdf value", resultList.get(2).value);
+        assertEquals("jkl; value", resultList.get(3).value);
+    }
+
+    @Test
+    public void queryAllAttributesProjected() {
+        mockResultsOfQuery(null);
+        DynamoDBMapper mockMapper = mockUnmarshallingMapper();
+        helper.setMapper(mockMapper);
+        helper.setProjectedTableClass(Thing.class);
+
+        // The index items are unmarshalled by the mapper, without going to the table.
+        List<Thing> resultList = helper.query(Thing.class, "test key", "test value", null);
+        validateKeyObjects(resultList);
+        verify(mockMapper, never()).batchLoad(any(List.class));
+    }
+
+    @Test
+    public void queryPageAllAttributesProjected() {
+        mockResultsOfQuery(null);
+        TestDynamoIndexHelper testHelper = (TestDynamoIndexHelper) helper;
+        testHelper.queryResultQueue.add(new QueryResult()
+                .withItems(keyItem("foo key"), keyItem("bar key"), keyItem("asdf key"), keyItem("jkl; key")));
+        DynamoDBMapper mockMapper = mockUnmarshallingMapper();
+        helper.setMapper(mockMapper);
+        helper.setProjectedTableClass(Thing.class);
+
+        PagedResourceList<Thing> page = helper.queryPage(Thing.class, "test key", "test value", null, null, 4);
+        validateKeyObjects(page.getItems());
+        assertNull(page.getOffsetKey());
+        verify(mockMapper, never()).batchLoad(any(List.class));
+    }
+
+    @Test
+    public void isAllAttributesProjected() {
+        assertTrue(DynamoIndexHelper.isAllAttributesProjected(DynamoExternalIdentifier.class,
+                DynamoExternalIdentifier.UNASSIGNED_INDEX));
+        assertFalse(DynamoIndexHelper.isAllAttributesProjected(DynamoScheduledActivity.class,
+                "schedulePlanGuid-index"));
+        assertFalse(DynamoIndexHelper.isAllAttributesProjected(DynamoHealthDataRecord.class, "uploadDate-index"));
+    }
+
+    // Mapper that unmarshalls index items into things.
+    private static DynamoDBMapper mockUnmarshallingMapper() {
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        when(mockMapper.marshallIntoObject(eq(Thing.class), any(Map.class))).thenAnswer(invocation -> {
+            Map<String, AttributeValue> item = (Map<String, AttributeValue>) invocation.getArguments()[1];
+            return new Thing(item.get("key").getS());
+        });
+        return mockMapper;
+    }
+
+    private static Map<String, AttributeValue> keyItem(String key) {
+        return ImmutableMap.of("key", new AttributeValue(key));
+    }
+
+    private static Map<String, Object> startKeyMap(QuerySpec spec) {
+        if (spec.getExclusiveStartKey() == null) {
+            return null;
+        }
+        Map<String, Object> startKeyMap = new HashMap<>();
+        for (KeyAttribute keyAttribute : spec.getExclusiveStartKey()) {
+            startKeyMap.put(keyAttribute.getName(), keyAttribute.getValue());
+        }
+        return startKeyMap;
     }
 
     private static void validateKeyObjects(List<Thing> keyList) {
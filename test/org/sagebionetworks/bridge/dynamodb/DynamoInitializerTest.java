@@ -0,0 +1,134 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.DescribeTableResult;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
+import com.amazonaws.services.dynamodbv2.model.ResourceNotFoundException;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.TableStatus;
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.config.Environment;
+
+public class DynamoInitializerTest {
+
+    private static final TableDescription NEW_TABLE = table("local-test-NewTable");
+    private static final TableDescription EXISTING_TABLE = table("local-test-ExistingTable");
+    private static final TableDescription CREATING_TABLE = table("local-test-CreatingTable");
+    private static final List<TableDescription> TABLES = ImmutableList.of(NEW_TABLE, EXISTING_TABLE, CREATING_TABLE);
+
+    private AmazonDynamoDBClient mockClient;
+    private DynamoUtils mockDynamoUtils;
+    private DynamoInitializer initializer;
+
+    @Before
+    public void before() {
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.getEnvironment()).thenReturn(Environment.LOCAL);
+
+        mockClient = mock(AmazonDynamoDBClient.class);
+        when(mockClient.describeTable(NEW_TABLE.getTableName())).thenThrow(new ResourceNotFoundException("not found"));
+        when(mockClient.describeTable(EXISTING_TABLE.getTableName())).thenReturn(new DescribeTableResult()
+                .withTable(table(EXISTING_TABLE.getTableName()).withTableStatus(TableStatus.ACTIVE)));
+        when(mockClient.describeTable(CREATING_TABLE.getTableName())).thenReturn(new DescribeTableResult()
+                .withTable(table(CREATING_TABLE.getTableName()).withTableStatus(TableStatus.CREATING)));
+
+        mockDynamoUtils = mock(DynamoUtils.class);
+        when(mockDynamoUtils.getCreateTableRequest(NEW_TABLE)).thenReturn(new CreateTableRequest()
+                .withTableName(NEW_TABLE.getTableName()));
+
+        initializer = new DynamoInitializer(mockConfig, mockClient, mockDynamoUtils, mock(DynamoNamingHelper.class));
+    }
+
+    @Test
+    public void createsMissingTablesAndComparesExistingOnes() {
+        initializer.init(TABLES);
+
+        verify(mockClient).createTable(any(CreateTableRequest.class));
+        verify(mockDynamoUtils, times(2)).compareSchema(any(TableDescription.class), any(TableDescription.class));
+        // Only tables that weren't already active are waited on.
+        verify(mockDynamoUtils).waitForActive(NEW_TABLE.getTableName());
+        verify(mockDynamoUtils).waitForActive(CREATING_TABLE.getTableName());
+        verify(mockDynamoUtils, never()).waitForActive(EXISTING_TABLE.getTableName());
+    }
+
+    @Test
+    public void skipsVerificationWhenSchemaAlreadyVerifiedInThisServer() {
+        initializer.init(TABLES);
+        initializer.init(TABLES);
+
+        verify(mockClient, times(1)).createTable(any(CreateTableRequest.class));
+        verify(mockClient, times(1)).describeTable(NEW_TABLE.getTableName());
+    }
+
+    @Test
+    public void verifiesChangedSchema() {
+        initializer.init(TABLES);
+        initializer.init(ImmutableList.of(NEW_TABLE, EXISTING_TABLE));
+
+        verify(mockClient, times(2)).describeTable(NEW_TABLE.getTableName());
+    }
+
+    @Test
+    public void schemaMismatchFailsInit() {
+        RuntimeException mismatch = new RuntimeException("Schema mismatch");
+        doThrow(mismatch).when(mockDynamoUtils).compareSchema(any(TableDescription.class),
+                any(TableDescription.class));
+        try {
+            initializer.init(TABLES);
+            fail("Should have thrown an exception");
+        } catch (RuntimeException e) {
+            assertSame(mismatch, e);
+        }
+        // Not recorded as verified, so the next call tries again.
+        doNothing().when(mockDynamoUtils).compareSchema(any(TableDescription.class), any(TableDescription.class));
+        initializer.init(TABLES);
+        verify(mockClient, times(2)).describeTable(EXISTING_TABLE.getTableName());
+    }
+
+    @Test
+    public void schemaHashIgnoresOrderAndThroughput() {
+        String hash = DynamoInitializer.getSchemaHash(TABLES);
+
+        List<TableDescription> reordered = ImmutableList.of(CREATING_TABLE, table(NEW_TABLE.getTableName())
+                .withProvisionedThroughput(new ProvisionedThroughputDescription().withReadCapacityUnits(50L)),
+                EXISTING_TABLE);
+        assertEquals(hash, DynamoInitializer.getSchemaHash(reordered));
+
+        TableDescription withIndex = table(NEW_TABLE.getTableName()).withGlobalSecondaryIndexes(
+                new GlobalSecondaryIndexDescription().withIndexName("studyId-index")
+                        .withKeySchema(new KeySchemaElement("studyId", KeyType.HASH))
+                        .withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY)));
+        assertNotEquals(hash, DynamoInitializer.getSchemaHash(ImmutableList.of(withIndex, EXISTING_TABLE,
+                CREATING_TABLE)));
+    }
+
+    private static TableDescription table(String name) {
+        return new TableDescription().withTableName(name)
+                .withKeySchema(new KeySchemaElement("healthCode", KeyType.HASH));
+    }
+}
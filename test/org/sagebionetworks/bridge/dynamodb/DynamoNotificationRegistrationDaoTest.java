@@ -27,6 +27,7 @@ import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.OperatingSystem;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
@@ -94,6 +95,7 @@ public class DynamoNotificationRegistrationDaoTest {
         dao = new DynamoNotificationRegistrationDao();
         dao.setNotificationRegistrationMapper(mockMapper);
         dao.setSnsClient(mockSnsClient);
+        dao.setCircuitBreaker(new CircuitBreaker("sns", 5, 30, 10));
     }
     
     @Test
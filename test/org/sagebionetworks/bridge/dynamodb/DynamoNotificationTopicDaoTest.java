@@ -34,6 +34,7 @@ import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.json.DateUtils;
 import org.sagebionetworks.bridge.models.notifications.NotificationTopic;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
@@ -89,6 +90,7 @@ public class DynamoNotificationTopicDaoTest {
         dao = new DynamoNotificationTopicDao();
         dao.setNotificationTopicMapper(mockMapper);
         dao.setSnsClient(mockSnsClient);
+        dao.setCircuitBreaker(new CircuitBreaker("sns", 5, 30, 10));
         dao.setBridgeConfig(mockConfig);
         
         doReturn(Environment.LOCAL).when(mockConfig).getEnvironment();
@@ -111,7 +111,7 @@ public class DynamoScheduledActivityDaoTest {
         PagedResourceList<? extends ScheduledActivity> history = activityDao
                 .getActivityHistory(context.getCriteriaContext().getHealthCode(), null, 10);
         
-        assertTrue(history.getTotal() > 30);
+        assertTrue(activityDao.getActivityHistoryCount(context.getCriteriaContext().getHealthCode()) > 30);
         assertEquals(10, history.getItems().size()); // one page
         
         Set<String> allTaskGuids = history.getItems()
@@ -120,7 +120,7 @@ public class DynamoScheduledActivityDaoTest {
                 .collect(toSet());
         
         history = activityDao.getActivityHistory(context.getCriteriaContext().getHealthCode(), history.getOffsetKey(), 10);
-        assertTrue(history.getTotal() > 30);
+        assertEquals(10, history.getTotal()); // not counted, this is the page
         assertEquals(10, history.getItems().size());
 
         // Now add the next ten, they should be unique
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -21,6 +22,7 @@ import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.OperatingSystem;
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -177,6 +179,34 @@ public class DynamoStudyDaoTest {
         }
     }
 
+    @Test
+    public void registryEntriesMatchStudies() {
+        Study study = createStudy(TestUtils.getValidStudy(DynamoStudyDaoTest.class));
+        study.setActive(true);
+        study = studyDao.updateStudy(study);
+
+        StudyRegistryEntry entry = findRegistryEntry(study.getIdentifier());
+        assertNotNull(entry);
+        assertTrue(entry.isActive());
+        assertEquals(study.getVersion(), entry.getVersion());
+
+        studyDao.deactivateStudy(study.getIdentifier());
+        Study deactivated = studyDao.getStudy(study.getIdentifier());
+
+        entry = findRegistryEntry(study.getIdentifier());
+        assertFalse(entry.isActive());
+        assertEquals(deactivated.getVersion(), entry.getVersion());
+    }
+
+    private StudyRegistryEntry findRegistryEntry(String identifier) {
+        for (StudyRegistryEntry entry : studyDao.getStudyRegistryEntries()) {
+            if (identifier.equals(entry.getIdentifier())) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
     @Test
     public void willNotSaveTwoStudiesWithSameIdentifier() {
         Study study;
@@ -68,6 +68,8 @@ public class DynamoStudyTest {
         assertTrue(node.get("healthCodeExportEnabled").asBoolean());
         assertTrue(node.get("emailVerificationEnabled").asBoolean());
         assertTrue(node.get("externalIdValidationEnabled").asBoolean());
+        assertEqualsAndNotNull(study.getRequestRateLimit(), node.get("requestRateLimit").asInt());
+        assertEqualsAndNotNull(study.getParticipantRequestRateLimit(), node.get("participantRequestRateLimit").asInt());
         assertEqualsAndNotNull("Study", node.get("type").asText());
         assertEqualsAndNotNull(study.getPushNotificationARNs().get(OperatingSystem.IOS),
                 node.get("pushNotificationARNs").get(OperatingSystem.IOS).asText());
@@ -2,20 +2,37 @@ package org.sagebionetworks.bridge.dynamodb;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.UploadSchemaDao;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
@@ -41,6 +58,7 @@ public class DynamoSurveyDaoMockTest {
 
         // mock survey mapper
         DynamoDBMapper mockSurveyMapper = mock(DynamoDBMapper.class);
+        DynamoDBMapper mockPointerMapper = mock(DynamoDBMapper.class);
 
         // mock schema dao
         UploadSchemaDao mockSchemaDao = mock(UploadSchemaDao.class);
@@ -49,6 +67,7 @@ public class DynamoSurveyDaoMockTest {
         // Set up DAO for test.
         DynamoSurveyDao surveyDao = spy(new DynamoSurveyDao());
         surveyDao.setSurveyMapper(mockSurveyMapper);
+        surveyDao.setSurveyPointerMapper(mockPointerMapper);
         surveyDao.setUploadSchemaDao(mockSchemaDao);
 
         // spy getSurvey() - There's a lot of complex logic in that query builder that's irrelevant to what we're
@@ -63,5 +82,166 @@ public class DynamoSurveyDaoMockTest {
         assertEquals(42, retval.getSchemaRevision().intValue());
 
         verify(mockSurveyMapper).save(same(retval));
+
+        // The survey pointer now points to this revision as the most recently published revision.
+        ArgumentCaptor<DynamoSurveyPointer> pointerCaptor = ArgumentCaptor.forClass(DynamoSurveyPointer.class);
+        verify(mockPointerMapper).save(pointerCaptor.capture());
+        assertEquals(0L, pointerCaptor.getValue().getLatestCreatedOn().longValue());
+        assertEquals(0L, pointerCaptor.getValue().getLatestPublishedCreatedOn().longValue());
+    }
+
+    @Test
+    public void advancingPointerRetriesOnConcurrentUpdate() {
+        DynamoSurveyPointer existing = new DynamoSurveyPointer(TestConstants.TEST_STUDY_IDENTIFIER, "test-guid");
+        existing.setLatestCreatedOn(1000L);
+        existing.setLatestPublishedCreatedOn(1000L);
+        existing.setVersion(3L);
+
+        DynamoDBMapper mockSurveyMapper = mock(DynamoDBMapper.class);
+        DynamoDBMapper mockElementMapper = mock(DynamoDBMapper.class);
+        DynamoDBMapper mockPointerMapper = mock(DynamoDBMapper.class);
+        when(mockPointerMapper.load(eq(DynamoSurveyPointer.class), eq(TestConstants.TEST_STUDY_IDENTIFIER),
+                eq("test-guid"), any(DynamoDBMapperConfig.class))).thenReturn(existing);
+        doThrow(new ConditionalCheckFailedException("conflict")).doNothing().when(mockPointerMapper)
+                .save(any(DynamoSurveyPointer.class));
+
+        DynamoSurveyDao surveyDao = new DynamoSurveyDao();
+        surveyDao.setSurveyMapper(mockSurveyMapper);
+        surveyDao.setSurveyElementMapper(mockElementMapper);
+        surveyDao.setSurveyPointerMapper(mockPointerMapper);
+        when(mockElementMapper.query(eq(DynamoSurveyElement.class), any())).thenReturn(mockPaginatedList());
+
+        DynamoSurvey survey = new DynamoSurvey();
+        survey.setGuid("test-guid");
+        survey.setStudyIdentifier(TestConstants.TEST_STUDY_IDENTIFIER);
+        Survey created = surveyDao.createSurvey(survey);
+
+        // Saved twice, the second time after reloading the pointer. The published pointer is unchanged.
+        verify(mockPointerMapper, times(2)).save(existing);
+        assertEquals(MOCK_NOW_MILLIS, created.getCreatedOn());
+        assertEquals(MOCK_NOW_MILLIS, existing.getLatestCreatedOn().longValue());
+        assertEquals(1000L, existing.getLatestPublishedCreatedOn().longValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void listsSurveysByPointer() {
+        DynamoSurveyPointer published = new DynamoSurveyPointer(TestConstants.TEST_STUDY_IDENTIFIER, "guid-1");
+        published.setLatestCreatedOn(2000L);
+        published.setLatestPublishedCreatedOn(1000L);
+        DynamoSurveyPointer unpublished = new DynamoSurveyPointer(TestConstants.TEST_STUDY_IDENTIFIER, "guid-2");
+        unpublished.setLatestCreatedOn(3000L);
+
+        DynamoDBMapper mockPointerMapper = mock(DynamoDBMapper.class);
+        PaginatedQueryList<DynamoSurveyPointer> pointerList = mockPaginatedList(published, unpublished);
+        when(mockPointerMapper.query(eq(DynamoSurveyPointer.class), any())).thenReturn(pointerList);
+
+        DynamoDBMapper mockSurveyMapper = mock(DynamoDBMapper.class);
+        when(mockSurveyMapper.batchLoad(anyListOf(Object.class))).thenAnswer(invocation -> {
+            List<Object> keys = (List<Object>) invocation.getArguments()[0];
+            return ImmutableMap.of("Survey", keys);
+        });
+
+        BridgeConfig mockConfig = mock(BridgeConfig.class);
+        when(mockConfig.getProperty(DynamoSurveyDao.LIST_BY_POINTER_PROPERTY)).thenReturn("true");
+
+        DynamoSurveyDao surveyDao = new DynamoSurveyDao();
+        surveyDao.setSurveyMapper(mockSurveyMapper);
+        surveyDao.setSurveyPointerMapper(mockPointerMapper);
+        surveyDao.setBridgeConfig(mockConfig);
+
+        List<Survey> surveys = surveyDao.getAllSurveysMostRecentVersion(TestConstants.TEST_STUDY);
+        assertEquals(2, surveys.size());
+        assertEquals("guid-1", surveys.get(0).getGuid());
+        assertEquals(2000L, surveys.get(0).getCreatedOn());
+        assertEquals("guid-2", surveys.get(1).getGuid());
+        assertEquals(3000L, surveys.get(1).getCreatedOn());
+
+        surveys = surveyDao.getAllSurveysMostRecentlyPublishedVersion(TestConstants.TEST_STUDY);
+        assertEquals(1, surveys.size());
+        assertEquals("guid-1", surveys.get(0).getGuid());
+        assertEquals(1000L, surveys.get(0).getCreatedOn());
+
+        // Revisions are never queried.
+        verify(mockSurveyMapper, never()).query(eq(DynamoSurvey.class), any());
+        verify(mockSurveyMapper, never()).queryPage(eq(DynamoSurvey.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void listsSurveysByIndexUntilPointersAreEnabled() {
+        DynamoSurvey older = new DynamoSurvey("guid-1", 1000L);
+        DynamoSurvey newer = new DynamoSurvey("guid-1", 2000L);
+        DynamoSurvey other = new DynamoSurvey("guid-2", 1500L);
+
+        QueryResultPage<DynamoSurvey> page = new QueryResultPage<>();
+        page.setResults(ImmutableList.of(older, newer, other));
+        DynamoDBMapper mockSurveyMapper = mock(DynamoDBMapper.class);
+        when(mockSurveyMapper.queryPage(eq(DynamoSurvey.class), any(DynamoDBQueryExpression.class))).thenReturn(page);
+        DynamoDBMapper mockPointerMapper = mock(DynamoDBMapper.class);
+
+        DynamoSurveyDao surveyDao = new DynamoSurveyDao();
+        surveyDao.setSurveyMapper(mockSurveyMapper);
+        surveyDao.setSurveyPointerMapper(mockPointerMapper);
+        surveyDao.setBridgeConfig(mock(BridgeConfig.class));
+
+        List<Survey> surveys = surveyDao.getAllSurveysMostRecentVersion(TestConstants.TEST_STUDY);
+        assertEquals(2, surveys.size());
+        assertEquals(2000L, surveys.get(0).getCreatedOn());
+        assertEquals("guid-2", surveys.get(1).getGuid());
+
+        verify(mockPointerMapper, never()).query(eq(DynamoSurveyPointer.class), any());
+    }
+
+    @Test
+    public void deletingPointedToRevisionRebuildsPointer() {
+        DynamoSurvey older = new DynamoSurvey("test-guid", 1000L);
+        older.setStudyIdentifier(TestConstants.TEST_STUDY_IDENTIFIER);
+        older.setPublished(true);
+        DynamoSurvey newer = new DynamoSurvey("test-guid", 2000L);
+        newer.setStudyIdentifier(TestConstants.TEST_STUDY_IDENTIFIER);
+        newer.setDeleted(true);
+
+        DynamoDBMapper mockSurveyMapper = mock(DynamoDBMapper.class);
+        PaginatedQueryList<DynamoSurvey> revisionList = mockPaginatedList(newer, older);
+        when(mockSurveyMapper.query(eq(DynamoSurvey.class), any())).thenReturn(revisionList);
+
+        DynamoSurveyPointer pointer = new DynamoSurveyPointer(TestConstants.TEST_STUDY_IDENTIFIER, "test-guid");
+        pointer.setLatestCreatedOn(2000L);
+        pointer.setLatestPublishedCreatedOn(1000L);
+        pointer.setVersion(1L);
+        DynamoDBMapper mockPointerMapper = mock(DynamoDBMapper.class);
+        when(mockPointerMapper.load(eq(DynamoSurveyPointer.class), eq(TestConstants.TEST_STUDY_IDENTIFIER),
+                eq("test-guid"), any(DynamoDBMapperConfig.class))).thenReturn(pointer);
+
+        DynamoDBMapper mockElementMapper = mock(DynamoDBMapper.class);
+        when(mockElementMapper.query(eq(DynamoSurveyElement.class), any())).thenReturn(mockPaginatedList());
+
+        DynamoSurveyDao surveyDao = spy(new DynamoSurveyDao());
+        surveyDao.setSurveyMapper(mockSurveyMapper);
+        surveyDao.setSurveyElementMapper(mockElementMapper);
+        surveyDao.setSurveyPointerMapper(mockPointerMapper);
+
+        DynamoSurvey toDelete = new DynamoSurvey("test-guid", 2000L);
+        toDelete.setStudyIdentifier(TestConstants.TEST_STUDY_IDENTIFIER);
+        GuidCreatedOnVersionHolder keys = new GuidCreatedOnVersionHolderImpl("test-guid", 2000L);
+        doReturn(toDelete).when(surveyDao).getSurvey(keys);
+
+        surveyDao.deleteSurvey(keys);
+
+        verify(mockPointerMapper).save(pointer);
+        assertEquals(1000L, pointer.getLatestCreatedOn().longValue());
+        assertEquals(1000L, pointer.getLatestPublishedCreatedOn().longValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> PaginatedQueryList<T> mockPaginatedList(T... items) {
+        List<T> itemList = ImmutableList.copyOf(items);
+        PaginatedQueryList<T> list = mock(PaginatedQueryList.class);
+        when(list.iterator()).thenAnswer(invocation -> itemList.iterator());
+        when(list.size()).thenReturn(itemList.size());
+        when(list.isEmpty()).thenReturn(itemList.isEmpty());
+        when(list.stream()).thenAnswer(invocation -> itemList.stream());
+        return list;
     }
 }
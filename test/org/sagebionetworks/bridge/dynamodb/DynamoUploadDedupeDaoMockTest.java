@@ -0,0 +1,226 @@
+package org.sagebionetworks.bridge.dynamodb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+
+public class DynamoUploadDedupeDaoMockTest {
+    private static final String HEALTH_CODE = "test-healthcode";
+    private static final String UPLOAD_MD5 = "test-md5";
+    private static final String DUPE_UPLOAD_MD5 = "dupe-md5";
+    private static final String ORIGINAL_UPLOAD_ID = "original-upload";
+    private static final DateTime NOW = DateTime.parse("2016-02-15T10:26:45-0800");
+
+    private AmazonDynamoDB mockClient;
+    private DynamoDBMapper mockMapper;
+    private DynamoUploadDedupeDao dao;
+
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW.getMillis());
+
+        // The table has one registration from yesterday, made on another node.
+        mockClient = mock(AmazonDynamoDB.class);
+        when(mockClient.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = (QueryRequest) invocation.getArguments()[0];
+            String date = request.getKeyConditions().get("uploadRequestedDate").getAttributeValueList().get(0)
+                    .getS();
+            if (date.equals("2016-02-14")) {
+                Map<String, AttributeValue> item = ImmutableMap.of("ddbKey",
+                        new AttributeValue(HEALTH_CODE + ":" + DUPE_UPLOAD_MD5));
+                return new QueryResult().withItems(ImmutableList.of(item));
+            }
+            return new QueryResult().withItems(ImmutableList.of());
+        });
+
+        mockMapper = mock(DynamoDBMapper.class);
+        mockQuery(ImmutableList.of());
+
+        dao = new DynamoUploadDedupeDao();
+        dao.setMapper(mockMapper);
+        dao.setDynamoDbClient(mockClient, new DynamoNamingHelper(BridgeConfigFactory.getConfig()));
+        dao.setFilterExecutor(Runnable::run);
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    public void queriesWholeWindowUntilFilterIsBuilt() {
+        assertNull(dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW));
+
+        // The filter is built on the first lookup (7 days back, plus today), but the first lookup can't use it.
+        verify(mockClient, times(8)).query(any(QueryRequest.class));
+        assertEquals(ImmutableList.of(NOW.minusDays(7).getMillis()), getQueryStartMillis(1));
+    }
+
+    @Test
+    public void newUploadQueriesOnlyRecentRegistrations() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        assertNull(dao.getDuplicate(HEALTH_CODE, "other-md5", NOW));
+        assertNull(dao.getDuplicate("other-healthcode", DUPE_UPLOAD_MD5, NOW));
+
+        // Registrations on other nodes since the filter was built (less the overlap) are still read from the table.
+        long recentStartMillis = NOW.getMillis() - DynamoUploadDedupeDao.FILTER_REFRESH_OVERLAP_MILLIS;
+        assertEquals(ImmutableList.of(NOW.minusDays(7).getMillis(), recentStartMillis, recentStartMillis),
+                getQueryStartMillis(3));
+    }
+
+    @Test
+    public void dupeFromOtherNodeBeforeRefreshIsFound() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        // Another node registered this upload after the filter was built. The filter doesn't know about it, but the
+        // table does.
+        DynamoUploadDedupe dedupe = new DynamoUploadDedupe();
+        dedupe.setOriginalUploadId(ORIGINAL_UPLOAD_ID);
+        mockQuery(ImmutableList.of(dedupe));
+
+        DateTime later = NOW.plusSeconds(10);
+        DateTimeUtils.setCurrentMillisFixed(later.getMillis());
+        assertEquals(ORIGINAL_UPLOAD_ID, dao.getDuplicate(HEALTH_CODE, "other-md5", later));
+        verifyTableQueried(2);
+    }
+
+    @Test
+    public void possibleDupeQueriesTable() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        DynamoUploadDedupe dedupe = new DynamoUploadDedupe();
+        dedupe.setOriginalUploadId(ORIGINAL_UPLOAD_ID);
+        mockQuery(ImmutableList.of(dedupe));
+
+        assertEquals(ORIGINAL_UPLOAD_ID, dao.getDuplicate(HEALTH_CODE, DUPE_UPLOAD_MD5, NOW));
+        assertEquals(NOW.minusDays(7).getMillis(), getQueryStartMillis(2).get(1).longValue());
+    }
+
+    @Test
+    public void registeredUploadIsAddedToFilter() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+        dao.registerUpload(HEALTH_CODE, UPLOAD_MD5, NOW, ORIGINAL_UPLOAD_ID);
+
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW.plusDays(1));
+        assertEquals(NOW.plusDays(1).minusDays(7).getMillis(), getQueryStartMillis(2).get(1).longValue());
+    }
+
+    @Test
+    public void uploadsBeforeFilterQueryWholeWindow() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        // The filter doesn't know about registrations from before the dupe window of uploads requested now.
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW.minusDays(1));
+        assertEquals(NOW.minusDays(8).getMillis(), getQueryStartMillis(2).get(1).longValue());
+    }
+
+    @Test
+    public void filterIsRefreshedIncrementally() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        DateTime later = NOW.plusMillis((int) DynamoUploadDedupeDao.FILTER_REFRESH_INTERVAL_MILLIS);
+        DateTimeUtils.setCurrentMillisFixed(later.getMillis());
+        assertNull(dao.getDuplicate(HEALTH_CODE, "other-md5", later));
+
+        // One more query, for today's registrations since the build (less the overlap).
+        ArgumentCaptor<QueryRequest> requestCaptor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(mockClient, times(9)).query(requestCaptor.capture());
+        QueryRequest refreshRequest = requestCaptor.getValue();
+        assertEquals("2016-02-15", refreshRequest.getKeyConditions().get("uploadRequestedDate")
+                .getAttributeValueList().get(0).getS());
+        assertEquals(String.valueOf(NOW.getMillis() - DynamoUploadDedupeDao.FILTER_REFRESH_OVERLAP_MILLIS),
+                refreshRequest.getQueryFilter().get("uploadRequestedOn").getAttributeValueList().get(0).getN());
+
+        // The lookup only needed registrations since the build (less the overlap). The refresh ran after it.
+        assertEquals(NOW.getMillis() - DynamoUploadDedupeDao.FILTER_REFRESH_OVERLAP_MILLIS,
+                getQueryStartMillis(2).get(1).longValue());
+    }
+
+    @Test
+    public void staleFilterQueriesFurtherBack() {
+        dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW);
+
+        // Refreshes fail, so the filter falls behind. Lookups still query everything since the last refresh.
+        doThrow(new RuntimeException("test exception")).when(mockClient).query(any(QueryRequest.class));
+        DateTime later = NOW.plusMinutes(10);
+        DateTimeUtils.setCurrentMillisFixed(later.getMillis());
+
+        dao.getDuplicate(HEALTH_CODE, "other-md5", later);
+        assertEquals(NOW.getMillis() - DynamoUploadDedupeDao.FILTER_REFRESH_OVERLAP_MILLIS,
+                getQueryStartMillis(2).get(1).longValue());
+    }
+
+    @Test
+    public void dupeWithoutFilterIsFound() {
+        // The table is authoritative, whether or not the filter is used.
+        dao.setFilterExecutor(runnable -> {});
+
+        DynamoUploadDedupe dedupe = new DynamoUploadDedupe();
+        dedupe.setOriginalUploadId(ORIGINAL_UPLOAD_ID);
+        mockQuery(ImmutableList.of(dedupe));
+
+        assertEquals(ORIGINAL_UPLOAD_ID, dao.getDuplicate(HEALTH_CODE, UPLOAD_MD5, NOW));
+        verify(mockClient, never()).query(any(QueryRequest.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockQuery(List<DynamoUploadDedupe> dedupeList) {
+        PaginatedQueryList<DynamoUploadDedupe> mockResult = mock(PaginatedQueryList.class);
+        when(mockResult.isEmpty()).thenReturn(dedupeList.isEmpty());
+        if (!dedupeList.isEmpty()) {
+            when(mockResult.get(0)).thenReturn(dedupeList.get(0));
+        }
+        when(mockMapper.query(eq(DynamoUploadDedupe.class), any(DynamoDBQueryExpression.class)))
+                .thenReturn(mockResult);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyTableQueried(int times) {
+        verify(mockMapper, times(times)).query(eq(DynamoUploadDedupe.class), any(DynamoDBQueryExpression.class));
+    }
+
+    // Verifies the table was queried the given number of times and returns the start of each query's range.
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private List<Long> getQueryStartMillis(int times) {
+        ArgumentCaptor<DynamoDBQueryExpression> queryCaptor = ArgumentCaptor.forClass(DynamoDBQueryExpression.class);
+        verify(mockMapper, times(times)).query(eq(DynamoUploadDedupe.class), queryCaptor.capture());
+
+        List<Long> startMillisList = new ArrayList<>();
+        for (DynamoDBQueryExpression query : queryCaptor.getAllValues()) {
+            Condition condition = (Condition) query.getRangeKeyConditions().get("uploadRequestedOn");
+            startMillisList.add(Long.parseLong(condition.getAttributeValueList().get(0).getN()));
+        }
+        return startMillisList;
+    }
+}
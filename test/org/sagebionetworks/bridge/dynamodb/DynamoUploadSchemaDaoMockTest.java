@@ -1127,21 +1127,30 @@ public class DynamoUploadSchemaDaoMockTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     public void getUploadSchemasForStudy() {
-        // mock result. Create four upload schemas with two different IDs with two revisions each. Should 
-        // see the highest of each revision returned. (AAA=2 and BBB=3).
-        List<UploadSchema> mockResult = ImmutableList.<UploadSchema>of(
-            makeUploadSchema("test-study", "AAA", 1), 
+        // mock index keys. Create four upload schema keys with two different IDs with two revisions each. Only the
+        // highest of each revision is loaded. (AAA=2 and BBB=3).
+        List<DynamoUploadSchema> mockKeys = ImmutableList.of(
+            makeUploadSchema("test-study", "BBB", 3),
+            makeUploadSchema("test-study", "AAA", 1),
             makeUploadSchema("test-study", "AAA", 2),
-            makeUploadSchema("test-study", "BBB", 2),
-            makeUploadSchema("test-study", "BBB", 3));
+            makeUploadSchema("test-study", "BBB", 2));
 
         // mock study ID index
         DynamoIndexHelper mockStudyIdIndex = mock(DynamoIndexHelper.class);
-        when(mockStudyIdIndex.query(UploadSchema.class, "studyId", "test-study", null)).thenReturn(mockResult);
+        when(mockStudyIdIndex.<DynamoUploadSchema>queryKeys(DynamoUploadSchema.class, "studyId", "test-study", null))
+                .thenReturn(mockKeys);
+
+        // mock mapper. batchLoad() returns the schemas for the keys it's given.
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        ArgumentCaptor<List> batchLoadKeyCaptor = ArgumentCaptor.forClass(List.class);
+        when(mockMapper.batchLoad(batchLoadKeyCaptor.capture())).thenAnswer(invocation -> ImmutableMap.of(
+                "UploadSchema", invocation.getArguments()[0]));
 
         // set up test dao
         DynamoUploadSchemaDao dao = new DynamoUploadSchemaDao();
+        dao.setDdbMapper(mockMapper);
         dao.setStudyIdIndex(mockStudyIdIndex);
 
         // execute and validate
@@ -1154,25 +1163,52 @@ public class DynamoUploadSchemaDaoMockTest {
         
         assertEquals("BBB", outputSchemaList.get(1).getSchemaId());
         assertEquals(3, outputSchemaList.get(1).getRevision());
+
+        // Old revisions are never loaded.
+        assertEquals(2, batchLoadKeyCaptor.getValue().size());
+        verify(mockStudyIdIndex, never()).query(any(), any(), any(), any());
     }
 
     @Test
     public void getUploadSchemasForStudyWithOneSchema() {
-        // mock result. 
-        List<UploadSchema> mockResult = ImmutableList.<UploadSchema>of(new DynamoUploadSchema());
+        // mock index keys.
+        DynamoUploadSchema schema = makeUploadSchema("test-study", "AAA", 1);
+        List<DynamoUploadSchema> mockKeys = ImmutableList.of(schema);
 
         // mock study ID index
         DynamoIndexHelper mockStudyIdIndex = mock(DynamoIndexHelper.class);
-        when(mockStudyIdIndex.query(UploadSchema.class, "studyId", "test-study", null)).thenReturn(mockResult);
+        when(mockStudyIdIndex.<DynamoUploadSchema>queryKeys(DynamoUploadSchema.class, "studyId", "test-study", null))
+                .thenReturn(mockKeys);
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        when(mockMapper.batchLoad(ImmutableList.<Object>of(schema))).thenReturn(
+                ImmutableMap.<String, List<Object>>of("UploadSchema", ImmutableList.<Object>of(schema)));
 
         // set up test dao
         DynamoUploadSchemaDao dao = new DynamoUploadSchemaDao();
+        dao.setDdbMapper(mockMapper);
         dao.setStudyIdIndex(mockStudyIdIndex);
 
         // execute and validate
         List<UploadSchema> outputSchemaList = dao.getUploadSchemasForStudy(new StudyIdentifierImpl("test-study"));
-        // No longer assertSame, as the DAO filters the list it gets from DDB mapper.
-        assertEquals(mockResult, outputSchemaList);
+        assertEquals(ImmutableList.of(schema), outputSchemaList);
+    }
+
+    @Test
+    public void getUploadSchemasForStudyWithNoSchemas() {
+        DynamoIndexHelper mockStudyIdIndex = mock(DynamoIndexHelper.class);
+        when(mockStudyIdIndex.<DynamoUploadSchema>queryKeys(DynamoUploadSchema.class, "studyId", "test-study", null))
+                .thenReturn(ImmutableList.of());
+
+        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+
+        DynamoUploadSchemaDao dao = new DynamoUploadSchemaDao();
+        dao.setDdbMapper(mockMapper);
+        dao.setStudyIdIndex(mockStudyIdIndex);
+
+        List<UploadSchema> outputSchemaList = dao.getUploadSchemasForStudy(new StudyIdentifierImpl("test-study"));
+        assertTrue(outputSchemaList.isEmpty());
+        verify(mockMapper, never()).batchLoad(any(List.class));
     }
     
     @Test
@@ -0,0 +1,150 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountSummary;
+import org.sagebionetworks.bridge.models.accounts.Email;
+import org.sagebionetworks.bridge.models.accounts.EmailVerification;
+import org.sagebionetworks.bridge.models.accounts.PasswordReset;
+import org.sagebionetworks.bridge.models.accounts.SignIn;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Stand-in for the Stormpath account DAO. Accounts are held in memory and passwords are compared in plain text.
+ * Email verification and password reset are not supported.
+ */
+public class InMemoryAccountDao implements AccountDao {
+
+    private final Map<String,LoadTestAccount> accountsById = Maps.newConcurrentMap();
+    private final Map<String,LoadTestAccount> accountsByEmail = Maps.newConcurrentMap();
+
+    public void addAccount(LoadTestAccount account) {
+        checkNotNull(account);
+        if (accountsByEmail.putIfAbsent(emailKey(account.getStudyIdentifier(), account.getEmail()), account) != null) {
+            throw new EntityAlreadyExistsException(account, "Account already exists.");
+        }
+        accountsById.put(account.getId(), account);
+    }
+
+    @Override
+    public void verifyEmail(EmailVerification verification) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void resendEmailVerificationToken(StudyIdentifier studyIdentifier, Email email) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void requestResetPassword(Study study, Email email) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void resetPassword(PasswordReset passwordReset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Account authenticate(Study study, SignIn signIn) {
+        LoadTestAccount account = accountsByEmail.get(emailKey(study.getStudyIdentifier(), signIn.getEmail()));
+        if (account == null || !account.getPassword().equals(signIn.getPassword())) {
+            throw new EntityNotFoundException(Account.class);
+        }
+        return account;
+    }
+
+    @Override
+    public Account constructAccount(Study study, String email, String password) {
+        String id = BridgeUtils.generateGuid();
+        return new LoadTestAccount(id, study.getStudyIdentifier(), email, password, BridgeUtils.generateGuid());
+    }
+
+    @Override
+    public void createAccount(Study study, Account account, boolean suppressEmail) {
+        addAccount((LoadTestAccount) account);
+    }
+
+    @Override
+    public void updateAccount(Account account) {
+        // Accounts are updated in place.
+    }
+
+    @Override
+    public Account getAccount(Study study, String id) {
+        LoadTestAccount account = accountsById.get(id);
+        if (account == null || !isInStudy(account, study)) {
+            return null;
+        }
+        return account;
+    }
+
+    @Override
+    public void deleteAccount(Study study, String email) {
+        LoadTestAccount account = accountsByEmail.remove(emailKey(study.getStudyIdentifier(), email));
+        if (account != null) {
+            accountsById.remove(account.getId());
+        }
+    }
+
+    @Override
+    public Iterator<AccountSummary> getAllAccounts() {
+        return accountsById.values().stream().map(InMemoryAccountDao::summarize).iterator();
+    }
+
+    @Override
+    public Iterator<AccountSummary> getStudyAccounts(Study study) {
+        return accountsById.values().stream()
+                .filter(account -> isInStudy(account, study))
+                .map(InMemoryAccountDao::summarize).iterator();
+    }
+
+    @Override
+    public PagedResourceList<AccountSummary> getPagedAccountSummaries(Study study, int offsetBy, int pageSize,
+            String emailFilter, DateTime startDate, DateTime endDate) {
+        List<AccountSummary> summaries = accountsById.values().stream()
+                .filter(account -> isInStudy(account, study))
+                .filter(account -> emailFilter == null || account.getEmail().contains(emailFilter))
+                .map(InMemoryAccountDao::summarize).collect(Collectors.toList());
+        int end = Math.min(offsetBy + pageSize, summaries.size());
+        List<AccountSummary> page = (offsetBy < end) ? summaries.subList(offsetBy, end) : Collections.emptyList();
+        return new PagedResourceList<>(page, offsetBy, pageSize, summaries.size());
+    }
+
+    @Override
+    public String getHealthCodeForEmail(Study study, String email) {
+        LoadTestAccount account = accountsByEmail.get(emailKey(study.getStudyIdentifier(), email));
+        return (account == null) ? null : account.getHealthCode();
+    }
+
+    private static String emailKey(StudyIdentifier studyId, String email) {
+        return studyId.getIdentifier() + ":" + email;
+    }
+
+    private static boolean isInStudy(Account account, Study study) {
+        return account.getStudyIdentifier().getIdentifier().equals(study.getIdentifier());
+    }
+
+    private static AccountSummary summarize(Account account) {
+        return new AccountSummary(account.getFirstName(), account.getLastName(), account.getEmail(),
+                account.getId(), account.getCreatedOn(), account.getStatus(), account.getStudyIdentifier());
+    }
+}
@@ -0,0 +1,55 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.Map;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.dao.ActivityEventDao;
+import org.sagebionetworks.bridge.models.activities.ActivityEvent;
+import org.sagebionetworks.bridge.models.activities.ActivityEventUtils;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Stand-in for the DynamoDB activity event DAO. Like the real DAO, enrollment is only recorded once, and other events
+ * are only replaced by later events.
+ */
+public class InMemoryActivityEventDao implements ActivityEventDao {
+
+    // health code -> event ID -> event
+    private final Map<String,Map<String,ActivityEvent>> events = Maps.newConcurrentMap();
+
+    @Override
+    public boolean publishEvent(ActivityEvent event) {
+        Map<String,ActivityEvent> participantEvents = events.computeIfAbsent(event.getHealthCode(),
+                key -> Maps.newConcurrentMap());
+        synchronized (participantEvents) {
+            ActivityEvent existing = participantEvents.get(event.getEventId());
+            if (existing != null && (ActivityEventUtils.isEnrollment(event)
+                    || existing.getTimestamp() >= event.getTimestamp())) {
+                return false;
+            }
+            participantEvents.put(event.getEventId(), event);
+            return true;
+        }
+    }
+
+    @Override
+    public Map<String,DateTime> getActivityEventMap(String healthCode) {
+        Map<String,ActivityEvent> participantEvents = events.get(healthCode);
+        if (participantEvents == null) {
+            return ImmutableMap.of();
+        }
+        Map<String,DateTime> map = Maps.newHashMap();
+        for (ActivityEvent event : participantEvents.values()) {
+            ActivityEventUtils.putEvent(map, event);
+        }
+        return ImmutableMap.copyOf(map);
+    }
+
+    @Override
+    public void deleteActivityEvents(String healthCode) {
+        events.remove(healthCode);
+    }
+}
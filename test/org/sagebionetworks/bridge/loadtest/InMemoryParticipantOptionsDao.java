@@ -0,0 +1,73 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.Map;
+
+import org.sagebionetworks.bridge.dao.ParticipantOption;
+import org.sagebionetworks.bridge.dao.ParticipantOptionsDao;
+import org.sagebionetworks.bridge.models.accounts.AllParticipantOptionsLookup;
+import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB participant options DAO. */
+public class InMemoryParticipantOptionsDao implements ParticipantOptionsDao {
+
+    // health code -> option name -> value
+    private final Map<String,Map<String,String>> options = Maps.newConcurrentMap();
+    private final Map<String,String> studyIdsByHealthCode = Maps.newConcurrentMap();
+
+    @Override
+    public void setOption(StudyIdentifier studyIdentifier, String healthCode, ParticipantOption option, String value) {
+        getParticipantOptions(studyIdentifier, healthCode).put(option.name(), value);
+    }
+
+    @Override
+    public void setAllOptions(StudyIdentifier studyIdentifier, String healthCode,
+            Map<ParticipantOption,String> options) {
+        Map<String,String> participantOptions = getParticipantOptions(studyIdentifier, healthCode);
+        for (Map.Entry<ParticipantOption,String> entry : options.entrySet()) {
+            participantOptions.put(entry.getKey().name(), entry.getValue());
+        }
+    }
+
+    @Override
+    public ParticipantOptionsLookup getOptions(String healthCode) {
+        Map<String,String> participantOptions = options.get(healthCode);
+        if (participantOptions == null) {
+            return new ParticipantOptionsLookup(ImmutableMap.of());
+        }
+        return new ParticipantOptionsLookup(ImmutableMap.copyOf(participantOptions));
+    }
+
+    @Override
+    public AllParticipantOptionsLookup getOptionsForAllParticipants(StudyIdentifier studyIdentifier) {
+        AllParticipantOptionsLookup allLookup = new AllParticipantOptionsLookup();
+        for (Map.Entry<String,String> entry : studyIdsByHealthCode.entrySet()) {
+            if (entry.getValue().equals(studyIdentifier.getIdentifier())) {
+                allLookup.put(entry.getKey(), getOptions(entry.getKey()));
+            }
+        }
+        return allLookup;
+    }
+
+    @Override
+    public void deleteOption(String healthCode, ParticipantOption option) {
+        Map<String,String> participantOptions = options.get(healthCode);
+        if (participantOptions != null) {
+            participantOptions.remove(option.name());
+        }
+    }
+
+    @Override
+    public void deleteAllOptions(String healthCode) {
+        options.remove(healthCode);
+        studyIdsByHealthCode.remove(healthCode);
+    }
+
+    private Map<String,String> getParticipantOptions(StudyIdentifier studyIdentifier, String healthCode) {
+        studyIdsByHealthCode.put(healthCode, studyIdentifier.getIdentifier());
+        return options.computeIfAbsent(healthCode, key -> Maps.newConcurrentMap());
+    }
+}
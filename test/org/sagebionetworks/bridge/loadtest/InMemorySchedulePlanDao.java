@@ -0,0 +1,65 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.dao.SchedulePlanDao;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.ClientInfo;
+import org.sagebionetworks.bridge.models.schedules.SchedulePlan;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB schedule plan DAO. */
+public class InMemorySchedulePlanDao implements SchedulePlanDao {
+
+    // study ID -> schedule plan GUID -> schedule plan
+    private final Map<String,Map<String,SchedulePlan>> plans = Maps.newConcurrentMap();
+
+    @Override
+    public List<SchedulePlan> getSchedulePlans(ClientInfo clientInfo, StudyIdentifier studyIdentifier) {
+        return ImmutableList.copyOf(getStudyPlans(studyIdentifier).values());
+    }
+
+    @Override
+    public SchedulePlan getSchedulePlan(StudyIdentifier studyIdentifier, String guid) {
+        SchedulePlan plan = getStudyPlans(studyIdentifier).get(guid);
+        if (plan == null) {
+            throw new EntityNotFoundException(SchedulePlan.class);
+        }
+        return plan;
+    }
+
+    @Override
+    public SchedulePlan createSchedulePlan(StudyIdentifier studyIdentifier, SchedulePlan plan) {
+        plan.setGuid(BridgeUtils.generateGuid());
+        plan.setStudyKey(studyIdentifier.getIdentifier());
+        plan.setModifiedOn(DateUtils.getCurrentMillisFromEpoch());
+        plan.setVersion(1L);
+        getStudyPlans(studyIdentifier).put(plan.getGuid(), plan);
+        return plan;
+    }
+
+    @Override
+    public SchedulePlan updateSchedulePlan(StudyIdentifier studyIdentifier, SchedulePlan plan) {
+        getSchedulePlan(studyIdentifier, plan.getGuid());
+        plan.setModifiedOn(DateUtils.getCurrentMillisFromEpoch());
+        plan.setVersion(plan.getVersion() == null ? 1L : plan.getVersion() + 1L);
+        getStudyPlans(studyIdentifier).put(plan.getGuid(), plan);
+        return plan;
+    }
+
+    @Override
+    public void deleteSchedulePlan(StudyIdentifier studyIdentifier, String guid) {
+        getSchedulePlan(studyIdentifier, guid);
+        getStudyPlans(studyIdentifier).remove(guid);
+    }
+
+    private Map<String,SchedulePlan> getStudyPlans(StudyIdentifier studyIdentifier) {
+        return plans.computeIfAbsent(studyIdentifier.getIdentifier(), id -> Maps.newConcurrentMap());
+    }
+}
@@ -0,0 +1,100 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.joda.time.DateTimeZone;
+
+import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Stand-in for the DynamoDB scheduled activity DAO. Activities are held in GUID order per participant, which is the
+ * order the real table pages through a participant's history.
+ */
+public class InMemoryScheduledActivityDao implements ScheduledActivityDao {
+
+    // health code -> activity GUID -> activity
+    private final Map<String,NavigableMap<String,ScheduledActivity>> activities = Maps.newConcurrentMap();
+
+    @Override
+    public PagedResourceList<? extends ScheduledActivity> getActivityHistory(String healthCode, String offsetKey,
+            int pageSize) {
+        NavigableMap<String,ScheduledActivity> participantActivities = getParticipantActivities(healthCode);
+        if (offsetKey != null) {
+            participantActivities = participantActivities.tailMap(offsetKey, false);
+        }
+        List<ScheduledActivity> page = Lists.newArrayListWithCapacity(pageSize);
+        for (ScheduledActivity activity : participantActivities.values()) {
+            if (page.size() == pageSize) {
+                break;
+            }
+            activity.setTimeZone(DateTimeZone.UTC);
+            page.add(activity);
+        }
+        String nextPageOffsetKey = (page.size() == pageSize && participantActivities.size() > pageSize)
+                ? page.get(pageSize - 1).getGuid() : null;
+        return new PagedResourceList<>(page, null, pageSize, page.size()).withOffsetKey(nextPageOffsetKey);
+    }
+
+    @Override
+    public int getActivityHistoryCount(String healthCode) {
+        return getParticipantActivities(healthCode).size();
+    }
+
+    @Override
+    public ScheduledActivity getActivity(DateTimeZone timeZone, String healthCode, String guid) {
+        ScheduledActivity activity = getParticipantActivities(healthCode).get(guid);
+        if (activity == null) {
+            throw new EntityNotFoundException(ScheduledActivity.class);
+        }
+        activity.setTimeZone(timeZone);
+        return activity;
+    }
+
+    @Override
+    public List<ScheduledActivity> getActivities(DateTimeZone timeZone, List<ScheduledActivity> activities) {
+        if (activities.isEmpty()) {
+            return ImmutableList.of();
+        }
+        List<ScheduledActivity> results = Lists.newArrayListWithCapacity(activities.size());
+        for (ScheduledActivity key : activities) {
+            ScheduledActivity activity = getParticipantActivities(key.getHealthCode()).get(key.getGuid());
+            if (activity != null) {
+                activity.setTimeZone(timeZone);
+                results.add(activity);
+            }
+        }
+        results.sort(ScheduledActivity.SCHEDULED_ACTIVITY_COMPARATOR);
+        return results;
+    }
+
+    @Override
+    public void saveActivities(List<ScheduledActivity> activities) {
+        for (ScheduledActivity activity : activities) {
+            getParticipantActivities(activity.getHealthCode()).put(activity.getGuid(), activity);
+        }
+    }
+
+    @Override
+    public void updateActivities(String healthCode, List<ScheduledActivity> activities) {
+        saveActivities(activities);
+    }
+
+    @Override
+    public void deleteActivitiesForUser(String healthCode) {
+        activities.remove(healthCode);
+    }
+
+    private NavigableMap<String,ScheduledActivity> getParticipantActivities(String healthCode) {
+        return activities.computeIfAbsent(healthCode, key -> new ConcurrentSkipListMap<>());
+    }
+}
@@ -0,0 +1,73 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.sagebionetworks.bridge.dao.StudyDao;
+import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB study DAO. */
+public class InMemoryStudyDao implements StudyDao {
+
+    private final Map<String,Study> studies = Maps.newConcurrentMap();
+
+    @Override
+    public boolean doesIdentifierExist(String identifier) {
+        return studies.containsKey(identifier);
+    }
+
+    @Override
+    public Study getStudy(String identifier) {
+        Study study = studies.get(identifier);
+        if (study == null) {
+            throw new EntityNotFoundException(Study.class, "Study '" + identifier + "' not found.");
+        }
+        return study;
+    }
+
+    @Override
+    public List<Study> getStudies() {
+        return ImmutableList.copyOf(studies.values());
+    }
+
+    @Override
+    public List<StudyRegistryEntry> getStudyRegistryEntries() {
+        return studies.values().stream()
+                .map(study -> new StudyRegistryEntry(study.getIdentifier(), study.isActive(), study.getVersion()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Study createStudy(Study study) {
+        if (studies.putIfAbsent(study.getIdentifier(), study) != null) {
+            throw new EntityAlreadyExistsException(study);
+        }
+        study.setVersion(1L);
+        return study;
+    }
+
+    @Override
+    public Study updateStudy(Study study) {
+        getStudy(study.getIdentifier());
+        study.setVersion(study.getVersion() == null ? 1L : study.getVersion() + 1L);
+        studies.put(study.getIdentifier(), study);
+        return study;
+    }
+
+    @Override
+    public void deleteStudy(Study study) {
+        studies.remove(study.getIdentifier());
+    }
+
+    @Override
+    public void deactivateStudy(String studyId) {
+        getStudy(studyId).setActive(false);
+    }
+}
@@ -0,0 +1,100 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static org.sagebionetworks.bridge.util.BridgeCollectors.toImmutableList;
+
+import java.util.List;
+import java.util.Map;
+
+import org.sagebionetworks.bridge.dao.SubpopulationDao;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.models.Criteria;
+import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB subpopulation DAO. */
+public class InMemorySubpopulationDao implements SubpopulationDao {
+
+    // study ID -> subpopulation GUID -> subpopulation
+    private final Map<String,Map<String,Subpopulation>> subpopulations = Maps.newConcurrentMap();
+
+    @Override
+    public Subpopulation createSubpopulation(Subpopulation subpop) {
+        if (subpop.getCriteria() == null) {
+            subpop.setCriteria(Criteria.create());
+        }
+        subpop.setVersion(1L);
+        getStudySubpopulations(subpop.getStudyIdentifier()).put(subpop.getGuidString(), subpop);
+        return subpop;
+    }
+
+    @Override
+    public Subpopulation createDefaultSubpopulation(StudyIdentifier studyId) {
+        Subpopulation subpop = Subpopulation.create();
+        subpop.setStudyIdentifier(studyId.getIdentifier());
+        subpop.setGuidString(studyId.getIdentifier());
+        subpop.setName("Default Consent Group");
+        subpop.setDefaultGroup(true);
+        subpop.setRequired(true);
+        return createSubpopulation(subpop);
+    }
+
+    @Override
+    public List<Subpopulation> getSubpopulations(StudyIdentifier studyId, boolean createDefault,
+            boolean includeDeleted) {
+        Map<String,Subpopulation> studySubpops = getStudySubpopulations(studyId.getIdentifier());
+        if (createDefault && studySubpops.isEmpty()) {
+            createDefaultSubpopulation(studyId);
+        }
+        return studySubpops.values().stream().filter(subpop -> includeDeleted || !subpop.isDeleted())
+                .collect(toImmutableList());
+    }
+
+    @Override
+    public Subpopulation getSubpopulation(StudyIdentifier studyId, SubpopulationGuid subpopGuid) {
+        Subpopulation subpop = getStudySubpopulations(studyId.getIdentifier()).get(subpopGuid.getGuid());
+        if (subpop == null) {
+            throw new EntityNotFoundException(Subpopulation.class);
+        }
+        return subpop;
+    }
+
+    @Override
+    public List<Subpopulation> getSubpopulationsForUser(CriteriaContext context) {
+        return getSubpopulations(context.getStudyIdentifier(), true, false).stream()
+                .filter(subpop -> CriteriaUtils.matchCriteria(context, subpop.getCriteria()))
+                .collect(toImmutableList());
+    }
+
+    @Override
+    public Subpopulation updateSubpopulation(Subpopulation subpop) {
+        getSubpopulation(new StudyIdentifierImpl(subpop.getStudyIdentifier()), subpop.getGuid());
+        subpop.setVersion(subpop.getVersion() == null ? 1L : subpop.getVersion() + 1L);
+        getStudySubpopulations(subpop.getStudyIdentifier()).put(subpop.getGuidString(), subpop);
+        return subpop;
+    }
+
+    @Override
+    public void deleteSubpopulation(StudyIdentifier studyId, SubpopulationGuid subpopGuid, boolean physicalDelete) {
+        Subpopulation subpop = getSubpopulation(studyId, subpopGuid);
+        if (physicalDelete) {
+            getStudySubpopulations(studyId.getIdentifier()).remove(subpopGuid.getGuid());
+        } else {
+            subpop.setDeleted(true);
+        }
+    }
+
+    @Override
+    public void deleteAllSubpopulations(StudyIdentifier studyId) {
+        subpopulations.remove(studyId.getIdentifier());
+    }
+
+    private Map<String,Subpopulation> getStudySubpopulations(String studyId) {
+        return subpopulations.computeIfAbsent(studyId, id -> Maps.newConcurrentMap());
+    }
+}
@@ -0,0 +1,137 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.dao.SurveyDao;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.surveys.Survey;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Stand-in for the DynamoDB survey DAO. Publishing a survey does not create an upload schema, and surveys cannot be
+ * updated or versioned.
+ */
+public class InMemorySurveyDao implements SurveyDao {
+
+    private static final Comparator<Survey> NEWEST_FIRST = Comparator.comparingLong(Survey::getCreatedOn).reversed();
+
+    // survey GUID -> createdOn -> survey
+    private final Map<String,Map<Long,Survey>> surveys = Maps.newConcurrentMap();
+
+    @Override
+    public Survey createSurvey(Survey survey) {
+        if (survey.getGuid() == null) {
+            survey.setGuid(BridgeUtils.generateGuid());
+        }
+        long time = DateUtils.getCurrentMillisFromEpoch();
+        survey.setCreatedOn(time);
+        survey.setModifiedOn(time);
+        survey.setSchemaRevision(null);
+        survey.setPublished(false);
+        survey.setDeleted(false);
+        survey.setVersion(1L);
+        surveys.computeIfAbsent(survey.getGuid(), guid -> Maps.newConcurrentMap()).put(time, survey);
+        return survey;
+    }
+
+    @Override
+    public Survey updateSurvey(Survey survey) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Survey versionSurvey(GuidCreatedOnVersionHolder keys) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Survey publishSurvey(StudyIdentifier study, GuidCreatedOnVersionHolder keys, boolean newSchemaRev) {
+        Survey survey = getSurvey(keys);
+        if (survey.isDeleted()) {
+            throw new EntityNotFoundException(Survey.class);
+        }
+        if (!survey.isPublished()) {
+            survey.setPublished(true);
+            survey.setModifiedOn(DateUtils.getCurrentMillisFromEpoch());
+            survey.setSchemaRevision(1);
+        }
+        return survey;
+    }
+
+    @Override
+    public void deleteSurvey(GuidCreatedOnVersionHolder keys) {
+        getSurvey(keys).setDeleted(true);
+    }
+
+    @Override
+    public void deleteSurveyPermanently(GuidCreatedOnVersionHolder keys) {
+        getSurvey(keys);
+        surveys.get(keys.getGuid()).remove(keys.getCreatedOn());
+    }
+
+    @Override
+    public Survey getSurvey(GuidCreatedOnVersionHolder keys) {
+        Map<Long,Survey> versions = surveys.get(keys.getGuid());
+        Survey survey = (versions == null) ? null : versions.get(keys.getCreatedOn());
+        if (survey == null) {
+            throw new EntityNotFoundException(Survey.class);
+        }
+        return survey;
+    }
+
+    @Override
+    public List<Survey> getSurveyAllVersions(StudyIdentifier studyIdentifier, String guid) {
+        List<Survey> versions = getVersions(studyIdentifier, guid).collect(Collectors.toList());
+        if (versions.isEmpty()) {
+            throw new EntityNotFoundException(Survey.class);
+        }
+        return versions;
+    }
+
+    @Override
+    public Survey getSurveyMostRecentVersion(StudyIdentifier studyIdentifier, String guid) {
+        return getVersions(studyIdentifier, guid).findFirst()
+                .orElseThrow(() -> new EntityNotFoundException(Survey.class));
+    }
+
+    @Override
+    public Survey getSurveyMostRecentlyPublishedVersion(StudyIdentifier studyIdentifier, String guid) {
+        return getVersions(studyIdentifier, guid).filter(Survey::isPublished).findFirst()
+                .orElseThrow(() -> new EntityNotFoundException(Survey.class));
+    }
+
+    @Override
+    public List<Survey> getAllSurveysMostRecentlyPublishedVersion(StudyIdentifier studyIdentifier) {
+        return surveys.keySet().stream()
+                .map(guid -> getVersions(studyIdentifier, guid).filter(Survey::isPublished).findFirst().orElse(null))
+                .filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Survey> getAllSurveysMostRecentVersion(StudyIdentifier studyIdentifier) {
+        return surveys.keySet().stream()
+                .map(guid -> getVersions(studyIdentifier, guid).findFirst().orElse(null))
+                .filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private Stream<Survey> getVersions(StudyIdentifier studyIdentifier, String guid) {
+        Map<Long,Survey> versions = surveys.get(guid);
+        if (versions == null) {
+            return Stream.empty();
+        }
+        return versions.values().stream()
+                .filter(survey -> survey.getStudyIdentifier().equals(studyIdentifier.getIdentifier()))
+                .filter(survey -> !survey.isDeleted())
+                .sorted(NEWEST_FIRST);
+    }
+}
@@ -0,0 +1,105 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.dao.UploadDao;
+import org.sagebionetworks.bridge.dynamodb.DynamoUpload2;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
+import org.sagebionetworks.bridge.exceptions.NotFoundException;
+import org.sagebionetworks.bridge.json.DateUtils;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.models.upload.UploadCompletionClient;
+import org.sagebionetworks.bridge.models.upload.UploadRequest;
+import org.sagebionetworks.bridge.models.upload.UploadStatus;
+
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB upload DAO. */
+public class InMemoryUploadDao implements UploadDao {
+
+    private final Map<String,DynamoUpload2> uploads = Maps.newConcurrentMap();
+
+    @Override
+    public Upload createUpload(@Nonnull UploadRequest uploadRequest, @Nonnull StudyIdentifier studyId,
+            @Nonnull String healthCode, @Nullable String originalUploadId) {
+        DynamoUpload2 upload = new DynamoUpload2(uploadRequest, healthCode);
+        upload.setStudyId(studyId.getIdentifier());
+        upload.setRequestedOn(DateUtils.getCurrentMillisFromEpoch());
+
+        if (originalUploadId != null) {
+            upload.setDuplicateUploadId(originalUploadId);
+            upload.setStatus(UploadStatus.DUPLICATE);
+        }
+        uploads.put(upload.getUploadId(), upload);
+        return upload;
+    }
+
+    @Override
+    public Upload getUpload(@Nonnull String uploadId) {
+        DynamoUpload2 upload = uploads.get(uploadId);
+        if (upload == null) {
+            throw new NotFoundException(String.format("Upload ID %s not found", uploadId));
+        }
+        return upload;
+    }
+
+    @Override
+    public List<? extends Upload> getUploads(@Nonnull String healthCode, @Nonnull DateTime startTime,
+            @Nonnull DateTime endTime) {
+        return uploads.values().stream()
+                .filter(upload -> upload.getHealthCode().equals(healthCode))
+                .filter(upload -> isRequestedBetween(upload, startTime, endTime))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<? extends Upload> getStudyUploads(@Nonnull StudyIdentifier studyId, @Nonnull DateTime startTime,
+            @Nonnull DateTime endTime) {
+        return uploads.values().stream()
+                .filter(upload -> upload.getStudyId().equals(studyId.getIdentifier()))
+                .filter(upload -> isRequestedBetween(upload, startTime, endTime))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void uploadComplete(@Nonnull UploadCompletionClient completedBy, @Nonnull Upload upload) {
+        DynamoUpload2 upload2 = (DynamoUpload2) upload;
+        synchronized (upload2) {
+            if (upload2.getCompletedOn() != 0L) {
+                throw new ConcurrentModificationException("Upload " + upload.getUploadId() + " is already complete");
+            }
+            upload2.setStatus(UploadStatus.VALIDATION_IN_PROGRESS);
+            upload2.setUploadDate(LocalDate.now(BridgeConstants.LOCAL_TIME_ZONE));
+            upload2.setCompletedOn(DateUtils.getCurrentMillisFromEpoch());
+            upload2.setCompletedBy(completedBy);
+        }
+    }
+
+    @Override
+    public void writeValidationStatus(@Nonnull Upload upload, @Nonnull UploadStatus status,
+            @Nonnull List<String> validationMessageList, String recordId) {
+        DynamoUpload2 upload2 = (DynamoUpload2) upload;
+        upload2.setStatus(status);
+        upload2.appendValidationMessages(validationMessageList);
+        upload2.setRecordId(recordId);
+    }
+
+    @Override
+    public void deleteUploadsForHealthCode(@Nonnull String healthCode) {
+        uploads.values().removeIf(upload -> upload.getHealthCode().equals(healthCode));
+    }
+
+    private static boolean isRequestedBetween(Upload upload, DateTime startTime, DateTime endTime) {
+        return upload.getRequestedOn() >= startTime.getMillis() && upload.getRequestedOn() <= endTime.getMillis();
+    }
+}
@@ -0,0 +1,27 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.Map;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.dao.UploadDedupeDao;
+
+import com.google.common.collect.Maps;
+
+/** Stand-in for the DynamoDB upload dedupe DAO. Unlike the real DAO, it does not expire entries. */
+public class InMemoryUploadDedupeDao implements UploadDedupeDao {
+
+    // health code and upload MD5 -> original upload ID
+    private final Map<String,String> originalUploadIds = Maps.newConcurrentMap();
+
+    @Override
+    public String getDuplicate(String healthCode, String uploadMd5, DateTime uploadRequestedOn) {
+        return originalUploadIds.get(healthCode + ":" + uploadMd5);
+    }
+
+    @Override
+    public void registerUpload(String healthCode, String uploadMd5, DateTime uploadRequestedOn,
+            String originalUploadId) {
+        originalUploadIds.putIfAbsent(healthCode + ":" + uploadMd5, originalUploadId);
+    }
+}
@@ -0,0 +1,170 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Collects the latency of every request made while recording, grouped by a request label, and summarizes them as
+ * throughput and latency percentiles. Latencies are kept in full rather than bucketed, which is fine for the minutes
+ * a local run lasts.
+ */
+public class LatencyRecorder {
+
+    static final String HEADER = "request,count,errors,throughputPerSecond,meanMillis,p50Millis,p90Millis,p99Millis,maxMillis";
+
+    private final Map<String,RequestStats> stats = new ConcurrentSkipListMap<>();
+    private volatile boolean recording;
+    private long startNanos;
+    private long elapsedNanos;
+
+    public synchronized void start() {
+        stats.clear();
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    public synchronized void stop() {
+        recording = false;
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    /** Record one request. Requests made while not recording (during warm-up) are ignored. */
+    public void record(String label, long latencyNanos, boolean succeeded) {
+        if (recording) {
+            stats.computeIfAbsent(label, key -> new RequestStats()).add(latencyNanos, succeeded);
+        }
+    }
+
+    public synchronized List<Summary> summarize() {
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        List<Summary> summaries = Lists.newArrayListWithCapacity(stats.size());
+        for (Map.Entry<String,RequestStats> entry : stats.entrySet()) {
+            summaries.add(entry.getValue().summarize(entry.getKey(), elapsedSeconds));
+        }
+        return summaries;
+    }
+
+    /** Write the summary as CSV to the given file, and return the same summary as a table for the console. */
+    public String writeReport(File file) throws IOException {
+        List<Summary> summaries = summarize();
+
+        List<String> lines = Lists.newArrayList(HEADER);
+        StringBuilder table = new StringBuilder(String.format("%-16s %8s %7s %9s %9s %9s %9s %9s %9s%n", "request",
+                "count", "errors", "req/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Summary summary : summaries) {
+            lines.add(String.format("%s,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f", summary.getLabel(), summary.getCount(),
+                    summary.getErrors(), summary.getThroughputPerSecond(), summary.getMeanMillis(),
+                    summary.getP50Millis(), summary.getP90Millis(), summary.getP99Millis(), summary.getMaxMillis()));
+            table.append(String.format("%-16s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", summary.getLabel(),
+                    summary.getCount(), summary.getErrors(), summary.getThroughputPerSecond(), summary.getMeanMillis(),
+                    summary.getP50Millis(), summary.getP90Millis(), summary.getP99Millis(), summary.getMaxMillis()));
+        }
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        return table.toString();
+    }
+
+    private static class RequestStats {
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        synchronized void add(long latencyNanos, boolean succeeded) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (!succeeded) {
+                errors++;
+            }
+        }
+
+        synchronized Summary summarize(String label, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long total = 0L;
+            for (long latency : sorted) {
+                total += latency;
+            }
+            double throughput = (elapsedSeconds > 0) ? count / elapsedSeconds : 0;
+            double mean = (count > 0) ? toMillis(total) / count : 0;
+            return new Summary(label, count, errors, throughput, mean, percentile(sorted, 50),
+                    percentile(sorted, 90), percentile(sorted, 99), (count > 0) ? toMillis(sorted[count - 1]) : 0);
+        }
+
+        // Nearest-rank percentile: the smallest latency that at least the given percentage of requests did not exceed.
+        private static double percentile(long[] sorted, int percent) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return toMillis(sorted[Math.max(rank, 1) - 1]);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    public static final class Summary {
+        private final String label;
+        private final int count;
+        private final int errors;
+        private final double throughputPerSecond;
+        private final double meanMillis;
+        private final double p50Millis;
+        private final double p90Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Summary(String label, int count, int errors, double throughputPerSecond, double meanMillis, double p50Millis,
+                double p90Millis, double p99Millis, double maxMillis) {
+            this.label = label;
+            this.count = count;
+            this.errors = errors;
+            this.throughputPerSecond = throughputPerSecond;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p90Millis = p90Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+        public int getCount() {
+            return count;
+        }
+        public int getErrors() {
+            return errors;
+        }
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+        public double getMeanMillis() {
+            return meanMillis;
+        }
+        public double getP50Millis() {
+            return p50Millis;
+        }
+        public double getP90Millis() {
+            return p90Millis;
+        }
+        public double getP99Millis() {
+            return p99Millis;
+        }
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
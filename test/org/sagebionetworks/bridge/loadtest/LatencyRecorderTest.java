@@ -0,0 +1,58 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.loadtest.LatencyRecorder.Summary;
+
+public class LatencyRecorderTest {
+
+    private static final double DELTA = 0.001;
+
+    @Test
+    public void summarizesPercentilesPerRequest() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.start();
+        // 1 through 100 ms, recorded out of order.
+        for (int i = 100; i > 0; i--) {
+            recorder.record("getActivities", TimeUnit.MILLISECONDS.toNanos(i), i != 100);
+        }
+        recorder.record("signIn", TimeUnit.MILLISECONDS.toNanos(7), true);
+        recorder.stop();
+
+        List<Summary> summaries = recorder.summarize();
+        assertEquals(2, summaries.size());
+
+        Summary activities = summaries.get(0);
+        assertEquals("getActivities", activities.getLabel());
+        assertEquals(100, activities.getCount());
+        assertEquals(1, activities.getErrors());
+        assertEquals(50.5, activities.getMeanMillis(), DELTA);
+        assertEquals(50.0, activities.getP50Millis(), DELTA);
+        assertEquals(90.0, activities.getP90Millis(), DELTA);
+        assertEquals(99.0, activities.getP99Millis(), DELTA);
+        assertEquals(100.0, activities.getMaxMillis(), DELTA);
+        assertTrue(activities.getThroughputPerSecond() > 0);
+
+        Summary signIn = summaries.get(1);
+        assertEquals("signIn", signIn.getLabel());
+        assertEquals(7.0, signIn.getP50Millis(), DELTA);
+        assertEquals(7.0, signIn.getP99Millis(), DELTA);
+    }
+
+    @Test
+    public void ignoresRequestsOutsideRecording() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("signIn", 1000L, true);
+        recorder.start();
+        recorder.stop();
+        recorder.record("signIn", 1000L, true);
+
+        assertTrue(recorder.summarize().isEmpty());
+    }
+}
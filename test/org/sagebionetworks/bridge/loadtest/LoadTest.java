@@ -0,0 +1,87 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static play.test.Helpers.running;
+import static play.test.Helpers.testServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.config.BridgeConfigFactory;
+import org.sagebionetworks.bridge.play.modules.BridgeLoadTestSpringContextModule;
+import org.sagebionetworks.bridge.play.modules.BridgeProductionSpringContextModule;
+
+import com.google.common.collect.Lists;
+
+import play.Application;
+import play.inject.guice.GuiceApplicationBuilder;
+
+/**
+ * <p>
+ * Boots the Play app against in-memory stand-ins for DynamoDB, S3, STS, Stormpath and Redis (see
+ * conf/loadtest-context.xml), drives it with one thread per seeded participant, and reports throughput and latency
+ * percentiles per request. Nothing leaves the machine, so numbers are comparable between runs on the same hardware,
+ * but they measure Bridge's own overhead, not the latency of the AWS services it normally calls.
+ * </p>
+ * <p>
+ * Run it with, for example:
+ * <pre>sbt -Dloadtest.users=100 -Dloadtest.durationSeconds=120 "test:runMain org.sagebionetworks.bridge.loadtest.LoadTest"</pre>
+ * See {@link LoadTestOptions} for all the settings. The summary is printed and written as CSV to the report directory.
+ * </p>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.get();
+
+        // Same setup as TestUtils.runningTestServerWithSpring(), with the load test module in place of the unit test one.
+        Application app = new GuiceApplicationBuilder().in(new File("."))
+                .bindings(new BridgeLoadTestSpringContextModule()).disable(BridgeProductionSpringContextModule.class)
+                .build();
+
+        running(testServer(options.getPort(), app), () -> {
+            try {
+                run(options);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        System.exit(0);
+    }
+
+    private static void run(LoadTestOptions options) throws InterruptedException, IOException {
+        String baseUrl = "http://localhost:" + options.getPort();
+        String uploadBucket = BridgeConfigFactory.getConfig().getProperty("upload.bucket");
+        LocalS3Client s3Client = new LocalS3Client(options.getS3Directory());
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        List<VirtualUser> users = Lists.newArrayListWithCapacity(options.getUsers());
+        ExecutorService executor = Executors.newFixedThreadPool(options.getUsers());
+        for (int i = 0; i < options.getUsers(); i++) {
+            VirtualUser user = new VirtualUser(new LoadTestClient(baseUrl, recorder), LoadTestFixture.getEmail(i),
+                    s3Client, uploadBucket, options.getMix(), i);
+            users.add(user);
+            executor.execute(user);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.getWarmUpSeconds()));
+        recorder.start();
+        Thread.sleep(TimeUnit.SECONDS.toMillis(options.getDurationSeconds()));
+        recorder.stop();
+
+        users.forEach(VirtualUser::stop);
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        File report = new File(options.getReportDirectory(),
+                "loadtest-" + DateTime.now().toString("yyyyMMdd-HHmmss") + ".csv");
+        String table = recorder.writeReport(report);
+        System.out.println(String.format("%d users, mix %s, %d seconds measured:%n%s%nWritten to %s",
+                options.getUsers(), options.getMix(), options.getDurationSeconds(), table, report));
+    }
+}
@@ -0,0 +1,129 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountStatus;
+import org.sagebionetworks.bridge.models.accounts.HealthId;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/** An account held by {@link InMemoryAccountDao}, along with its password. */
+public class LoadTestAccount implements Account {
+    private final String id;
+    private final StudyIdentifier studyId;
+    private final DateTime createdOn;
+    private final String password;
+    private final String healthCode;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private AccountStatus status = AccountStatus.ENABLED;
+    private Set<Roles> roles = Sets.newHashSet();
+    private final Map<String,String> attributes = Maps.newConcurrentMap();
+    private final Map<SubpopulationGuid,List<ConsentSignature>> signatures = Maps.newConcurrentMap();
+
+    public LoadTestAccount(String id, StudyIdentifier studyId, String email, String password, String healthCode) {
+        this.id = id;
+        this.studyId = studyId;
+        this.email = email;
+        this.password = password;
+        this.healthCode = healthCode;
+        this.createdOn = DateTime.now();
+    }
+
+    String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getFirstName() {
+        return firstName;
+    }
+    @Override
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+    @Override
+    public String getLastName() {
+        return lastName;
+    }
+    @Override
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    @Override
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+    @Override
+    public void setAttribute(String name, String value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+    @Override
+    public String getEmail() {
+        return email;
+    }
+    @Override
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    @Override
+    public List<ConsentSignature> getConsentSignatureHistory(SubpopulationGuid subpopGuid) {
+        return signatures.computeIfAbsent(subpopGuid, guid -> Lists.newCopyOnWriteArrayList());
+    }
+    @Override
+    public Map<SubpopulationGuid,List<ConsentSignature>> getAllConsentSignatureHistories() {
+        return signatures;
+    }
+    @Override
+    public String getHealthCode() {
+        return healthCode;
+    }
+    @Override
+    public void setHealthId(HealthId healthId) {
+        // Health codes are assigned when the fixture is created.
+    }
+    @Override
+    public AccountStatus getStatus() {
+        return status;
+    }
+    @Override
+    public void setStatus(AccountStatus status) {
+        this.status = status;
+    }
+    @Override
+    public StudyIdentifier getStudyIdentifier() {
+        return studyId;
+    }
+    @Override
+    public Set<Roles> getRoles() {
+        return roles;
+    }
+    @Override
+    public void setRoles(Set<Roles> roles) {
+        this.roles = roles;
+    }
+    @Override
+    public String getId() {
+        return id;
+    }
+    @Override
+    public DateTime getCreatedOn() {
+        return createdOn;
+    }
+}
@@ -0,0 +1,90 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static org.sagebionetworks.bridge.BridgeConstants.SESSION_TOKEN_HEADER;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A minimal JSON client for the Bridge REST API that times every request into a {@link LatencyRecorder}. It uses
+ * HttpURLConnection, which keeps connections alive between requests from the same thread, as mobile clients do.
+ */
+public class LoadTestClient {
+
+    static final String USER_AGENT = "LoadTest/1 (Unknown Device; iPhone OS/9.3) BridgeSDK/12";
+
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private String sessionToken;
+
+    public LoadTestClient(String baseUrl, LatencyRecorder recorder) {
+        this.baseUrl = baseUrl;
+        this.recorder = recorder;
+    }
+
+    public void setSessionToken(String sessionToken) {
+        this.sessionToken = sessionToken;
+    }
+
+    /** Returns the response body, or null if the request did not succeed. */
+    public JsonNode get(String label, String path) throws IOException {
+        return execute(label, "GET", path, null);
+    }
+
+    /** Returns the response body, or null if the request did not succeed. */
+    public JsonNode post(String label, String path, Object body) throws IOException {
+        return execute(label, "POST", path, BridgeObjectMapper.get().writeValueAsBytes(body));
+    }
+
+    private JsonNode execute(String label, String method, String path, byte[] body) throws IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        connection.setRequestProperty("Accept", "application/json");
+        if (sessionToken != null) {
+            connection.setRequestProperty(SESSION_TOKEN_HEADER, sessionToken);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+        }
+        int status;
+        byte[] response;
+        try {
+            status = connection.getResponseCode();
+            response = readFully((status < 400) ? connection.getInputStream() : connection.getErrorStream());
+        } catch (IOException e) {
+            recorder.record(label, System.nanoTime() - start, false);
+            throw e;
+        }
+        boolean succeeded = (status >= 200 && status < 300);
+        recorder.record(label, System.nanoTime() - start, succeeded);
+
+        if (!succeeded || response.length == 0) {
+            return null;
+        }
+        return BridgeObjectMapper.get().readTree(response);
+    }
+
+    // The body must be read to the end, or the connection can't be reused.
+    private static byte[] readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        try (InputStream stream = in) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.annotation.PostConstruct;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.dao.SchedulePlanDao;
+import org.sagebionetworks.bridge.dao.StudyDao;
+import org.sagebionetworks.bridge.dao.SubpopulationDao;
+import org.sagebionetworks.bridge.dao.SurveyDao;
+import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
+import org.sagebionetworks.bridge.models.schedules.SchedulePlan;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
+import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
+import org.sagebionetworks.bridge.models.surveys.Survey;
+import org.sagebionetworks.bridge.models.surveys.TestSurvey;
+
+import com.amazonaws.services.securitytoken.AWSSecurityTokenServiceClient;
+import com.amazonaws.services.securitytoken.model.Credentials;
+import com.amazonaws.services.securitytoken.model.GetSessionTokenRequest;
+import com.amazonaws.services.securitytoken.model.GetSessionTokenResult;
+
+/**
+ * Seeds the in-memory stand-ins with the api study, its default consent group, the schedule plans from
+ * {@link TestUtils#getSchedulePlans} and the two published surveys they schedule, and one consented participant
+ * per load test user. This replaces DefaultStudyBootstrapper in the load test context, so the study exists before the
+ * server takes requests.
+ */
+public class LoadTestFixture {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTestFixture.class);
+
+    public static final String STUDY_ID = "api";
+    public static final String PASSWORD = "P@ssword1";
+    /** GUID of a survey scheduled by the seeded schedule plans. */
+    public static final String SURVEY_GUID = "AAA";
+
+    private static final StudyIdentifier STUDY = new StudyIdentifierImpl(STUDY_ID);
+    private static final String[] SCHEDULED_SURVEY_GUIDS = { "AAA", "BBB" };
+
+    private final StudyDao studyDao;
+    private final SubpopulationDao subpopDao;
+    private final SchedulePlanDao schedulePlanDao;
+    private final SurveyDao surveyDao;
+    private final InMemoryAccountDao accountDao;
+
+    @Autowired
+    public LoadTestFixture(StudyDao studyDao, SubpopulationDao subpopDao, SchedulePlanDao schedulePlanDao,
+            SurveyDao surveyDao, AccountDao accountDao) {
+        this.studyDao = studyDao;
+        this.subpopDao = subpopDao;
+        this.schedulePlanDao = schedulePlanDao;
+        this.surveyDao = surveyDao;
+        this.accountDao = (InMemoryAccountDao) accountDao;
+    }
+
+    public static String getEmail(int userIndex) {
+        return "loadtest-user-" + userIndex + "@example.org";
+    }
+
+    /** STS stand-in, so upload session credentials can be created without calling AWS. */
+    public static AWSSecurityTokenServiceClient mockTokenServiceClient() {
+        Credentials credentials = new Credentials().withAccessKeyId("local").withSecretAccessKey("local")
+                .withSessionToken("local").withExpiration(DateTime.now().plusYears(1).toDate());
+        AWSSecurityTokenServiceClient client = mock(AWSSecurityTokenServiceClient.class);
+        when(client.getSessionToken(any(GetSessionTokenRequest.class)))
+                .thenReturn(new GetSessionTokenResult().withCredentials(credentials));
+        return client;
+    }
+
+    @PostConstruct
+    public void seed() {
+        DynamoStudy study = TestUtils.getValidStudy(LoadTestFixture.class);
+        study.setIdentifier(STUDY_ID);
+        studyDao.createStudy(study);
+
+        Subpopulation subpop = subpopDao.createDefaultSubpopulation(STUDY);
+
+        for (SchedulePlan plan : TestUtils.getSchedulePlans(STUDY)) {
+            schedulePlanDao.createSchedulePlan(STUDY, plan);
+        }
+        for (String guid : SCHEDULED_SURVEY_GUIDS) {
+            Survey survey = new TestSurvey(LoadTestFixture.class, false);
+            survey.setGuid(guid);
+            surveyDao.createSurvey(survey);
+            surveyDao.publishSurvey(STUDY, survey, false);
+        }
+
+        int users = LoadTestOptions.get().getUsers();
+        long now = DateTime.now().getMillis();
+        for (int i = 0; i < users; i++) {
+            LoadTestAccount account = new LoadTestAccount(BridgeUtils.generateGuid(), STUDY, getEmail(i), PASSWORD,
+                    BridgeUtils.generateGuid());
+            ConsentSignature signature = new ConsentSignature.Builder().withName("Load Test User " + i)
+                    .withBirthdate("1980-01-01").withConsentCreatedOn(subpop.getPublishedConsentCreatedOn())
+                    .withSignedOn(now).build();
+            account.getConsentSignatureHistory(subpop.getGuid()).add(signature);
+            accountDao.addAccount(account);
+        }
+        LOG.info("Seeded study " + STUDY_ID + " with " + users + " participants.");
+    }
+}
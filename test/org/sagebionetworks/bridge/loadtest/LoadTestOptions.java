@@ -0,0 +1,88 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.File;
+import java.util.Map;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Load test settings, read from system properties so they can be passed on the sbt command line:
+ * <ul>
+ *   <li>loadtest.users: number of seeded participants, each driven by its own client thread (default 50)</li>
+ *   <li>loadtest.durationSeconds: how long to measure, after warm-up (default 60)</li>
+ *   <li>loadtest.warmUpSeconds: traffic sent before measuring, so JIT and caches settle (default 10)</li>
+ *   <li>loadtest.mix: relative weights of each scenario, e.g. "SIGN_IN:1,ACTIVITIES:6,UPLOAD:2,SURVEY:1"</li>
+ *   <li>loadtest.port: port for the Play test server (default 3333)</li>
+ *   <li>loadtest.reportDirectory: where reports and the local S3 store are written (default target/loadtest)</li>
+ * </ul>
+ */
+public final class LoadTestOptions {
+
+    static final String DEFAULT_MIX = "SIGN_IN:1,ACTIVITIES:6,UPLOAD:2,SURVEY:1";
+
+    private static final LoadTestOptions INSTANCE = new LoadTestOptions();
+
+    private final int users;
+    private final int durationSeconds;
+    private final int warmUpSeconds;
+    private final Map<Scenario,Integer> mix;
+    private final int port;
+    private final File reportDirectory;
+
+    public static LoadTestOptions get() {
+        return INSTANCE;
+    }
+
+    private LoadTestOptions() {
+        this.users = Integer.getInteger("loadtest.users", 50);
+        this.durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+        this.warmUpSeconds = Integer.getInteger("loadtest.warmUpSeconds", 10);
+        this.mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+        this.port = Integer.getInteger("loadtest.port", 3333);
+        this.reportDirectory = new File(System.getProperty("loadtest.reportDirectory", "target/loadtest"));
+        checkArgument(users > 0, "loadtest.users must be positive");
+        checkArgument(durationSeconds > 0, "loadtest.durationSeconds must be positive");
+        checkArgument(warmUpSeconds >= 0, "loadtest.warmUpSeconds must not be negative");
+    }
+
+    static Map<Scenario,Integer> parseMix(String mixString) {
+        Map<Scenario,Integer> mix = Maps.newEnumMap(Scenario.class);
+        Map<String,String> entries = Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator(':')
+                .split(mixString);
+        for (Map.Entry<String,String> entry : entries.entrySet()) {
+            int weight = Integer.parseInt(entry.getValue().trim());
+            checkArgument(weight >= 0, "Scenario weights must not be negative");
+            if (weight > 0) {
+                mix.put(Scenario.valueOf(entry.getKey().trim()), weight);
+            }
+        }
+        checkArgument(!mix.isEmpty(), "loadtest.mix must give at least one scenario a weight");
+        return ImmutableMap.copyOf(mix);
+    }
+
+    public int getUsers() {
+        return users;
+    }
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+    public int getWarmUpSeconds() {
+        return warmUpSeconds;
+    }
+    public Map<Scenario,Integer> getMix() {
+        return mix;
+    }
+    public int getPort() {
+        return port;
+    }
+    public File getReportDirectory() {
+        return reportDirectory;
+    }
+    public File getS3Directory() {
+        return new File(reportDirectory, "s3");
+    }
+}
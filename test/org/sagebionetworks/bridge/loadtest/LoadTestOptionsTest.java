@@ -0,0 +1,34 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LoadTestOptionsTest {
+
+    @Test
+    public void parsesDefaultMix() {
+        Map<Scenario,Integer> mix = LoadTestOptions.parseMix(LoadTestOptions.DEFAULT_MIX);
+        assertEquals(4, mix.size());
+        assertEquals(6, mix.get(Scenario.ACTIVITIES).intValue());
+    }
+
+    @Test
+    public void dropsScenariosWithoutWeight() {
+        Map<Scenario,Integer> mix = LoadTestOptions.parseMix(" UPLOAD : 3, SURVEY:0 ");
+        assertEquals(1, mix.size());
+        assertEquals(3, mix.get(Scenario.UPLOAD).intValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMixWithoutWeights() {
+        LoadTestOptions.parseMix("SIGN_IN:0");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownScenario() {
+        LoadTestOptions.parseMix("BROWSE:1");
+    }
+}
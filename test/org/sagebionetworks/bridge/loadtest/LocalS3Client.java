@@ -0,0 +1,92 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+
+/**
+ * Stand-in for the S3 client that keeps objects as files under a local directory, one subdirectory per bucket. Only
+ * the object calls Bridge makes are supported; every stored object reports AES-256 server-side encryption, as
+ * presigned uploads do.
+ */
+public class LocalS3Client extends AmazonS3Client {
+
+    private final File root;
+
+    public LocalS3Client(File root) {
+        super(new BasicAWSCredentials("local", "local"));
+        this.root = root;
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(GetObjectMetadataRequest request) {
+        File file = getFile(request.getBucketName(), request.getKey());
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(file.length());
+        metadata.setLastModified(new Date(file.lastModified()));
+        metadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+        return metadata;
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        File file = new File(new File(root, request.getBucketName()), request.getKey());
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (InputStream content = (request.getFile() != null) ?
+                    new FileInputStream(request.getFile()) : request.getInputStream()) {
+                Files.copy(content, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException("Could not write " + file, e);
+        }
+        return new PutObjectResult();
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        File file = getFile(request.getBucketName(), request.getKey());
+        S3Object object = new S3Object();
+        object.setBucketName(request.getBucketName());
+        object.setKey(request.getKey());
+        object.setObjectMetadata(getObjectMetadata(request.getBucketName(), request.getKey()));
+        try {
+            object.setObjectContent(new FileInputStream(file));
+        } catch (IOException e) {
+            throw new AmazonClientException("Could not read " + file, e);
+        }
+        return object;
+    }
+
+    @Override
+    public void deleteObject(DeleteObjectRequest request) {
+        new File(new File(root, request.getBucketName()), request.getKey()).delete();
+    }
+
+    private File getFile(String bucket, String key) {
+        File file = new File(new File(root, bucket), key);
+        if (!file.isFile()) {
+            AmazonS3Exception e = new AmazonS3Exception("The specified key does not exist.");
+            e.setStatusCode(404);
+            e.setErrorCode("NoSuchKey");
+            throw e;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,18 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import javax.annotation.Nonnull;
+
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.upload.Upload;
+import org.sagebionetworks.bridge.services.UploadValidationService;
+
+/**
+ * Upload validation downloads, decrypts and parses the upload on a background thread, and needs schemas, health data
+ * records and the CMS keys. None of that is on the request path, so the load test skips it.
+ */
+public class NoOpUploadValidationService extends UploadValidationService {
+    @Override
+    public void validateUpload(@Nonnull StudyIdentifier study, @Nonnull Upload upload) {
+        // Validation is not part of the measured request.
+    }
+}
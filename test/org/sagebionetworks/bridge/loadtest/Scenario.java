@@ -0,0 +1,37 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.io.IOException;
+
+/** The kinds of traffic a load test mixes together, each made as one participant would make it. */
+public enum Scenario {
+    /** Sign in again. The server keeps the existing session, as it does for apps that sign in on every launch. */
+    SIGN_IN {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            user.signIn();
+        }
+    },
+    /** Poll for the next four days of scheduled activities, as apps do when brought to the foreground. */
+    ACTIVITIES {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            user.getClient().get("getActivities", "/v3/activities?offset=-07:00&daysAhead=4");
+        }
+    },
+    /** Request an upload, put the file in the local S3 store, then mark the upload complete. */
+    UPLOAD {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            user.upload();
+        }
+    },
+    /** Fetch the most recently published version of a scheduled survey. */
+    SURVEY {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            user.getClient().get("getSurvey", "/v3/surveys/" + LoadTestFixture.SURVEY_GUID + "/revisions/published");
+        }
+    };
+
+    abstract void run(VirtualUser user) throws IOException;
+}
@@ -0,0 +1,16 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.util.List;
+
+import org.sagebionetworks.bridge.redis.RedisRateLimiter;
+
+/**
+ * The load test has no Redis to keep token buckets in, so every request is allowed. Load shedding in
+ * RateLimitInterceptor still applies, since it only counts requests in progress.
+ */
+public class UnlimitedRateLimiter extends RedisRateLimiter {
+    @Override
+    public Denial tryAcquire(List<TokenBucket> buckets) {
+        return null;
+    }
+}
@@ -0,0 +1,148 @@
+package org.sagebionetworks.bridge.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * One participant, signed in on its own thread, running scenarios back to back in proportion to their weights until
+ * it is stopped. There is no think time between scenarios, so the number of users is also the number of requests in
+ * flight. Failed sign ins are retried after a randomized, growing delay, so a struggling server isn't hit by every user
+ * at once; a user that can't sign in after several attempts gives up.
+ */
+public class VirtualUser implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualUser.class);
+
+    private static final int UPLOAD_SIZE_BYTES = 4096;
+
+    /** Consecutive failed sign ins before the user gives up. */
+    static final int MAX_SIGN_IN_ATTEMPTS = 8;
+
+    /** The longest delay before retrying a sign in. The delay starts at 250ms and doubles up to this. */
+    static final long MAX_SIGN_IN_BACKOFF_MILLIS = 30000L;
+    private static final long SIGN_IN_BACKOFF_MILLIS = 250L;
+
+    private final LoadTestClient client;
+    private final String email;
+    private final AmazonS3 s3Client;
+    private final String uploadBucket;
+    private final Scenario[] scenarios;
+    private final int[] cumulativeWeights;
+    private final Random random;
+    private volatile boolean stopped;
+
+    public VirtualUser(LoadTestClient client, String email, AmazonS3 s3Client, String uploadBucket,
+            Map<Scenario,Integer> mix, long seed) {
+        this.client = client;
+        this.email = email;
+        this.s3Client = s3Client;
+        this.uploadBucket = uploadBucket;
+        this.random = new Random(seed);
+        this.scenarios = mix.keySet().toArray(new Scenario[mix.size()]);
+        this.cumulativeWeights = new int[scenarios.length];
+        int total = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            total += mix.get(scenarios[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    LoadTestClient getClient() {
+        return client;
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public void run() {
+        int failedSignIns = 0;
+        while (!stopped) {
+            boolean signedIn = false;
+            try {
+                signedIn = signIn();
+                if (signedIn) {
+                    failedSignIns = 0;
+                    while (!stopped) {
+                        nextScenario().run(this);
+                    }
+                }
+            } catch (IOException e) {
+                // The failure has been recorded. Start over with a new sign in, as an app would.
+                LOG.debug("Request for " + email + " failed", e);
+            }
+            if (!signedIn && !stopped) {
+                failedSignIns++;
+                if (failedSignIns >= MAX_SIGN_IN_ATTEMPTS) {
+                    LOG.warn("Giving up on " + email + " after " + failedSignIns + " failed sign ins");
+                    return;
+                }
+                try {
+                    Thread.sleep(getSignInBackoffMillis(failedSignIns));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Full jitter: a random delay up to an exponentially growing, capped maximum. */
+    static long getSignInBackoffMillis(int failedSignIns) {
+        long maxDelay = Math.min(MAX_SIGN_IN_BACKOFF_MILLIS, SIGN_IN_BACKOFF_MILLIS << Math.min(failedSignIns - 1, 16));
+        return ThreadLocalRandom.current().nextLong(maxDelay + 1);
+    }
+
+    boolean signIn() throws IOException {
+        JsonNode session = client.post("signIn", "/v3/auth/signIn", ImmutableMap.of("study",
+                LoadTestFixture.STUDY_ID, "email", email, "password", LoadTestFixture.PASSWORD));
+        if (session == null) {
+            return false;
+        }
+        client.setSessionToken(session.get("sessionToken").asText());
+        return true;
+    }
+
+    void upload() throws IOException {
+        byte[] content = new byte[UPLOAD_SIZE_BYTES];
+        random.nextBytes(content);
+        String contentMd5 = BaseEncoding.base64().encode(Hashing.md5().hashBytes(content).asBytes());
+
+        JsonNode uploadSession = client.post("createUpload", "/v3/uploads", ImmutableMap.of("name", "loadtest.zip",
+                "contentLength", content.length, "contentMd5", contentMd5, "contentType", "application/zip"));
+        if (uploadSession == null) {
+            return;
+        }
+        String uploadId = uploadSession.get("id").asText();
+
+        // Stands in for the app's PUT to the presigned URL.
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        s3Client.putObject(uploadBucket, uploadId, new ByteArrayInputStream(content), metadata);
+
+        client.post("completeUpload", "/v3/uploads/" + uploadId + "/complete", ImmutableMap.of());
+    }
+
+    private Scenario nextScenario() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return scenarios[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
@@ -8,6 +8,8 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.sagebionetworks.bridge.models.Metrics;
 
+import com.google.common.collect.Lists;
+
 public class MetricsTest {
 
     @Test
@@ -65,6 +67,16 @@ public class MetricsTest {
         new Metrics(null);
     }
 
+    @Test
+    public void testSetOpenCircuits() {
+        Metrics metrics = new Metrics("12345");
+        metrics.setOpenCircuits(Lists.newArrayList());
+        assertFalse(metrics.toJsonString().contains("open_circuits"));
+
+        metrics.setOpenCircuits(Lists.newArrayList("stormpath", "s3"));
+        assertTrue(metrics.toJsonString().contains("\"open_circuits\":[\"stormpath\",\"s3\"]"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testConstructorRequestIdMustNotBeEmpty() {
         new Metrics(" ");
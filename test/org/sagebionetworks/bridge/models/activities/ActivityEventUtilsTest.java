@@ -0,0 +1,52 @@
+package org.sagebionetworks.bridge.models.activities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent;
+
+import com.google.common.collect.Maps;
+
+public class ActivityEventUtilsTest {
+    
+    private static final DateTime TIMESTAMP = DateTime.parse("2016-04-01T10:00:00.000Z");
+
+    @Test
+    public void enrollmentAddsCalculatedEvents() {
+        ActivityEvent event = new DynamoActivityEvent.Builder().withHealthCode("BBB")
+                .withObjectType(ActivityEventObjectType.ENROLLMENT).withTimestamp(TIMESTAMP).build();
+        
+        Map<String,DateTime> map = Maps.newHashMap();
+        ActivityEventUtils.putEvent(map, event);
+        
+        assertEquals(3, map.size());
+        assertEquals(TIMESTAMP.withZone(DateTimeZone.UTC), map.get("enrollment"));
+        assertEquals(TIMESTAMP.minusWeeks(2).withZone(DateTimeZone.UTC), map.get("two_weeks_before_enrollment"));
+        assertEquals(TIMESTAMP.minusMonths(2).withZone(DateTimeZone.UTC), map.get("two_months_before_enrollment"));
+        assertTrue(ActivityEventUtils.isEnrollment(event));
+    }
+    
+    @Test
+    public void answerReplacesEarlierAnswer() {
+        Map<String,DateTime> map = Maps.newHashMap();
+        ActivityEventUtils.putEvent(map, getAnswerEvent(TIMESTAMP, "someValue"));
+        ActivityEventUtils.putEvent(map, getAnswerEvent(TIMESTAMP.plusDays(1), "anotherValue"));
+        
+        assertEquals(1, map.size());
+        assertEquals(TIMESTAMP.plusDays(1).withZone(DateTimeZone.UTC),
+                map.get("question:DDD-EEE-FFF:answered=anotherValue"));
+        assertFalse(ActivityEventUtils.isEnrollment(getAnswerEvent(TIMESTAMP, "someValue")));
+    }
+    
+    private ActivityEvent getAnswerEvent(DateTime timestamp, String answer) {
+        return new DynamoActivityEvent.Builder().withHealthCode("BBB")
+                .withObjectType(ActivityEventObjectType.QUESTION).withObjectId("DDD-EEE-FFF")
+                .withEventType(ActivityEventType.ANSWERED).withAnswerValue(answer).withTimestamp(timestamp).build();
+    }
+}
@@ -10,12 +10,15 @@ import static org.sagebionetworks.bridge.dao.ParticipantOption.LANGUAGES;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.sagebionetworks.bridge.TestUtils.createJson;
 import static org.sagebionetworks.bridge.TestUtils.mockPlayContext;
 import static org.sagebionetworks.bridge.TestUtils.newLinkedHashSet;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -24,6 +27,8 @@ import org.junit.Test;
 
 import org.sagebionetworks.bridge.BridgeConstants;
 import play.mvc.Http;
+import play.mvc.Result;
+import play.test.Helpers;
 
 import org.sagebionetworks.bridge.Roles;
 import org.sagebionetworks.bridge.TestUtils;
@@ -44,7 +49,9 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.services.ParticipantOptionsService;
 import org.sagebionetworks.bridge.services.StudyService;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
 import com.google.common.collect.Sets;
 
 /** Test class for basic utility functions in BaseController. */
@@ -133,6 +140,80 @@ public class BaseControllerTest {
         BaseController.parseJson(mockRequest, Map.class);
     }
     
+    @Test
+    public void testParseJsonFromRawBytes() throws Exception {
+        Http.RawBuffer mockRaw = mock(Http.RawBuffer.class);
+        when(mockRaw.size()).thenReturn((long)DUMMY_JSON.length());
+        when(mockRaw.asBytes()).thenReturn(DUMMY_JSON.getBytes(StandardCharsets.UTF_8));
+        
+        Http.RequestBody mockBody = mock(Http.RequestBody.class);
+        when(mockBody.asRaw()).thenReturn(mockRaw);
+
+        Http.Request mockRequest = mock(Http.Request.class);
+        when(mockRequest.body()).thenReturn(mockBody);
+
+        // execute and validate
+        Map<String, String> resultMap = BaseController.parseJson(mockRequest, Map.class);
+        assertEquals(1, resultMap.size());
+        assertEquals("dummy-value", resultMap.get("dummy-key"));
+        verify(mockBody, never()).asText();
+        verify(mockBody, never()).asJson();
+    }
+    
+    @Test
+    public void testParseJsonFromRawFile() throws Exception {
+        File file = File.createTempFile("BaseControllerTest", ".json");
+        try {
+            Files.write(DUMMY_JSON, file, StandardCharsets.UTF_8);
+            
+            Http.RawBuffer mockRaw = mock(Http.RawBuffer.class);
+            when(mockRaw.size()).thenReturn(file.length());
+            when(mockRaw.asFile()).thenReturn(file);
+            
+            Http.RequestBody mockBody = mock(Http.RequestBody.class);
+            when(mockBody.asRaw()).thenReturn(mockRaw);
+
+            Http.Request mockRequest = mock(Http.Request.class);
+            when(mockRequest.body()).thenReturn(mockBody);
+
+            // execute and validate
+            Map<String, String> resultMap = BaseController.parseJson(mockRequest, Map.class);
+            assertEquals("dummy-value", resultMap.get("dummy-key"));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test(expected = InvalidEntityException.class)
+    public void testParseJsonMalformedRawBytes() throws Exception {
+        Http.RawBuffer mockRaw = mock(Http.RawBuffer.class);
+        when(mockRaw.size()).thenReturn(3L);
+        when(mockRaw.asBytes()).thenReturn("{{{".getBytes(StandardCharsets.UTF_8));
+        
+        Http.RequestBody mockBody = mock(Http.RequestBody.class);
+        when(mockBody.asRaw()).thenReturn(mockRaw);
+
+        Http.Request mockRequest = mock(Http.Request.class);
+        when(mockRequest.body()).thenReturn(mockBody);
+
+        BaseController.parseJson(mockRequest, Map.class);
+    }
+    
+    @Test
+    public void okResultWithWriterSerializesFilteredView() throws Exception {
+        StudyParticipant participant = new StudyParticipant.Builder().withFirstName("Test")
+                .withHealthCode("healthCode").build();
+        
+        Result result = new SchedulePlanController().okResult(StudyParticipant.API_NO_HEALTH_CODE_WRITER,
+                participant);
+        
+        assertEquals(200, result.status());
+        assertEquals("application/json", result.contentType());
+        JsonNode node = BridgeObjectMapper.get().readTree(Helpers.contentAsString(result));
+        assertEquals("Test", node.get("firstName").asText());
+        assertNull(node.get("healthCode"));
+    }
+    
     @Test
     public void canRetrieveClientInfoObject() throws Exception {
         mockHeader(USER_AGENT, "Asthma/26 (Unknown iPhone; iPhone OS 9.0.2) BridgeSDK/4");
@@ -643,6 +724,41 @@ public class BaseControllerTest {
                 .withConsented(consented).withSignedMostRecentConsent(consented).build());
     }
     
+    @Test
+    public void acceptsGzipEncoding() throws Exception {
+        BaseController controller = new SchedulePlanController();
+        
+        mockHeader("Accept-Encoding", "gzip, deflate");
+        assertTrue(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "deflate, GZIP;q=0.5");
+        assertTrue(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "*");
+        assertTrue(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "gzip;q=0");
+        assertFalse(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "identity");
+        assertFalse(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "*, gzip;q=0");
+        assertFalse(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "gzip; q=0.0, *");
+        assertFalse(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "*;q=0, gzip");
+        assertTrue(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", "*;q=0");
+        assertFalse(controller.acceptsGzipEncoding());
+        
+        mockHeader("Accept-Encoding", null);
+        assertFalse(controller.acceptsGzipEncoding());
+    }
+    
     private void mockHeader(String header, String value) throws Exception {
         Http.Request mockRequest = mock(Http.Request.class);
         when(mockRequest.getHeader(header)).thenReturn(value);
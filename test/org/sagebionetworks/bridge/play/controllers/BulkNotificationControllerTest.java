@@ -0,0 +1,111 @@
+package org.sagebionetworks.bridge.play.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.verify;
+import static org.sagebionetworks.bridge.Roles.RESEARCHER;
+import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
+import static org.sagebionetworks.bridge.TestUtils.mockPlayContext;
+import static org.sagebionetworks.bridge.TestUtils.mockPlayContextWithJson;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.Criteria;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationJob;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationRequest;
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.services.BulkNotificationService;
+import org.sagebionetworks.bridge.services.StudyService;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Sets;
+
+import play.mvc.Result;
+import play.test.Helpers;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkNotificationControllerTest {
+
+    private static final NotificationMessage MESSAGE = new NotificationMessage.Builder()
+            .withSubject("a subject").withMessage("a message").build();
+
+    private static final BulkNotificationJob JOB = new BulkNotificationJob("jobId", TEST_STUDY.getIdentifier(),
+            BulkNotificationJob.Status.RUNNING, MESSAGE, null, null, null, null, 0, 0, 0, null);
+
+    @Spy
+    private BulkNotificationController controller;
+
+    @Mock
+    private BulkNotificationService mockBulkNotificationService;
+
+    @Mock
+    private StudyService mockStudyService;
+
+    @Mock
+    private UserSession mockUserSession;
+
+    @Mock
+    private Study mockStudy;
+
+    @Captor
+    private ArgumentCaptor<BulkNotificationRequest> requestCaptor;
+
+    @Before
+    public void before() throws Exception {
+        controller.setBulkNotificationService(mockBulkNotificationService);
+        controller.setStudyService(mockStudyService);
+
+        doReturn(TEST_STUDY).when(mockUserSession).getStudyIdentifier();
+        doReturn(mockStudy).when(mockStudyService).getStudy(TEST_STUDY);
+        doReturn(mockUserSession).when(controller).getAuthenticatedSession(RESEARCHER);
+    }
+
+    @Test
+    public void sendNotification() throws Exception {
+        Criteria criteria = TestUtils.createCriteria(null, null, Sets.newHashSet("group1"), null);
+        mockPlayContextWithJson(new BulkNotificationRequest(MESSAGE, criteria));
+        doReturn(JOB).when(mockBulkNotificationService).startJob(eq(mockStudy), requestCaptor.capture());
+
+        Result result = controller.sendNotification();
+        assertEquals(202, result.status());
+
+        JsonNode node = getResultNode(result);
+        assertEquals("BulkNotificationJob", node.get("type").asText());
+        assertEquals("jobId", node.get("jobId").asText());
+        assertEquals("running", node.get("status").asText());
+
+        BulkNotificationRequest captured = requestCaptor.getValue();
+        assertEquals(MESSAGE, captured.getMessage());
+        assertEquals(Sets.newHashSet("group1"), captured.getCriteria().getAllOfGroups());
+    }
+
+    @Test
+    public void getJob() throws Exception {
+        mockPlayContext();
+        doReturn(JOB).when(mockBulkNotificationService).getJob(TEST_STUDY, "jobId");
+
+        Result result = controller.getJob("jobId");
+        assertEquals(200, result.status());
+
+        BulkNotificationJob returned = BridgeObjectMapper.get().readValue(Helpers.contentAsString(result),
+                BulkNotificationJob.class);
+        assertEquals(JOB, returned);
+        verify(mockBulkNotificationService).getJob(TEST_STUDY, "jobId");
+    }
+
+    private JsonNode getResultNode(Result result) throws Exception {
+        return BridgeObjectMapper.get().readTree(Helpers.contentAsString(result));
+    }
+}
@@ -27,6 +27,7 @@ import org.sagebionetworks.bridge.exceptions.NotAuthenticatedException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
@@ -166,7 +167,7 @@ public class FPHSControllerTest {
         // There's a user, but not an admin user
         UserSession session = setUserSession();
         try {
-            controller.getExternalIdentifiers();
+            controller.getExternalIdentifiers(null, null, null);
             fail("Should have thrown exception");
         } catch(UnauthorizedException e) {
             assertEquals("Caller does not have permission to access this service.", e.getMessage());
@@ -177,7 +178,7 @@ public class FPHSControllerTest {
                 .copyOf(session.getParticipant())
                 .withRoles(Sets.newHashSet(Roles.ADMIN)).build());
         
-        Result result = controller.getExternalIdentifiers();
+        Result result = controller.getExternalIdentifiers(null, null, null);
         JsonNode node = resultToJson(result);
         
         assertEquals(2, node.get("items").size());
@@ -185,6 +186,26 @@ public class FPHSControllerTest {
         verify(fphsService).getExternalIdentifiers();
     }
     
+    @Test
+    public void getIdentifiersPage() throws Exception {
+        FPHSExternalIdentifier id1 = FPHSExternalIdentifier.create("foo");
+        PagedResourceList<FPHSExternalIdentifier> page = new PagedResourceList<FPHSExternalIdentifier>(
+                Lists.newArrayList(id1), null, 10, 1).withOffsetKey("foo");
+        when(fphsService.getExternalIdentifiers(false, "bar", 10)).thenReturn(page);
+        
+        UserSession session = setUserSession();
+        session.setParticipant(new StudyParticipant.Builder()
+                .copyOf(session.getParticipant())
+                .withRoles(Sets.newHashSet(Roles.ADMIN)).build());
+        
+        Result result = controller.getExternalIdentifiers("false", "bar", "10");
+        JsonNode node = resultToJson(result);
+        
+        assertEquals(1, node.get("items").size());
+        assertEquals("foo", node.get("offsetKey").asText());
+        verify(fphsService).getExternalIdentifiers(false, "bar", 10);
+    }
+    
     @Test
     public void addIdentifiersRequiresAdmin() throws Exception {
         FPHSExternalIdentifier id1 = FPHSExternalIdentifier.create("AAA");
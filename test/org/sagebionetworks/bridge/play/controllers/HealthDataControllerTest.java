@@ -6,15 +6,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.healthdata.RecordExportStatusRequest;
 import org.sagebionetworks.bridge.services.HealthDataService;
 import play.mvc.Result;
+import play.test.Helpers;
 
+import java.io.Writer;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyVararg;
 import static org.mockito.Mockito.*;
 
@@ -79,4 +83,43 @@ public class HealthDataControllerTest {
         // finally, verify the return result
         TestUtils.assertResult(result, 200, "Update exporter status to: " + Arrays.asList(TEST_RECORD_ID) + " complete.");
     }
+
+    @Test
+    public void exportRecordsForUploadDate() throws Exception {
+        doAnswer(invocation -> {
+            Writer writer = (Writer) invocation.getArguments()[2];
+            writer.write("{\"healthCode\":\"foo healthcode\"}\n{\"offsetKey\":\"next\",\"type\":\"OffsetKey\"}\n");
+            return null;
+        }).when(healthDataService).exportRecordsForUploadDate(eq("2014-02-12"), eq("offset"), any(Writer.class));
+
+        HealthDataController controller = spy(new HealthDataController());
+        controller.setHealthDataService(healthDataService);
+        doReturn(new UserSession()).when(controller).getAuthenticatedSession(anyVararg());
+
+        // One page is returned, ending with the offset key to request the next page with.
+        Result result = controller.exportRecordsForUploadDate("2014-02-12", "offset");
+        assertEquals(200, result.status());
+        assertEquals("application/x-ndjson", result.contentType());
+        assertEquals("{\"healthCode\":\"foo healthcode\"}\n{\"offsetKey\":\"next\",\"type\":\"OffsetKey\"}\n",
+                Helpers.contentAsString(result));
+    }
+
+    @Test
+    public void exportRecordsForUploadDateInvalidUploadDate() throws Exception {
+        doThrow(new BadRequestException("Expected date format YYYY-MM-DD, received 2014-02-31"))
+                .when(healthDataService).exportRecordsForUploadDate(eq("2014-02-31"), isNull(String.class),
+                        any(Writer.class));
+
+        HealthDataController controller = spy(new HealthDataController());
+        controller.setHealthDataService(healthDataService);
+        doReturn(new UserSession()).when(controller).getAuthenticatedSession(anyVararg());
+
+        // Nothing has been written when the date is validated, so the worker gets a 400.
+        try {
+            controller.exportRecordsForUploadDate("2014-02-31", null);
+            fail("expected exception");
+        } catch (BadRequestException ex) {
+            // expected exception
+        }
+    }
 }
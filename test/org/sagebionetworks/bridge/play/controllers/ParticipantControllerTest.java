@@ -549,9 +549,9 @@ public class ParticipantControllerTest {
     
     @Test
     public void canGetActivityHistory() throws Exception {
-        doReturn(createActivityResults()).when(mockParticipantService).getActivityHistory(study, ID, "offsetKey", new Integer(40));
+        doReturn(createActivityResults()).when(mockParticipantService).getActivityHistory(study, ID, "offsetKey", new Integer(40), true);
         
-        Result result = controller.getActivityHistory(ID, "offsetKey", "40");
+        Result result = controller.getActivityHistory(ID, "offsetKey", "40", null);
         assertEquals(200, result.status());
         PagedResourceList<ScheduledActivity> page = MAPPER.readValue(Helpers.contentAsString(result), PAGED_ACTIVITIES_REF);
         
@@ -562,21 +562,31 @@ public class ParticipantControllerTest {
         assertEquals(1, page.getItems().size()); // have not mocked out these items, but the list is there.
         assertEquals(25, page.getPageSize());
         assertEquals(100, page.getTotal());
-        verify(mockParticipantService).getActivityHistory(study, ID, "offsetKey", new Integer(40));
+        verify(mockParticipantService).getActivityHistory(study, ID, "offsetKey", new Integer(40), true);
     }
     
     @Test
     public void canGetActivityWithNullValues() throws Exception {
-        doReturn(createActivityResults()).when(mockParticipantService).getActivityHistory(study, ID, null, null);
+        doReturn(createActivityResults()).when(mockParticipantService).getActivityHistory(study, ID, null, null, true);
         
-        Result result = controller.getActivityHistory(ID, null, null);
+        Result result = controller.getActivityHistory(ID, null, null, null);
         assertEquals(200, result.status());
         PagedResourceList<ScheduledActivity> page = MAPPER.readValue(Helpers.contentAsString(result), PAGED_ACTIVITIES_REF);
         
         assertEquals(1, page.getItems().size()); // have not mocked out these items, but the list is there.
         assertEquals(25, page.getPageSize());
         assertEquals(100, page.getTotal());
-        verify(mockParticipantService).getActivityHistory(study, ID, null, null);
+        verify(mockParticipantService).getActivityHistory(study, ID, null, null, true);
+    }
+    
+    @Test
+    public void canGetActivityHistoryWithoutTotal() throws Exception {
+        doReturn(createActivityResults()).when(mockParticipantService).getActivityHistory(study, ID, "offsetKey", null,
+                false);
+        
+        Result result = controller.getActivityHistory(ID, "offsetKey", null, "false");
+        assertEquals(200, result.status());
+        verify(mockParticipantService).getActivityHistory(study, ID, "offsetKey", null, false);
     }
     
     @Test
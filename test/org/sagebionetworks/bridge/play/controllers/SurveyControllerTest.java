@@ -130,6 +130,7 @@ public class SurveyControllerTest {
             }
         }).when(provider).removeString(anyString());
         viewCache.setCacheProvider(provider);
+        viewCache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         
         studyService = mock(StudyService.class);
         DynamoStudy study = new DynamoStudy();
@@ -116,6 +116,7 @@ public class UserProfileControllerTest {
         
         ViewCache viewCache = new ViewCache();
         viewCache.setCacheProvider(cacheProvider);
+        viewCache.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
         
         controller = spy(new UserProfileController());
         controller.setStudyService(studyService);
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static play.test.Helpers.contentAsString;
 
@@ -15,6 +16,7 @@ import org.junit.Test;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.exceptions.ConsentRequiredException;
+import org.sagebionetworks.bridge.exceptions.TooManyRequestsException;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
@@ -31,6 +33,8 @@ import play.mvc.Result;
 public class ExceptionInterceptorTest {
 
     private ExceptionInterceptor interceptor;
+
+    private Http.Response response;
     
     @Before
     public void before() throws Exception {
@@ -55,6 +59,9 @@ public class ExceptionInterceptorTest {
         Http.Context context = mock(Http.Context.class);
         when(context.request()).thenReturn(request);
 
+        response = mock(Http.Response.class);
+        when(context.response()).thenReturn(response);
+
         Http.Context.current.set(context);
     }
     
@@ -107,4 +114,17 @@ public class ExceptionInterceptorTest {
         // And no further properties
         assertEquals(19, node.size());
     }
-}    
+
+    @Test
+    public void tooManyRequestsSetsRetryAfterHeader() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenThrow(new TooManyRequestsException("Slow down", 5));
+
+        Result result = (Result)interceptor.invoke(invocation);
+        assertEquals(429, result.status());
+        verify(response).setHeader(Http.HeaderNames.RETRY_AFTER, "5");
+
+        JsonNode node = new ObjectMapper().readTree(contentAsString(result));
+        assertEquals("Slow down", node.get("message").asText());
+    }
+}
@@ -6,12 +6,17 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.net.ConnectException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Test;
 import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.play.interceptors.MetricsInterceptor;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
+
+import com.amazonaws.AmazonClientException;
+import com.google.common.collect.Lists;
 
 import play.mvc.Http;
 import play.mvc.Http.Context;
@@ -56,4 +61,22 @@ public class MetricsInterceptorTest {
         assertTrue(json.contains("\"remote_address\":\"1.2.3.4\""));
         assertTrue(json.contains("\"user_agent\":\"ifeng 6\""));
     }
+
+    @Test
+    public void testGetOpenCircuits() {
+        CircuitBreaker s3Breaker = new CircuitBreaker("s3", 1, 30, 10);
+        CircuitBreaker sesBreaker = new CircuitBreaker("ses", 1, 30, 10);
+        try {
+            s3Breaker.run(() -> {
+                throw new AmazonClientException("Connection refused", new ConnectException("Connection refused"));
+            });
+        } catch(AmazonClientException e) {
+            // expected, and this opens the circuit
+        }
+        MetricsInterceptor interceptor = new MetricsInterceptor();
+        assertTrue(interceptor.getOpenCircuits().isEmpty());
+
+        interceptor.setCircuitBreakers(Lists.newArrayList(s3Breaker, sesBreaker));
+        assertEquals(Lists.newArrayList("s3"), interceptor.getOpenCircuits());
+    }
 }
@@ -0,0 +1,256 @@
+package org.sagebionetworks.bridge.play.interceptors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sagebionetworks.bridge.BridgeConstants.SESSION_TOKEN_HEADER;
+
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
+import org.sagebionetworks.bridge.exceptions.TooManyRequestsException;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.Denial;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.TokenBucket;
+import org.sagebionetworks.bridge.services.StudyService;
+
+import com.google.common.collect.Maps;
+
+import play.mvc.Http;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RateLimitInterceptorTest {
+
+    private static final Object RESULT = new Object();
+
+    @Mock
+    private BridgeConfig mockConfig;
+
+    @Mock
+    private CacheProvider mockCacheProvider;
+
+    @Mock
+    private StudyService mockStudyService;
+
+    @Mock
+    private RedisRateLimiter mockRateLimiter;
+
+    @Mock
+    private Study mockStudy;
+
+    @Mock
+    private MethodInvocation mockInvocation;
+
+    @Captor
+    private ArgumentCaptor<List<TokenBucket>> bucketsCaptor;
+
+    private RateLimitInterceptor interceptor;
+
+    @Before
+    public void before() throws Throwable {
+        doReturn("true").when(mockConfig).getProperty(RateLimitInterceptor.ENABLED_PROPERTY);
+        doReturn("true").when(mockConfig).getProperty(RateLimitInterceptor.SHEDDING_ENABLED_PROPERTY);
+        doReturn(1200).when(mockConfig).getPropertyAsInt(RateLimitInterceptor.STUDY_REQUESTS_PER_MINUTE_PROPERTY);
+        doReturn(60).when(mockConfig).getPropertyAsInt(RateLimitInterceptor.SESSION_REQUESTS_PER_MINUTE_PROPERTY);
+        doReturn(20).when(mockConfig).getPropertyAsInt(RateLimitInterceptor.MAX_CONCURRENT_REQUESTS_PROPERTY);
+
+        UserSession session = new UserSession();
+        session.setStudyIdentifier(new StudyIdentifierImpl("api"));
+        doReturn(session).when(mockCacheProvider).getUserSession("sessionToken");
+        doReturn(mockStudy).when(mockStudyService).getStudy("api");
+        doReturn(RESULT).when(mockInvocation).proceed();
+
+        interceptor = new RateLimitInterceptor();
+        interceptor.setBridgeConfig(mockConfig);
+        interceptor.setCacheProvider(mockCacheProvider);
+        interceptor.setStudyService(mockStudyService);
+        interceptor.setRedisRateLimiter(mockRateLimiter);
+    }
+
+    @Test
+    public void allowedRequestUsesServerDefaults() throws Throwable {
+        mockContext("GET", "/v3/activities", "sessionToken");
+
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+
+        verify(mockRateLimiter).tryAcquire(bucketsCaptor.capture());
+        List<TokenBucket> buckets = bucketsCaptor.getValue();
+        assertEquals("study:api", buckets.get(0).getKey());
+        assertEquals(1200, buckets.get(0).getRequestsPerMinute());
+        assertEquals(60, buckets.get(1).getRequestsPerMinute());
+        assertEquals(0, interceptor.requestsInProgress.get());
+    }
+
+    @Test
+    public void studyLimitsOverrideServerDefaults() throws Throwable {
+        doReturn(3000).when(mockStudy).getRequestRateLimit();
+        doReturn(100).when(mockStudy).getParticipantRequestRateLimit();
+        mockContext("GET", "/v3/activities", "sessionToken");
+
+        interceptor.invoke(mockInvocation);
+
+        verify(mockRateLimiter).tryAcquire(bucketsCaptor.capture());
+        List<TokenBucket> buckets = bucketsCaptor.getValue();
+        assertEquals(3000, buckets.get(0).getRequestsPerMinute());
+        assertEquals(100, buckets.get(1).getRequestsPerMinute());
+    }
+
+    @Test
+    public void sessionBucketsAreSeparatePerEndpointClassAndHideToken() throws Throwable {
+        mockContext("GET", "/v3/activities", "sessionToken");
+        interceptor.invoke(mockInvocation);
+        mockContext("POST", "/v3/activities", "sessionToken");
+        interceptor.invoke(mockInvocation);
+
+        verify(mockRateLimiter, times(2)).tryAcquire(bucketsCaptor.capture());
+        String readKey = bucketsCaptor.getAllValues().get(0).get(1).getKey();
+        String writeKey = bucketsCaptor.getAllValues().get(1).get(1).getKey();
+        assertTrue(readKey.endsWith(":READ"));
+        assertTrue(writeKey.endsWith(":WRITE"));
+        assertFalse(readKey.contains("sessionToken"));
+    }
+
+    @Test
+    public void deniedRequestIsRejectedLocallyUntilBucketRefills() throws Throwable {
+        mockContext("GET", "/v3/activities", "sessionToken");
+        denyBucket(1, 2500L);
+
+        try {
+            interceptor.invoke(mockInvocation);
+            fail("Should have thrown an exception");
+        } catch(TooManyRequestsException e) {
+            assertEquals(RateLimitInterceptor.SESSION_LIMIT_MESSAGE, e.getMessage());
+            assertEquals(3, e.getRetryAfterSeconds());
+        }
+        try {
+            interceptor.invoke(mockInvocation);
+            fail("Should have thrown an exception");
+        } catch(TooManyRequestsException e) {
+            assertEquals(RateLimitInterceptor.SESSION_LIMIT_MESSAGE, e.getMessage());
+        }
+        // The second request never reached Redis.
+        verify(mockRateLimiter, times(1)).tryAcquire(any());
+        verify(mockInvocation, never()).proceed();
+        assertEquals(0, interceptor.requestsInProgress.get());
+    }
+
+    @Test
+    public void requestsWithoutSessionAreNotLimited() throws Throwable {
+        mockContext("GET", "/v3/studies/api/publickey", null);
+
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+        verify(mockRateLimiter, never()).tryAcquire(any());
+    }
+
+    @Test
+    public void authRequestsAreNotLimited() throws Throwable {
+        mockContext("POST", "/v3/auth/signIn", "sessionToken");
+
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+        verify(mockRateLimiter, never()).tryAcquire(any());
+    }
+
+    @Test
+    public void disabled() throws Throwable {
+        doReturn("false").when(mockConfig).getProperty(RateLimitInterceptor.ENABLED_PROPERTY);
+        interceptor.setBridgeConfig(mockConfig);
+        mockContext("GET", "/v3/activities", "sessionToken");
+
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+        verify(mockRateLimiter, never()).tryAcquire(any());
+    }
+
+    @Test
+    public void redisErrorsAllowRequest() throws Throwable {
+        mockContext("GET", "/v3/activities", "sessionToken");
+        doThrow(new RuntimeException("Connection refused")).when(mockRateLimiter).tryAcquire(any());
+
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+    }
+
+    @Test
+    public void readsAreShedBeforeWritesAndAuth() throws Throwable {
+        // 15 requests are in progress; reads are shed above 75% of 20, writes above 90%.
+        interceptor.requestsInProgress.set(15);
+
+        mockContext("GET", "/v3/activities", "sessionToken");
+        try {
+            interceptor.invoke(mockInvocation);
+            fail("Should have thrown an exception");
+        } catch(ServiceUnavailableException e) {
+            assertEquals(Integer.valueOf(RateLimitInterceptor.SHED_RETRY_AFTER_SECONDS), e.getRetryAfterSeconds());
+        }
+        mockContext("POST", "/v3/activities", "sessionToken");
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+
+        interceptor.requestsInProgress.set(19);
+        try {
+            interceptor.invoke(mockInvocation);
+            fail("Should have thrown an exception");
+        } catch(ServiceUnavailableException e) {
+        }
+        mockContext("POST", "/v3/auth/signIn", null);
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+        assertEquals(19, interceptor.requestsInProgress.get());
+    }
+
+    @Test
+    public void sheddingDisabled() throws Throwable {
+        doReturn("false").when(mockConfig).getProperty(RateLimitInterceptor.SHEDDING_ENABLED_PROPERTY);
+        interceptor.setBridgeConfig(mockConfig);
+        interceptor.requestsInProgress.set(19);
+        mockContext("GET", "/v3/activities", "sessionToken");
+
+        // Still rate limited
+        assertSame(RESULT, interceptor.invoke(mockInvocation));
+        verify(mockRateLimiter).tryAcquire(any());
+    }
+
+    private void denyBucket(int bucketIndex, long retryAfterMillis) {
+        when(mockRateLimiter.tryAcquire(any())).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<TokenBucket> buckets = (List<TokenBucket>) invocation.getArguments()[0];
+            return new Denial(buckets.get(bucketIndex), retryAfterMillis);
+        });
+    }
+
+    private static void mockContext(String method, String path, String sessionToken) {
+        Map<String,String[]> headers = Maps.newHashMap();
+        if (sessionToken != null) {
+            headers.put(SESSION_TOKEN_HEADER, new String[] { sessionToken });
+        }
+        Http.Request request = mock(Http.Request.class);
+        when(request.method()).thenReturn(method);
+        when(request.path()).thenReturn(path);
+        when(request.headers()).thenReturn(headers);
+
+        Http.Context context = mock(Http.Context.class);
+        when(context.request()).thenReturn(request);
+        Http.Context.current.set(context);
+    }
+}
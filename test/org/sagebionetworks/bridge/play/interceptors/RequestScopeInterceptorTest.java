@@ -0,0 +1,51 @@
+package org.sagebionetworks.bridge.play.interceptors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.After;
+import org.junit.Test;
+import org.sagebionetworks.bridge.cache.RequestScopedCache;
+
+public class RequestScopeInterceptorTest {
+
+    @After
+    public void after() {
+        RequestScopedCache.end();
+    }
+
+    @Test
+    public void bindsScopeForInvocation() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenAnswer(invocationOnMock -> RequestScopedCache.isActive());
+        
+        Object result = new RequestScopeInterceptor().invoke(invocation);
+        
+        assertTrue((Boolean)result);
+        assertFalse(RequestScopedCache.isActive());
+    }
+    
+    @Test
+    public void doesNotEndScopeItDidNotBegin() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        RequestScopedCache.begin();
+        
+        new RequestScopeInterceptor().invoke(invocation);
+        
+        assertTrue(RequestScopedCache.isActive());
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void endsScopeOnException() throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.proceed()).thenThrow(new IllegalStateException());
+        try {
+            new RequestScopeInterceptor().invoke(invocation);
+        } finally {
+            assertFalse(RequestScopedCache.isActive());
+        }
+    }
+}
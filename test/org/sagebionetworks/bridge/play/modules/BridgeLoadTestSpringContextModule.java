@@ -0,0 +1,10 @@
+package org.sagebionetworks.bridge.play.modules;
+
+/** Play module for the offline load test. See org.sagebionetworks.bridge.loadtest.LoadTest. */
+public class BridgeLoadTestSpringContextModule extends BridgeSpringContextModule {
+    /** {@inheritDoc} */
+    @Override
+    protected String getSpringXmlFilename() {
+        return "loadtest-context.xml";
+    }
+}
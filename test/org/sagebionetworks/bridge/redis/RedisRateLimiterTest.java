@@ -0,0 +1,131 @@
+package org.sagebionetworks.bridge.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.Denial;
+import org.sagebionetworks.bridge.redis.RedisRateLimiter.TokenBucket;
+
+import com.google.common.collect.ImmutableList;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisRateLimiterTest {
+
+    private static final long NOW = 1462000000000L;
+
+    private static final TokenBucket STUDY_BUCKET = new TokenBucket("study:api", 600);
+    private static final TokenBucket SESSION_BUCKET = new TokenBucket("session:abc:READ", 60);
+
+    @Mock
+    private JedisPool mockJedisPool;
+
+    @Mock
+    private Jedis mockJedis;
+
+    @Captor
+    private ArgumentCaptor<List<String>> keysCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<String>> argsCaptor;
+
+    private RedisRateLimiter limiter;
+
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+        doReturn(mockJedis).when(mockJedisPool).getResource();
+
+        limiter = new RedisRateLimiter();
+        limiter.setJedisPool(mockJedisPool);
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    public void allowed() {
+        doReturn(ImmutableList.of(0L, 0L)).when(mockJedis)
+                .evalsha(eq(RedisRateLimiter.SCRIPT_SHA1), anyStrings(), anyStrings());
+
+        assertNull(limiter.tryAcquire(ImmutableList.of(STUDY_BUCKET, SESSION_BUCKET)));
+
+        verify(mockJedis).evalsha(eq(RedisRateLimiter.SCRIPT_SHA1), keysCaptor.capture(), argsCaptor.capture());
+        assertEquals(ImmutableList.of("study:api:rate-limit", "session:abc:READ:rate-limit"), keysCaptor.getValue());
+        // Now, then capacity (10 seconds of requests) and tokens per millisecond of each bucket
+        assertEquals(ImmutableList.of(Long.toString(NOW), "100", "0.01", "10", "0.001"), argsCaptor.getValue());
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void denied() {
+        doReturn(ImmutableList.of(2L, 750L)).when(mockJedis)
+                .evalsha(eq(RedisRateLimiter.SCRIPT_SHA1), anyStrings(), anyStrings());
+
+        Denial denial = limiter.tryAcquire(ImmutableList.of(STUDY_BUCKET, SESSION_BUCKET));
+        assertSame(SESSION_BUCKET, denial.getBucket());
+        assertEquals(750L, denial.getRetryAfterMillis());
+    }
+
+    @Test
+    public void scriptIsLoadedWhenNotCached() {
+        doThrow(new JedisDataException("NOSCRIPT No matching script.")).when(mockJedis)
+                .evalsha(eq(RedisRateLimiter.SCRIPT_SHA1), anyStrings(), anyStrings());
+        doReturn(ImmutableList.of(0L, 0L)).when(mockJedis)
+                .eval(eq(RedisRateLimiter.SCRIPT), anyStrings(), anyStrings());
+
+        assertNull(limiter.tryAcquire(ImmutableList.of(STUDY_BUCKET)));
+        verify(mockJedis).eval(eq(RedisRateLimiter.SCRIPT), anyStrings(), anyStrings());
+    }
+
+    @Test(expected = JedisDataException.class)
+    public void otherErrorsAreThrown() {
+        doThrow(new JedisDataException("ERR something else")).when(mockJedis)
+                .evalsha(eq(RedisRateLimiter.SCRIPT_SHA1), anyStrings(), anyStrings());
+        try {
+            limiter.tryAcquire(ImmutableList.of(STUDY_BUCKET));
+        } finally {
+            verify(mockJedis, never()).eval(anyString(), anyStrings(), anyStrings());
+        }
+    }
+
+    @Test
+    public void smallBucketsHoldOneToken() {
+        TokenBucket bucket = new TokenBucket("key", 1);
+        assertEquals(1, bucket.getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bucketRequiresPositiveRate() {
+        new TokenBucket("key", 0);
+    }
+
+    private static List<String> anyStrings() {
+        return anyListOf(String.class);
+    }
+}
@@ -1,9 +1,13 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -16,10 +20,12 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ActivityEventDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoActivityEvent.Builder;
 import org.sagebionetworks.bridge.models.activities.ActivityEvent;
 import org.sagebionetworks.bridge.models.activities.ActivityEventObjectType;
+import org.sagebionetworks.bridge.models.activities.ActivityEventType;
 import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
 import org.sagebionetworks.bridge.models.surveys.SurveyAnswer;
@@ -33,12 +39,17 @@ public class ActivityEventServiceTest {
     
     private ActivityEventDao activityEventDao;
     
+    private CacheProvider cacheProvider;
+    
     @Before
     public void before() {
         service = new ActivityEventService();
         
         activityEventDao = mock(ActivityEventDao.class);
         service.setActivityEventDao(activityEventDao);
+        
+        cacheProvider = mock(CacheProvider.class);
+        service.setCacheProvider(cacheProvider);
     }
     
     @Test
@@ -58,6 +69,7 @@ public class ActivityEventServiceTest {
         
         Map<String,DateTime> map = Maps.newHashMap();
         map.put("enrollment", now);
+        when(cacheProvider.getActivityEventMapVersion("BBB")).thenReturn("2");
         when(activityEventDao.getActivityEventMap("BBB")).thenReturn(map);
         
         Map<String,DateTime> results = service.getActivityEventMap("BBB");
@@ -66,6 +78,41 @@ public class ActivityEventServiceTest {
         
         verify(activityEventDao).getActivityEventMap("BBB");
         verifyNoMoreInteractions(activityEventDao);
+        // Only cached if the map hasn't been removed since version 2 was read
+        verify(cacheProvider).addActivityEventMap("BBB", "2", map);
+    }
+    
+    @Test
+    public void getActivityEventMapIsCached() {
+        Map<String,DateTime> map = Maps.newHashMap();
+        map.put("enrollment", DateTime.now());
+        when(cacheProvider.getActivityEventMap("BBB")).thenReturn(map);
+        
+        assertSame(map, service.getActivityEventMap("BBB"));
+        verifyNoMoreInteractions(activityEventDao);
+    }
+    
+    @Test
+    public void publishedEventRemovesCachedMap() {
+        ActivityEvent event = new Builder().withHealthCode("BBB").withObjectType(ActivityEventObjectType.ACTIVITY)
+                .withObjectId("AAA").withEventType(ActivityEventType.FINISHED).withTimestamp(DateTime.now()).build();
+        when(activityEventDao.publishEvent(event)).thenReturn(true);
+        
+        service.publishActivityEvent(event);
+        
+        verify(cacheProvider).removeActivityEventMap("BBB");
+        verify(cacheProvider, never()).addActivityEventMap(anyString(), anyString(), any());
+    }
+    
+    @Test
+    public void ignoredEventDoesNotRemoveCachedMap() {
+        ActivityEvent event = new Builder().withHealthCode("BBB")
+                .withObjectType(ActivityEventObjectType.ENROLLMENT).withTimestamp(DateTime.now()).build();
+        when(activityEventDao.publishEvent(event)).thenReturn(false);
+        
+        service.publishActivityEvent(event);
+        
+        verify(cacheProvider, never()).removeActivityEventMap(anyString());
     }
     
     @Test
@@ -74,6 +121,7 @@ public class ActivityEventServiceTest {
         
         verify(activityEventDao).deleteActivityEvents("BBB");
         verifyNoMoreInteractions(activityEventDao);
+        verify(cacheProvider).removeActivityEventMap("BBB");
     }
 
     @Test
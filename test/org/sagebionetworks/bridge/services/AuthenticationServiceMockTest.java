@@ -0,0 +1,81 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.accounts.UserSession;
+import org.sagebionetworks.bridge.models.studies.Study;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthenticationServiceMockTest {
+
+    private static final String USER_ID = "userId";
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AccountDao accountDao;
+
+    @Mock
+    private Study study;
+
+    private CriteriaContext context;
+
+    private AuthenticationService service;
+
+    @Before
+    public void before() {
+        context = new CriteriaContext.Builder().withStudyIdentifier(TestConstants.TEST_STUDY).withUserId(USER_ID)
+                .build();
+
+        service = new AuthenticationService();
+        service.setCacheProvider(cacheProvider);
+        service.setAccountDao(accountDao);
+
+        when(accountDao.getAccount(study, USER_ID)).thenThrow(new DependencyUnavailableException("stormpath", 30));
+    }
+
+    @Test
+    public void cachedSessionReturnedWhenAccountServiceIsUnavailable() {
+        UserSession cachedSession = new UserSession();
+        when(cacheProvider.getUserSessionByUserId(USER_ID)).thenReturn(cachedSession);
+
+        assertSame(cachedSession, service.getSession(study, context));
+    }
+
+    @Test
+    public void staleCachedSessionNotReturned() {
+        when(cacheProvider.getUserSessionByUserId(USER_ID)).thenReturn(new UserSession());
+        when(cacheProvider.isUserSessionStale(USER_ID)).thenReturn(true);
+
+        try {
+            service.getSession(study, context);
+            fail("Should have thrown an exception");
+        } catch(DependencyUnavailableException e) {
+            // expected, the account has changed since the session was cached
+        }
+    }
+
+    @Test
+    public void unavailableWithoutCachedSession() {
+        try {
+            service.getSession(study, context);
+            fail("Should have thrown an exception");
+        } catch(DependencyUnavailableException e) {
+            // expected
+        }
+    }
+}
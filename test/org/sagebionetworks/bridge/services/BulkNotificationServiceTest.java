@@ -0,0 +1,411 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.ConcurrentModificationException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.models.Criteria;
+import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.accounts.Account;
+import org.sagebionetworks.bridge.models.accounts.AccountStatus;
+import org.sagebionetworks.bridge.models.accounts.AccountSummary;
+import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationJob;
+import org.sagebionetworks.bridge.models.notifications.BulkNotificationRequest;
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+import org.sagebionetworks.bridge.models.notifications.NotificationOutcome;
+import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
+import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
+import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkNotificationServiceTest {
+
+    private static final StudyIdentifier STUDY_ID = new StudyIdentifierImpl("test-study");
+    private static final NotificationMessage MESSAGE = new NotificationMessage.Builder()
+            .withSubject("a subject").withMessage("a message").build();
+    private static final SubpopulationGuid SUBPOP_GUID = SubpopulationGuid.create("subpop");
+
+    @Mock
+    private AccountDao mockAccountDao;
+
+    @Mock
+    private SubpopulationService mockSubpopService;
+
+    @Mock
+    private NotificationRegistrationDao mockRegistrationDao;
+
+    @Mock
+    private ParticipantOptionsService mockOptionsService;
+
+    @Mock
+    private CacheProvider mockCacheProvider;
+
+    @Mock
+    private Study mockStudy;
+
+    @Captor
+    private ArgumentCaptor<BulkNotificationJob> jobCaptor;
+
+    private InMemoryNotificationPublishService publishService;
+
+    private BulkNotificationService service;
+
+    @Before
+    public void before() {
+        publishService = new InMemoryNotificationPublishService();
+
+        service = new BulkNotificationService();
+        service.setAccountDao(mockAccountDao);
+        service.setSubpopulationService(mockSubpopService);
+        service.setNotificationRegistrationDao(mockRegistrationDao);
+        service.setNotificationPublishService(publishService);
+        service.setParticipantOptionsService(mockOptionsService);
+        service.setCacheProvider(mockCacheProvider);
+        service.setJobExecutor(Runnable::run);
+        service.setPublishExecutor(MoreExecutors.newDirectExecutorService());
+        service.setRateLimiter(RateLimiter.create(Double.MAX_VALUE));
+        service.setRetryDelayMillis(0L);
+
+        doReturn(STUDY_ID.getIdentifier()).when(mockStudy).getIdentifier();
+        doReturn(STUDY_ID).when(mockStudy).getStudyIdentifier();
+        doReturn(Sets.newHashSet("group1", "group2")).when(mockStudy).getDataGroups();
+
+        // Every participant has one required consent.
+        Subpopulation subpop = Subpopulation.create();
+        subpop.setGuid(SUBPOP_GUID);
+        subpop.setRequired(true);
+        doReturn(ImmutableList.of(subpop)).when(mockSubpopService).getSubpopulationForUser(any(CriteriaContext.class));
+
+        // Two participants in group1 (one with two devices), one in group2, one with no data groups and no options,
+        // one who has withdrawn, and one whose account is disabled.
+        doReturn(ImmutableList.of(summary("user1", AccountStatus.ENABLED), summary("user2", AccountStatus.ENABLED),
+                summary("user3", AccountStatus.ENABLED), summary("user4", AccountStatus.UNVERIFIED),
+                summary("user5", AccountStatus.ENABLED), summary("user6", AccountStatus.DISABLED)).iterator())
+                .when(mockAccountDao).getStudyAccounts(mockStudy);
+        mockAccount("user1", "healthCode1", options("group1"), true);
+        mockAccount("user2", "healthCode2", options("group1,group2"), true);
+        mockAccount("user3", "healthCode3", options("group2"), true);
+        mockAccount("user4", "healthCode4", new ParticipantOptionsLookup(ImmutableMap.of()), true);
+        mockAccount("user5", "healthCode5", options("group1"), false);
+
+        doReturn(ImmutableList.of(registration("guid1a"), registration("guid1b"))).when(mockRegistrationDao)
+                .listRegistrations("healthCode1");
+        doReturn(ImmutableList.of(registration("guid2"))).when(mockRegistrationDao).listRegistrations("healthCode2");
+        doReturn(ImmutableList.of(registration("guid3"))).when(mockRegistrationDao).listRegistrations("healthCode3");
+        doReturn(ImmutableList.of()).when(mockRegistrationDao).listRegistrations("healthCode4");
+        doReturn(ImmutableList.of(registration("guid5"))).when(mockRegistrationDao).listRegistrations("healthCode5");
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    public void sendsToParticipantsMatchingCriteria() {
+        Criteria criteria = TestUtils.createCriteria(null, null, Sets.newHashSet("group1"), null);
+
+        BulkNotificationJob job = service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, criteria));
+        assertEquals(BulkNotificationJob.Status.RUNNING, job.getStatus());
+
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(job.getJobId(), finished.getJobId());
+        assertEquals(BulkNotificationJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(2, finished.getParticipantCount());
+        assertEquals(3, finished.getSentCount());
+        assertEquals(0, finished.getFailedCount());
+        assertEquals(3, finished.getOutcomes().size());
+
+        assertEquals(ImmutableList.of(MESSAGE), publishService.getPublished("arn:guid1a"));
+        assertEquals(ImmutableList.of(MESSAGE), publishService.getPublished("arn:guid1b"));
+        assertEquals(ImmutableList.of(MESSAGE), publishService.getPublished("arn:guid2"));
+        assertTrue(publishService.getPublished("arn:guid3").isEmpty());
+        verify(mockRegistrationDao, never()).listRegistrations("healthCode3");
+    }
+
+    @Test
+    public void sendsToAllConsentedParticipantsWithoutCriteria() {
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(4, finished.getParticipantCount());
+        assertEquals(4, finished.getSentCount());
+        assertEquals(ImmutableList.of(MESSAGE), publishService.getPublished("arn:guid3"));
+
+        // The participant who withdrew and the disabled account are skipped.
+        assertTrue(publishService.getPublished("arn:guid5").isEmpty());
+        verify(mockRegistrationDao, never()).listRegistrations("healthCode5");
+        verify(mockAccountDao, never()).getAccount(mockStudy, "user6");
+    }
+
+    @Test
+    public void participantErrorIsRecordedAsFailure() {
+        doThrow(new BridgeServiceException("test exception")).when(mockAccountDao).getAccount(mockStudy, "user3");
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(BulkNotificationJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(4, finished.getParticipantCount());
+        assertEquals(3, finished.getSentCount());
+        assertEquals(1, finished.getFailedCount());
+    }
+
+    @Test
+    public void recordedOutcomesAreCapped() {
+        List<NotificationRegistration> registrations = Lists.newArrayList();
+        for (int i = 0; i < BulkNotificationService.MAX_RECORDED_OUTCOMES + 1; i++) {
+            registrations.add(registration("guid1-" + i));
+        }
+        doReturn(registrations).when(mockRegistrationDao).listRegistrations("healthCode1");
+        publishService.failNext("arn:guid3", exception("EndpointDisabled", ErrorType.Client));
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        // All the outcomes are counted, but only some are recorded, failures first.
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(BulkNotificationService.MAX_RECORDED_OUTCOMES + 2, finished.getSentCount());
+        assertEquals(1, finished.getFailedCount());
+        assertEquals(BulkNotificationService.MAX_RECORDED_OUTCOMES, finished.getOutcomes().size());
+        assertEquals("guid3", finished.getOutcomes().get(0).getRegistrationGuid());
+    }
+
+    @Test
+    public void throttledAndServiceErrorsAreRetried() {
+        publishService.failNext("arn:guid3", exception("Throttling", ErrorType.Client));
+        publishService.failNext("arn:guid3", exception("InternalError", ErrorType.Service));
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        NotificationOutcome outcome = getOutcome(getFinishedJob(), "guid3");
+        assertEquals(NotificationOutcome.Status.SENT, outcome.getStatus());
+        assertEquals(3, outcome.getAttempts());
+        assertNull(outcome.getErrorMessage());
+        assertEquals(3, publishService.getAttempts("arn:guid3"));
+    }
+
+    @Test
+    public void unavailableServiceIsRecordedAsFailure() {
+        publishService.failNext("arn:guid3", new DependencyUnavailableException("SNS", 30));
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        // The job finishes, and only the rejected registration fails.
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(BulkNotificationJob.Status.COMPLETED, finished.getStatus());
+        assertEquals(3, finished.getSentCount());
+        assertEquals(1, finished.getFailedCount());
+
+        NotificationOutcome outcome = getOutcome(finished, "guid3");
+        assertEquals(NotificationOutcome.Status.FAILED, outcome.getStatus());
+        assertEquals(1, outcome.getAttempts());
+        assertEquals(1, publishService.getAttempts("arn:guid3"));
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() {
+        publishService.failNext("arn:guid3", exception("EndpointDisabled", ErrorType.Client));
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        BulkNotificationJob finished = getFinishedJob();
+        assertEquals(3, finished.getSentCount());
+        assertEquals(1, finished.getFailedCount());
+
+        NotificationOutcome outcome = getOutcome(finished, "guid3");
+        assertEquals(NotificationOutcome.Status.FAILED, outcome.getStatus());
+        assertEquals(1, outcome.getAttempts());
+        assertEquals("EndpointDisabled error", outcome.getErrorMessage());
+    }
+
+    @Test
+    public void retriesAreLimited() {
+        for (int i=0; i < BulkNotificationService.MAX_PUBLISH_ATTEMPTS + 1; i++) {
+            publishService.failNext("arn:guid3", exception("InternalError", ErrorType.Service));
+        }
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        NotificationOutcome outcome = getOutcome(getFinishedJob(), "guid3");
+        assertEquals(NotificationOutcome.Status.FAILED, outcome.getStatus());
+        assertEquals(BulkNotificationService.MAX_PUBLISH_ATTEMPTS, outcome.getAttempts());
+        assertEquals(BulkNotificationService.MAX_PUBLISH_ATTEMPTS, publishService.getAttempts("arn:guid3"));
+    }
+
+    @Test
+    public void failedJobIsRecorded() {
+        doReturn(null).when(mockAccountDao).getStudyAccounts(mockStudy);
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+
+        assertEquals(BulkNotificationJob.Status.FAILED, getFinishedJob().getStatus());
+    }
+
+    @Test
+    public void invalidRequestIsRejected() {
+        Criteria criteria = TestUtils.createCriteria(null, null, Sets.newHashSet("wrongGroup"), null);
+        NotificationMessage message = new NotificationMessage.Builder().build();
+        try {
+            service.startJob(mockStudy, new BulkNotificationRequest(message, criteria));
+            fail("Should have thrown an exception");
+        } catch(InvalidEntityException e) {
+            assertTrue(e.getErrors().get("message.subject").get(0).contains("message.subject is required"));
+            assertTrue(e.getErrors().containsKey("allOfGroups"));
+        }
+        verify(mockCacheProvider, never()).setBulkNotificationJob(any());
+    }
+
+    @Test
+    public void jobIsRejectedWhileAnotherIsRunning() {
+        List<Runnable> queuedJobs = Lists.newArrayList();
+        service.setJobExecutor(queuedJobs::add);
+
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+        try {
+            service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+            fail("Should have thrown an exception");
+        } catch(ConcurrentModificationException e) {
+            // expected exception
+        }
+        // Only the first job was saved and queued.
+        assertEquals(1, queuedJobs.size());
+        verify(mockCacheProvider, times(1)).setBulkNotificationJob(any());
+
+        // Once it has finished, another job can be started.
+        queuedJobs.get(0).run();
+        service.startJob(mockStudy, new BulkNotificationRequest(MESSAGE, null));
+        assertEquals(2, queuedJobs.size());
+    }
+
+    @Test
+    public void getJob() {
+        DateTime now = DateTime.now();
+        BulkNotificationJob job = new BulkNotificationJob("jobId", STUDY_ID.getIdentifier(),
+                BulkNotificationJob.Status.RUNNING, MESSAGE, null, now, now, null, 0, 0, 0, null);
+        doReturn(job).when(mockCacheProvider).getBulkNotificationJob("jobId");
+
+        assertEquals(job, service.getJob(STUDY_ID, "jobId"));
+        verify(mockCacheProvider, never()).setBulkNotificationJob(any());
+    }
+
+    @Test
+    public void orphanedJobIsFailed() {
+        DateTime updatedOn = DateTime.parse("2016-02-15T10:00:00.000Z");
+        BulkNotificationJob job = new BulkNotificationJob("jobId", STUDY_ID.getIdentifier(),
+                BulkNotificationJob.Status.RUNNING, MESSAGE, null, updatedOn, updatedOn, null, 2, 2, 0, null);
+        doReturn(job).when(mockCacheProvider).getBulkNotificationJob("jobId");
+
+        // The job hasn't been saved since it was started, so its server must have stopped running it.
+        DateTimeUtils.setCurrentMillisFixed(
+                updatedOn.getMillis() + BulkNotificationService.ORPHANED_JOB_TIMEOUT_MILLIS + 1);
+        BulkNotificationJob orphaned = service.getJob(STUDY_ID, "jobId");
+        assertEquals(BulkNotificationJob.Status.FAILED, orphaned.getStatus());
+        assertEquals(2, orphaned.getSentCount());
+        verify(mockCacheProvider).setBulkNotificationJob(orphaned);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getJobFromOtherStudy() {
+        BulkNotificationJob job = new BulkNotificationJob("jobId", "other-study",
+                BulkNotificationJob.Status.RUNNING, MESSAGE, null, null, null, null, 0, 0, 0, null);
+        doReturn(job).when(mockCacheProvider).getBulkNotificationJob("jobId");
+
+        service.getJob(STUDY_ID, "jobId");
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getJobNotFound() {
+        service.getJob(STUDY_ID, "jobId");
+    }
+
+    private BulkNotificationJob getFinishedJob() {
+        // Saved once when started, and once when finished.
+        verify(mockCacheProvider, times(2)).setBulkNotificationJob(jobCaptor.capture());
+        return jobCaptor.getValue();
+    }
+
+    private static NotificationOutcome getOutcome(BulkNotificationJob job, String registrationGuid) {
+        List<NotificationOutcome> outcomes = job.getOutcomes();
+        for (NotificationOutcome outcome : outcomes) {
+            if (registrationGuid.equals(outcome.getRegistrationGuid())) {
+                return outcome;
+            }
+        }
+        fail("No outcome for registration " + registrationGuid);
+        return null;
+    }
+
+    private void mockAccount(String userId, String healthCode, ParticipantOptionsLookup options, boolean consented) {
+        Account account = mock(Account.class);
+        doReturn(healthCode).when(account).getHealthCode();
+        doReturn(consented ? mock(ConsentSignature.class) : null).when(account).getActiveConsentSignature(SUBPOP_GUID);
+        doReturn(account).when(mockAccountDao).getAccount(mockStudy, userId);
+        doReturn(options).when(mockOptionsService).getOptions(healthCode);
+    }
+
+    private static AccountSummary summary(String userId, AccountStatus status) {
+        return new AccountSummary(null, null, userId + "@example.com", userId, null, status, STUDY_ID);
+    }
+
+    private static ParticipantOptionsLookup options(String dataGroups) {
+        return new ParticipantOptionsLookup(ImmutableMap.of("DATA_GROUPS", dataGroups));
+    }
+
+    private static NotificationRegistration registration(String guid) {
+        NotificationRegistration registration = NotificationRegistration.create();
+        registration.setGuid(guid);
+        registration.setEndpointARN("arn:" + guid);
+        registration.setOsName("iPhone OS");
+        return registration;
+    }
+
+    private static AmazonServiceException exception(String errorCode, ErrorType errorType) {
+        AmazonServiceException e = new AmazonServiceException(errorCode + " error");
+        e.setErrorCode(errorCode);
+        e.setErrorType(errorType);
+        return e;
+    }
+}
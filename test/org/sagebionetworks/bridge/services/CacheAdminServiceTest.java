@@ -1,28 +1,37 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 public class CacheAdminServiceTest {
 
     private static final String REQUEST_INFO_KEY = "10E9SFUz9BYrqCrTzfiaNW:request-info";
     
-    private final static Set<String> KEYS = Sets.newHashSet("foo:study", "bar:session", "baz:Survey:view",
+    private static final List<String> KEY_ORDER = Lists.newArrayList("foo:study", "bar:session", "baz:Survey:view",
             "xh7YDmjGQuTKnfdv9iJb0:session:user", REQUEST_INFO_KEY);
     
+    private final Set<String> KEYS = Sets.newHashSet(KEY_ORDER);
+    
     private CacheAdminService adminService;
     
     @Before
@@ -44,6 +53,41 @@ public class CacheAdminServiceTest {
     }
     
     
+    @Test
+    public void listsItemsInPages() {
+        // The stub returns one key per SCAN call, with the index of the next key as the cursor
+        PagedResourceList<String> page = adminService.listItems(null, null, 1);
+        assertEquals(Lists.newArrayList("foo:study"), page.getItems());
+        assertEquals("1", page.getOffsetKey());
+        
+        page = adminService.listItems(null, "1", 1);
+        assertTrue(page.getItems().isEmpty()); // a session
+        assertEquals("2", page.getOffsetKey());
+        
+        page = adminService.listItems(null, "4", 1);
+        assertTrue(page.getItems().isEmpty()); // request info, and the end of the scan
+        assertNull(page.getOffsetKey());
+    }
+    
+    @Test(expected = BadRequestException.class)
+    public void pageSizeCannotBeZero() {
+        adminService.listItems(null, null, 0);
+    }
+    
+    @Test
+    public void canRemoveItemsMatchingPattern() {
+        long removed = adminService.removeItems("*");
+        assertEquals(2L, removed);
+        
+        assertTrue(adminService.listItems().isEmpty());
+        assertEquals(3, KEYS.size()); // sessions and request info were not removed
+    }
+    
+    @Test(expected = BadRequestException.class)
+    public void removeItemsRequiresPattern() {
+        adminService.removeItems(" ");
+    }
+    
     @Test
     public void canRemoveItem() {
         adminService.removeItem("foo:study");
@@ -84,13 +128,27 @@ public class CacheAdminServiceTest {
     private Jedis createStubJedis() {
         return new Jedis("") {
             @Override
-            public Set<String> keys(String pattern) {
-                return KEYS;
+            public ScanResult<String> scan(String cursor, ScanParams params) {
+                int index = Integer.parseInt(cursor);
+                List<String> results = Lists.newArrayList();
+                if (KEYS.contains(KEY_ORDER.get(index))) {
+                    results.add(KEY_ORDER.get(index));
+                }
+                String nextCursor = (index+1 < KEY_ORDER.size()) ? Integer.toString(index+1) : ScanParams.SCAN_POINTER_START;
+                return new ScanResult<String>(nextCursor, results);
             }
             @Override
             public Long del(String key) {
                 return (KEYS.remove(key)) ? 1L : 0L;
             }
+            @Override
+            public Long del(String... keys) {
+                long count = 0;
+                for (String key : keys) {
+                    count += del(key);
+                }
+                return count;
+            }
         };
     }
 }
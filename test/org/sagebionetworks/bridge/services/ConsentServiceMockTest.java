@@ -24,6 +24,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -68,6 +69,8 @@ public class ConsentServiceMockTest {
     private SubpopulationService subpopService;
     @Mock
     private Subpopulation subpopulation;
+    @Mock
+    private CacheProvider cacheProvider;
 
     private Study study;
     private StudyParticipant participant;
@@ -83,6 +86,7 @@ public class ConsentServiceMockTest {
         consentService.setActivityEventService(activityEventService);
         consentService.setStudyConsentService(studyConsentService);
         consentService.setSubpopulationService(subpopService);
+        consentService.setCacheProvider(cacheProvider);
         
         study = TestUtils.getValidStudy(ConsentServiceMockTest.class);
         
@@ -200,6 +204,7 @@ public class ConsentServiceMockTest {
         ArgumentCaptor<MimeTypeEmailProvider> emailCaptor = ArgumentCaptor.forClass(MimeTypeEmailProvider.class);
         
         verify(accountDao).getAccount(study, participant.getId());
+        verify(cacheProvider).setUserSessionStale(participant.getId());
         verify(accountDao).updateAccount(captor.capture());
         // It happens twice because we do it the first time to set up the test properly
         //verify(account, times(2)).getConsentSignatures(setterCaptor.capture());
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -97,6 +99,22 @@ public class ExternalIdServiceTest {
         verifyNoMoreInteractions(optionsService);
     }
     
+    @Test
+    public void reserveNextAvailableExternalIdWithVerification() {
+        STUDY.setExternalIdValidationEnabled(true);
+        when(externalIdDao.reserveNextAvailableExternalId(STUDY.getStudyIdentifier())).thenReturn(EXT_ID);
+        
+        assertEquals(EXT_ID, externalIdService.reserveNextAvailableExternalId(STUDY));
+    }
+    
+    @Test
+    public void reserveNextAvailableExternalIdWithoutVerification() {
+        STUDY.setExternalIdValidationEnabled(false);
+        
+        assertNull(externalIdService.reserveNextAvailableExternalId(STUDY));
+        verifyNoMoreInteractions(externalIdDao);
+    }
+    
     @Test
     public void assignExternalIdWithVerification() {
         STUDY.setExternalIdValidationEnabled(true);
@@ -1,14 +1,13 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY;
 import static org.sagebionetworks.bridge.dao.ParticipantOption.EXTERNAL_IDENTIFIER;
-import static org.sagebionetworks.bridge.dao.ParticipantOption.DATA_GROUPS;
 
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
-import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -22,6 +21,7 @@ import org.sagebionetworks.bridge.dao.FPHSExternalIdentifierDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoFPHSExternalIdentifier;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.FPHSExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
@@ -89,30 +89,25 @@ public class FPHSServiceTest {
             service.registerExternalIdentifier(TEST_STUDY, "BBB", externalId);
             fail("Exception should have been thrown");
         } catch(EntityNotFoundException e) {
-            verify(dao).verifyExternalId(externalId);
+            // The identifier is checked and claimed in one call, before any options are set.
             verify(dao).registerExternalId(externalId);
             verifyNoMoreInteractions(dao);
-            
-            // Options service will be called. The id may not be registered, if so, the call
-            // can be called again, the service calls are idempotent. Or else it actually was 
-            // recorded, in which case it's also fine, despite the exception.
-            verify(optionsService).getOptions("BBB");
-            verify(optionsService).setString(TEST_STUDY, "BBB", EXTERNAL_IDENTIFIER, externalId.getIdentifier());
-            verify(optionsService).setStringSet(TEST_STUDY, "BBB", DATA_GROUPS, Sets.newHashSet("football_player"));
             verifyNoMoreInteractions(optionsService);
         }
     }
     
     @Test
     public void failureToSetExternalIdRollsBackRegistration() throws Exception {
-        doThrow(new RuntimeException()).when(dao).verifyExternalId(any());
+        doReturn(new ParticipantOptionsLookup(Maps.newHashMap())).when(optionsService).getOptions("BBB");
+        doThrow(new RuntimeException()).when(optionsService).setString(TEST_STUDY, "BBB", EXTERNAL_IDENTIFIER,
+                externalId.getIdentifier());
         try {
             service.registerExternalIdentifier(TEST_STUDY, "BBB", externalId);
             fail("Exception should have been thrown");
         } catch(RuntimeException e) {
-            verify(dao).verifyExternalId(externalId);
+            verify(dao).registerExternalId(externalId);
+            verify(dao).unregisterExternalId(externalId);
             verifyNoMoreInteractions(dao);
-            verifyNoMoreInteractions(optionsService);
         }
     }
     
@@ -128,6 +123,16 @@ public class FPHSServiceTest {
         verify(dao).getExternalIds();
     }
     
+    @Test
+    public void getExternalIdentifiersPage() throws Exception {
+        PagedResourceList<FPHSExternalIdentifier> page = new PagedResourceList<FPHSExternalIdentifier>(
+                Lists.newArrayList(new DynamoFPHSExternalIdentifier("foo")), null, API_DEFAULT_PAGE_SIZE, 1);
+        when(dao.getExternalIds(false, "bar", API_DEFAULT_PAGE_SIZE)).thenReturn(page);
+        
+        assertEquals(page, service.getExternalIdentifiers(false, "bar", null));
+        verify(dao).getExternalIds(false, "bar", API_DEFAULT_PAGE_SIZE);
+    }
+    
     @Test
     public void addExternalIdentifiers() throws Exception {
         List<FPHSExternalIdentifier> identifiers = Lists.newArrayList(FPHSExternalIdentifier.create("AAA"),
@@ -6,10 +6,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
@@ -18,6 +21,8 @@ import org.sagebionetworks.bridge.dynamodb.DynamoHealthDataDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoHealthDataRecord;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.healthdata.RecordExportStatusRequest;
 
@@ -136,6 +141,48 @@ public class HealthDataServiceTest {
         assertEquals("baz healthcode", recordList.get(2).getHealthCode());
     }
 
+    @Test(expected = BadRequestException.class)
+    public void exportRecordsForUploadDateInvalidUploadDate() throws Exception {
+        new HealthDataService().exportRecordsForUploadDate("2014-02-31", null, new StringWriter());
+    }
+
+    @Test
+    public void exportRecordsForUploadDateSuccess() throws Exception {
+        HealthDataRecord fooRecord = DAO.getRecordBuilder().withHealthCode("foo healthcode")
+                .withSchemaId("dummy schema").withSchemaRevision(3).withStudyId("dummy study").build();
+        HealthDataRecord barRecord = DAO.getRecordBuilder().withHealthCode("bar healthcode")
+                .withSchemaId("dummy schema").withSchemaRevision(3).withStudyId("dummy study").build();
+
+        // Two pages, the second of which is the last.
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        when(mockDao.getRecordPageForUploadDate("2014-02-12", null)).thenReturn(
+                new PagedResourceList<>(ImmutableList.of(fooRecord), null, 500, 1).withOffsetKey("foo record"));
+        when(mockDao.getRecordPageForUploadDate("2014-02-12", "foo record")).thenReturn(
+                new PagedResourceList<>(ImmutableList.of(barRecord), null, 500, 1));
+
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+
+        // execute and validate. The first page ends with the offset key of the next.
+        StringWriter writer = new StringWriter();
+        svc.exportRecordsForUploadDate("2014-02-12", null, writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("foo healthcode", BridgeObjectMapper.get().readTree(lines[0]).get("healthCode").textValue());
+        JsonNode offsetNode = BridgeObjectMapper.get().readTree(lines[1]);
+        assertEquals("foo record", offsetNode.get("offsetKey").textValue());
+        assertEquals("OffsetKey", offsetNode.get("type").textValue());
+
+        // The last page has no offset key.
+        writer = new StringWriter();
+        svc.exportRecordsForUploadDate("2014-02-12", "foo record", writer);
+
+        lines = writer.toString().split("\n");
+        assertEquals(1, lines.length);
+        assertEquals("bar healthcode", BridgeObjectMapper.get().readTree(lines[0]).get("healthCode").textValue());
+    }
+
     @Test(expected = InvalidEntityException.class)
     public void updateRecordsWithExporterStatusNullRecordIds() {
         RecordExportStatusRequest request = new RecordExportStatusRequest();
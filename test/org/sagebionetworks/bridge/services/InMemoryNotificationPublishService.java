@@ -0,0 +1,51 @@
+package org.sagebionetworks.bridge.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+
+/**
+ * Fake {@link NotificationPublishService} for tests. Records the messages published to each endpoint, and fails
+ * publishes to an endpoint with the exceptions queued for that endpoint, in order, before succeeding.
+ */
+public class InMemoryNotificationPublishService implements NotificationPublishService {
+    private final Map<String, List<NotificationMessage>> published = Maps.newHashMap();
+    private final Map<String, Queue<RuntimeException>> failures = Maps.newHashMap();
+    private final Map<String, Integer> attempts = Maps.newHashMap();
+    private int messageCount;
+
+    /** The next publish to this endpoint will throw this exception. */
+    public synchronized void failNext(String endpointARN, RuntimeException exception) {
+        failures.computeIfAbsent(endpointARN, key -> Lists.newLinkedList()).add(exception);
+    }
+
+    /** The messages successfully published to this endpoint. */
+    public synchronized List<NotificationMessage> getPublished(String endpointARN) {
+        return ImmutableList.copyOf(published.getOrDefault(endpointARN, ImmutableList.of()));
+    }
+
+    /** The number of times publishing to this endpoint was attempted, including failures. */
+    public synchronized int getAttempts(String endpointARN) {
+        return attempts.getOrDefault(endpointARN, 0);
+    }
+
+    @Override
+    public synchronized String publish(@Nonnull String endpointARN, @Nonnull NotificationMessage message) {
+        attempts.merge(endpointARN, 1, Integer::sum);
+
+        Queue<RuntimeException> queue = failures.get(endpointARN);
+        if (queue != null && !queue.isEmpty()) {
+            throw queue.remove();
+        }
+        published.computeIfAbsent(endpointARN, key -> Lists.newArrayList()).add(message);
+        return "message-" + (++messageCount);
+    }
+}
@@ -23,6 +23,7 @@ import org.sagebionetworks.bridge.dao.NotificationTopicDao;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationTopic;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sns.model.PublishRequest;
@@ -47,6 +48,7 @@ public class NotificationTopicServiceTest {
         service = new NotificationTopicService();
         service.setNotificationTopicDao(mockTopicDao);
         service.setSnsClient(mockSnsClient);
+        service.setCircuitBreaker(new CircuitBreaker("sns", 5, 30, 10));
     }
     
     @Test
@@ -28,6 +28,7 @@ import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
 import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sns.model.InvalidParameterException;
@@ -72,7 +73,11 @@ public class NotificationsServiceTest {
         service = new NotificationsService();
         service.setStudyService(mockStudyService);
         service.setNotificationRegistrationDao(mockRegistrationDao);
-        service.setSnsClient(mockSnsClient);
+        
+        NotificationPublishViaSnsService publishService = new NotificationPublishViaSnsService();
+        publishService.setSnsClient(mockSnsClient);
+        publishService.setCircuitBreaker(new CircuitBreaker("sns", 5, 30, 10));
+        service.setNotificationPublishService(publishService);
         
         Map<String,String> map = Maps.newHashMap();
         map.put(OS_NAME, PLATFORM_ARN);
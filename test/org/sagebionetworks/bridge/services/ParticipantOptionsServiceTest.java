@@ -14,20 +14,30 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ParticipantOption;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.dao.ParticipantOptionsDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.accounts.AllParticipantOptionsLookup;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
 import org.sagebionetworks.bridge.models.accounts.ParticipantOptionsLookup;
@@ -42,12 +52,15 @@ public class ParticipantOptionsServiceTest {
     
     private ParticipantOptionsService service;
     private ParticipantOptionsDao mockDao;
+    private CacheProvider mockCacheProvider;
     
     @Before
     public void before() {
         service = new ParticipantOptionsService();
         mockDao = mock(ParticipantOptionsDao.class);
         service.setParticipantOptionsDao(mockDao);
+        mockCacheProvider = mock(CacheProvider.class);
+        service.setCacheProvider(mockCacheProvider);
         
         Study study = new DynamoStudy();
         study.setDataGroups(Sets.newHashSet("A","B","group1","group2","group3"));
@@ -57,8 +70,13 @@ public class ParticipantOptionsServiceTest {
     public void setBoolean() {
         service.setBoolean(TEST_STUDY, HEALTH_CODE, EMAIL_NOTIFICATIONS, true);
 
-        verify(mockDao).setOption(TEST_STUDY, HEALTH_CODE, EMAIL_NOTIFICATIONS, Boolean.TRUE.toString());
+        // The change is made to the saved options, and the cached options are removed before and after it
+        InOrder inOrder = inOrder(mockCacheProvider, mockDao);
+        inOrder.verify(mockCacheProvider).removeParticipantOptions(HEALTH_CODE);
+        inOrder.verify(mockDao).setOption(TEST_STUDY, HEALTH_CODE, EMAIL_NOTIFICATIONS, "true");
+        inOrder.verify(mockCacheProvider).removeParticipantOptions(HEALTH_CODE);
         verifyNoMoreInteractions(mockDao);
+        verifyNoMoreInteractions(mockCacheProvider);
     }
     
     @Test
@@ -103,10 +121,24 @@ public class ParticipantOptionsServiceTest {
     @Test
     public void setAllOptions() {
         Map<ParticipantOption,String> options = Maps.newHashMap();
+        options.put(EXTERNAL_IDENTIFIER, "BBB");
+        options.put(DATA_GROUPS, "group2");
         service.setAllOptions(TEST_STUDY, HEALTH_CODE, options);
         
-        verify(mockDao).setAllOptions(TEST_STUDY, HEALTH_CODE, options);
+        InOrder inOrder = inOrder(mockCacheProvider, mockDao);
+        inOrder.verify(mockCacheProvider).removeParticipantOptions(HEALTH_CODE);
+        inOrder.verify(mockDao).setAllOptions(TEST_STUDY, HEALTH_CODE, options);
+        inOrder.verify(mockCacheProvider).removeParticipantOptions(HEALTH_CODE);
         verifyNoMoreInteractions(mockDao);
+        verifyNoMoreInteractions(mockCacheProvider);
+    }
+    
+    @Test
+    public void setAllOptionsWithNoOptionsDoesNothing() {
+        service.setAllOptions(TEST_STUDY, HEALTH_CODE, Maps.newHashMap());
+        
+        verifyNoMoreInteractions(mockDao);
+        verifyNoMoreInteractions(mockCacheProvider);
     }
     
     @Test
@@ -158,6 +190,7 @@ public class ParticipantOptionsServiceTest {
         service.deleteAllParticipantOptions(HEALTH_CODE);
         
         verify(mockDao).deleteAllOptions(HEALTH_CODE);
+        verify(mockCacheProvider, times(2)).removeParticipantOptions(HEALTH_CODE);
         verifyNoMoreInteractions(mockDao);
     }
     
@@ -166,6 +199,7 @@ public class ParticipantOptionsServiceTest {
         service.deleteOption(HEALTH_CODE, DATA_GROUPS);
         
         verify(mockDao).deleteOption(HEALTH_CODE, DATA_GROUPS);
+        verify(mockCacheProvider, times(2)).removeParticipantOptions(HEALTH_CODE);
         verifyNoMoreInteractions(mockDao);
     }
 
@@ -177,14 +211,100 @@ public class ParticipantOptionsServiceTest {
         ParticipantOptionsLookup lookup = new ParticipantOptionsLookup(map);
         
         when(mockDao.getOptions(HEALTH_CODE)).thenReturn(lookup);
+        when(mockCacheProvider.getParticipantOptionsVersion(HEALTH_CODE)).thenReturn("3");
         
         ParticipantOptionsLookup result = service.getOptions(HEALTH_CODE);
         assertEquals(lookup.getStringSet(DATA_GROUPS), result.getStringSet(DATA_GROUPS));
         
-        verify(mockDao).getOptions(HEALTH_CODE);
+        // Cached only if the options haven't changed since the version was read
+        InOrder inOrder = inOrder(mockCacheProvider, mockDao);
+        inOrder.verify(mockCacheProvider).getParticipantOptionsVersion(HEALTH_CODE);
+        inOrder.verify(mockDao).getOptions(HEALTH_CODE);
+        inOrder.verify(mockCacheProvider).addParticipantOptions(HEALTH_CODE, "3", map);
         verifyNoMoreInteractions(mockDao);
     }
     
+    @Test
+    public void getOptionsFromDynamoWhenCacheFails() {
+        when(mockCacheProvider.getParticipantOptions(HEALTH_CODE)).thenThrow(new BridgeServiceException("No Redis"));
+        when(mockDao.getOptions(HEALTH_CODE)).thenReturn(new ParticipantOptionsLookup(map(DATA_GROUPS, "a,b,c")));
+        
+        ParticipantOptionsLookup result = service.getOptions(HEALTH_CODE);
+        assertEquals(Sets.newHashSet("a","b","c"), result.getStringSet(DATA_GROUPS));
+        
+        verify(mockCacheProvider, never()).addParticipantOptions(any(), any(), any());
+    }
+    
+    @Test
+    public void getOptionsWhenOptionsCannotBeCached() {
+        when(mockDao.getOptions(HEALTH_CODE)).thenReturn(new ParticipantOptionsLookup(map(DATA_GROUPS, "a,b,c")));
+        doThrow(new BridgeServiceException("No Redis")).when(mockCacheProvider).addParticipantOptions(any(), any(),
+                any());
+        
+        ParticipantOptionsLookup result = service.getOptions(HEALTH_CODE);
+        assertEquals(Sets.newHashSet("a","b","c"), result.getStringSet(DATA_GROUPS));
+    }
+    
+    @Test
+    public void deleteOptionFailsWhenCacheCannotBeRemoved() {
+        doThrow(new BridgeServiceException("No Redis")).when(mockCacheProvider).removeParticipantOptions(HEALTH_CODE);
+        
+        try {
+            service.deleteOption(HEALTH_CODE, DATA_GROUPS);
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            // expected
+        }
+        verify(mockDao, never()).deleteOption(any(), any());
+    }
+    
+    @Test
+    public void getOptionsFromCache() {
+        when(mockCacheProvider.getParticipantOptions(HEALTH_CODE)).thenReturn(map(DATA_GROUPS, "a,b,c"));
+        
+        ParticipantOptionsLookup result = service.getOptions(HEALTH_CODE);
+        assertEquals(Sets.newHashSet("a","b","c"), result.getStringSet(DATA_GROUPS));
+        
+        verifyNoMoreInteractions(mockDao);
+    }
+    
+    @Test
+    public void setOptionDoesNotUseCachedOptions() {
+        when(mockCacheProvider.getParticipantOptions(HEALTH_CODE)).thenReturn(map(DATA_GROUPS, "group1"));
+        
+        service.setString(TEST_STUDY, HEALTH_CODE, EXTERNAL_IDENTIFIER, "BBB");
+        
+        verify(mockDao).setOption(TEST_STUDY, HEALTH_CODE, EXTERNAL_IDENTIFIER, "BBB");
+        verify(mockCacheProvider, never()).getParticipantOptions(any());
+    }
+    
+    @Test
+    public void setOptionFailsWhenCacheCannotBeRemoved() {
+        doThrow(new BridgeServiceException("No Redis")).when(mockCacheProvider).removeParticipantOptions(any());
+        
+        try {
+            service.setString(TEST_STUDY, HEALTH_CODE, EXTERNAL_IDENTIFIER, "BBB");
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            // expected
+        }
+        verifyNoMoreInteractions(mockDao);
+    }
+    
+    @Test
+    public void setOptionFailsWhenChangedCacheCannotBeRemoved() {
+        doNothing().doThrow(new BridgeServiceException("No Redis")).when(mockCacheProvider)
+                .removeParticipantOptions(any());
+        
+        try {
+            service.setString(TEST_STUDY, HEALTH_CODE, EXTERNAL_IDENTIFIER, "BBB");
+            fail("Should have thrown exception");
+        } catch(BridgeServiceException e) {
+            // expected
+        }
+        verify(mockDao).setOption(TEST_STUDY, HEALTH_CODE, EXTERNAL_IDENTIFIER, "BBB");
+    }
+    
     @Test
     public void getOptionForAllStudyParticipants() {
         AllParticipantOptionsLookup allLookup = new AllParticipantOptionsLookup();
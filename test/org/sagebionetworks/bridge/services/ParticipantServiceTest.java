@@ -45,11 +45,13 @@ import org.sagebionetworks.bridge.dao.AccountDao;
 import org.sagebionetworks.bridge.dao.ParticipantOption;
 import org.sagebionetworks.bridge.dao.ParticipantOption.SharingScope;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
+import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
+import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountStatus;
 import org.sagebionetworks.bridge.models.accounts.Email;
@@ -61,12 +63,14 @@ import org.sagebionetworks.bridge.models.accounts.UserConsentHistory;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.accounts.Withdrawal;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
+import org.sagebionetworks.bridge.models.schedules.ScheduledActivity;
 import org.sagebionetworks.bridge.models.studies.PasswordPolicy;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.subpopulations.ConsentSignature;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -193,6 +197,13 @@ public class ParticipantServiceTest {
         participantService.setNotificationsService(notificationsService);
     }
     
+    private void mockActivityHistoryPage() {
+        List<DynamoScheduledActivity> activities = ImmutableList.of(new DynamoScheduledActivity());
+        PagedResourceList<DynamoScheduledActivity> page = new PagedResourceList<>(activities, null, 30, 1)
+                .withOffsetKey("nextKey");
+        doReturn(page).when(activityDao).getActivityHistory(HEALTH_CODE, "key", 30);
+    }
+    
     private void mockHealthCodeAndAccountRetrieval() {
         doReturn(ID).when(account).getId();
         doReturn(account).when(accountDao).constructAccount(STUDY, EMAIL, PASSWORD);
@@ -273,6 +284,19 @@ public class ParticipantServiceTest {
         verify(externalIdService).assignExternalId(STUDY, USERS_HEALTH_CODE, HEALTH_CODE);
     }
     
+    @Test
+    public void createParticipantWithoutExternalIdIsRejected() {
+        STUDY.setExternalIdValidationEnabled(true);
+        
+        try {
+            participantService.createParticipant(STUDY, CALLER_ROLES, NO_ID_PARTICIPANT, false);
+            fail("Should have thrown exception");
+        } catch(InvalidEntityException e) {
+        }
+        verifyNoMoreInteractions(externalIdService);
+        verifyNoMoreInteractions(accountDao);
+    }
+    
     @Test
     public void createParticipantWithInvalidParticipant() {
         // It doesn't get more invalid than this...
@@ -555,6 +579,7 @@ public class ParticipantServiceTest {
         
         participantService.updateParticipant(STUDY, CALLER_ROLES, PARTICIPANT);
         
+        verify(cacheProvider).setUserSessionStale(ID);
         verifyNoMoreInteractions(externalIdService);
         verify(optionsService).setAllOptions(eq(STUDY.getStudyIdentifier()), eq(HEALTH_CODE), optionsCaptor.capture());
         Map<ParticipantOption, String> options = optionsCaptor.getValue();
@@ -763,7 +788,7 @@ public class ParticipantServiceTest {
     public void canGetActivityHistoryWithDefaults() {
         mockHealthCodeAndAccountRetrieval();
         
-        participantService.getActivityHistory(STUDY, ID, null, null);
+        participantService.getActivityHistory(STUDY, ID, null, null, false);
         
         verify(activityDao).getActivityHistory(HEALTH_CODE, null, 50);
     }
@@ -772,7 +797,7 @@ public class ParticipantServiceTest {
     public void canGetActivityHistoryLimitMinPaging() {
         mockHealthCodeAndAccountRetrieval();
         try {
-            participantService.getActivityHistory(STUDY, ID, null, 2);    
+            participantService.getActivityHistory(STUDY, ID, null, 2, true);    
             fail("Should have thrown an exception");
         } catch(BadRequestException e) {
             assertEquals("pageSize must be from 5-100 records", e.getMessage());
@@ -784,7 +809,7 @@ public class ParticipantServiceTest {
     public void canGetActivityHistoryLimitMaxPaging() {
         mockHealthCodeAndAccountRetrieval();
         try {
-            participantService.getActivityHistory(STUDY, ID, null, 102);    
+            participantService.getActivityHistory(STUDY, ID, null, 102, true);    
             fail("Should have thrown an exception");
         } catch(BadRequestException e) {
             assertEquals("pageSize must be from 5-100 records", e.getMessage());
@@ -795,15 +820,51 @@ public class ParticipantServiceTest {
     @Test
     public void canGetActivityHistory() {
         mockHealthCodeAndAccountRetrieval();
+        mockActivityHistoryPage();
+        doReturn(73).when(activityDao).getActivityHistoryCount(HEALTH_CODE);
         
-        participantService.getActivityHistory(STUDY, ID, "key", 30);
+        PagedResourceList<? extends ScheduledActivity> page = participantService.getActivityHistory(STUDY, ID,
+                "key", 30, true);
         
         verify(activityDao).getActivityHistory(HEALTH_CODE, "key", 30);
+        assertEquals(73, page.getTotal());
+        assertEquals(30, page.getPageSize());
+        assertEquals("nextKey", page.getOffsetKey());
+        assertEquals(1, page.getItems().size());
+        // The count is cached for the next page.
+        verify(cacheProvider).setActivityHistoryCount(HEALTH_CODE, 73);
+    }
+    
+    @Test
+    public void getActivityHistoryUsesCachedCount() {
+        mockHealthCodeAndAccountRetrieval();
+        mockActivityHistoryPage();
+        doReturn(73).when(cacheProvider).getActivityHistoryCount(HEALTH_CODE);
+        
+        PagedResourceList<? extends ScheduledActivity> page = participantService.getActivityHistory(STUDY, ID,
+                "key", 30, true);
+        
+        assertEquals(73, page.getTotal());
+        verify(activityDao, never()).getActivityHistoryCount(HEALTH_CODE);
+    }
+    
+    @Test
+    public void getActivityHistoryWithoutTotalDoesNotCount() {
+        mockHealthCodeAndAccountRetrieval();
+        mockActivityHistoryPage();
+        
+        PagedResourceList<? extends ScheduledActivity> page = participantService.getActivityHistory(STUDY, ID,
+                "key", 30, false);
+        
+        assertEquals(1, page.getTotal());
+        assertEquals("nextKey", page.getOffsetKey());
+        verify(activityDao, never()).getActivityHistoryCount(HEALTH_CODE);
+        verify(cacheProvider, never()).getActivityHistoryCount(HEALTH_CODE);
     }
     
     @Test(expected = EntityNotFoundException.class)
     public void getActivityHistoryNoUserThrowsCorrectException() {
-        participantService.getActivityHistory(STUDY, ID, null, 40);
+        participantService.getActivityHistory(STUDY, ID, null, 40, true);
     }
     
     @Test
@@ -813,6 +874,7 @@ public class ParticipantServiceTest {
         participantService.deleteActivities(STUDY, ID);
         
         verify(activityDao).deleteActivitiesForUser(HEALTH_CODE);
+        verify(cacheProvider).removeActivityHistoryCount(HEALTH_CODE);
     }
     
     @Test(expected = EntityNotFoundException.class)
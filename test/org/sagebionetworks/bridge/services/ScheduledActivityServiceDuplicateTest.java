@@ -23,6 +23,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
@@ -149,6 +150,9 @@ public class ScheduledActivityServiceDuplicateTest {
     @Mock
     SchedulePlanService schedulePlanService;
     
+    @Mock
+    CacheProvider cacheProvider;
+    
     ScheduledActivityService service;
     
     ScheduleContext.Builder contextBuilder;
@@ -162,6 +166,7 @@ public class ScheduledActivityServiceDuplicateTest {
         service.setScheduledActivityDao(activityDao);
         service.setActivityEventService(activityEventService);
         service.setSchedulePlanService(schedulePlanService);
+        service.setCacheProvider(cacheProvider);
         
         contextBuilder = new ScheduleContext.Builder()
                 .withClientInfo(ClientInfo.fromUserAgentCache("Lilly/25 (iPhone Simulator; iPhone OS/9.3) BridgeSDK/12"))
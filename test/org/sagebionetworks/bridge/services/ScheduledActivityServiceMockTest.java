@@ -33,6 +33,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.ScheduledActivityDao;
 import org.sagebionetworks.bridge.dynamodb.DynamoSchedulePlan;
 import org.sagebionetworks.bridge.dynamodb.DynamoScheduledActivity;
@@ -90,6 +91,9 @@ public class ScheduledActivityServiceMockTest {
     @Mock
     private Survey survey;
     
+    @Mock
+    private CacheProvider cacheProvider;
+    
     private DateTime endsOn;
     
     @SuppressWarnings("unchecked")
@@ -129,6 +133,7 @@ public class ScheduledActivityServiceMockTest {
         service.setScheduledActivityDao(activityDao);
         service.setActivityEventService(activityEventService);
         service.setSurveyService(surveyService);
+        service.setCacheProvider(cacheProvider);
     }
     
     @After
@@ -185,6 +190,21 @@ public class ScheduledActivityServiceMockTest {
         assertTrue(activities.size() > 0);
     }
     
+    @Test
+    public void savingNewActivitiesRemovesCachedHistoryCount() {
+        ScheduleContext context = new ScheduleContext.Builder()
+                .withStudyIdentifier(TEST_STUDY)
+                .withTimeZone(DateTimeZone.UTC)
+                .withAccountCreatedOn(ENROLLMENT.minusHours(2))
+                .withEndsOn(endsOn)
+                .withHealthCode(HEALTH_CODE)
+                .withUserId(USER_ID).build();        
+        
+        // None of the activities have been persisted, so they are all saved.
+        service.getScheduledActivities(context);
+        verify(cacheProvider).removeActivityHistoryCount(HEALTH_CODE);
+    }
+    
     @Test
     public void surveysAreResolved() {
         ScheduleContext context = new ScheduleContext.Builder()
@@ -273,6 +293,7 @@ public class ScheduledActivityServiceMockTest {
     public void deleteScheduledActivitiesForUser() {
         service.deleteActivitiesForUser("AAA");
         verify(activityDao).deleteActivitiesForUser("AAA");
+        verify(cacheProvider).removeActivityHistoryCount("AAA");
     }
     
     @Test(expected = IllegalArgumentException.class)
@@ -28,6 +28,7 @@ import org.sagebionetworks.bridge.models.subpopulations.StudyConsent;
 import org.sagebionetworks.bridge.models.subpopulations.StudyConsentView;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.services.email.ConsentEmailProvider;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.amazonaws.regions.Region;
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
@@ -71,6 +72,7 @@ public class SendMailViaAmazonServiceConsentTest {
         service = new SendMailViaAmazonService();
         service.setSupportEmail(FROM_DEFAULT_UNFORMATTED);
         service.setEmailClient(emailClient);
+        service.setCircuitBreaker(new CircuitBreaker("ses", 5, 30, 10));
         
         subpopulation = Subpopulation.create();
         subpopulation.setGuidString("api");
@@ -0,0 +1,84 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import org.sagebionetworks.bridge.dao.StudyConsentDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.models.subpopulations.StudyConsent;
+import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
+import org.sagebionetworks.bridge.s3.S3Helper;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StudyConsentServiceMockTest {
+
+    private static final SubpopulationGuid SUBPOP_GUID = SubpopulationGuid.create("subpopGuid");
+    private static final long CREATED_ON = 1000L;
+    private static final String STORAGE_PATH = "subpopGuid.1000";
+    private static final String DOCUMENT = "<p>This is the consent document.</p>";
+
+    @Mock
+    private StudyConsentDao studyConsentDao;
+
+    @Mock
+    private S3Helper s3Helper;
+
+    @Mock
+    private StudyConsent consent;
+
+    private StudyConsentService service;
+
+    @Before
+    public void before() {
+        service = new StudyConsentService();
+        service.setStudyConsentDao(studyConsentDao);
+        service.setS3Helper(s3Helper);
+        service.setCircuitBreaker(new CircuitBreaker("s3", 1, 30, 10));
+
+        when(consent.getStoragePath()).thenReturn(STORAGE_PATH);
+        when(studyConsentDao.getConsent(SUBPOP_GUID, CREATED_ON)).thenReturn(consent);
+    }
+
+    @Test
+    public void cachedDocumentReturnedWhenCircuitIsOpen() throws Exception {
+        when(s3Helper.readS3FileAsString(any(), any())).thenReturn(DOCUMENT)
+                .thenThrow(new IOException("S3 is down"));
+
+        assertEquals(DOCUMENT, service.getConsent(SUBPOP_GUID, CREATED_ON).getDocumentContent());
+        try {
+            service.getConsent(SUBPOP_GUID, CREATED_ON);
+            fail("Should have thrown an exception");
+        } catch(BridgeServiceException e) {
+            // expected, and this opens the circuit
+        }
+        assertEquals(DOCUMENT, service.getConsent(SUBPOP_GUID, CREATED_ON).getDocumentContent());
+        verify(s3Helper, times(2)).readS3FileAsString(any(), any());
+    }
+
+    @Test(expected = DependencyUnavailableException.class)
+    public void circuitOpenWithoutCachedDocument() throws Exception {
+        when(s3Helper.readS3FileAsString(any(), any())).thenThrow(new IOException("S3 is down"));
+
+        try {
+            service.getConsent(SUBPOP_GUID, CREATED_ON);
+            fail("Should have thrown an exception");
+        } catch(BridgeServiceException e) {
+            // expected, and this opens the circuit
+        }
+        service.getConsent(SUBPOP_GUID, CREATED_ON);
+    }
+}
@@ -28,6 +28,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.bridge.BridgeConstants;
 import org.sagebionetworks.bridge.TestUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.cache.StudyRegistry;
 import org.sagebionetworks.bridge.dao.DirectoryDao;
 import org.sagebionetworks.bridge.dao.StudyDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
@@ -38,8 +39,12 @@ import org.sagebionetworks.bridge.models.studies.EmailTemplate;
 import org.sagebionetworks.bridge.models.studies.MimeType;
 import org.sagebionetworks.bridge.models.studies.PasswordPolicy;
 import org.sagebionetworks.bridge.models.studies.Study;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifier;
+import org.sagebionetworks.bridge.models.studies.StudyIdentifierImpl;
+import org.sagebionetworks.bridge.models.studies.StudyRegistryEntry;
 import org.sagebionetworks.bridge.validators.StudyValidator;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import org.sagebionetworks.client.SynapseClient;
 import org.sagebionetworks.client.exceptions.SynapseException;
@@ -79,6 +84,8 @@ public class StudyServiceMockTest {
     @Mock
     private CacheProvider cacheProvider;
     @Mock
+    private StudyRegistry studyRegistry;
+    @Mock
     private SubpopulationService subpopService;
     @Mock
     private EmailVerificationService emailVerificationService;
@@ -99,6 +106,8 @@ public class StudyServiceMockTest {
         service.setDirectoryDao(directoryDao);
         service.setValidator(new StudyValidator());
         service.setCacheProvider(cacheProvider);
+        service.setSingleFlightLoader(TestUtils.getSingleFlightLoader());
+        service.setStudyRegistry(studyRegistry);
         service.setSubpopulationService(subpopService);
         service.setEmailVerificationService(emailVerificationService);
         service.setSynapseClient(mockSynapseClient);
@@ -133,6 +142,64 @@ public class StudyServiceMockTest {
         verify(directoryDao).updateDirectoryForStudy(study);
     }
 
+    @Test
+    public void getStudiesLoadsRegisteredStudiesFromCache() {
+        Study studyA = getTestStudy();
+        studyA.setIdentifier("study-a");
+        studyA.setVersion(2L);
+        Study studyB = getTestStudy();
+        studyB.setIdentifier("study-b");
+        studyB.setVersion(5L);
+        when(studyRegistry.getEntries()).thenReturn(ImmutableList.of(new StudyRegistryEntry("study-a", true, 2L),
+                new StudyRegistryEntry("study-b", false, 5L)));
+        when(cacheProvider.getStudy("study-a")).thenReturn(studyA);
+        when(cacheProvider.getStudy("study-b")).thenReturn(studyB);
+
+        List<Study> studies = service.getStudies();
+        assertEquals(ImmutableList.of(studyA, studyB), studies);
+
+        verify(studyDao, never()).getStudies();
+        verify(cacheProvider, never()).removeStudy(anyString());
+    }
+
+    @Test
+    public void getStudiesReloadsStaleCachedStudy() {
+        Study staleStudy = getTestStudy();
+        staleStudy.setVersion(2L);
+        Study currentStudy = getTestStudy();
+        currentStudy.setVersion(3L);
+        when(studyRegistry.getEntries()).thenReturn(ImmutableList.of(new StudyRegistryEntry("test-study", true, 3L)));
+        when(cacheProvider.getStudy("test-study")).thenReturn(staleStudy, currentStudy);
+
+        List<Study> studies = service.getStudies();
+        assertEquals(ImmutableList.of(currentStudy), studies);
+
+        verify(cacheProvider).removeStudy("test-study");
+    }
+
+    @Test
+    public void getStudyIdentifiersDoesNotLoadStudies() {
+        when(studyRegistry.getEntries()).thenReturn(ImmutableList.of(new StudyRegistryEntry("study-a", true, 2L),
+                new StudyRegistryEntry("study-b", false, 5L)));
+
+        List<StudyIdentifier> studyIds = service.getStudyIdentifiers();
+        assertEquals(ImmutableList.of(new StudyIdentifierImpl("study-a"), new StudyIdentifierImpl("study-b")),
+                studyIds);
+
+        verify(cacheProvider, never()).getStudy(anyString());
+        verify(studyDao, never()).getStudy(anyString());
+    }
+
+    @Test
+    public void updateStudyInvalidatesRegistry() {
+        Study study = getTestStudy();
+        when(studyDao.updateStudy(study)).thenReturn(study);
+
+        service.updateStudy(study, true);
+
+        verify(studyRegistry).invalidate();
+    }
+
     @Test(expected = BadRequestException.class)
     public void deactivateStudyAlreadyDeactivatedBefore() {
         Study study = getTestStudy();
@@ -166,6 +233,24 @@ public class StudyServiceMockTest {
         verify(studyDao, never()).updateStudy(any());
     }
 
+    @Test
+    public void nonAdminsCannotChangeRequestRateLimits() throws Exception {
+        Study originalStudy = getTestStudy();
+        originalStudy.setRequestRateLimit(6000);
+        originalStudy.setParticipantRequestRateLimit(120);
+        when(studyDao.getStudy(originalStudy.getIdentifier())).thenReturn(originalStudy);
+
+        Study study = BridgeObjectMapper.get().readValue(
+                BridgeObjectMapper.get().writeValueAsString(originalStudy), Study.class);
+        study.setRequestRateLimit(100000);
+        study.setParticipantRequestRateLimit(100000);
+
+        service.updateStudy(study, false);
+
+        assertEquals(6000, study.getRequestRateLimit());
+        assertEquals(120, study.getParticipantRequestRateLimit());
+    }
+
     @Test(expected = BadRequestException.class)
     public void nonAdminsCannotSetActiveToFalse() {
         Study originalStudy = getTestStudy();
@@ -16,6 +16,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.models.DateRange;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 public class UserDataDownloadViaSqsServiceTest {
     private static final ObjectMapper JSON_OBJECT_MAPPER = new ObjectMapper();
@@ -39,6 +40,7 @@ public class UserDataDownloadViaSqsServiceTest {
         UserDataDownloadViaSqsService testService = new UserDataDownloadViaSqsService();
         testService.setBridgeConfig(mockConfig);
         testService.setSqsClient(mockSqsClient);
+        testService.setCircuitBreaker(new CircuitBreaker("sqs", 5, 30, 10));
 
         // test inputs
         DateRange dateRange = new DateRange(LocalDate.parse("2015-08-15"), LocalDate.parse("2015-08-19"));
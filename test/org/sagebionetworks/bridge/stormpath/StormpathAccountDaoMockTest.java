@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.stormpath;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -48,6 +49,9 @@ import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.crypto.BridgeEncryptor;
 import org.sagebionetworks.bridge.dynamodb.DynamoStudy;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.exceptions.ServiceUnavailableException;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.Email;
 import org.sagebionetworks.bridge.models.accounts.EmailVerification;
@@ -59,6 +63,7 @@ import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.services.HealthCodeService;
 import org.sagebionetworks.bridge.services.SubpopulationService;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.google.common.collect.Lists;
 import com.stormpath.sdk.application.Application;
@@ -135,6 +140,7 @@ public class StormpathAccountDaoMockTest {
         dao = spy(new StormpathAccountDao());
         dao.setConfig(config);
         dao.setStormpathClient(client);
+        dao.setCircuitBreaker(new CircuitBreaker("stormpath", 2, 30, 10));
         dao.setSubpopulationService(subpopService);
         dao.setStormpathApplication(application);
         dao.setHealthCodeService(healthCodeService);
@@ -284,6 +290,52 @@ public class StormpathAccountDaoMockTest {
         }
     }
 
+    @Test
+    public void stormpathErrorsOpenCircuit() {
+        com.stormpath.sdk.error.Error mockError = mock(com.stormpath.sdk.error.Error.class);
+        when(mockError.getStatus()).thenReturn(503);
+        when(mockError.getCode()).thenReturn(503);
+        when(application.sendPasswordResetEmail(anyString(), any())).thenThrow(new ResourceException(mockError));
+        when(client.getResource(study.getStormpathHref(), Directory.class)).thenReturn(directory);
+
+        Email email = new Email(study.getStudyIdentifier(), "bridge-tester+43@sagebridge.org");
+        for (int i=0; i < 2; i++) {
+            try {
+                dao.requestResetPassword(study, email);
+                fail("Should have thrown an exception");
+            } catch(ServiceUnavailableException e) {
+                assertFalse(e instanceof DependencyUnavailableException);
+            }
+        }
+        // The circuit is now open, and Stormpath is not called again.
+        try {
+            dao.requestResetPassword(study, email);
+            fail("Should have thrown an exception");
+        } catch(DependencyUnavailableException e) {
+            assertEquals("stormpath", e.getDependency());
+        }
+        verify(application, times(2)).sendPasswordResetEmail(anyString(), any());
+    }
+
+    @Test
+    public void badPasswordsDoNotOpenCircuit() {
+        com.stormpath.sdk.error.Error mockError = mock(com.stormpath.sdk.error.Error.class);
+        when(mockError.getStatus()).thenReturn(400);
+        when(mockError.getCode()).thenReturn(7100);
+        when(application.authenticateAccount(any())).thenThrow(new ResourceException(mockError));
+        when(client.getResource(study.getStormpathHref(), Directory.class)).thenReturn(directory);
+
+        for (int i=0; i < 3; i++) {
+            try {
+                dao.authenticate(study, new SignIn("dummy-user", PASSWORD));
+                fail("Should have thrown an exception");
+            } catch(EntityNotFoundException e) {
+                // expected
+            }
+        }
+        verify(application, times(3)).authenticateAccount(any());
+    }
+
     @Test
     public void updatingAccountWithNoGroupChanges() {
         Set<String> oldGroupSet = ImmutableSet.of("test_users", "worker");
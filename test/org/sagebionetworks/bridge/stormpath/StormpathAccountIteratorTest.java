@@ -17,6 +17,7 @@ import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.subpopulations.Subpopulation;
 import org.sagebionetworks.bridge.services.StudyService;
 import org.sagebionetworks.bridge.services.SubpopulationService;
+import org.sagebionetworks.bridge.util.CircuitBreaker;
 
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
@@ -92,6 +93,7 @@ public class StormpathAccountIteratorTest {
         when(subpopService.getSubpopulations(study3.getStudyIdentifier())).thenReturn(getSubpopulationList());
         
         accountDao.setStormpathClient(client);
+        accountDao.setCircuitBreaker(new CircuitBreaker("stormpath", 5, 30, 10));
         accountDao.setStudyService(studyService);
         accountDao.setSubpopulationService(subpopService);
         
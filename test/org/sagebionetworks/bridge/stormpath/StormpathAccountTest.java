@@ -5,6 +5,8 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
@@ -383,6 +385,52 @@ public class StormpathAccountTest {
         verifyOneConsentStream(SUBPOP_GUID_2, sig2);
     }
 
+    @Test
+    public void valueIsDecryptedOnce() {
+        data.put("phone", "encrypted-2-555-555-5555");
+        data.put("phone_version", 2);
+
+        assertEquals("555-555-5555", acct.getAttribute("phone"));
+        assertEquals("555-555-5555", acct.getAttribute("phone"));
+
+        verify(encryptors.get(2), times(1)).decrypt("encrypted-2-555-555-5555");
+    }
+
+    @Test
+    public void changedValueIsDecryptedAgain() {
+        data.put("phone", "encrypted-2-555-555-5555");
+        data.put("phone_version", 2);
+        assertEquals("555-555-5555", acct.getAttribute("phone"));
+
+        data.put("phone", "encrypted-2-111-222-3333");
+        assertEquals("111-222-3333", acct.getAttribute("phone"));
+    }
+
+    @Test
+    public void unchangedValueIsNotEncryptedAgain() {
+        acct.setAttribute("phone", "111-222-3333");
+        acct.setAttribute("phone", "111-222-3333");
+        verify(encryptors.get(2), times(1)).encrypt("111-222-3333");
+
+        // Reading it back doesn't decrypt it either.
+        assertEquals("111-222-3333", acct.getAttribute("phone"));
+        verify(encryptors.get(2), never()).decrypt(any());
+
+        acct.setAttribute("phone", "555-555-5555");
+        assertEquals("encrypted-2-555-555-5555", data.get("phone"));
+    }
+
+    @Test
+    public void unchangedSignaturesAreNotEncryptedAgain() throws Exception {
+        acct.getConsentSignatureHistory(SUBPOP_GUID).add(sig);
+        acct.getAccount();
+        acct.getAccount();
+
+        String json = MAPPER.writeValueAsString(acct.getConsentSignatureHistory(SUBPOP_GUID));
+        verify(encryptors.get(2), times(1)).encrypt(json);
+        assertEquals("encrypted-2-"+json, data.get("foo_consent_signatures"));
+    }
+
     @Test
     public void ifEncryptorVersionMissingDefaultToLastEncryptor() {
         // no _version for this attribute, throws NPE without setting the version
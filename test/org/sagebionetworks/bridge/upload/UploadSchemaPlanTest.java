@@ -0,0 +1,82 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.TestUtils;
+import org.sagebionetworks.bridge.dynamodb.DynamoUploadFieldDefinition;
+import org.sagebionetworks.bridge.dynamodb.DynamoUploadSchema;
+import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
+import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+
+public class UploadSchemaPlanTest {
+    private static final List<UploadFieldDefinition> FIELD_DEF_LIST = ImmutableList.of(
+            new DynamoUploadFieldDefinition.Builder().withName("attachment").withType(UploadFieldType.ATTACHMENT_V2)
+                    .withRequired(false).build(),
+            new DynamoUploadFieldDefinition.Builder().withName("int").withType(UploadFieldType.INT).build(),
+            new DynamoUploadFieldDefinition.Builder().withName("multi-choice").withType(UploadFieldType.MULTI_CHOICE)
+                    .withMultiChoiceAnswerList("foo", "bar").build(),
+            new DynamoUploadFieldDefinition.Builder().withName("multi-choice-other")
+                    .withType(UploadFieldType.MULTI_CHOICE).withMultiChoiceAnswerList("foo", "bar")
+                    .withAllowOtherChoices(true).build());
+
+    @Test
+    public void compilesFields() {
+        UploadSchemaPlan plan = UploadSchemaPlan.forSchema(makeSchema(null));
+
+        assertEquals(4, plan.getFieldList().size());
+
+        UploadSchemaPlan.Field attachment = plan.getField("attachment");
+        assertTrue(attachment.isAttachment());
+        assertFalse(attachment.isRequired());
+
+        UploadSchemaPlan.Field intField = plan.getField("int");
+        assertFalse(intField.isAttachment());
+        assertTrue(intField.isRequired());
+        assertEquals(UploadFieldType.INT, intField.getType());
+        assertEquals(new IntNode(42), intField.canonicalize(new IntNode(42)).getCanonicalizedValueNode());
+        assertFalse(intField.canonicalize(new TextNode("forty-two")).isValid());
+
+        assertEquals(ImmutableSet.of("foo", "bar"), plan.getField("multi-choice").getValidAnswerSet());
+        assertNull(plan.getField("multi-choice-other").getValidAnswerSet());
+
+        assertNull(plan.getField("not-a-field"));
+    }
+
+    @Test
+    public void cachesPersistedSchemas() {
+        UploadSchemaPlan plan = UploadSchemaPlan.forSchema(makeSchema(1L));
+        assertSame(plan, UploadSchemaPlan.forSchema(makeSchema(1L)));
+
+        // An updated revision has a new version
+        assertNotSame(plan, UploadSchemaPlan.forSchema(makeSchema(2L)));
+    }
+
+    @Test
+    public void doesNotCacheUnpersistedSchemas() {
+        UploadSchemaPlan plan = UploadSchemaPlan.forSchema(makeSchema(null));
+        assertNotSame(plan, UploadSchemaPlan.forSchema(makeSchema(null)));
+    }
+
+    private static DynamoUploadSchema makeSchema(Long version) {
+        DynamoUploadSchema schema = new DynamoUploadSchema();
+        schema.setStudyId("test-study");
+        schema.setSchemaId(TestUtils.randomName(UploadSchemaPlanTest.class));
+        schema.setRevision(1);
+        schema.setFieldDefinitions(FIELD_DEF_LIST);
+        schema.setVersion(version);
+        return schema;
+    }
+}
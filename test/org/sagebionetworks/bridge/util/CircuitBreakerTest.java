@@ -0,0 +1,238 @@
+package org.sagebionetworks.bridge.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.joda.time.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.exceptions.DependencyUnavailableException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.util.CircuitBreaker.State;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonServiceException.ErrorType;
+
+public class CircuitBreakerTest {
+
+    private static final long NOW = 1466000000000L;
+
+    /** Stand-in for an external dependency that can be made to fail. */
+    private static class FaultInjectingDependency {
+        private RuntimeException fault;
+        private int calls;
+
+        String call() {
+            calls++;
+            if (fault != null) {
+                throw fault;
+            }
+            return "OK";
+        }
+    }
+
+    private FaultInjectingDependency dependency;
+
+    private CircuitBreaker breaker;
+
+    @Before
+    public void before() {
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+        dependency = new FaultInjectingDependency();
+        breaker = new CircuitBreaker("test", 3, 30, 2);
+    }
+
+    @After
+    public void after() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    /** The SDKs wrap I/O errors (connection failures, timeouts) in their own exceptions. */
+    private static AmazonClientException ioError(String message) {
+        return new AmazonClientException("Unable to execute HTTP request: " + message, new IOException(message));
+    }
+
+    private void failCalls(int count) {
+        for (int i=0; i < count; i++) {
+            try {
+                breaker.call(dependency::call);
+                fail("Should have thrown an exception");
+            } catch(AmazonClientException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void callsAreMadeWhileClosed() {
+        assertEquals("OK", breaker.call(dependency::call));
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(1, dependency.calls);
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        dependency.fault = ioError("Unable to execute HTTP request: Read timed out");
+        failCalls(3);
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(3, breaker.getFailedCalls());
+
+        try {
+            breaker.call(dependency::call);
+            fail("Should have thrown an exception");
+        } catch(DependencyUnavailableException e) {
+            assertEquals("test", e.getDependency());
+            assertEquals(503, e.getStatusCode());
+            assertEquals(new Integer(30), e.getRetryAfterSeconds());
+        }
+        assertEquals(3, dependency.calls);
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        dependency.fault = ioError("Connection refused");
+        failCalls(2);
+        dependency.fault = null;
+        breaker.call(dependency::call);
+        assertEquals(0, breaker.getConsecutiveFailures());
+
+        dependency.fault = ioError("Connection refused");
+        failCalls(2);
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void requestErrorsAreNotFailures() {
+        AmazonServiceException clientError = new AmazonServiceException("Bad request");
+        clientError.setErrorType(ErrorType.Client);
+        dependency.fault = clientError;
+        failCalls(5);
+
+        dependency.fault = new EntityNotFoundException(Object.class);
+        for (int i=0; i < 5; i++) {
+            try {
+                breaker.call(dependency::call);
+                fail("Should have thrown an exception");
+            } catch(EntityNotFoundException e) {
+                // expected
+            }
+        }
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailedCalls());
+    }
+
+    @Test
+    public void serviceErrorsAreFailures() {
+        AmazonServiceException serviceError = new AmazonServiceException("Service unavailable");
+        serviceError.setErrorType(ErrorType.Service);
+        serviceError.setStatusCode(503);
+        assertTrue(CircuitBreaker.isFailure(serviceError));
+        assertTrue(CircuitBreaker.isFailure(ioError("Read timed out")));
+        assertTrue(CircuitBreaker.isFailure(new IOException()));
+        assertTrue(CircuitBreaker.isFailure(new BridgeServiceException(new IOException())));
+    }
+
+    @Test
+    public void otherErrorsAreNotFailures() {
+        AmazonServiceException throttled = new AmazonServiceException("Rate exceeded");
+        throttled.setErrorType(ErrorType.Client);
+        throttled.setStatusCode(400);
+        assertFalse(CircuitBreaker.isFailure(throttled));
+        assertFalse(CircuitBreaker.isFailure(new AmazonClientException("Unable to marshall request to JSON")));
+        assertFalse(CircuitBreaker.isFailure(new EntityNotFoundException(Object.class)));
+        assertFalse(CircuitBreaker.isFailure(new BridgeServiceException("Internal error")));
+        assertFalse(CircuitBreaker.isFailure(new NullPointerException()));
+    }
+
+    @Test
+    public void successfulTrialClosesCircuit() {
+        dependency.fault = ioError("Connection refused");
+        failCalls(3);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 30000L);
+        dependency.fault = null;
+        assertEquals("OK", breaker.call(dependency::call));
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals("OK", breaker.call(dependency::call));
+    }
+
+    @Test
+    public void failedTrialReopensCircuit() {
+        dependency.fault = ioError("Connection refused");
+        failCalls(3);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 30000L);
+        failCalls(1);
+        assertEquals(State.OPEN, breaker.getState());
+
+        try {
+            breaker.call(dependency::call);
+            fail("Should have thrown an exception");
+        } catch(DependencyUnavailableException e) {
+            assertEquals(new Integer(30), e.getRetryAfterSeconds());
+        }
+        assertEquals(4, dependency.calls);
+    }
+
+    @Test
+    public void onlyOneTrialCallAtATime() {
+        dependency.fault = ioError("Connection refused");
+        failCalls(3);
+
+        DateTimeUtils.setCurrentMillisFixed(NOW + 30000L);
+        dependency.fault = null;
+        breaker.run(() -> {
+            assertEquals(State.HALF_OPEN, breaker.getState());
+            try {
+                breaker.call(dependency::call);
+                fail("Should have thrown an exception");
+            } catch(DependencyUnavailableException e) {
+                // expected
+            }
+        });
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void bulkheadRejectsCallsOverLimit() {
+        breaker.run(() -> {
+            breaker.run(() -> {
+                assertEquals(2, breaker.getCallsInProgress());
+                try {
+                    breaker.call(dependency::call);
+                    fail("Should have thrown an exception");
+                } catch(DependencyUnavailableException e) {
+                    assertEquals(new Integer(CircuitBreaker.BULKHEAD_RETRY_AFTER_SECONDS),
+                            e.getRetryAfterSeconds());
+                }
+            });
+        });
+        assertEquals(0, breaker.getCallsInProgress());
+        assertEquals(1, breaker.getRejectedCalls());
+        // Rejected calls are not failures of the dependency
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, dependency.calls);
+    }
+
+    @Test
+    public void checkedExceptionsArePropagated() {
+        try {
+            breaker.call(() -> {
+                throw new IOException("No such file");
+            });
+            fail("Should have thrown an exception");
+        } catch(IOException e) {
+            assertEquals("No such file", e.getMessage());
+        }
+        assertEquals(1, breaker.getConsecutiveFailures());
+    }
+}
@@ -232,6 +232,17 @@ public class StudyValidatorTest {
         assertCorrectMessage(study, "minAgeOfConsent", "minAgeOfConsent must be zero (no minimum age of consent) or higher");
     }
     
+    @Test
+    public void cannotSetRequestRateLimitsLessThanZero() {
+        study.setRequestRateLimit(-1);
+        assertCorrectMessage(study, "requestRateLimit", "requestRateLimit must be zero (server default) or higher");
+        
+        study.setRequestRateLimit(0);
+        study.setParticipantRequestRateLimit(-1);
+        assertCorrectMessage(study, "participantRequestRateLimit",
+                "participantRequestRateLimit must be zero (server default) or higher");
+    }
+    
     @Test
     public void shortListOfDataGroupsOK() {
         study.setDataGroups(Sets.newHashSet("beta_users", "production_users", "testers", "internal"));